@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.github.demonfiddler.timer.util.SingleInstance;
+import javafx.application.Application;
+
+/**
+ * The application entry point. Unlike {@link MultiTimerApp}, this class is not
+ * a JavaFX application, so the Java launcher does not start the JavaFX toolkit
+ * before calling {@link #main(String[])}. A launch that finds the application
+ * already running can therefore hand over its files and exit within
+ * milliseconds.
+ * 
+ * @since 1.0.1
+ */
+public final class Launcher {
+	/** The directory that holds the single-instance lock and port files. */
+	private static final Path INSTANCE_DIR = Path.of(System.getProperty("user.home"), ".multi-timer");
+
+	/** The running instance, or <code>null</code> if other launches cannot reach this one. */
+	private static SingleInstance instance;
+
+	/**
+	 * Returns the running instance, through which later launches send their
+	 * files.
+	 * 
+	 * @return the running instance, or <code>null</code> if the application is
+	 *         running standalone.
+	 */
+	static SingleInstance getInstance() {
+		return instance;
+	}
+
+	/**
+	 * The main application entry point. Sends the files named on the command line
+	 * to the running instance, if there is one, otherwise launches the
+	 * application.
+	 * 
+	 * @param args Command line arguments.
+	 */
+	public static void main(String[] args) {
+		// Benchmarks and training runs must always start afresh.
+		if (!Boolean.getBoolean(MultiTimerApp.PROP_STARTUP_BENCHMARK)) {
+			try {
+				instance = SingleInstance.acquire(INSTANCE_DIR);
+				if (instance == null) {
+					List<File> files = Arrays.stream(args) //
+							.filter(arg -> !arg.startsWith("--")) //
+							.map(File::new) //
+							.collect(Collectors.toList());
+					if (SingleInstance.send(INSTANCE_DIR, files))
+						return;
+				}
+			} catch (IOException e) {
+				// Run standalone.
+				e.printStackTrace();
+			}
+		}
+		Application.launch(MultiTimerApp.class, args);
+	}
+
+	/** Private ctor prevents instantiation. */
+	private Launcher() {
+	}
+}
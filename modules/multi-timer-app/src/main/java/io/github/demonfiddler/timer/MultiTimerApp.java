@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,16 +18,27 @@
 package io.github.demonfiddler.timer;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
+import io.github.demonfiddler.timer.action.ActionExecutor;
 import io.github.demonfiddler.timer.util.Constants;
 import io.github.demonfiddler.timer.util.Images;
+import io.github.demonfiddler.timer.util.SingleInstance;
+import io.github.demonfiddler.timer.util.TimerUtils;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -39,12 +50,87 @@ import javafx.scene.input.DataFormat;
 import javafx.stage.Stage;
 
 /**
- * An application that supports multiple configurable timers.
+ * An application that supports multiple configurable timers. Each open
+ * multi-timer has its own window, but all windows share the application's
+ * {@link TimerUtils#getClock() clock}, {@link TimerUtils#EXECUTOR executor}
+ * and {@link TimerUtils#UPDATE_QUEUE update queue}, so opening another
+ * multi-timer adds no threads.
  * 
  * @since 1.0
  */
 public class MultiTimerApp extends Application {
+	/**
+	 * The system property that, when <code>true</code>, makes the application
+	 * print its time to first frame and exit. Used by startup benchmarks and by
+	 * the training run that creates the class-data sharing archive.
+	 */
+	public static final String PROP_STARTUP_BENCHMARK = "multi-timer.startup-benchmark";
+	/** The prefix of the line that reports the time to first frame. */
+	public static final String FIRST_FRAME_PREFIX = "Time to first frame: ";
+
+	/** The offset in pixels of each new window from the last one opened. */
+	private static final double CASCADE_OFFSET = 24;
+
 	private static Stage stage;
+	/** The controllers of the open windows, in the order in which they were opened. */
+	private static final List<MultiTimerController> windows = new ArrayList<>();
+	/** Completes when the parts initialised in the background are ready. */
+	private CompletableFuture<Void> warmUp;
+
+	/**
+	 * Creates a window, which is not shown, and its controller.
+	 * 
+	 * @param stage The stage to use for the window.
+	 * @return the window's controller.
+	 * @throws IOException if unable to load the FXML.
+	 */
+	static MultiTimerController createWindow(Stage stage) throws IOException {
+		FXMLLoader fxmlLoader = new FXMLLoader(MultiTimerApp.class.getResource("/timer-app.fxml"));
+		Parent root = fxmlLoader.load();
+
+		Scene scene = new Scene(root);
+		scene.getStylesheets().add(MultiTimerApp.class.getResource("/styles.css").toExternalForm());
+
+		stage.setTitle(Constants.APP_SHORT_NAME);
+		stage.getIcons().add(Images.IMG_TIMER);
+		stage.setScene(scene);
+		MultiTimerController controller = fxmlLoader.getController();
+		controller.setStage(stage);
+		windows.add(controller);
+		stage.setOnHidden(we -> windows.remove(controller));
+		return controller;
+	}
+
+	/**
+	 * Closes every window, querying to save each modified multi-timer, then exits
+	 * the application. Stops at the first window for which the user cancels.
+	 * 
+	 * @throws Exception if unable to save a file.
+	 */
+	static void exit() throws Exception {
+		for (MultiTimerController controller : new ArrayList<>(windows)) {
+			if (controller.close())
+				return;
+		}
+		Platform.exit();
+	}
+
+	/**
+	 * Returns the window in which a file is open, if any.
+	 * 
+	 * @param file The file.
+	 * @return the controller of the window showing <code>file</code>, or
+	 *         <code>null</code> if it is not open.
+	 */
+	static MultiTimerController findWindow(File file) {
+		Path path = file.toPath().toAbsolutePath().normalize();
+		for (MultiTimerController controller : windows) {
+			File open = controller.getFile();
+			if (open != null && open.toPath().toAbsolutePath().normalize().equals(path))
+				return controller;
+		}
+		return null;
+	}
 
 	/**
 	 * Returns the main application window.
@@ -55,13 +141,99 @@ public class MultiTimerApp extends Application {
 		return stage;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void init() {
+		// The JSON-B provider is slow to initialise and is not needed until a file is
+		// opened or saved, so build it while the window is being created.
+		warmUp = CompletableFuture.runAsync(TimerUtils::getJsonb, TimerUtils.getBlockingExecutor());
+	}
+
 	/**
 	 * The main application entry point.
 	 * 
 	 * @param args Command line arguments.
+	 * @see Launcher#main(String[])
 	 */
 	public static void main(String[] args) {
-		launch(args);
+		Launcher.main(args);
+	}
+
+	/**
+	 * Creates and shows a new, empty window, offset from the last window opened.
+	 * 
+	 * @return the new window's controller.
+	 * @throws IOException if unable to load the FXML.
+	 */
+	static MultiTimerController newWindow() throws IOException {
+		Stage last = windows.isEmpty() ? null : windows.get(windows.size() - 1).getStage();
+		Stage stage = new Stage();
+		MultiTimerController controller = createWindow(stage);
+		if (last != null && last.isShowing()) {
+			stage.setX(last.getX() + CASCADE_OFFSET);
+			stage.setY(last.getY() + CASCADE_OFFSET);
+		}
+		stage.show();
+		return controller;
+	}
+
+	/**
+	 * Opens files, each in the first window that has nothing open or else in a new
+	 * window. A file that is already open just brings its window to the front.
+	 * With no files, just brings the main window to the front.
+	 * 
+	 * @param files The files to open.
+	 */
+	private void openFiles(List<File> files) {
+		if (files.isEmpty() && !windows.isEmpty())
+			windows.get(0).getStage().toFront();
+		for (File file : files) {
+			if (!file.isFile())
+				continue;
+			try {
+				MultiTimerController controller = findWindow(file);
+				if (controller == null) {
+					controller = windows.stream() //
+							.filter(MultiTimerController::isEmpty) //
+							.findFirst() //
+							.orElse(null);
+					if (controller == null)
+						controller = newWindow();
+					controller.open(file);
+				}
+				controller.getStage().toFront();
+			} catch (Exception e) {
+				uncaughtException(Thread.currentThread(), e);
+			}
+		}
+	}
+
+	/**
+	 * Prints the time from process start to the first frame once the scene has
+	 * been laid out for the first time, then exits when the background
+	 * initialisation is complete.
+	 * 
+	 * @param scene The main window's scene.
+	 */
+	private void reportFirstFrame(Scene scene) {
+		scene.addPostLayoutPulseListener(new Runnable() {
+			private boolean reported;
+
+			/** {@inheritDoc} */
+			@Override
+			public void run() {
+				if (reported)
+					return;
+				reported = true;
+				// Pulse listeners cannot be removed while they are being notified.
+				Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+				long millis = ProcessHandle.current().info().startInstant()
+						.map(start -> Duration.between(start, Instant.now()).toMillis()).orElse(-1L);
+				System.out.println(FIRST_FRAME_PREFIX + millis + " ms");
+				// A training run must also load the classes that are initialised in the background.
+				warmUp.whenComplete((r, e) -> Platform.exit());
+			}
+		});
 	}
 
 	/** {@inheritDoc} */
@@ -70,27 +242,41 @@ public class MultiTimerApp extends Application {
 		Thread.setDefaultUncaughtExceptionHandler(this::uncaughtException);
 
 		MultiTimerApp.stage = stage;
+		createWindow(stage);
+		if (Boolean.getBoolean(PROP_STARTUP_BENCHMARK))
+			reportFirstFrame(stage.getScene());
+		stage.show();
 
-		FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/timer-app.fxml"));
-		Parent root = fxmlLoader.load();
-
-		Scene scene = new Scene(root);
-		scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
+		// Open any files specified as command line parameters, then any sent by later launches.
+		List<File> files = getParameters().getUnnamed().stream().map(File::new).collect(Collectors.toList());
+		openFiles(files);
+		SingleInstance instance = Launcher.getInstance();
+		if (instance != null)
+			instance.setHandler(received -> Platform.runLater(() -> openFiles(received)));
+	}
 
-		stage.setTitle(Constants.APP_SHORT_NAME);
-		stage.getIcons().add(Images.IMG_TIMER);
-		stage.setScene(scene);
-		stage.show();
+	/** {@inheritDoc} */
+	@Override
+	public void stop() throws Exception {
+		SingleInstance instance = Launcher.getInstance();
+		if (instance != null)
+			instance.close();
+		ActionExecutor.INSTANCE.shutdown();
+	}
 
-		// Open any file specified as a command line parameter.
-		List<String> files = getParameters().getUnnamed();
-		if (!files.isEmpty()) {
-			File file = new File(files.get(0));
-			if (file.exists() && file.isFile()) {
-				MultiTimerController controller = fxmlLoader.getController();
-				controller.open(file);
-			}
-		}
+	/**
+	 * Suspends cosmetic timer updates while no window is visible, because all are
+	 * minimised or hidden, and resynchronises the views in a single batch when one
+	 * is restored. Deadlines and actions are unaffected.
+	 */
+	static void updateSuspended() {
+		boolean suspended = windows.stream() //
+				.map(MultiTimerController::getStage) //
+				.noneMatch(s -> s.isShowing() && !s.isIconified());
+		if (suspended == TimerUtils.UPDATE_QUEUE.isSuspended())
+			return;
+		TimerUtils.UPDATE_QUEUE.setSuspended(suspended);
+		windows.forEach(MultiTimerController::refreshViews);
 	}
 
 	/**
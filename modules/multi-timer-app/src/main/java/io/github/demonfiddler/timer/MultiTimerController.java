@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -22,29 +22,38 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
-import javax.json.bind.Jsonb;
-import javax.json.bind.JsonbBuilder;
-import javax.json.bind.JsonbConfig;
-import javax.json.bind.config.PropertyNamingStrategy;
-
+import io.github.demonfiddler.timer.action.CommandAction;
 import io.github.demonfiddler.timer.migration.Migration;
+import io.github.demonfiddler.timer.model.ActionBean;
 import io.github.demonfiddler.timer.model.MultiTimerBean;
 import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.model.TimerGroupBean;
 import io.github.demonfiddler.timer.model.TimerState;
 import io.github.demonfiddler.timer.util.Constants;
+import io.github.demonfiddler.timer.util.CronSchedule;
 import io.github.demonfiddler.timer.util.Images;
+import io.github.demonfiddler.timer.util.Subscriptions;
+import io.github.demonfiddler.timer.util.TimerUtils;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -55,18 +64,24 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.DialogPane;
 import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.SpinnerValueFactory.IntegerSpinnerValueFactory;
+import javafx.scene.control.TextField;
+import javafx.scene.control.TextInputDialog;
+import javafx.scene.control.Tooltip;
 import javafx.scene.image.ImageView;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.scene.shape.Circle;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
+import javafx.stage.Stage;
 import javafx.util.converter.NumberStringConverter;
 
 /**
@@ -77,19 +92,13 @@ import javafx.util.converter.NumberStringConverter;
 public class MultiTimerController implements ListChangeListener<TimerBean> {
 	/** The Multi-Timer JSON file extension */
 	private static final ExtensionFilter EXTENSION_FILTER = new ExtensionFilter("Multi-Timer files", "*" + Constants.FILE_EXT_DOT_TIMERS);
-	/** The singleton Jsonb instance. */
-	private static final Jsonb JSONB;
-
-	static {
-		JsonbConfig jsonbConfig = new JsonbConfig();
-		jsonbConfig.setProperty(JsonbConfig.FORMATTING, true);
-		jsonbConfig.setProperty(JsonbConfig.PROPERTY_NAMING_STRATEGY, PropertyNamingStrategy.LOWER_CASE_WITH_DASHES);
-		// OOTB, Yasson doesn't deserialize generic list properties.
-//		JsonbBuilder builder = JsonbBuilder.newBuilder("org.eclipse.yasson.JsonBindingProvider");
-		JsonbBuilder builder = JsonbBuilder.newBuilder("org.apache.johnzon.jsonb.JohnzonProvider");
-		JSONB = builder.withConfig(jsonbConfig).build();
-	}
 
+	@FXML
+	private Label lblSchedule;
+	@FXML
+	private TextField txtSearch;
+	@FXML
+	private TextField txtSchedule;
 	@FXML
 	private CheckBox cbxDelayStart;
 	@FXML
@@ -113,11 +122,44 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	@FXML
 	private MenuItem miTimerRun;
 	@FXML
+	private MenuItem miTimerPause;
+	@FXML
 	private MenuItem miTimerAdd;
+	@FXML
+	private MenuItem miTimerAddGroup;
+	@FXML
+	private CheckMenuItem miViewDashboard;
+	@FXML
+	private CheckMenuItem miViewNext;
+	@FXML
+	private TimerDashboard dashboard;
+	@FXML
+	private NextExpirationsPanel nextExpirations;
 	private MultiTimerBean timersBean;
 	private final Map<TimerBean, TimerController> controllers = new HashMap<>();
+	private final Map<TimerGroupBean, TimerGroupController> groupControllers = new HashMap<>();
+	/** All the timers shown by the dashboard, before filtering. */
+	private final ObservableList<TimerBean> allTimers = FXCollections.observableArrayList();
+	/** The timers shown by the dashboard, which match the search text. */
+	private final FilteredList<TimerBean> filteredTimers = new FilteredList<>(allTimers);
+	/** The timers whose names contain the search text, or <code>null</code> if not searching. */
+	private Set<TimerBean> matches;
+	/** The number of matching timers in each group and its nested groups, while searching. */
+	private final Map<TimerGroupBean, Integer> groupMatches = new IdentityHashMap<>();
+	private final ListChangeListener<TimerGroupBean> groupsListener = this::onGroupsChanged;
+	/** The listeners and bindings registered on the current multi-timer bean. */
+	private final Subscriptions subscriptions = new Subscriptions();
+	/** The multiset of timer name widths, mapping each width to the number of timers with that width. */
+	private final TreeMap<Double, Integer> nameWidths = new TreeMap<>();
+	/** The name column width last applied to the timer views. */
+	private double nameWidth;
+	private boolean resizePending;
+	private Dialog<TimerBean> editDialog;
+	private TimerEditController editController;
 	private File file;
 	private boolean modified;
+	/** The window that shows this controller's view. */
+	private Stage stage;
 
 	/**
 	 * Displays the About dialogue.
@@ -136,15 +178,100 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	 * @throws Exception if unable to load FXML resources from the class path.
 	 */
 	public void add() throws Exception {
+		addTimer(timersBean.getTimers());
+	}
+
+	/**
+	 * Adds a new group, prompting for its name.
+	 */
+	public void addGroup() {
+		TextInputDialog dlg = new TextInputDialog("Group " + (timersBean.getGroups().size() + 1));
+		dlg.setTitle("Add Group");
+		dlg.setHeaderText("Enter a name for the new group.");
+		Optional<String> result = dlg.showAndWait();
+		if (result.isPresent() && !result.get().isBlank())
+			timersBean.getGroups().add(new TimerGroupBean(result.get().strip()));
+	}
+
+	/**
+	 * Adds a new timer to the specified list and opens the Edit dialog.
+	 * 
+	 * @param timers The list to which the timer is to be added.
+	 * @throws Exception if unable to load FXML resources from the class path.
+	 */
+	private void addTimer(List<TimerBean> timers) throws Exception {
 		TimerBean bean = new TimerBean();
-		bean.setName("Timer " + timersBean.getTimers().size());
+		bean.setName("Timer " + timersBean.getTimerCount());
 		bean.setIntInterval(10);
 		bean.setIntWarnAfter(8);
 		bean.setRepeat(false);
-		timersBean.getTimers().add(bean);
+		timers.add(bean);
 		setModified(true);
 		resize();
-		controllers.get(bean).addOrEdit(true);
+		editTimer(bean, true);
+	}
+
+	/**
+	 * Adds a new timer to a group and opens the Edit dialog. The group is
+	 * expanded if necessary.
+	 * 
+	 * @param group The group to which the timer is to be added.
+	 * @throws Exception if unable to load FXML resources from the class path.
+	 */
+	void addToGroup(TimerGroupBean group) throws Exception {
+		group.setCollapsed(false);
+		addTimer(group.getTimers());
+	}
+
+	/**
+	 * Creates and inserts views for the specified groups.
+	 * 
+	 * @param views  The list of views into which to insert the group views.
+	 * @param offset The index of the first group view within the list of views.
+	 * @param groups The list of groups.
+	 * @param from   The inclusive start index of the groups to add.
+	 * @param to     The exclusive end index of the groups to add.
+	 * @throws IOException if unable to load FXML resources from the class path.
+	 */
+	void addGroupViews(List<Node> views, int offset, List<? extends TimerGroupBean> groups, int from, int to)
+			throws IOException {
+		URL groupResource = getClass().getResource("/timer-group.fxml");
+		for (int i = from; i < to; i++) {
+			TimerGroupBean group = groups.get(i);
+			FXMLLoader fxmlLoader = new FXMLLoader(groupResource);
+			Parent view = fxmlLoader.load();
+			TimerGroupController controller = fxmlLoader.getController();
+			controller.setTimerAppController(this);
+			controller.setBean(group);
+			groupControllers.put(group, controller);
+			if (matches != null)
+				setShown(view, isShown(group));
+			views.add(offset + i, view);
+		}
+	}
+
+	/**
+	 * Creates and inserts views for the specified timers.
+	 * 
+	 * @param views  The list of views into which to insert the timer views.
+	 * @param timers The list of timers.
+	 * @param from   The inclusive start index of the timers to add.
+	 * @param to     The exclusive end index of the timers to add.
+	 */
+	void addTimerViews(List<Node> views, List<? extends TimerBean> timers, int from, int to) {
+		List<Node> added = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			TimerBean bean = timers.get(i);
+			TimerController controller = new TimerController();
+			controller.setTimerAppController(this);
+			controller.setBean(bean);
+			controller.setNameWidth(nameWidth);
+			controllers.put(bean, controller);
+			if (matches != null)
+				setShown(controller.getView(), isShown(bean));
+			added.add(controller.getView());
+		}
+		views.addAll(from, added);
 	}
 
 	/**
@@ -160,12 +287,15 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 		if (timersBean != null) {
 			timersBean.run(false);
 			timersBean.getTimers().clear();
+			timersBean.getGroups().clear();
 			unhookTimersBean();
 		}
 		file = null;
 		timersBean = null;
+		txtSearch.setText("");
 		cbxDelayStart.setSelected(false);
 		spiMinsOffset.getEditor().setText("");
+		txtSchedule.setText("");
 		setModified(false);
 		updateControls();
 		resize();
@@ -176,14 +306,21 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	 * Enables, disables or otherwise updates all controls as appropriate.
 	 */
 	private void updateControls() {
-		boolean disableRun = timersBean == null || timersBean.getTimers().isEmpty();
+		boolean disableRun = timersBean == null || timersBean.getTimerCount() == 0;
 		TimerState state = timersBean == null ? null : timersBean.getState();
-		boolean disableEdits = timersBean == null || state.isRunning() || state == TimerState.WAITING;
-		cbxDelayStart.setDisable(disableEdits);
-		spiMinsOffset.setDisable(disableEdits || !timersBean.getDelayStart());
+		boolean disableEdits = timersBean == null || state.isActive();
+		String schedule = txtSchedule.getText();
+		boolean hasSchedule = schedule != null && !schedule.isBlank();
+		boolean validSchedule = !hasSchedule || CronSchedule.isValid(schedule);
+		txtSearch.setDisable(timersBean == null);
+		lblSchedule.setDisable(disableEdits);
+		txtSchedule.setDisable(disableEdits);
+		txtSchedule.setStyle(validSchedule ? "" : "-fx-text-fill: red;");
+		cbxDelayStart.setDisable(disableEdits || hasSchedule);
+		spiMinsOffset.setDisable(disableEdits || hasSchedule || !timersBean.getDelayStart());
 		lblMinsOffset.setDisable(disableEdits);
 		shpState.setDisable(disableRun);
-		btnRun.setDisable(disableRun);
+		btnRun.setDisable(disableRun || !validSchedule);
 		btnAdd.setDisable(disableEdits);
 		Paint fill = Color.LIGHTGREY;
 		if (state != null) {
@@ -193,6 +330,7 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 				fill = Color.RED;
 				break;
 			case WAITING:
+			case PAUSED:
 				fill = Color.ORANGE;
 				break;
 			case RUNNING:
@@ -203,7 +341,7 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 		}
 		shpState.setFill(fill);
 		((ImageView) btnRun.getGraphic()).setImage( // split
-				state != null && (state.isRunning() || state == TimerState.WAITING) // split
+				state != null && state.isActive() // split
 						? Images.IMG_STOP
 						: Images.IMG_START);
 	}
@@ -231,7 +369,7 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	 */
 	public void delete(TimerBean bean) {
 		if (timersBean != null) {
-			((ObservableList<TimerBean>) timersBean.getTimers()).remove(bean);
+			bean.getGroup().getTimers().remove(bean);
 			setModified(true);
 			updateControls();
 			resize();
@@ -239,14 +377,101 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	}
 
 	/**
-	 * Exists the application, querying to save any open multi-timer instance before
-	 * doing so.
+	 * Deletes a group and all its members, asking for confirmation if the group is
+	 * not empty.
+	 * 
+	 * @param group The group that is to be deleted.
+	 */
+	public void deleteGroup(TimerGroupBean group) {
+		if (timersBean != null) {
+			if (group.getTimerCount() > 0) {
+				Alert dlg = new Alert(AlertType.CONFIRMATION);
+				dlg.setTitle("Delete Group");
+				dlg.setHeaderText("Delete group '" + group.getName() + "'?");
+				dlg.setContentText("The group contains " + group.getTimerCount()
+						+ " timer(s), which will also be deleted.");
+				Optional<ButtonType> result = dlg.showAndWait();
+				if (result.isEmpty() || result.get() != ButtonType.OK)
+					return;
+			}
+			group.getParent().getGroups().remove(group);
+			setModified(true);
+			updateControls();
+			resize();
+		}
+	}
+
+	/**
+	 * Shows a dialogue to enable the settings of a timer to be updated.
+	 * 
+	 * @param bean   The timer to edit.
+	 * @param adding <code>true</code> if adding a new timer; <code>false</code> if
+	 *               editing an existing one.
+	 * @throws IOException if unable to load FXML resources from the class path.
+	 */
+	void editTimer(TimerBean bean, boolean adding) throws IOException {
+		// The dialogue is modal, so a single instance loaded on first use serves every timer.
+		if (editDialog == null) {
+			FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/timer-edit.fxml"));
+			DialogPane dialogPane = fxmlLoader.load();
+			editController = fxmlLoader.getController();
+			editDialog = new Dialog<>();
+			editDialog.setDialogPane(dialogPane);
+			editDialog.setResultConverter(bt -> bt == ButtonType.OK ? editController.getBean() : null);
+		}
+		TimerBean tempBean = new TimerBean(bean);
+		editController.setBean(tempBean);
+		editDialog.setTitle(adding ? "Add Timer" : "Edit Timer");
+		Optional<TimerBean> result = editDialog.showAndWait();
+		editController.setBean(null);
+		if (result.isPresent()) {
+			bean.apply(result.get());
+			setModified(true);
+			// The timer may have been renamed into or out of the search results.
+			if (matches != null)
+				filterTimers();
+			resize();
+			dashboard.invalidate();
+		}
+	}
+
+	/**
+	 * Shows only the timers whose names contain the search text, as found by the
+	 * document's name index. The dashboard shows them through a filtered list;
+	 * the list view hides the other timers' views rather than discarding them, so
+	 * that clearing the search does not rebuild them.
+	 */
+	void filterTimers() {
+		String query = txtSearch.getText();
+		boolean wasFiltered = matches != null;
+		matches = timersBean == null || query == null || query.isEmpty() ? null
+				: timersBean.getNameIndex().search(query);
+		// Count the matches in each group once, rather than searching every group for them.
+		groupMatches.clear();
+		if (matches != null) {
+			for (TimerBean timer : matches) {
+				for (TimerGroupBean group = timer.getGroup(); group != null; group = group.getParent())
+					groupMatches.merge(group, 1, Integer::sum);
+			}
+		}
+		if (isDashboard()) {
+			filteredTimers.setPredicate(matches == null ? null : matches::contains);
+			dashboard.setTimers(filteredTimers);
+		} else if (matches != null || wasFiltered) {
+			controllers.forEach((bean, controller) -> setShown(controller.getView(), isShown(bean)));
+			groupControllers.forEach((group, controller) -> setShown(controller.getView(), isShown(group)));
+			resize();
+		}
+	}
+
+	/**
+	 * Exits the application, querying to save the multi-timer open in each window
+	 * before doing so.
 	 * 
 	 * @throws Exception if unable to save the file.
 	 */
 	public void exit() throws Exception {
-		if (!close())
-			Platform.exit();
+		MultiTimerApp.exit();
 	}
 
 	/**
@@ -255,20 +480,10 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	 * @param list The list of all timer beans.
 	 * @param from The inclusive start index of the added timer beans.
 	 * @param to   The exclusive end index of the added timer beans.
-	 * @throws IOException if unable to load FXML resources from the class path.
 	 */
-	private void handleTimersAdded(List<? extends TimerBean> list, int from, int to) throws IOException {
-		URL timerResource = getClass().getResource("/timer.fxml");
-		for (int i = from; i < to; i++) {
-			TimerBean bean = list.get(i);
-			FXMLLoader fxmlLoader = new FXMLLoader(timerResource);
-			Parent timer = fxmlLoader.load();
-			TimerController controller = fxmlLoader.getController();
-			controller.setTimerAppController(this);
-			controller.setBean(bean);
-			controllers.put(bean, controller);
-			vbxTimers.getChildren().add(i, timer);
-		}
+	private void handleTimersAdded(List<? extends TimerBean> list, int from, int to) {
+		if (!isDashboard())
+			addTimerViews(vbxTimers.getChildren(), list, from, to);
 	}
 
 	/**
@@ -279,28 +494,35 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	 * @param to   The exclusive end index of the removed timer beans.
 	 */
 	private void handleTimersRemoved(List<? extends TimerBean> list, int from, int count) {
-		for (int i = 0; i < count; i++) {
-			vbxTimers.getChildren().remove(from);
-			controllers.remove(list.get(i));
-		}
+		if (!isDashboard())
+			removeTimerViews(vbxTimers.getChildren(), list.subList(0, count), from);
 	}
 
 	/**
-	 * Registers listeners on the current mukti-timer bean's properties of interest.
+	 * Registers listeners on the current multi-timer bean's properties of interest.
 	 */
 	private void hookTimersBean() {
+		nextExpirations.setDeadlineIndex(timersBean == null ? null : timersBean.getDeadlineIndex());
 		if (timersBean != null) {
 			BooleanProperty delayStartProperty = cbxDelayStart.selectedProperty();
-			delayStartProperty.bindBidirectional(timersBean.delayStartProperty());
-			delayStartProperty.addListener((o, ov, nv) -> updateControls());
+			subscriptions.bindBidirectional(delayStartProperty, timersBean.delayStartProperty());
+			subscriptions.addChangeListener(delayStartProperty, (o, ov, nv) -> updateControls());
 			StringProperty minutesOffsetProperty = spiMinsOffset.getEditor().textProperty();
-			minutesOffsetProperty.bindBidirectional(timersBean.minutesOffsetProperty(), new NumberStringConverter());
-			timersBean.stateProperty().addListener((o, ov, nv) -> {
+			subscriptions.bindBidirectional(minutesOffsetProperty, timersBean.minutesOffsetProperty(),
+					new NumberStringConverter());
+			StringProperty scheduleProperty = txtSchedule.textProperty();
+			subscriptions.bindBidirectional(scheduleProperty, timersBean.scheduleProperty());
+			subscriptions.addChangeListener(timersBean.stateProperty(), (o, ov, nv) -> {
 				updateControls();
 			});
-			delayStartProperty.addListener((o, ov, nv) -> setModified(true));
-			minutesOffsetProperty.addListener((o, ov, nv) -> setModified(true));
-			((ObservableList<TimerBean>) timersBean.getTimers()).addListener(this);
+			subscriptions.addChangeListener(delayStartProperty, (o, ov, nv) -> setModified(true));
+			subscriptions.addChangeListener(minutesOffsetProperty, (o, ov, nv) -> setModified(true));
+			subscriptions.addChangeListener(scheduleProperty, (o, ov, nv) -> {
+				setModified(true);
+				updateControls();
+			});
+			subscriptions.addListChangeListener((ObservableList<TimerBean>) timersBean.getTimers(), this);
+			subscriptions.addListChangeListener((ObservableList<TimerGroupBean>) timersBean.getGroups(), groupsListener);
 		}
 	}
 
@@ -309,18 +531,64 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	 */
 	public void initialize() {
 		spiMinsOffset.setValueFactory(new IntegerSpinnerValueFactory(0, 59));
+		dashboard.setTimerAppController(this);
+		Tooltip.install(shpState, new Tooltip("Click to pause or resume"));
+		txtSearch.textProperty().addListener((o, ov, nv) -> filterTimers());
 		hookTimersBean();
-		MultiTimerApp.getStage().setOnCloseRequest(we -> {
-			try {
-				if (close())
-					we.consume();
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
-		});
 		updateControls();
 	}
 
+	/**
+	 * Resynchronises the views after cosmetic updates have been suspended or
+	 * resumed.
+	 * 
+	 * @see MultiTimerApp#updateSuspended()
+	 */
+	void refreshViews() {
+		controllers.values().forEach(TimerController::animate);
+		dashboard.invalidate();
+	}
+
+	/**
+	 * Returns whether the window has no multi-timer open, so that a file can be
+	 * opened in it without closing anything.
+	 * 
+	 * @return <code>true</code> if no multi-timer is open.
+	 */
+	boolean isEmpty() {
+		return timersBean == null && !modified;
+	}
+
+	/**
+	 * Returns whether a group contains any timer that matches the search text.
+	 * 
+	 * @param group The group.
+	 * @return <code>true</code> if the group's view should be shown.
+	 */
+	private boolean isShown(TimerGroupBean group) {
+		return matches == null || groupMatches.containsKey(group);
+	}
+
+	/**
+	 * Returns whether a timer matches the search text.
+	 * 
+	 * @param timer The timer.
+	 * @return <code>true</code> if the timer's view should be shown.
+	 */
+	private boolean isShown(TimerBean timer) {
+		return matches == null || matches.contains(timer);
+	}
+
+	/**
+	 * Returns whether the timers are shown in the dashboard view rather than as a
+	 * list of individual controls.
+	 * 
+	 * @return <code>true</code> if the dashboard view is showing.
+	 */
+	private boolean isDashboard() {
+		return miViewDashboard.isSelected();
+	}
+
 	/**
 	 * Navigates to the Multi-Timer project's software licence in the default web
 	 * browser application.
@@ -331,23 +599,61 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 		Desktop.getDesktop().browse(URI.create("https://www.gnu.org/licenses/gpl-3.0.html"));
 	}
 
-	/** {@inheritDoc} */
-	@Override
-	public void onChanged(Change<? extends TimerBean> c) {
-		while (c.next()) {
+	/**
+	 * Updates the controls and layout after timers or groups have been added or
+	 * removed.
+	 */
+	void membersChanged() {
+		if (isDashboard())
+			showDashboardTimers();
+		if (matches != null)
+			filterTimers();
+		setModified(true);
+		updateControls();
+		resize();
+	}
+
+	/**
+	 * Opens a new, empty window for another multi-timer.
+	 * 
+	 * @throws IOException if unable to load the window.
+	 */
+	public void newWindow() throws IOException {
+		MultiTimerApp.newWindow();
+	}
+
+	/**
+	 * Callback invoked when top-level groups are added or removed.
+	 * 
+	 * @param c The group change descriptor.
+	 */
+	private void onGroupsChanged(Change<? extends TimerGroupBean> c) {
+		ObservableList<Node> views = vbxTimers.getChildren();
+		int offset = timersBean.getTimers().size();
+		while (c.next() && !isDashboard()) {
 			try {
-				if (c.wasAdded()) {
-					handleTimersAdded(c.getList(), c.getFrom(), c.getTo());
-				} else if (c.wasRemoved()) {
-					handleTimersRemoved(c.getRemoved(), c.getFrom(), c.getRemovedSize());
-				}
+				if (c.wasRemoved())
+					removeGroupViews(views, offset, c.getRemoved(), c.getFrom());
+				if (c.wasAdded())
+					addGroupViews(views, offset, c.getList(), c.getFrom(), c.getTo());
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
 		}
-		setModified(true);
-		updateControls();
-		resize();
+		membersChanged();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void onChanged(Change<? extends TimerBean> c) {
+		while (c.next()) {
+			// A replacement, as made by setAll(), reports both a removal and an addition.
+			if (c.wasRemoved())
+				handleTimersRemoved(c.getRemoved(), c.getFrom(), c.getRemovedSize());
+			if (c.wasAdded())
+				handleTimersAdded(c.getList(), c.getFrom(), c.getTo());
+		}
+		membersChanged();
 	}
 
 	/**
@@ -358,11 +664,7 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	public void open() throws Exception {
 		if (close())
 			return;
-		FileChooser fc = new FileChooser();
-		fc.getExtensionFilters().add(EXTENSION_FILTER);
-		fc.setSelectedExtensionFilter(EXTENSION_FILTER);
-		fc.setTitle("Open Timers File");
-		File file = fc.showOpenDialog(MultiTimerApp.getStage());
+		File file = showOpenDialog();
 		if (file != null)
 			open(file);
 	}
@@ -376,7 +678,9 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	public void open(File file) throws Exception {
 		this.file = file;
 		unhookTimersBean();
-		timersBean = JSONB.fromJson(new FileInputStream(file), MultiTimerBean.class);
+		try (InputStream in = new FileInputStream(file)) {
+			timersBean = TimerUtils.getJsonb().fromJson(in, MultiTimerBean.class);
+		}
 		if (timersBean.getFormatVersion() > Constants.FORMAT_VERSION) {
 			Alert dlg = new Alert(AlertType.ERROR);
 			dlg.setTitle("Multi-Timer");
@@ -402,14 +706,83 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 				return;
 			}
 		}
+		try {
+			timersBean.validate();
+		} catch (IllegalArgumentException e) {
+			Alert dlg = new Alert(AlertType.ERROR);
+			dlg.setTitle("Multi-Timer");
+			dlg.setHeaderText("Invalid timer dependencies");
+			dlg.setContentText(e.getMessage());
+			dlg.getButtonTypes().clear();
+			dlg.getButtonTypes().addAll(ButtonType.OK);
+			dlg.showAndWait();
+			this.file = null;
+			timersBean = null;
+			updateControls();
+			return;
+		}
+		confirmCommands();
 		hookTimersBean();
-		List<TimerBean> list = timersBean.getTimers();
-		handleTimersAdded(list, 0, list.size());
+		showTimers();
 		setModified(false);
 		updateControls();
 		resize();
 	}
 
+	/**
+	 * Asks the user whether the command actions in a newly opened file may run,
+	 * since a file from someone else could otherwise run arbitrary commands. If
+	 * the user declines, the commands are disabled until the file is reopened.
+	 */
+	private void confirmCommands() {
+		List<ActionBean> commands = new ArrayList<>();
+		StringBuilder content = new StringBuilder(
+				"This file runs the following commands when its timers warn or complete. Only allow them if you trust the file.\n");
+		for (TimerBean timer : timersBean.getAllTimers()) {
+			if (!timer.hasActions())
+				continue;
+			for (ActionBean action : timer.getActions()) {
+				if (CommandAction.TYPE.equals(action.getType())) {
+					if (commands.size() < 10)
+						content.append("\n").append(timer.getName()).append(": ").append(action.getTarget());
+					commands.add(action);
+				}
+			}
+		}
+		if (commands.isEmpty())
+			return;
+		if (commands.size() > 10)
+			content.append("\n... and ").append(commands.size() - 10).append(" more");
+		Alert dlg = new Alert(AlertType.WARNING);
+		dlg.setTitle("Multi-Timer");
+		dlg.setHeaderText("Allow command actions?");
+		dlg.setContentText(content.toString());
+		dlg.getButtonTypes().clear();
+		dlg.getButtonTypes().addAll(ButtonType.YES, ButtonType.NO);
+		Optional<ButtonType> result = dlg.showAndWait();
+		if (result.isEmpty() || result.get() != ButtonType.YES)
+			commands.forEach(action -> action.setEnabled(false));
+	}
+
+	/**
+	 * Displays a File Open dialogue and opens the chosen multi-timer file, if any,
+	 * in a new window, leaving this window's multi-timer open. If the file is
+	 * already open, just brings its window to the front.
+	 * 
+	 * @throws Exception if unable to load the file.
+	 */
+	public void openInNewWindow() throws Exception {
+		File file = showOpenDialog();
+		if (file == null)
+			return;
+		MultiTimerController controller = MultiTimerApp.findWindow(file);
+		if (controller == null) {
+			controller = isEmpty() ? this : MultiTimerApp.newWindow();
+			controller.open(file);
+		}
+		controller.getStage().toFront();
+	}
+
 	/**
 	 * Displays a query dialogue asking whether to save a modified multi-timer
 	 * instance, saving if the answer is yes.
@@ -438,36 +811,207 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 		return cancel;
 	}
 
+	/**
+	 * Removes the views of the specified groups and disposes of their controllers.
+	 * 
+	 * @param views   The list of views from which to remove the group views.
+	 * @param offset  The index of the first group view within the list of views.
+	 * @param removed The removed groups.
+	 * @param from    The index of the first removed group.
+	 */
+	void removeGroupViews(List<Node> views, int offset, List<? extends TimerGroupBean> removed, int from) {
+		views.subList(offset + from, offset + from + removed.size()).clear();
+		for (TimerGroupBean group : removed) {
+			TimerGroupController controller = groupControllers.remove(group);
+			if (controller != null)
+				controller.dispose();
+		}
+	}
+
+	/**
+	 * Removes the views of the specified timers and disposes of their controllers.
+	 * 
+	 * @param views   The list of views from which to remove the timer views.
+	 * @param removed The removed timers.
+	 * @param from    The index of the first removed timer.
+	 */
+	void removeTimerViews(List<Node> views, List<? extends TimerBean> removed, int from) {
+		// Removing the views as a single range avoids a children change, and an array
+		// shift, per view.
+		views.subList(from, from + removed.size()).clear();
+		for (TimerBean bean : removed) {
+			TimerController controller = controllers.remove(bean);
+			if (controller != null)
+				controller.dispose();
+		}
+	}
+
+	/**
+	 * Returns the file from which the current multi-timer was loaded or to which
+	 * it was last saved.
+	 * 
+	 * @return the current file, or <code>null</code> if there is none.
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the width of the widest timer name.
+	 * 
+	 * @return the maximum name width, or zero if there are no timer views.
+	 */
+	private double getMaxNameWidth() {
+		return nameWidths.isEmpty() ? 0 : nameWidths.lastKey();
+	}
+
+	/**
+	 * Returns the window that shows this controller's view.
+	 * 
+	 * @return the window, or <code>null</code> if not yet set.
+	 */
+	Stage getStage() {
+		return stage;
+	}
+
+	/**
+	 * Records a change in the preferred width of a timer's name, resizing if the
+	 * widest name has changed.
+	 * 
+	 * @param oldWidth The previous width, or <code>NaN</code> if the timer view is
+	 *                 new.
+	 * @param newWidth The new width, or <code>NaN</code> if the timer view has
+	 *                 been disposed of.
+	 */
+	void nameWidthChanged(double oldWidth, double newWidth) {
+		if (!Double.isNaN(oldWidth))
+			nameWidths.computeIfPresent(oldWidth, (w, n) -> n == 1 ? null : n - 1);
+		if (!Double.isNaN(newWidth))
+			nameWidths.merge(newWidth, 1, Integer::sum);
+		if (getMaxNameWidth() != nameWidth)
+			resize();
+	}
+
 	/**
 	 * Resizes the main application window so that all controls can be displayed at
 	 * their preferred size. Also forces horizontal alignment of column 2,
-	 * containing the timer progress monitors.
+	 * containing the timer progress monitors. Requests made before the resize has
+	 * run are coalesced, so a bulk change results in a single layout pass, and
+	 * the timer views are only updated if the widest name has changed.
 	 */
 	void resize() {
+		if (resizePending)
+			return;
+		resizePending = true;
 		Platform.runLater(() -> {
-			ObservableList<Node> timers = vbxTimers.getChildren();
-			if (!timers.isEmpty()) {
-				// Determine the widest timer name.
-				Optional<Double> maxWidthOpt = timers.stream().map(n -> {
-					GridPane grdTimer = (GridPane) n;
-					return grdTimer.getChildren().get(0).prefWidth(-1);
-				}).max((w1, w2) -> (int) (w1 - w2));
-				double maxWidth = maxWidthOpt.get();
-				// Force all timer UIs to use the same width for the name column;
-				timers.forEach(n -> ((GridPane) n).getColumnConstraints().get(0).setPrefWidth(maxWidth));
+			resizePending = false;
+			double maxWidth = getMaxNameWidth();
+			if (maxWidth != nameWidth) {
+				// Force all timer UIs to use the same width for the name column.
+				nameWidth = maxWidth;
+				controllers.values().forEach(c -> c.setNameWidth(maxWidth));
 			}
-			MultiTimerApp.getStage().sizeToScene();
+			if (stage != null)
+				stage.sizeToScene();
 		});
 	}
 
+	/**
+	 * Shows all the current timers in the dashboard, subject to the search
+	 * filter.
+	 */
+	private void showDashboardTimers() {
+		allTimers.setAll(timersBean == null ? List.of() : timersBean.getAllTimers());
+		dashboard.setTimers(filteredTimers);
+	}
+
+	/**
+	 * Shows or hides a timer or group view. A hidden view keeps its place in the
+	 * list, so showing it again does not rebuild it.
+	 * 
+	 * @param view  The view.
+	 * @param shown <code>true</code> to show the view, <code>false</code> to hide
+	 *              it.
+	 */
+	private static void setShown(Node view, boolean shown) {
+		view.setVisible(shown);
+		view.setManaged(shown);
+	}
+
+	/**
+	 * Shows the current timers, either in the dashboard or as a list of individual
+	 * controls.
+	 * 
+	 * @throws IOException if unable to load FXML resources from the class path.
+	 */
+	private void showTimers() throws IOException {
+		if (isDashboard()) {
+			showDashboardTimers();
+		} else if (timersBean != null) {
+			List<TimerBean> list = timersBean.getTimers();
+			handleTimersAdded(list, 0, list.size());
+			List<TimerGroupBean> groups = timersBean.getGroups();
+			addGroupViews(vbxTimers.getChildren(), list.size(), groups, 0, groups.size());
+		}
+	}
+
+	/**
+	 * Switches between the dashboard view and the list of individual timer
+	 * controls, according to the state of the View > Dashboard menu item.
+	 * 
+	 * @throws IOException if unable to load FXML resources from the class path.
+	 */
+	public void toggleDashboard() throws IOException {
+		boolean showDashboard = isDashboard();
+		if (showDashboard && timersBean != null) {
+			// Dispose of the individual timer views, which the dashboard replaces.
+			List<TimerBean> list = timersBean.getTimers();
+			removeGroupViews(vbxTimers.getChildren(), list.size(), timersBean.getGroups(), 0);
+			removeTimerViews(vbxTimers.getChildren(), list, 0);
+		} else {
+			allTimers.clear();
+			dashboard.setTimers(List.of());
+		}
+		vbxTimers.setVisible(!showDashboard);
+		vbxTimers.setManaged(!showDashboard);
+		dashboard.setVisible(showDashboard);
+		dashboard.setManaged(showDashboard);
+		showTimers();
+		resize();
+	}
+
+	/**
+	 * Shows or hides the panel that lists the next timer deadlines, according to
+	 * the state of the View > Next Expirations menu item.
+	 */
+	public void toggleNextExpirations() {
+		boolean showNext = miViewNext.isSelected();
+		nextExpirations.setVisible(showNext);
+		nextExpirations.setManaged(showNext);
+		resize();
+	}
+
+	/**
+	 * Pauses the running timers of the current multi-timer instance or, if none
+	 * is running, resumes its paused timers.
+	 */
+	public void pause() {
+		if (timersBean != null) {
+			TimerState state = timersBean.getState();
+			if (state.isRunning())
+				timersBean.pause(true);
+			else if (state == TimerState.PAUSED)
+				timersBean.pause(false);
+		}
+	}
+
 	/**
 	 * Starts or stops the current multi-timer instance.
 	 */
 	public void run() {
 		if (timersBean != null) {
 			TimerState state = timersBean.getState();
-			boolean stop = state.isRunning() || state == TimerState.WAITING;
-			timersBean.run(!stop);
+			timersBean.run(!state.isActive());
 		}
 	}
 
@@ -495,7 +1039,9 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	 */
 	private void save0() throws Exception {
 		if (file != null) {
-			JSONB.toJson(timersBean, new FileOutputStream(file));
+			try (OutputStream out = new FileOutputStream(file)) {
+				TimerUtils.getJsonb().toJson(timersBean, out);
+			}
 			setModified(false);
 		}
 	}
@@ -517,7 +1063,7 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 			fc.setInitialFileName(file.getName());
 		}
 		boolean cancel = false;
-		File newFile = fc.showSaveDialog(MultiTimerApp.getStage());
+		File newFile = fc.showSaveDialog(stage);
 		if (newFile != null) {
 			file = newFile;
 			save0();
@@ -538,6 +1084,25 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 		setWindowTitle();
 	}
 
+	/**
+	 * Sets the window that shows this controller's view, and hooks its events.
+	 * 
+	 * @param stage The window.
+	 */
+	void setStage(Stage stage) {
+		this.stage = stage;
+		stage.iconifiedProperty().addListener(o -> MultiTimerApp.updateSuspended());
+		stage.showingProperty().addListener(o -> MultiTimerApp.updateSuspended());
+		stage.setOnCloseRequest(we -> {
+			try {
+				if (close())
+					we.consume();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
 	/**
 	 * Sets the window title to reflect the name of the currently open file, and
 	 * whether it has been modified.
@@ -550,15 +1115,29 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 			name = file.getName();
 			name = " - " + name.substring(0, name.length() - Constants.FILE_EXT_DOT_TIMERS.length());
 		}
-		MultiTimerApp.getStage().setTitle(Constants.APP_SHORT_NAME + name + (modified ? "*" : ""));
+		if (stage != null)
+			stage.setTitle(Constants.APP_SHORT_NAME + name + (modified ? "*" : ""));
+	}
+
+	/**
+	 * Displays a File Open dialogue for a multi-timer file.
+	 * 
+	 * @return the chosen file, or <code>null</code> if the user cancelled.
+	 */
+	private File showOpenDialog() {
+		FileChooser fc = new FileChooser();
+		fc.getExtensionFilters().add(EXTENSION_FILTER);
+		fc.setSelectedExtensionFilter(EXTENSION_FILTER);
+		fc.setTitle("Open Timers File");
+		return fc.showOpenDialog(stage);
 	}
 
 	/**
 	 * Removes listeners from the current multi-timer instance.
 	 */
 	private void unhookTimersBean() {
-		if (timersBean != null)
-			((ObservableList<TimerBean>) timersBean.getTimers()).removeListener(this);
+		subscriptions.dispose();
+		nextExpirations.setDeadlineIndex(null);
 	}
 
 	/**
@@ -580,11 +1159,14 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 	 */
 	public void onTimerMenuShowing(Event e) {
 		boolean empty = timersBean == null;
-		boolean isRunningOrWaiting = !empty && timersBean.getState().isRunningOrWaiting();
-		String runText = isRunningOrWaiting ? "_Stop" : "_Start";
+		TimerState state = empty ? TimerState.STOPPED : timersBean.getState();
+		String runText = state.isActive() ? "_Stop" : "_Start";
 		miTimerRun.setText(runText);
-		miTimerRun.setDisable(empty || timersBean.getTimers().isEmpty());
+		miTimerRun.setDisable(empty || timersBean.getTimerCount() == 0);
+		miTimerPause.setText(state == TimerState.PAUSED ? "Res_ume" : "_Pause");
+		miTimerPause.setDisable(!state.isRunning() && state != TimerState.PAUSED);
 		miTimerAdd.setDisable(empty);
+		miTimerAddGroup.setDisable(empty);
 	}
 
 	/**
@@ -631,6 +1213,17 @@ public class MultiTimerController implements ListChangeListener<TimerBean> {
 			e.consume();
 	}
 
+	/**
+	 * Enables or disables processing of the Pause command when invoked using its
+	 * accelerator key combination.
+	 * 
+	 * @param e The corresponding event.
+	 */
+	public void validatePause(Event e) {
+		if (timersBean == null)
+			e.consume();
+	}
+
 	/**
 	 * Enables or disables processing of the Add command when invoked using its
 	 * accelerator key combination.
@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.github.demonfiddler.timer.model.DeadlineIndex;
+import io.github.demonfiddler.timer.model.DeadlineIndex.Deadline;
+import io.github.demonfiddler.timer.model.TimerState;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+/**
+ * A live view of the next few deadlines of a document's running timers, read
+ * from its {@link DeadlineIndex}. Each row shows the state that the timer will
+ * enter, its name and the time left until then, soonest first. The index is
+ * only queried again when its {@link DeadlineIndex#getModCount() modification
+ * count} changes, and the rows are only redrawn when that happens or the
+ * displayed seconds change, so the cost of a frame does not depend on the
+ * number of timers.
+ * 
+ * @since 1.0.1
+ */
+public class NextExpirationsPanel extends Region {
+	/** The default number of deadlines shown. */
+	public static final int DEFAULT_COUNT = 5;
+	/** The height of a row. */
+	static final double ROW_HEIGHT = 20;
+	/** The horizontal gap between and around the row contents. */
+	private static final double GAP = 4;
+	/** The diameter of the state indicator. */
+	private static final double STATE_SIZE = 10;
+	/** The width reserved for the time left. */
+	private static final double TIME_WIDTH = 56;
+	private static final Font FONT = Font.font(12);
+	private static final Font HEADER_FONT = Font.font(null, FontWeight.BOLD, 12);
+
+	private final Canvas canvas = new Canvas();
+	private final AnimationTimer animationTimer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			if (!TimerUtils.UPDATE_QUEUE.isSuspended())
+				refresh();
+		}
+	};
+	private DeadlineIndex index;
+	private int count = DEFAULT_COUNT;
+	private List<Deadline> deadlines = Collections.emptyList();
+	/** The index modification count when the deadlines were last read. */
+	private long readModCount = -1;
+	/** The clock second when the rows were last drawn. */
+	private long drawnSecond = -1;
+	private boolean dirty = true;
+
+	/**
+	 * Constructs a new <code>NextExpirationsPanel</code>.
+	 */
+	public NextExpirationsPanel() {
+		getChildren().add(canvas);
+		// Only animate while the panel is showing.
+		visibleProperty().addListener((o, ov, nv) -> updateAnimation());
+		sceneProperty().addListener((o, ov, nv) -> updateAnimation());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected double computePrefHeight(double width) {
+		return ROW_HEIGHT * (count + 1);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected double computePrefWidth(double height) {
+		return TimerDashboard.CELL_WIDTH;
+	}
+
+	/**
+	 * Draws the header and the deadlines.
+	 * 
+	 * @param now The current time, in milliseconds since the epoch.
+	 */
+	private void draw(long now) {
+		dirty = false;
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		double width = canvas.getWidth();
+		gc.clearRect(0, 0, width, canvas.getHeight());
+		gc.setTextBaseline(VPos.CENTER);
+		gc.setFill(Color.BLACK);
+		gc.setFont(HEADER_FONT);
+		gc.fillText(deadlines.isEmpty() ? "No upcoming expirations" : "Next expirations", GAP, ROW_HEIGHT / 2);
+		gc.setFont(FONT);
+		double nameWidth = Math.max(width - STATE_SIZE - TIME_WIDTH - 4 * GAP, 0);
+		for (int i = 0; i < deadlines.size(); i++) {
+			Deadline deadline = deadlines.get(i);
+			double midY = (i + 1.5) * ROW_HEIGHT;
+			double x = GAP;
+			gc.setFill(TimerDashboard.getStateColor(deadline.getState()));
+			gc.fillOval(x, midY - STATE_SIZE / 2, STATE_SIZE, STATE_SIZE);
+			x += STATE_SIZE + GAP;
+			gc.setFill(Color.BLACK);
+			String verb = deadline.getState() == TimerState.WARNING ? " warns" : " finishes";
+			gc.fillText(deadline.getTimer().getName() + verb, x, midY, nameWidth);
+			x += nameWidth + GAP;
+			gc.fillText(TimerDashboard.formatRemaining(Math.max(deadline.getTime() - now, 0)), x, midY, TIME_WIDTH);
+		}
+	}
+
+	/**
+	 * Returns the deadlines shown at the last refresh.
+	 * 
+	 * @return the deadlines, soonest first.
+	 */
+	List<Deadline> getDeadlines() {
+		return deadlines;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void layoutChildren() {
+		canvas.setWidth(getWidth());
+		canvas.setHeight(getHeight());
+		dirty = true;
+	}
+
+	/**
+	 * Reads the deadlines again if the index has changed, and redraws them if
+	 * they or the displayed time have changed.
+	 */
+	void refresh() {
+		long modCount = index == null ? -1 : index.getModCount();
+		if (modCount != readModCount) {
+			readModCount = modCount;
+			deadlines = index == null ? Collections.emptyList() : index.next(count);
+			dirty = true;
+		}
+		long now = TimerUtils.getClock().currentTimeMillis();
+		long second = now / 1000;
+		if (second != drawnSecond && !deadlines.isEmpty()) {
+			drawnSecond = second;
+			dirty = true;
+		}
+		if (dirty)
+			draw(now);
+	}
+
+	/**
+	 * Sets the number of deadlines to show.
+	 * 
+	 * @param count The number of deadlines.
+	 * @throws IllegalArgumentException if <code>count</code> is negative.
+	 */
+	public void setCount(int count) {
+		if (count < 0)
+			throw new IllegalArgumentException("count cannot be negative");
+		this.count = count;
+		readModCount = -2;
+		requestLayout();
+	}
+
+	/**
+	 * Sets the index from which to read the deadlines.
+	 * 
+	 * @param index The deadline index, or <code>null</code> to show none.
+	 */
+	public void setDeadlineIndex(DeadlineIndex index) {
+		this.index = index;
+		// Force the deadlines to be read on the next refresh.
+		readModCount = -2;
+	}
+
+	/**
+	 * Starts or stops the animation timer according to whether the panel is
+	 * showing.
+	 */
+	private void updateAnimation() {
+		if (isVisible() && getScene() != null) {
+			dirty = true;
+			animationTimer.start();
+		} else {
+			animationTimer.stop();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,57 +21,157 @@ import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Optional;
 import java.util.TimeZone;
 
 import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.model.TimerState;
 import io.github.demonfiddler.timer.util.Images;
-import javafx.beans.binding.ObjectBinding;
-import javafx.beans.binding.StringBinding;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import io.github.demonfiddler.timer.util.Subscriptions;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import javafx.animation.Interpolator;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.beans.InvalidationListener;
+import javafx.beans.binding.Binding;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.HPos;
+import javafx.geometry.Pos;
+import javafx.geometry.VPos;
 import javafx.scene.control.Button;
-import javafx.scene.control.ButtonType;
-import javafx.scene.control.Dialog;
-import javafx.scene.control.DialogPane;
+import javafx.scene.control.ButtonBar;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Tooltip;
+import javafx.scene.effect.Glow;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.RowConstraints;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
 import javafx.scene.shape.Circle;
+import javafx.scene.shape.StrokeType;
+import javafx.util.Duration;
 
 /**
- * The controller that links the view and model for a single timer instance.
+ * The controller that links the view and model for a single timer instance. The
+ * view is built programmatically rather than loaded from FXML, because parsing
+ * FXML for every timer makes opening a file with thousands of timers take
+ * seconds.
  * @since 1.0
  */
 public class TimerController {
 	private static final DateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm:ss.SSS");
+	/** The tooltip on the state indicator, shared by all timers because each tooltip is a popup window. */
+	private static Tooltip pauseTooltip;
 
 	static {
 		TIME_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
 	}
 
-	@FXML
-	private GridPane grid;
-	@FXML
-	private Label lblName;
-	@FXML
-	private ProgressBar prgComplete;
-	@FXML
-	private Circle shpState;
-	@FXML
-	private Label lblElapsed;
-	@FXML
-	private Button btnRun;
-	@FXML
-	private Button btnEdit;
-	@FXML
-	private Button btnDelete;
+	private final GridPane grid = new GridPane();
+	private final Label lblName = new Label("Label");
+	private final ProgressBar prgComplete = new ProgressBar(0.0);
+	private final Circle shpState = new Circle(8.0, Color.RED);
+	private final Label lblElapsed = new Label("Elapsed");
+	private final Button btnRun = createButton(Images.IMG_START);
+	private final Button btnEdit = createButton(Images.IMG_EDIT);
+	private final Button btnDelete = createButton(Images.IMG_DELETE);
 	private MultiTimerController timerAppController;
 	private TimerBean bean;
+	/** The displayed progress, interpolated between updates from the timer. */
+	private final DoubleProperty displayProgress = new SimpleDoubleProperty();
+	/** The displayed remaining time, interpolated between updates from the timer. */
+	private final LongProperty displayRemainingMillis = new SimpleLongProperty();
+	/** Animates the displayed progress and remaining time towards the timer's deadline. */
+	private final Timeline animation = new Timeline();
+	private final InvalidationListener timerListener = o -> animate();
+	private final ChangeListener<Number> widthListener = (o, ov, nv) -> updateProgressResolution();
+	/** The listeners and bindings registered on the timer. */
+	private final Subscriptions subscriptions = new Subscriptions();
+	/** The width of the timer name last reported to the multi-timer controller, or <code>NaN</code> if none. */
+	private double nameWidth = Double.NaN;
+
+	/**
+	 * Constructs a new <code>TimerController</code> and its view.
+	 */
+	public TimerController() {
+		ColumnConstraints nameColumn = new ColumnConstraints();
+		nameColumn.setFillWidth(false);
+		ColumnConstraints progressColumn = new ColumnConstraints();
+		progressColumn.setHgrow(Priority.ALWAYS);
+		progressColumn.setMaxWidth(Double.MAX_VALUE);
+		ColumnConstraints elapsedColumn = new ColumnConstraints();
+		elapsedColumn.setFillWidth(false);
+		ColumnConstraints stateColumn = new ColumnConstraints();
+		stateColumn.setFillWidth(false);
+		ColumnConstraints buttonsColumn = new ColumnConstraints();
+		buttonsColumn.setFillWidth(false);
+		RowConstraints row = new RowConstraints();
+		row.setVgrow(Priority.SOMETIMES);
+
+		grid.setAlignment(Pos.CENTER_RIGHT);
+		grid.setHgap(4.0);
+		grid.setVgap(4.0);
+		grid.setMaxWidth(Double.MAX_VALUE);
+		grid.getColumnConstraints().addAll(nameColumn, progressColumn, elapsedColumn, stateColumn, buttonsColumn);
+		grid.getRowConstraints().add(row);
+
+		btnRun.setOnAction(e -> run());
+		btnEdit.setOnAction(e -> {
+			try {
+				edit();
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+		});
+		btnDelete.setOnAction(e -> delete());
+		// The name's preferred width changes with its text, and is only known once the label has a skin.
+		InvalidationListener nameListener = o -> updateNameWidth();
+		lblName.textProperty().addListener(nameListener);
+		lblName.skinProperty().addListener(nameListener);
+		prgComplete.setMaxWidth(Double.MAX_VALUE);
+		shpState.setStroke(Color.BLACK);
+		shpState.setStrokeType(StrokeType.INSIDE);
+		shpState.setEffect(new Glow());
+		shpState.setOnMouseClicked(e -> pause());
+		Tooltip.install(shpState, pauseTooltip());
+		ButtonBar buttonBar = new ButtonBar();
+		buttonBar.setButtonMinWidth(32.0);
+		buttonBar.getButtons().addAll(btnRun, btnEdit, btnDelete);
+
+		grid.add(lblName, 0, 0);
+		grid.add(prgComplete, 1, 0);
+		grid.add(lblElapsed, 2, 0);
+		grid.add(shpState, 3, 0);
+		grid.add(buttonBar, 4, 0);
+		GridPane.setValignment(lblName, VPos.CENTER);
+		GridPane.setConstraints(prgComplete, 1, 0, 1, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, null);
+		GridPane.setConstraints(lblElapsed, 2, 0, 1, 1, HPos.CENTER, VPos.CENTER);
+		GridPane.setConstraints(shpState, 3, 0, 1, 1, null, VPos.CENTER, Priority.NEVER, Priority.NEVER);
+		GridPane.setConstraints(buttonBar, 4, 0, 1, 1, HPos.CENTER, VPos.CENTER);
+	}
+
+	/**
+	 * Creates a toolbar button.
+	 * @param image The button image.
+	 * @return the new button.
+	 */
+	private static Button createButton(Image image) {
+		ImageView imageView = new ImageView(image);
+		imageView.setPickOnBounds(true);
+		imageView.setPreserveRatio(true);
+		Button button = new Button(null, imageView);
+		button.setMnemonicParsing(false);
+		return button;
+	}
 
 	/**
 	 * Shows a dialogue to enable the timer settings to be updated.
@@ -79,21 +179,26 @@ public class TimerController {
 	 * @throws Exception if unable to load FXML resources from the class path.
 	 */
 	void addOrEdit(boolean adding) throws IOException {
-		FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/timer-edit.fxml"));
-		DialogPane dialogPane = fxmlLoader.load();
-		TimerEditController controller = fxmlLoader.getController();
-		TimerBean tempBean = new TimerBean(bean);
-		controller.setBean(tempBean);
-
-		Dialog<TimerBean> dialog = new Dialog<>();
-		dialog.setTitle(adding ? "Add Timer" : "Edit Timer");
-		dialog.setDialogPane(dialogPane);
-		dialog.setResultConverter(bt -> bt == ButtonType.OK ? tempBean : null);
-		Optional<TimerBean> result = dialog.showAndWait();
-		if (result.isPresent()) {
-			bean.apply(result.get());
-			timerAppController.setModified(true);
-			timerAppController.resize();
+		timerAppController.editTimer(bean, adding);
+	}
+
+	/**
+	 * Synchronises the displayed progress and remaining time with the timer and, if
+	 * the timer is running, animates them linearly towards the timer's deadline.
+	 * Called whenever the timer publishes an update or changes state, so the
+	 * animation is corrected at least once a second. No animation runs while UI
+	 * updates are suspended.
+	 */
+	void animate() {
+		animation.stop();
+		long remainingMillis = bean.getRemainingMillis();
+		displayProgress.set(bean.getProgress());
+		displayRemainingMillis.set(remainingMillis);
+		if (bean.getState().isRunning() && remainingMillis > 0 && !TimerUtils.UPDATE_QUEUE.isSuspended()) {
+			animation.getKeyFrames().setAll(new KeyFrame(Duration.millis(remainingMillis),
+					new KeyValue(displayProgress, 1.0, Interpolator.LINEAR),
+					new KeyValue(displayRemainingMillis, 0L, Interpolator.LINEAR)));
+			animation.playFromStart();
 		}
 	}
 
@@ -105,6 +210,18 @@ public class TimerController {
 		timerAppController.delete(bean);
 	}
 
+	/**
+	 * Unbinds the view from the timer.
+	 */
+	void dispose() {
+		if (!Double.isNaN(nameWidth)) {
+			timerAppController.nameWidthChanged(nameWidth, Double.NaN);
+			nameWidth = Double.NaN;
+		}
+		unhookTimerBean();
+		bean = null;
+	}
+
 	/**
 	 * Shows a dialogue to enable the timer settings to be updated.
 	 * @throws Exception if unable to load FXML resources from the class path.
@@ -113,74 +230,100 @@ public class TimerController {
 		addOrEdit(false);
 	}
 
+	/**
+	 * Returns the view managed by this controller.
+	 * @return the timer view.
+	 */
+	GridPane getView() {
+		return grid;
+	}
+
 	/**
 	 * Binds the editable properties of the timer model to the corresponding view elements in the user interface.
 	 */
 	private void hookTimerBean() {
-		lblName.textProperty().bind(bean.nameProperty());
-		prgComplete.progressProperty().bind(bean.progressProperty());
-		lblElapsed.textProperty().bind(new StringBinding() {
-			{
-				super.bind(bean.remainingMillisProperty());
-			}
-
-			@Override
-			protected String computeValue() {
-				Date remainingDate = new Date();
-				remainingDate.setTime(bean.getRemainingMillis());
-				return TIME_FORMAT.format(remainingDate);
-			}
-		});
-		shpState.fillProperty().bind(new ObjectBinding<Paint>() {
-			{
-				super.bind(bean.stateProperty());
+		subscriptions.bind(lblName.textProperty(), bean.nameProperty());
+		subscriptions.bind(prgComplete.progressProperty(), displayProgress);
+		subscriptions.bind(lblElapsed.textProperty(), binding(Bindings.createStringBinding(() -> {
+			Date remainingDate = new Date();
+			remainingDate.setTime(displayRemainingMillis.get());
+			return TIME_FORMAT.format(remainingDate);
+		}, displayRemainingMillis)));
+		// The remaining time is always updated after the progress.
+		subscriptions.addInvalidationListener(bean.remainingMillisProperty(), timerListener);
+		subscriptions.addInvalidationListener(bean.stateProperty(), timerListener);
+		subscriptions.addChangeListener(prgComplete.widthProperty(), widthListener);
+		subscriptions.add(animation::stop);
+		updateProgressResolution();
+		updateNameWidth();
+		animate();
+		TimerBean bean = this.bean;
+		subscriptions.bind(shpState.fillProperty(), binding(Bindings.createObjectBinding(() -> {
+			switch (bean.getState()) {
+			case COMPLETE:
+			case STOPPED:
+				return Color.RED;
+			case WAITING:
+			case WARNING:
+			case PAUSED:
+				return Color.ORANGE;
+			case RUNNING:
+				return Color.GREEN;
 			}
+			return null;
+		}, bean.stateProperty())));
+		subscriptions.bind(((ImageView) btnRun.getGraphic()).imageProperty(),
+				binding(Bindings.createObjectBinding(() -> {
+					switch (bean.getState()) {
+					case STOPPED:
+					case COMPLETE:
+						btnEdit.setDisable(false);
+						btnDelete.setDisable(false);
+						return Images.IMG_START;
+					case WAITING:
+					case RUNNING:
+					case WARNING:
+					case PAUSED:
+						btnEdit.setDisable(true);
+						btnDelete.setDisable(true);
+						return Images.IMG_STOP;
+					default:
+						return null;
+					}
+				}, bean.stateProperty())));
+	}
 
-			@Override
-			protected Paint computeValue() {
-				switch (bean.getState()) {
-				case COMPLETE:
-				case STOPPED:
-					return Color.RED;
-				case WAITING:
-				case WARNING:
-					return Color.ORANGE;
-				case RUNNING:
-					return Color.GREEN;
-				}
-				return null;
-			}
-		});
-		((ImageView) btnRun.getGraphic()).imageProperty().bind(new ObjectBinding<Image>() {
-			{
-				super.bind(bean.stateProperty());
-			}
+	/**
+	 * Arranges for a binding to be disposed of, detaching it from its
+	 * dependencies, when the view is unbound from the timer.
+	 * @param <T> The binding type.
+	 * @param binding The binding.
+	 * @return the binding.
+	 */
+	private <T extends Binding<?>> T binding(T binding) {
+		subscriptions.add(binding::dispose);
+		return binding;
+	}
 
-			@Override
-			protected Image computeValue() {
-				switch (bean.getState()) {
-				case STOPPED:
-				case COMPLETE:
-					btnEdit.setDisable(false);
-					btnDelete.setDisable(false);
-					return Images.IMG_START;
-				case WAITING:
-				case RUNNING:
-				case WARNING:
-					btnEdit.setDisable(true);
-					btnDelete.setDisable(true);
-					return Images.IMG_STOP;
-				default:
-					return null;
-				}
-			}
-		});
+	/**
+	 * Returns the tooltip for the state indicator, creating it on first use.
+	 * @return the shared tooltip.
+	 */
+	private static Tooltip pauseTooltip() {
+		if (pauseTooltip == null)
+			pauseTooltip = new Tooltip("Click to pause or resume");
+		return pauseTooltip;
 	}
 
 	/**
-	 * Called by the JavaFX framework to initialise the controller.
+	 * Pauses the timer if it is running, or resumes it if it is paused.
 	 */
-	public void initialize() {
+	public void pause() {
+		TimerState state = bean.getState();
+		if (state.isRunning())
+			bean.pause();
+		else if (state == TimerState.PAUSED)
+			bean.resume();
 	}
 
 	/**
@@ -194,11 +337,12 @@ public class TimerController {
 			break;
 		case RUNNING:
 		case WARNING:
+		case PAUSED:
 			stop();
 			break;
 		case WAITING:
-			// Individual timer beans never enter the waiting state.
-			// TODO: is this still true?
+			// A waiting timer is armed to start on its schedule.
+			stop();
 			break;
 		}
 	}
@@ -216,6 +360,16 @@ public class TimerController {
 		hookTimerBean();
 	}
 
+	/**
+	 * Sets the width of the name column, so that the progress bars of all timers line up.
+	 * @param width The width of the name column.
+	 */
+	void setNameWidth(double width) {
+		ColumnConstraints nameColumn = grid.getColumnConstraints().get(0);
+		if (nameColumn.getPrefWidth() != width)
+			nameColumn.setPrefWidth(width);
+	}
+
 	/**
 	 * Sets a reference to the parent multi-timer instance's controller.
 	 * @param multiTimerController the parent multi-timer instance's controller.
@@ -238,14 +392,32 @@ public class TimerController {
 		bean.stop();
 	}
 
+	/**
+	 * Reports any change in the preferred width of the timer name to the
+	 * multi-timer controller, which aligns the name columns of all the timers.
+	 */
+	private void updateNameWidth() {
+		if (timerAppController == null || bean == null)
+			return;
+		double width = lblName.prefWidth(-1);
+		if (width != nameWidth) {
+			timerAppController.nameWidthChanged(nameWidth, width);
+			nameWidth = width;
+		}
+	}
+
+	/**
+	 * Sets the timer's progress resolution to one pixel of the progress bar.
+	 */
+	private void updateProgressResolution() {
+		double width = prgComplete.getWidth();
+		bean.setProgressResolution(width >= 1 ? 1 / width : TimerBean.DEFAULT_PROGRESS_RESOLUTION);
+	}
+
 	/**
 	 * Unbinds the timer model from the corresponding view elements in the user interface.
 	 */
 	private void unhookTimerBean() {
-		lblName.textProperty().unbind();
-		prgComplete.progressProperty().unbind();
-		lblElapsed.textProperty().unbind();
-		shpState.visibleProperty().unbind();
-		((ImageView) btnRun.getGraphic()).imageProperty().unbind();
+		subscriptions.dispose();
 	}
 }
@@ -0,0 +1,412 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.model.TimerState;
+import io.github.demonfiddler.timer.util.Images;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+ * A compact dashboard view that draws any number of timers onto a single
+ * {@link Canvas}, as an alternative to one set of controls per timer. The
+ * timers are laid out in a grid of fixed-height cells, each showing a run
+ * button, the state colour, the timer name, a progress bar and the remaining
+ * time. Only the visible rows are drawn, in one pass per pulse, and only when
+ * a visible timer has changed state or is running.
+ * <p>
+ * Clicking a cell's run button starts or stops the timer; double-clicking a
+ * stopped timer elsewhere in its cell opens the Edit dialogue.
+ * 
+ * @since 1.0.1
+ */
+public class TimerDashboard extends Region {
+	/** The minimum width of a cell. */
+	static final double CELL_WIDTH = 280;
+	/** The height of a cell. */
+	static final double CELL_HEIGHT = 22;
+	/** The horizontal gap between and around the cell contents. */
+	private static final double GAP = 4;
+	/** The size of the run button. */
+	private static final double BUTTON_SIZE = 16;
+	/** The diameter of the state indicator. */
+	private static final double STATE_SIZE = 10;
+	/** The width reserved for the timer name. */
+	private static final double NAME_WIDTH = 80;
+	/** The width reserved for the remaining time. */
+	private static final double TIME_WIDTH = 56;
+	private static final Color BAR_BACKGROUND = Color.gray(0.88);
+	private static final Color BAR_FOREGROUND = Color.rgb(0, 120, 215);
+	private static final Color ROW_BACKGROUND = Color.gray(0.97);
+	private static final Font FONT = Font.font(12);
+
+	private final Canvas canvas = new Canvas();
+	private final ScrollBar scrollBar = new ScrollBar();
+	private final AnimationTimer animationTimer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			if ((dirty || isAnimating()) && !TimerUtils.UPDATE_QUEUE.isSuspended())
+				draw();
+		}
+	};
+	private List<TimerBean> timers = Collections.emptyList();
+	/** The states of the visible timers when last drawn, indexed from the first visible timer. */
+	private TimerState[] drawnStates = new TimerState[0];
+	private int firstDrawn;
+	private boolean dirty = true;
+	private MultiTimerController timerAppController;
+
+	/**
+	 * Constructs a new <code>TimerDashboard</code>.
+	 */
+	public TimerDashboard() {
+		scrollBar.setOrientation(Orientation.VERTICAL);
+		scrollBar.valueProperty().addListener((o, ov, nv) -> invalidate());
+		getChildren().addAll(canvas, scrollBar);
+		addEventHandler(MouseEvent.MOUSE_CLICKED, this::onMouseClicked);
+		addEventHandler(ScrollEvent.SCROLL, e -> {
+			scrollBar.setValue(Math.min(Math.max(scrollBar.getValue() - e.getDeltaY(), 0), scrollBar.getMax()));
+			e.consume();
+		});
+		// Only animate while the dashboard is showing.
+		visibleProperty().addListener((o, ov, nv) -> updateAnimation());
+		sceneProperty().addListener((o, ov, nv) -> updateAnimation());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected double computePrefHeight(double width) {
+		return CELL_HEIGHT * 20;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected double computePrefWidth(double height) {
+		return CELL_WIDTH * 3 + scrollBar.prefWidth(-1);
+	}
+
+	/**
+	 * Returns the width of the progress bars.
+	 * 
+	 * @return the progress bar width.
+	 */
+	private double getBarWidth() {
+		double cellWidth = canvas.getWidth() / getColumns();
+		return Math.max(cellWidth - BUTTON_SIZE - STATE_SIZE - NAME_WIDTH - TIME_WIDTH - 6 * GAP, 0);
+	}
+
+	/**
+	 * Returns the number of cell columns that fit the current width.
+	 * 
+	 * @return the column count, at least one.
+	 */
+	int getColumns() {
+		return Math.max((int) (canvas.getWidth() / CELL_WIDTH), 1);
+	}
+
+	/**
+	 * Returns the index of the first timer in the first visible row.
+	 * 
+	 * @return the index of the first visible timer.
+	 */
+	private int getFirstVisible() {
+		return (int) (scrollBar.getValue() / CELL_HEIGHT) * getColumns();
+	}
+
+	/**
+	 * Returns the index after the last timer in the last visible row.
+	 * 
+	 * @return the exclusive end index of the visible timers.
+	 */
+	private int getEndVisible() {
+		int rows = (int) Math.ceil((scrollBar.getValue() % CELL_HEIGHT + canvas.getHeight()) / CELL_HEIGHT);
+		return Math.min(getFirstVisible() + rows * getColumns(), timers.size());
+	}
+
+	/**
+	 * Draws the visible timers.
+	 */
+	void draw() {
+		dirty = false;
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		double width = canvas.getWidth();
+		double height = canvas.getHeight();
+		gc.clearRect(0, 0, width, height);
+		gc.setFont(FONT);
+		gc.setTextBaseline(VPos.CENTER);
+		int columns = getColumns();
+		double cellWidth = width / columns;
+		double barWidth = getBarWidth();
+		double scrollOffset = scrollBar.getValue() % CELL_HEIGHT;
+		int first = getFirstVisible();
+		int end = getEndVisible();
+		if (drawnStates.length < end - first)
+			drawnStates = new TimerState[end - first];
+		firstDrawn = first;
+		for (int i = first; i < end; i++) {
+			TimerBean timer = timers.get(i);
+			TimerState state = timer.getState();
+			drawnStates[i - first] = state;
+			double x = (i % columns) * cellWidth;
+			double y = ((i - first) / columns) * CELL_HEIGHT - scrollOffset;
+			double midY = y + CELL_HEIGHT / 2;
+			if ((i / columns) % 2 == 0) {
+				gc.setFill(ROW_BACKGROUND);
+				gc.fillRect(x, y, cellWidth, CELL_HEIGHT);
+			}
+			x += GAP;
+			gc.drawImage(state.isActive() ? Images.IMG_STOP : Images.IMG_START, x,
+					midY - BUTTON_SIZE / 2, BUTTON_SIZE, BUTTON_SIZE);
+			x += BUTTON_SIZE + GAP;
+			gc.setFill(getStateColor(state));
+			gc.fillOval(x, midY - STATE_SIZE / 2, STATE_SIZE, STATE_SIZE);
+			x += STATE_SIZE + GAP;
+			gc.setFill(Color.BLACK);
+			gc.fillText(timer.getName(), x, midY, NAME_WIDTH);
+			x += NAME_WIDTH + GAP;
+			gc.setFill(BAR_BACKGROUND);
+			gc.fillRect(x, midY - 5, barWidth, 10);
+			gc.setFill(BAR_FOREGROUND);
+			gc.fillRect(x, midY - 5, barWidth * Math.min(Math.max(timer.getProgress(), 0), 1), 10);
+			x += barWidth + GAP;
+			gc.setFill(Color.BLACK);
+			gc.fillText(formatRemaining(timer.getRemainingMillis()), x, midY, TIME_WIDTH);
+		}
+	}
+
+	/**
+	 * Formats a remaining time as hours, minutes and seconds.
+	 * 
+	 * @param remainingMillis The remaining time in milliseconds.
+	 * @return the formatted time.
+	 */
+	static String formatRemaining(long remainingMillis) {
+		long seconds = remainingMillis / 1000;
+		char[] chars = new char[8];
+		long hours = Math.min(seconds / 3600, 99);
+		long minutes = seconds / 60 % 60;
+		seconds %= 60;
+		chars[0] = (char) ('0' + hours / 10);
+		chars[1] = (char) ('0' + hours % 10);
+		chars[2] = ':';
+		chars[3] = (char) ('0' + minutes / 10);
+		chars[4] = (char) ('0' + minutes % 10);
+		chars[5] = ':';
+		chars[6] = (char) ('0' + seconds / 10);
+		chars[7] = (char) ('0' + seconds % 10);
+		return new String(chars);
+	}
+
+	/**
+	 * Returns the colour that indicates a timer state.
+	 * 
+	 * @param state The timer state.
+	 * @return the state colour.
+	 */
+	static Color getStateColor(TimerState state) {
+		switch (state) {
+		case WAITING:
+		case WARNING:
+		case PAUSED:
+			return Color.ORANGE;
+		case RUNNING:
+			return Color.GREEN;
+		case COMPLETE:
+		case STOPPED:
+		default:
+			return Color.RED;
+		}
+	}
+
+	/**
+	 * Returns the index of the timer whose cell contains the specified point.
+	 * 
+	 * @param x The x coordinate, relative to the dashboard.
+	 * @param y The y coordinate, relative to the dashboard.
+	 * @return the timer index, or -1 if there is no timer at that point.
+	 */
+	int indexAt(double x, double y) {
+		if (x < 0 || y < 0 || x >= canvas.getWidth() || y >= canvas.getHeight())
+			return -1;
+		int columns = getColumns();
+		int column = (int) (x / (canvas.getWidth() / columns));
+		int row = (int) ((y + scrollBar.getValue()) / CELL_HEIGHT);
+		int index = row * columns + column;
+		return column < columns && index < timers.size() ? index : -1;
+	}
+
+	/**
+	 * Marks the dashboard as needing to be redrawn on the next pulse.
+	 */
+	void invalidate() {
+		dirty = true;
+	}
+
+	/**
+	 * Returns whether a visible timer is running or has changed state since it was
+	 * last drawn.
+	 * 
+	 * @return <code>true</code> if the dashboard needs to be redrawn.
+	 */
+	private boolean isAnimating() {
+		int first = getFirstVisible();
+		int end = getEndVisible();
+		if (first != firstDrawn)
+			return true;
+		for (int i = first; i < end; i++) {
+			TimerState state = timers.get(i).getState();
+			if (state.isRunning() || state != drawnStates[i - first])
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether the specified point lies on a timer's run button.
+	 * 
+	 * @param x The x coordinate, relative to the dashboard.
+	 * @param y The y coordinate, relative to the dashboard.
+	 * @return <code>true</code> if the point is on a run button.
+	 */
+	boolean isRunButtonAt(double x, double y) {
+		if (indexAt(x, y) == -1)
+			return false;
+		double cellX = x % (canvas.getWidth() / getColumns());
+		double cellY = (y + scrollBar.getValue()) % CELL_HEIGHT;
+		double top = (CELL_HEIGHT - BUTTON_SIZE) / 2;
+		return cellX >= GAP && cellX < GAP + BUTTON_SIZE && cellY >= top && cellY < top + BUTTON_SIZE;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void layoutChildren() {
+		double width = getWidth();
+		double height = getHeight();
+		double barWidth = scrollBar.prefWidth(-1);
+		scrollBar.resizeRelocate(width - barWidth, 0, barWidth, height);
+		canvas.setWidth(Math.max(width - barWidth, 0));
+		canvas.setHeight(height);
+		updateScrollBar();
+		updateProgressResolution();
+		invalidate();
+	}
+
+	/**
+	 * Handles a mouse click, starting or stopping a timer if its run button was
+	 * clicked or editing it if its cell was double-clicked.
+	 * 
+	 * @param e The mouse event.
+	 */
+	private void onMouseClicked(MouseEvent e) {
+		if (e.getButton() != MouseButton.PRIMARY)
+			return;
+		int index = indexAt(e.getX(), e.getY());
+		if (index == -1)
+			return;
+		TimerBean timer = timers.get(index);
+		if (isRunButtonAt(e.getX(), e.getY())) {
+			if (timer.getState().isActive())
+				timer.stop();
+			else
+				timer.start();
+		} else if (e.getClickCount() == 2 && !timer.getState().isActive() && timerAppController != null) {
+			try {
+				timerAppController.editTimer(timer, false);
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+		invalidate();
+	}
+
+	/**
+	 * Sets a reference to the parent multi-timer instance's controller.
+	 * 
+	 * @param multiTimerController the parent multi-timer instance's controller.
+	 */
+	void setTimerAppController(MultiTimerController multiTimerController) {
+		this.timerAppController = multiTimerController;
+	}
+
+	/**
+	 * Sets the timers to display.
+	 * 
+	 * @param timers The timers, in display order.
+	 */
+	void setTimers(List<TimerBean> timers) {
+		this.timers = new ArrayList<>(timers);
+		updateScrollBar();
+		updateProgressResolution();
+		invalidate();
+	}
+
+	/**
+	 * Starts or stops the animation timer according to whether the dashboard is
+	 * showing.
+	 */
+	private void updateAnimation() {
+		if (isVisible() && getScene() != null) {
+			invalidate();
+			animationTimer.start();
+		} else {
+			animationTimer.stop();
+		}
+	}
+
+	/**
+	 * Sets the progress resolution of the timers to one pixel of their progress
+	 * bars.
+	 */
+	private void updateProgressResolution() {
+		double barWidth = getBarWidth();
+		double resolution = barWidth >= 1 ? 1 / barWidth : TimerBean.DEFAULT_PROGRESS_RESOLUTION;
+		for (TimerBean timer : timers)
+			timer.setProgressResolution(resolution);
+	}
+
+	/**
+	 * Updates the scroll bar range to match the number of rows.
+	 */
+	private void updateScrollBar() {
+		int rows = (timers.size() + getColumns() - 1) / getColumns();
+		double max = Math.max(rows * CELL_HEIGHT - canvas.getHeight(), 0);
+		scrollBar.setMax(max);
+		scrollBar.setVisibleAmount(canvas.getHeight());
+		scrollBar.setUnitIncrement(CELL_HEIGHT);
+		scrollBar.setBlockIncrement(Math.max(canvas.getHeight() - CELL_HEIGHT, CELL_HEIGHT));
+		if (scrollBar.getValue() > max)
+			scrollBar.setValue(max);
+	}
+}
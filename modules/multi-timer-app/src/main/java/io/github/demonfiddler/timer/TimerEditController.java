@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,9 +19,11 @@ package io.github.demonfiddler.timer;
 
 import io.github.demonfiddler.timer.model.Duration;
 import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.util.CronSchedule;
 import javafx.beans.property.IntegerProperty;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.DialogPane;
 import javafx.scene.control.Spinner;
@@ -30,7 +32,8 @@ import javafx.scene.control.SpinnerValueFactory.IntegerSpinnerValueFactory;
 import javafx.util.converter.NumberStringConverter;
 
 /**
- * The controller that links the edit dialog view and model for a single timer instance.
+ * The controller that links the edit dialog view and model for a single timer instance. The dialogue is
+ * reused, so the controller can be rebound to a different timer instance each time it is shown.
  * @since 1.0
  */
 public class TimerEditController {
@@ -52,6 +55,8 @@ public class TimerEditController {
 	private Spinner<Integer> spiWarnAfterSeconds;
 	@FXML
 	private CheckBox cbxRepeat;
+	@FXML
+	private TextField txtSchedule;
 	private TimerBean bean;
 
 	/**
@@ -65,6 +70,15 @@ public class TimerEditController {
 		editor.setAlignment(Pos.CENTER_RIGHT);
 	}
 
+	/**
+	 * Unbinds a spinner control's editor from an integer property.
+	 * @param spinner The spinner to unbind.
+	 * @param property The property to unbind.
+	 */
+	private void unconfigureSpinner(Spinner<Integer> spinner, IntegerProperty property) {
+		spinner.getEditor().textProperty().unbindBidirectional(property);
+	}
+
 	/**
 	 * Returns the timer bean that is being updated in the edit dialogue.
 	 * @return the timer bean.
@@ -83,18 +97,25 @@ public class TimerEditController {
 		spiWarnAfterHours.setValueFactory(new IntegerSpinnerValueFactory(0, Integer.MAX_VALUE));
 		spiWarnAfterMinutes.setValueFactory(new IntegerSpinnerValueFactory(0, 59));
 		spiWarnAfterSeconds.setValueFactory(new IntegerSpinnerValueFactory(0, 59));
+		txtSchedule.textProperty().addListener((o, ov, nv) -> validateSchedule());
 	}
 
 	/**
-	 * Sets the timer bean to be updated in the edit dialogue.
-	 * @param bean the timer bean.
+	 * Sets the timer bean to be updated in the edit dialogue, unbinding any previous one.
+	 * @param bean the timer bean, or <code>null</code> to unbind the dialogue.
 	 */
 	public void setBean(TimerBean bean) {
-		if (bean == null)
-			throw new IllegalArgumentException("bean cannot be null");
 		if (this.bean != null)
-			throw new IllegalStateException("bean has already been set");
+			unhookBean();
 		this.bean = bean;
+		if (bean != null)
+			hookBean();
+	}
+
+	/**
+	 * Binds the dialogue controls to the current timer bean.
+	 */
+	private void hookBean() {
 		txtName.textProperty().bindBidirectional(bean.nameProperty());
 		Duration intervalObj = bean.getIntervalDuration();
 		configureSpinner(spiIntervalHours, intervalObj.hoursProperty());
@@ -105,5 +126,35 @@ public class TimerEditController {
 		configureSpinner(spiWarnAfterMinutes, warnAfterObj.minutesProperty());
 		configureSpinner(spiWarnAfterSeconds, warnAfterObj.secondsProperty());
 		cbxRepeat.selectedProperty().bindBidirectional(bean.repeatProperty());
+		txtSchedule.textProperty().bindBidirectional(bean.scheduleProperty());
+		validateSchedule();
+	}
+
+	/**
+	 * Unbinds the dialogue controls from the current timer bean.
+	 */
+	private void unhookBean() {
+		txtName.textProperty().unbindBidirectional(bean.nameProperty());
+		Duration intervalObj = bean.getIntervalDuration();
+		unconfigureSpinner(spiIntervalHours, intervalObj.hoursProperty());
+		unconfigureSpinner(spiIntervalMinutes, intervalObj.minutesProperty());
+		unconfigureSpinner(spiIntervalSeconds, intervalObj.secondsProperty());
+		Duration warnAfterObj = bean.getWarnAfterDuration();
+		unconfigureSpinner(spiWarnAfterHours, warnAfterObj.hoursProperty());
+		unconfigureSpinner(spiWarnAfterMinutes, warnAfterObj.minutesProperty());
+		unconfigureSpinner(spiWarnAfterSeconds, warnAfterObj.secondsProperty());
+		cbxRepeat.selectedProperty().unbindBidirectional(bean.repeatProperty());
+		txtSchedule.textProperty().unbindBidirectional(bean.scheduleProperty());
+	}
+
+	/**
+	 * Highlights the schedule field and disables the OK button if the schedule
+	 * expression is invalid.
+	 */
+	private void validateSchedule() {
+		String schedule = txtSchedule.getText();
+		boolean valid = schedule == null || schedule.isBlank() || CronSchedule.isValid(schedule);
+		txtSchedule.setStyle(valid ? "" : "-fx-text-fill: red;");
+		dlgPane.lookupButton(ButtonType.OK).setDisable(!valid);
 	}
 }
\ No newline at end of file
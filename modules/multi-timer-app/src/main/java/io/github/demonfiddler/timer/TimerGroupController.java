@@ -0,0 +1,306 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.model.TimerGroupBean;
+import io.github.demonfiddler.timer.model.TimerState;
+import io.github.demonfiddler.timer.util.Images;
+import io.github.demonfiddler.timer.util.Subscriptions;
+import javafx.beans.binding.Binding;
+import javafx.beans.binding.Bindings;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ListChangeListener.Change;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Tooltip;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+
+/**
+ * The controller that links the view and model for a timer group. The views of
+ * the group's members are only created while the group is expanded, so a
+ * collapsed group costs no more to display than its header.
+ * 
+ * @since 1.0.1
+ */
+public class TimerGroupController {
+	@FXML
+	private VBox vbxGroup;
+	@FXML
+	private Button btnToggle;
+	@FXML
+	private Label lblName;
+	@FXML
+	private ProgressBar prgComplete;
+	@FXML
+	private Circle shpState;
+	@FXML
+	private Button btnRun;
+	@FXML
+	private Button btnReset;
+	@FXML
+	private Button btnAdd;
+	@FXML
+	private Button btnDelete;
+	@FXML
+	private VBox vbxMembers;
+	private MultiTimerController timerAppController;
+	private TimerGroupBean bean;
+	private boolean expanded;
+	private final ChangeListener<Boolean> collapsedListener = (o, ov, nv) -> setExpanded(!nv);
+	private final ListChangeListener<TimerBean> timersListener = this::onTimersChanged;
+	private final ListChangeListener<TimerGroupBean> groupsListener = this::onGroupsChanged;
+	/** The listeners and bindings registered on the group. */
+	private final Subscriptions subscriptions = new Subscriptions();
+
+	/**
+	 * Adds a new timer to the group and opens the Edit dialog.
+	 * 
+	 * @throws Exception if unable to load FXML resources from the class path.
+	 */
+	public void add() throws Exception {
+		timerAppController.addToGroup(bean);
+	}
+
+	/**
+	 * Deletes this group and all its members from the owning multi-timer instance.
+	 */
+	public void delete() {
+		timerAppController.deleteGroup(bean);
+	}
+
+	/**
+	 * Unbinds the view from the group and discards the views of its members.
+	 */
+	void dispose() {
+		setExpanded(false);
+		unhookGroupBean();
+	}
+
+	/**
+	 * Binds the group model to the corresponding view elements in the user
+	 * interface.
+	 */
+	private void hookGroupBean() {
+		TimerGroupBean bean = this.bean;
+		subscriptions.bind(lblName.textProperty(), bean.nameProperty());
+		subscriptions.bind(prgComplete.progressProperty(), bean.progressProperty());
+		subscriptions.bind(shpState.fillProperty(), binding(Bindings.createObjectBinding(() -> {
+			switch (bean.getState()) {
+			case COMPLETE:
+			case STOPPED:
+				return Color.RED;
+			case WAITING:
+			case WARNING:
+			case PAUSED:
+				return Color.ORANGE;
+			case RUNNING:
+				return Color.GREEN;
+			}
+			return null;
+		}, bean.stateProperty())));
+		subscriptions.bind(((ImageView) btnRun.getGraphic()).imageProperty(),
+				binding(Bindings.createObjectBinding(() -> {
+					boolean active = bean.getState().isActive();
+					btnAdd.setDisable(active);
+					btnDelete.setDisable(active);
+					return active ? Images.IMG_STOP : Images.IMG_START;
+				}, bean.stateProperty())));
+		subscriptions.addChangeListener(bean.collapsedProperty(), collapsedListener);
+		setExpanded(!bean.getCollapsed());
+	}
+
+	/**
+	 * Arranges for a binding to be disposed of, detaching it from its
+	 * dependencies, when the view is unbound from the group.
+	 * 
+	 * @param <T>     The binding type.
+	 * @param binding The binding.
+	 * @return the binding.
+	 */
+	private <T extends Binding<?>> T binding(T binding) {
+		subscriptions.add(binding::dispose);
+		return binding;
+	}
+
+	/**
+	 * Called by the JavaFX framework to initialise the controller.
+	 */
+	public void initialize() {
+		Tooltip.install(shpState, new Tooltip("Click to pause or resume"));
+	}
+
+	/**
+	 * Callback invoked when nested groups are added to or removed from the group.
+	 * 
+	 * @param c The group change descriptor.
+	 */
+	private void onGroupsChanged(Change<? extends TimerGroupBean> c) {
+		ObservableList<Node> views = vbxMembers.getChildren();
+		int offset = bean.getTimers().size();
+		while (c.next()) {
+			try {
+				if (c.wasRemoved())
+					timerAppController.removeGroupViews(views, offset, c.getRemoved(), c.getFrom());
+				if (c.wasAdded())
+					timerAppController.addGroupViews(views, offset, c.getList(), c.getFrom(), c.getTo());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		timerAppController.membersChanged();
+	}
+
+	/**
+	 * Callback invoked when timers are added to or removed from the group.
+	 * 
+	 * @param c The timer change descriptor.
+	 */
+	private void onTimersChanged(Change<? extends TimerBean> c) {
+		ObservableList<Node> views = vbxMembers.getChildren();
+		while (c.next()) {
+			if (c.wasRemoved())
+				timerAppController.removeTimerViews(views, c.getRemoved(), c.getFrom());
+			if (c.wasAdded())
+				timerAppController.addTimerViews(views, c.getList(), c.getFrom(), c.getTo());
+		}
+		timerAppController.membersChanged();
+	}
+
+	/**
+	 * Resets all the timers in the group.
+	 */
+	public void reset() {
+		bean.reset();
+	}
+
+	/**
+	 * Pauses the group's running timers or, if none is running, resumes its paused
+	 * ones.
+	 */
+	public void pause() {
+		TimerState state = bean.getState();
+		if (state.isRunning())
+			bean.pause();
+		else if (state == TimerState.PAUSED)
+			bean.resume();
+	}
+
+	/**
+	 * Starts or stops all the timers in the group.
+	 */
+	public void run() {
+		if (bean.getState().isActive())
+			bean.stop();
+		else
+			bean.start();
+	}
+
+	/**
+	 * Returns the view managed by this controller.
+	 * 
+	 * @return the group view.
+	 */
+	VBox getView() {
+		return vbxGroup;
+	}
+
+	/**
+	 * Sets the group model that this controller will be managing.
+	 * 
+	 * @param bean The group model.
+	 */
+	public void setBean(TimerGroupBean bean) {
+		if (this.bean != null)
+			dispose();
+		this.bean = bean;
+		hookGroupBean();
+	}
+
+	/**
+	 * Expands or collapses the group. Expanding the group creates the views of
+	 * its members; collapsing it discards them.
+	 * 
+	 * @param expanded <code>true</code> to expand the group, <code>false</code>
+	 *                 to collapse it.
+	 */
+	private void setExpanded(boolean expanded) {
+		if (expanded == this.expanded)
+			return;
+		this.expanded = expanded;
+		ObservableList<Node> views = vbxMembers.getChildren();
+		List<TimerBean> timers = bean.getTimers();
+		List<TimerGroupBean> groups = bean.getGroups();
+		if (expanded) {
+			try {
+				timerAppController.addTimerViews(views, timers, 0, timers.size());
+				timerAppController.addGroupViews(views, timers.size(), groups, 0, groups.size());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			((ObservableList<TimerBean>) timers).addListener(timersListener);
+			((ObservableList<TimerGroupBean>) groups).addListener(groupsListener);
+		} else {
+			((ObservableList<TimerBean>) timers).removeListener(timersListener);
+			((ObservableList<TimerGroupBean>) groups).removeListener(groupsListener);
+			timerAppController.removeGroupViews(views, timers.size(), groups, 0);
+			timerAppController.removeTimerViews(views, timers, 0);
+		}
+		vbxMembers.setVisible(expanded);
+		vbxMembers.setManaged(expanded);
+		btnToggle.setText(expanded ? "-" : "+");
+		timerAppController.resize();
+	}
+
+	/**
+	 * Sets a reference to the parent multi-timer instance's controller.
+	 * 
+	 * @param multiTimerController the parent multi-timer instance's controller.
+	 */
+	public void setTimerAppController(MultiTimerController multiTimerController) {
+		this.timerAppController = multiTimerController;
+	}
+
+	/**
+	 * Expands or collapses the group.
+	 */
+	public void toggle() {
+		bean.setCollapsed(!bean.getCollapsed());
+		timerAppController.setModified(true);
+	}
+
+	/**
+	 * Unbinds the group model from the corresponding view elements in the user
+	 * interface.
+	 */
+	private void unhookGroupBean() {
+		subscriptions.dispose();
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.action;
+
+import java.time.Instant;
+
+import io.github.demonfiddler.timer.model.TimerState;
+
+/**
+ * An immutable description of a timer transition that triggers actions.
+ * 
+ * @since 1.0.1
+ */
+public final class ActionEvent {
+	private final String timerName;
+	private final TimerState state;
+	private final long time;
+
+	/**
+	 * Constructs a new <code>ActionEvent</code>.
+	 * 
+	 * @param timerName The name of the timer that changed state.
+	 * @param state     The state that the timer entered.
+	 * @param time      The deadline at which the state was entered, in
+	 *                  milliseconds since the epoch.
+	 */
+	public ActionEvent(String timerName, TimerState state, long time) {
+		this.timerName = timerName;
+		this.state = state;
+		this.time = time;
+	}
+
+	/**
+	 * Expands the <code>${name}</code>, <code>${state}</code> and
+	 * <code>${time}</code> placeholders in the specified template. The template
+	 * is scanned once, so placeholders within the substituted values are not
+	 * themselves expanded.
+	 * 
+	 * @param template The template to expand, may be <code>null</code>.
+	 * @return the expanded template.
+	 */
+	public String expand(String template) {
+		if (template == null)
+			return null;
+		StringBuilder expanded = new StringBuilder(template.length());
+		int from = 0;
+		for (int start; (start = template.indexOf("${", from)) != -1;) {
+			int end = template.indexOf('}', start);
+			if (end == -1)
+				break;
+			String value = valueOf(template.substring(start + 2, end));
+			if (value == null) {
+				expanded.append(template, from, start + 2);
+				from = start + 2;
+			} else {
+				expanded.append(template, from, start).append(value);
+				from = end + 1;
+			}
+		}
+		return expanded.append(template, from, template.length()).toString();
+	}
+
+	/**
+	 * Returns the state that the timer entered.
+	 * 
+	 * @return the new timer state.
+	 */
+	public TimerState getState() {
+		return state;
+	}
+
+	/**
+	 * Returns the deadline at which the state was entered.
+	 * 
+	 * @return the transition time in milliseconds since the epoch.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the name of the timer that changed state.
+	 * 
+	 * @return the timer name.
+	 */
+	public String getTimerName() {
+		return timerName;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "ActionEvent [timerName=" + timerName + ", state=" + state + ", time=" + time + ']';
+	}
+
+	/**
+	 * Returns the value of a placeholder.
+	 * 
+	 * @param placeholder The placeholder name, without <code>${</code> and
+	 *                    <code>}</code>.
+	 * @return the value, or <code>null</code> if the placeholder is unknown.
+	 */
+	private String valueOf(String placeholder) {
+		switch (placeholder) {
+		case "name":
+			return String.valueOf(timerName);
+		case "state":
+			return String.valueOf(state);
+		case "time":
+			return Instant.ofEpochMilli(time).toString();
+		default:
+			return null;
+		}
+	}
+}
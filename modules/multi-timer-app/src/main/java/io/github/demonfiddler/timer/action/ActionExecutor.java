@@ -0,0 +1,350 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.action;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.demonfiddler.timer.model.ActionBean;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import io.github.demonfiddler.timer.util.TimerUtils.DaemonThreadFactory;
+
+/**
+ * Executes timer actions apart from the timer scheduler, either on a bounded
+ * pool of daemon threads or, where the JDK supports them, each on its own
+ * virtual thread. Each action is cancelled if it runs for longer than its
+ * configured timeout. Submission never blocks: if the executor is saturated the
+ * action is rejected and counted, so a slow action can never delay timer ticks
+ * or the JavaFX application thread.
+ * 
+ * @since 1.0.1
+ */
+public final class ActionExecutor {
+	/**
+	 * A task that runs a single action, enforcing its timeout and updating the
+	 * executor's metrics upon completion.
+	 */
+	private final class ActionTask extends FutureTask<Void> {
+		private final ActionBean config;
+		private final ActionEvent event;
+
+		/**
+		 * Constructs a new <code>ActionTask</code>.
+		 * 
+		 * @param action The action to execute.
+		 * @param config The action configuration.
+		 * @param event  The triggering event.
+		 */
+		ActionTask(TimerAction action, ActionBean config, ActionEvent event) {
+			super(() -> {
+				action.execute(config, event);
+				return null;
+			});
+			this.config = config;
+			this.event = event;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected void done() {
+			try {
+				get();
+				completed.incrementAndGet();
+			} catch (CancellationException e) {
+				timedOut.incrementAndGet();
+				new TimeoutException("action timed out: " + config + " for " + event).printStackTrace();
+			} catch (ExecutionException e) {
+				failed.incrementAndGet();
+				new ExecutionException("action failed: " + config + " for " + event, e.getCause()).printStackTrace();
+			} catch (InterruptedException e) {
+				// Cannot happen: done() is only called once the task has finished.
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void run() {
+			// The timeout starts when the action starts, not when it is queued.
+			int timeout = config.getTimeout();
+			ScheduledFuture<?> watchdog = timeout > 0 //
+					? WATCHDOG.schedule(() -> cancel(true), timeout, TimeUnit.SECONDS)
+					: null;
+			try {
+				super.run();
+			} finally {
+				if (watchdog != null)
+					watchdog.cancel(false);
+				// Only now is the thread free: a timed out action that ignores interrupts still occupies it.
+				inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	/** The default number of action threads. */
+	public static final int DEFAULT_THREADS = 4;
+	/** The default number of actions that may be queued awaiting a thread. */
+	public static final int DEFAULT_QUEUE_CAPACITY = 256;
+	/** The default number of actions that may run at once on virtual threads. */
+	public static final int DEFAULT_VIRTUAL_CAPACITY = 10_000;
+	/**
+	 * The shared action executor, which uses virtual threads if the JDK supports
+	 * them.
+	 * 
+	 * @see TimerUtils#isVirtualThreads()
+	 */
+	public static final ActionExecutor INSTANCE = TimerUtils.isVirtualThreads() //
+			? new ActionExecutor(TimerUtils.getBlockingExecutor(), DEFAULT_VIRTUAL_CAPACITY)
+			: new ActionExecutor(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+	/**
+	 * Cancels actions that exceed their timeouts, for all action executors. Its
+	 * single daemon thread exits when no action with a timeout is running.
+	 */
+	private static final ScheduledThreadPoolExecutor WATCHDOG = new ScheduledThreadPoolExecutor(1,
+			new DaemonThreadFactory("action-watchdog"));
+
+	static {
+		WATCHDOG.setRemoveOnCancelPolicy(true);
+		WATCHDOG.setKeepAliveTime(60, TimeUnit.SECONDS);
+		WATCHDOG.allowCoreThreadTimeOut(true);
+	}
+
+	private final ExecutorService executor;
+	/** Whether {@link #executor} was created by and belongs to this action executor. */
+	private final boolean ownsExecutor;
+	private final int capacity;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile boolean shutdown;
+	private final Map<String, TimerAction> actions = new HashMap<>();
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong timedOut = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * Constructs a new <code>ActionExecutor</code>.
+	 * 
+	 * @param threads       The maximum number of concurrently executing actions.
+	 * @param queueCapacity The maximum number of actions that may be queued
+	 *                      awaiting a thread.
+	 */
+	public ActionExecutor(int threads, int queueCapacity) {
+		this(newPool(threads, queueCapacity), threads + queueCapacity, true);
+	}
+
+	/**
+	 * Constructs a new <code>ActionExecutor</code> that runs actions on an
+	 * existing executor, such as one that starts a virtual thread per task.
+	 * 
+	 * @param executor The executor on which to run actions.
+	 * @param capacity The maximum number of actions that may be running or
+	 *                 awaiting a thread at once.
+	 */
+	public ActionExecutor(ExecutorService executor, int capacity) {
+		this(executor, capacity, false);
+	}
+
+	/**
+	 * Constructs a new <code>ActionExecutor</code>.
+	 * 
+	 * @param executor     The executor on which to run actions.
+	 * @param capacity     The maximum number of actions that may be running or
+	 *                     awaiting a thread at once.
+	 * @param ownsExecutor Whether {@link #shutdown()} should shut the executor
+	 *                     down.
+	 */
+	private ActionExecutor(ExecutorService executor, int capacity, boolean ownsExecutor) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.capacity = capacity;
+		for (TimerAction action : ServiceLoader.load(TimerAction.class))
+			actions.put(action.getType(), action);
+	}
+
+	/**
+	 * Submits for execution each of the specified enabled actions that is
+	 * configured to run when a timer enters the event's state.
+	 * 
+	 * @param configs The action configurations.
+	 * @param event   The triggering event.
+	 */
+	public void execute(List<ActionBean> configs, ActionEvent event) {
+		for (ActionBean config : configs) {
+			if (config.isEnabled() && config.getOn() == event.getState())
+				submit(config, event);
+		}
+	}
+
+	/**
+	 * Returns the number of actions that completed normally.
+	 * 
+	 * @return the completed action count.
+	 */
+	public long getCompletedCount() {
+		return completed.get();
+	}
+
+	/**
+	 * Returns the number of actions that threw an exception or whose type is
+	 * unknown.
+	 * 
+	 * @return the failed action count.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * Returns the number of actions that are queued awaiting a thread.
+	 * 
+	 * @return the queued action count.
+	 */
+	public int getQueuedCount() {
+		return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+	}
+
+	/**
+	 * Returns the number of actions that are running or awaiting a thread,
+	 * including any that have timed out but ignored the interrupt and are still
+	 * running.
+	 * 
+	 * @return the in-flight action count.
+	 */
+	public int getInFlightCount() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Returns the number of actions that were rejected because the executor was
+	 * saturated.
+	 * 
+	 * @return the rejected action count.
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * Returns the number of actions accepted for execution.
+	 * 
+	 * @return the submitted action count.
+	 */
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	/**
+	 * Returns the number of actions that were cancelled because they exceeded
+	 * their timeout.
+	 * 
+	 * @return the timed out action count.
+	 */
+	public long getTimedOutCount() {
+		return timedOut.get();
+	}
+
+	/**
+	 * Creates a bounded pool of daemon threads for actions.
+	 * 
+	 * @param threads       The number of threads.
+	 * @param queueCapacity The maximum number of actions that may be queued
+	 *                      awaiting a thread.
+	 * @return the new pool.
+	 */
+	private static ThreadPoolExecutor newPool(int threads, int queueCapacity) {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new DaemonThreadFactory("timer-action"),
+				new ThreadPoolExecutor.AbortPolicy());
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**
+	 * Shuts down this action executor. Actions already accepted still run, but any
+	 * further submissions are rejected. An executor passed to the constructor is
+	 * left running, because it may be shared.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		if (ownsExecutor)
+			executor.shutdown();
+	}
+
+	/**
+	 * Submits a single action for execution. The configuration is copied so that
+	 * subsequent edits do not affect the pending action. The method never blocks.
+	 * 
+	 * @param config The action configuration.
+	 * @param event  The triggering event.
+	 * @return <code>true</code> if the action was accepted, <code>false</code> if
+	 *         its type is unknown or the executor is saturated.
+	 */
+	public boolean submit(ActionBean config, ActionEvent event) {
+		TimerAction action = actions.get(config.getType());
+		if (action == null) {
+			failed.incrementAndGet();
+			new IllegalArgumentException("unknown action type: " + config).printStackTrace();
+			return false;
+		}
+		if (shutdown) {
+			rejected.incrementAndGet();
+			return false;
+		}
+		if (inFlight.incrementAndGet() > capacity) {
+			inFlight.decrementAndGet();
+			rejected.incrementAndGet();
+			return false;
+		}
+		try {
+			executor.execute(new ActionTask(action, new ActionBean(config), event));
+			submitted.incrementAndGet();
+			return true;
+		} catch (RejectedExecutionException e) {
+			inFlight.decrementAndGet();
+			rejected.incrementAndGet();
+			return false;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "ActionExecutor [submitted=" + getSubmittedCount() + ", completed=" + getCompletedCount() + ", failed="
+				+ getFailedCount() + ", timedOut=" + getTimedOutCount() + ", rejected=" + getRejectedCount()
+				+ ", queued=" + getQueuedCount() + ", inFlight=" + getInFlightCount() + ']';
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.action;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.demonfiddler.timer.model.ActionBean;
+
+/**
+ * An action that appends a line of text to a file. The file path is taken from
+ * the action's <code>target</code> and the line from its <code>text</code>, both
+ * after expanding any event placeholders. If no text is configured a line
+ * containing the transition time, timer name and state is written.
+ * 
+ * @since 1.0.1
+ */
+public class AppendFileAction implements TimerAction {
+	/** The action type name. */
+	public static final String TYPE = "append";
+	/** The line written when no text is configured. */
+	public static final String DEFAULT_TEXT = "${time} ${name} ${state}";
+
+	/**
+	 * A lock for each file appended to. These are explicit locks rather than
+	 * monitors because a virtual thread blocked in I/O while holding a monitor
+	 * pins its carrier thread.
+	 */
+	private static final Map<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+	/** {@inheritDoc} */
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void execute(ActionBean config, ActionEvent event) throws Exception {
+		String target = config.getTarget();
+		if (target == null || target.isBlank())
+			throw new IllegalArgumentException("append action requires a target");
+		String text = config.getText();
+		String line = event.expand(text == null ? DEFAULT_TEXT : text) + System.lineSeparator();
+		Path path = Paths.get(event.expand(target)).toAbsolutePath().normalize();
+		// Serialise appends to each file so that concurrent actions cannot interleave their lines.
+		ReentrantLock lock = LOCKS.computeIfAbsent(path, p -> new ReentrantLock());
+		lock.lock();
+		try {
+			Files.write(path, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
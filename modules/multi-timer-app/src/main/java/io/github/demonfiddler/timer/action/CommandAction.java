@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.action;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.github.demonfiddler.timer.model.ActionBean;
+
+/**
+ * An action that runs an external command. The command line is taken from the
+ * action's <code>target</code>, split at white space except within double
+ * quotes. Any event placeholders are then expanded within each argument, so
+ * that a timer name containing spaces or quotes is passed as part of a single
+ * argument rather than adding arguments of its own. The timer name, state and
+ * transition time are also passed to the command as the environment variables
+ * <code>TIMER_NAME</code>, <code>TIMER_STATE</code> and <code>TIMER_TIME</code>.
+ * The command's output is discarded and it is forcibly terminated if the action
+ * times out.
+ * 
+ * @since 1.0.1
+ */
+public class CommandAction implements TimerAction {
+	/** The action type name. */
+	public static final String TYPE = "command";
+
+	/**
+	 * Returns the arguments of the command to run for an event.
+	 * 
+	 * @param target The command line template.
+	 * @param event  The event whose details replace the placeholders.
+	 * @return the expanded command line arguments.
+	 */
+	static List<String> commandLine(String target, ActionEvent event) {
+		List<String> args = split(target);
+		args.replaceAll(event::expand);
+		return args;
+	}
+
+	/**
+	 * Splits a command line into arguments at white space, honouring double
+	 * quotes.
+	 * 
+	 * @param commandLine The command line to split.
+	 * @return the command line arguments.
+	 */
+	static List<String> split(String commandLine) {
+		List<String> args = new ArrayList<>();
+		StringBuilder arg = new StringBuilder();
+		boolean quoted = false;
+		boolean inArg = false;
+		for (int i = 0; i < commandLine.length(); i++) {
+			char c = commandLine.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+				inArg = true;
+			} else if (Character.isWhitespace(c) && !quoted) {
+				if (inArg) {
+					args.add(arg.toString());
+					arg.setLength(0);
+					inArg = false;
+				}
+			} else {
+				arg.append(c);
+				inArg = true;
+			}
+		}
+		if (inArg)
+			args.add(arg.toString());
+		return args;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void execute(ActionBean config, ActionEvent event) throws Exception {
+		String target = config.getTarget();
+		if (target == null || target.isBlank())
+			throw new IllegalArgumentException("command action requires a target");
+		ProcessBuilder pb = new ProcessBuilder(commandLine(target, event));
+		Map<String, String> env = pb.environment();
+		env.put("TIMER_NAME", String.valueOf(event.getTimerName()));
+		env.put("TIMER_STATE", String.valueOf(event.getState()));
+		env.put("TIMER_TIME", String.valueOf(event.getTime()));
+		pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+		pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+		Process process = pb.start();
+		try {
+			int exitCode = process.waitFor();
+			if (exitCode != 0)
+				throw new IOException("command exited with code " + exitCode + ": " + target);
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			throw e;
+		}
+	}
+}
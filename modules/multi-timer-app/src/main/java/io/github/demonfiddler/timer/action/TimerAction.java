@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.action;
+
+import io.github.demonfiddler.timer.model.ActionBean;
+
+/**
+ * The service provider interface for actions executed when a timer enters the
+ * warning or complete state. Implementations are discovered using
+ * {@link java.util.ServiceLoader ServiceLoader} and are selected by matching
+ * {@link #getType() type} against {@link ActionBean#getType()}. Actions are
+ * always executed on an {@link ActionExecutor} worker thread, never on the
+ * JavaFX application thread or a timer scheduler thread, and must respond to
+ * interruption when their timeout expires.
+ * 
+ * @since 1.0.1
+ */
+public interface TimerAction {
+	/**
+	 * Returns the action type name by which timer configurations refer to this
+	 * action.
+	 * 
+	 * @return the action type name.
+	 */
+	String getType();
+
+	/**
+	 * Executes the action.
+	 * 
+	 * @param config The action configuration.
+	 * @param event  Describes the timer transition that triggered the action.
+	 * @throws Exception if the action fails.
+	 */
+	void execute(ActionBean config, ActionEvent event) throws Exception;
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer.model;
+
+import java.util.Objects;
+
+import javax.json.bind.annotation.JsonbPropertyOrder;
+import javax.json.bind.annotation.JsonbTransient;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * A JavaFX bean that configures an action to be executed when a timer enters
+ * the {@link TimerState#WARNING warning} or {@link TimerState#COMPLETE complete}
+ * state. The action <code>type</code> selects the
+ * {@link io.github.demonfiddler.timer.action.TimerAction TimerAction}
+ * implementation, which interprets the <code>target</code> and
+ * <code>text</code> properties as it sees fit.
+ * 
+ * @since 1.0.1
+ */
+@JsonbPropertyOrder({ "on", "type", "target", "text", "timeout" })
+public class ActionBean {
+	/** The default action timeout in seconds. */
+	public static final int DEFAULT_TIMEOUT = 30;
+
+	private final ObjectProperty<TimerState> on = new SimpleObjectProperty<>(this, "on", TimerState.COMPLETE);
+	private final StringProperty type = new SimpleStringProperty(this, "type");
+	private final StringProperty target = new SimpleStringProperty(this, "target");
+	private final StringProperty text = new SimpleStringProperty(this, "text");
+	private final IntegerProperty timeout = new SimpleIntegerProperty(this, "timeout", DEFAULT_TIMEOUT);
+	/** Whether the action may run; not persisted, so a reopened file must be confirmed again. */
+	@JsonbTransient
+	private volatile boolean enabled = true;
+
+	/**
+	 * Constructs a new <code>ActionBean</code>.
+	 */
+	public ActionBean() {
+	}
+
+	/**
+	 * Constructs a new <code>ActionBean</code> by copying the settings from an
+	 * existing instance.
+	 * 
+	 * @param src The source bean from which settings are copied.
+	 */
+	public ActionBean(ActionBean src) {
+		setOn(src.getOn());
+		setType(src.getType());
+		setTarget(src.getTarget());
+		setText(src.getText());
+		setTimeout(src.getTimeout());
+		setEnabled(src.isEnabled());
+	}
+
+	/**
+	 * Returns the state upon entry to which the action is executed.
+	 * 
+	 * @return the triggering state.
+	 */
+	public final TimerState getOn() {
+		return on.get();
+	}
+
+	/**
+	 * Returns the action target, such as a command line or a file path.
+	 * 
+	 * @return the action target.
+	 */
+	public final String getTarget() {
+		return target.get();
+	}
+
+	/**
+	 * Returns the action text, such as a line to append to a file.
+	 * 
+	 * @return the action text.
+	 */
+	public final String getText() {
+		return text.get();
+	}
+
+	/**
+	 * Returns the maximum number of seconds for which the action may execute
+	 * before it is cancelled.
+	 * 
+	 * @return the action timeout in seconds.
+	 */
+	public final int getTimeout() {
+		return timeout.get();
+	}
+
+	/**
+	 * Returns the action type.
+	 * 
+	 * @return the action type.
+	 */
+	public final String getType() {
+		return type.get();
+	}
+
+	/**
+	 * Returns whether the action may run. An action is enabled unless the user
+	 * declined to run it when the file containing it was opened.
+	 * 
+	 * @return <code>true</code> if the action may run.
+	 */
+	@JsonbTransient
+	public final boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the triggering state property.
+	 * 
+	 * @return the triggering state property.
+	 */
+	public final ObjectProperty<TimerState> onProperty() {
+		return on;
+	}
+
+	/**
+	 * Sets whether the action may run.
+	 * 
+	 * @param newEnabled <code>true</code> to allow the action to run.
+	 */
+	@JsonbTransient
+	public final void setEnabled(boolean newEnabled) {
+		enabled = newEnabled;
+	}
+
+	/**
+	 * Sets the state upon entry to which the action is executed.
+	 * 
+	 * @param newOn The triggering state, either {@link TimerState#WARNING
+	 *              warning} or {@link TimerState#COMPLETE complete}.
+	 */
+	public final void setOn(TimerState newOn) {
+		Objects.requireNonNull(newOn, "newOn is required");
+		if (newOn != TimerState.WARNING && newOn != TimerState.COMPLETE)
+			throw new IllegalArgumentException("actions can only be triggered on WARNING or COMPLETE");
+		on.set(newOn);
+	}
+
+	/**
+	 * Sets the action target.
+	 * 
+	 * @param newTarget The action target.
+	 */
+	public final void setTarget(String newTarget) {
+		target.set(newTarget);
+	}
+
+	/**
+	 * Sets the action text.
+	 * 
+	 * @param newText The action text.
+	 */
+	public final void setText(String newText) {
+		text.set(newText);
+	}
+
+	/**
+	 * Sets the action timeout in seconds.
+	 * 
+	 * @param newTimeout The action timeout in seconds.
+	 */
+	public final void setTimeout(int newTimeout) {
+		timeout.set(newTimeout);
+	}
+
+	/**
+	 * Sets the action type.
+	 * 
+	 * @param newType The action type.
+	 */
+	public final void setType(String newType) {
+		type.set(newType);
+	}
+
+	/**
+	 * Returns the target property.
+	 * 
+	 * @return the target property.
+	 */
+	public final StringProperty targetProperty() {
+		return target;
+	}
+
+	/**
+	 * Returns the text property.
+	 * 
+	 * @return the text property.
+	 */
+	public final StringProperty textProperty() {
+		return text;
+	}
+
+	/**
+	 * Returns the timeout property.
+	 * 
+	 * @return the timeout property.
+	 */
+	public final IntegerProperty timeoutProperty() {
+		return timeout;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "ActionBean [on=" + getOn() + ", type=" + getType() + ", target=" + getTarget() + ", text=" + getText()
+				+ ", timeout=" + getTimeout() + ']';
+	}
+
+	/**
+	 * Returns the type property.
+	 * 
+	 * @return the type property.
+	 */
+	public final StringProperty typeProperty() {
+		return type;
+	}
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An indexed binary min-heap of the upcoming deadlines of a document's running
+ * timers, maintained by the timers themselves as they start, reach deadlines,
+ * pause and stop. Each running timer has at most one entry, for its next
+ * warning or finish deadline, and each entry knows its own position in the
+ * heap, so that the earliest deadline can be peeked in constant time and an
+ * entry added, moved or removed in logarithmic time, without ever scanning the
+ * timers.
+ * <p>
+ * The index may be updated from any thread. Observers that cannot be notified
+ * of every change, such as a view refreshed once per frame, can compare the
+ * {@link #getModCount() modification count} to tell whether to query it again.
+ * 
+ * @since 1.0.1
+ */
+public final class DeadlineIndex {
+	/**
+	 * A snapshot of an upcoming deadline.
+	 */
+	public static final class Deadline {
+		private final TimerBean timer;
+		private final long time;
+		private final TimerState state;
+
+		/**
+		 * Constructs a new <code>Deadline</code>.
+		 * 
+		 * @param timer The timer.
+		 * @param time  The deadline, in milliseconds since the epoch.
+		 * @param state The state that the timer enters at the deadline.
+		 */
+		Deadline(TimerBean timer, long time, TimerState state) {
+			this.timer = timer;
+			this.time = time;
+			this.state = state;
+		}
+
+		/**
+		 * Returns the state that the timer enters at the deadline.
+		 * 
+		 * @return {@link TimerState#WARNING warning} or {@link TimerState#COMPLETE
+		 *         complete}.
+		 */
+		public TimerState getState() {
+			return state;
+		}
+
+		/**
+		 * Returns the deadline.
+		 * 
+		 * @return the deadline, in milliseconds since the epoch.
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * Returns the timer.
+		 * 
+		 * @return the timer.
+		 */
+		public TimerBean getTimer() {
+			return timer;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String toString() {
+			return "Deadline [timer=" + timer.getName() + ", time=" + time + ", state=" + state + ']';
+		}
+	}
+
+	/**
+	 * The heap entry of one timer run. It is owned by the run, and records the
+	 * index that holds it and its position there.
+	 */
+	static final class Entry {
+		final TimerBean timer;
+		private long time;
+		private TimerState state;
+		/** The position in the heap, or -1. Guarded by the index. */
+		private int slot = -1;
+		/** The index that holds the entry, if any. */
+		volatile DeadlineIndex index;
+
+		/**
+		 * Constructs a new <code>Entry</code>.
+		 * 
+		 * @param timer The timer.
+		 */
+		Entry(TimerBean timer) {
+			this.timer = timer;
+		}
+	}
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Entry[] heap = new Entry[INITIAL_CAPACITY];
+	private int size;
+	private volatile long modCount;
+
+	/**
+	 * Returns the number of modifications made to the index, which changes
+	 * whenever its contents do.
+	 * 
+	 * @return the modification count.
+	 */
+	public long getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * Returns whether one entry falls due before another.
+	 * 
+	 * @param a The first entry.
+	 * @param b The second entry.
+	 * @return <code>true</code> if <code>a</code> is due first.
+	 */
+	private static boolean isBefore(Entry a, Entry b) {
+		return a.time < b.time;
+	}
+
+	/**
+	 * Places an entry at a position in the heap.
+	 * 
+	 * @param slot  The position.
+	 * @param entry The entry.
+	 */
+	private void move(int slot, Entry entry) {
+		heap[slot] = entry;
+		entry.slot = slot;
+	}
+
+	/**
+	 * Returns the earliest upcoming deadlines, in order. The cost grows with
+	 * <code>count</code>, not with the number of running timers.
+	 * 
+	 * @param count The maximum number of deadlines to return.
+	 * @return the earliest <code>count</code> deadlines, or all of them if there
+	 *         are fewer.
+	 * @throws IllegalArgumentException if <code>count</code> is negative.
+	 */
+	public synchronized List<Deadline> next(int count) {
+		if (count < 0)
+			throw new IllegalArgumentException("count cannot be negative");
+		count = Math.min(count, size);
+		if (count == 0)
+			return Collections.emptyList();
+		List<Deadline> next = new ArrayList<>(count);
+		// The next entry is always the earliest child of an entry already taken.
+		PriorityQueue<Entry> frontier = new PriorityQueue<>((a, b) -> Long.compare(a.time, b.time));
+		frontier.add(heap[0]);
+		while (next.size() < count) {
+			Entry entry = frontier.poll();
+			next.add(snapshot(entry));
+			int child = 2 * entry.slot + 1;
+			if (child < size)
+				frontier.add(heap[child]);
+			if (child + 1 < size)
+				frontier.add(heap[child + 1]);
+		}
+		return next;
+	}
+
+	/**
+	 * Returns the earliest upcoming deadline.
+	 * 
+	 * @return the earliest deadline, or <code>null</code> if no timer is
+	 *         running.
+	 */
+	public synchronized Deadline peek() {
+		return size == 0 ? null : snapshot(heap[0]);
+	}
+
+	/**
+	 * Removes an entry from the index, if it holds it.
+	 * 
+	 * @param entry The entry to remove.
+	 */
+	synchronized void remove(Entry entry) {
+		if (entry.index != this)
+			return;
+		int slot = entry.slot;
+		Entry last = heap[--size];
+		heap[size] = null;
+		if (last != entry) {
+			move(slot, last);
+			siftDown(slot);
+			siftUp(last.slot);
+		}
+		entry.slot = -1;
+		entry.index = null;
+		modCount++;
+	}
+
+	/**
+	 * Moves an entry away from the root of the heap until no child is due
+	 * before it.
+	 * 
+	 * @param slot The entry's position.
+	 */
+	private void siftDown(int slot) {
+		Entry entry = heap[slot];
+		for (;;) {
+			int child = 2 * slot + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && isBefore(heap[child + 1], heap[child]))
+				child++;
+			if (!isBefore(heap[child], entry))
+				break;
+			move(slot, heap[child]);
+			slot = child;
+		}
+		move(slot, entry);
+	}
+
+	/**
+	 * Moves an entry towards the root of the heap until its parent is not due
+	 * after it.
+	 * 
+	 * @param slot The entry's position.
+	 */
+	private void siftUp(int slot) {
+		Entry entry = heap[slot];
+		while (slot > 0) {
+			int parent = (slot - 1) / 2;
+			if (!isBefore(entry, heap[parent]))
+				break;
+			move(slot, heap[parent]);
+			slot = parent;
+		}
+		move(slot, entry);
+	}
+
+	/**
+	 * Returns the number of timers that have an upcoming deadline.
+	 * 
+	 * @return the number of deadlines.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a snapshot of an entry.
+	 * 
+	 * @param entry The entry.
+	 * @return the snapshot.
+	 */
+	private static Deadline snapshot(Entry entry) {
+		return new Deadline(entry.timer, entry.time, entry.state);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized String toString() {
+		return "DeadlineIndex [size=" + size + ", next=" + (size == 0 ? null : snapshot(heap[0])) + ']';
+	}
+
+	/**
+	 * Adds an entry to the index or moves it to a new deadline.
+	 * 
+	 * @param entry The entry, which must not be held by another index.
+	 * @param time  The deadline, in milliseconds since the epoch.
+	 * @param state The state that the timer enters at the deadline.
+	 */
+	synchronized void update(Entry entry, long time, TimerState state) {
+		entry.state = state;
+		if (entry.index == this) {
+			long oldTime = entry.time;
+			entry.time = time;
+			if (time < oldTime)
+				siftUp(entry.slot);
+			else if (time > oldTime)
+				siftDown(entry.slot);
+		} else {
+			if (size == heap.length)
+				heap = Arrays.copyOf(heap, size * 2);
+			entry.time = time;
+			entry.index = this;
+			move(size, entry);
+			siftUp(size++);
+		}
+		modCount++;
+	}
+}
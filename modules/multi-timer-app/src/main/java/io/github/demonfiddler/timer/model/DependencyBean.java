@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import java.util.Objects;
+
+import javax.json.bind.annotation.JsonbPropertyOrder;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * A JavaFX bean that declares that a timer depends upon another timer, the
+ * <i>predecessor</i>, entering the {@link TimerState#WARNING warning} or
+ * {@link TimerState#COMPLETE complete} state. The predecessor is identified by
+ * name, so the names of timers that are depended upon must be unique.
+ * 
+ * @since 1.0.1
+ */
+@JsonbPropertyOrder({ "timer", "on" })
+public class DependencyBean {
+	private final StringProperty timer = new SimpleStringProperty(this, "timer");
+	private final ObjectProperty<TimerState> on = new SimpleObjectProperty<>(this, "on", TimerState.COMPLETE);
+
+	/**
+	 * Constructs a new <code>DependencyBean</code>.
+	 */
+	public DependencyBean() {
+	}
+
+	/**
+	 * Constructs a new <code>DependencyBean</code>.
+	 * 
+	 * @param timer The name of the predecessor timer.
+	 * @param on    The predecessor state upon which the dependency is satisfied.
+	 */
+	public DependencyBean(String timer, TimerState on) {
+		setTimer(timer);
+		setOn(on);
+	}
+
+	/**
+	 * Constructs a new <code>DependencyBean</code> by copying the settings from
+	 * an existing instance.
+	 * 
+	 * @param src The source bean from which settings are copied.
+	 */
+	public DependencyBean(DependencyBean src) {
+		this(src.getTimer(), src.getOn());
+	}
+
+	/**
+	 * Returns the predecessor state upon which the dependency is satisfied.
+	 * 
+	 * @return the predecessor state.
+	 */
+	public final TimerState getOn() {
+		return on.get();
+	}
+
+	/**
+	 * Returns the name of the predecessor timer.
+	 * 
+	 * @return the predecessor timer name.
+	 */
+	public final String getTimer() {
+		return timer.get();
+	}
+
+	/**
+	 * Returns the predecessor state property.
+	 * 
+	 * @return the predecessor state property.
+	 */
+	public final ObjectProperty<TimerState> onProperty() {
+		return on;
+	}
+
+	/**
+	 * Sets the predecessor state upon which the dependency is satisfied.
+	 * 
+	 * @param newOn The predecessor state, either {@link TimerState#WARNING
+	 *              warning} or {@link TimerState#COMPLETE complete}.
+	 */
+	public final void setOn(TimerState newOn) {
+		Objects.requireNonNull(newOn, "newOn is required");
+		if (newOn != TimerState.WARNING && newOn != TimerState.COMPLETE)
+			throw new IllegalArgumentException("dependencies can only be satisfied on WARNING or COMPLETE");
+		on.set(newOn);
+	}
+
+	/**
+	 * Sets the name of the predecessor timer.
+	 * 
+	 * @param newTimer The predecessor timer name.
+	 */
+	public final void setTimer(String newTimer) {
+		timer.set(newTimer);
+	}
+
+	/**
+	 * Returns the predecessor timer name property.
+	 * 
+	 * @return the predecessor timer name property.
+	 */
+	public final StringProperty timerProperty() {
+		return timer;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "DependencyBean [timer=" + getTimer() + ", on=" + getOn() + ']';
+	}
+}
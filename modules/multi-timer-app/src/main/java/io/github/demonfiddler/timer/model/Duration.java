@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -28,29 +28,43 @@ import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
-import javafx.beans.value.ObservableValue;
 
 /**
- * A JavaFX bean that holds a temporal duration value.
+ * A JavaFX bean that holds a temporal duration value. The duration is held as
+ * a plain total number of seconds, from which the other representations are
+ * derived. The JavaFX properties are created on demand, the first time each is
+ * requested, and are kept in step with the total thereafter.
  * 
  * @since 1.0
  */
 public class Duration {
 	private static final Pattern ISO8601_DURATION = Pattern.compile(
 			"P(?:(\\d+)Y)?(?:(\\d{1,2})M)?(?:(\\d{1,2})D)?(?:T(?:(\\d{1,2})H)?(?:(\\d{1,2})M)?(?:(\\d{1,2})S)?)?");
-	private final IntegerProperty hours = new SimpleIntegerProperty();
-	private final IntegerProperty minutes = new SimpleIntegerProperty();
-	private final IntegerProperty seconds = new SimpleIntegerProperty();
-	private final IntegerProperty intValue = new SimpleIntegerProperty();
-	private final StringProperty isoValue = new SimpleStringProperty("P");
-	private volatile boolean updating;
+	/** The ISO-8601 value of a zero duration. */
+	private static final String ZERO = "P";
 
-	{
-		hours.addListener(this::onFieldUpdated);
-		minutes.addListener(this::onFieldUpdated);
-		seconds.addListener(this::onFieldUpdated);
-		intValue.addListener(this::onIntValueUpdated);
-		isoValue.addListener(this::onIsoValueUpdated);
+	/** The total duration in seconds. */
+	private int value;
+	private IntegerProperty hours;
+	private IntegerProperty minutes;
+	private IntegerProperty seconds;
+	private IntegerProperty intValue;
+	private StringProperty isoValue;
+	private boolean updating;
+
+	/**
+	 * Constructs a new, zero <code>Duration</code>.
+	 */
+	public Duration() {
+	}
+
+	/**
+	 * Constructs a new <code>Duration</code> of the specified length.
+	 * 
+	 * @param intValue The total duration in seconds.
+	 */
+	public Duration(int intValue) {
+		value = intValue;
 	}
 
 	/**
@@ -59,7 +73,7 @@ public class Duration {
 	 * @return the hours component.
 	 */
 	public int getHours() {
-		return hours.get();
+		return value / SECONDS_PER_HOUR;
 	}
 
 	/**
@@ -68,7 +82,7 @@ public class Duration {
 	 * @return the total duration in seconds.
 	 */
 	public int getIntValue() {
-		return intValue.get();
+		return value;
 	}
 
 	/**
@@ -78,7 +92,7 @@ public class Duration {
 	 * @param field   The index of the capture group for the requested field.
 	 * @return the requested field value.
 	 */
-	private int getIsoDurationField(Matcher matcher, int field) {
+	private static int getIsoDurationField(Matcher matcher, int field) {
 		String strValue = matcher.group(field);
 		return strValue == null ? 0 : Integer.parseInt(strValue);
 	}
@@ -89,7 +103,7 @@ public class Duration {
 	 * @return the duration as an ISO-8601 Period string.
 	 */
 	public String getIsoValue() {
-		return isoValue.get();
+		return formatIsoValue(value);
 	}
 
 	/**
@@ -98,7 +112,7 @@ public class Duration {
 	 * @return the minutes component.
 	 */
 	public int getMinutes() {
-		return minutes.get();
+		return value / SECONDS_PER_MINUTE - getHours() * MINUTES_PER_HOUR;
 	}
 
 	/**
@@ -107,7 +121,7 @@ public class Duration {
 	 * @return the seconds component.
 	 */
 	public int getSeconds() {
-		return seconds.get();
+		return value % SECONDS_PER_MINUTE;
 	}
 
 	/**
@@ -116,6 +130,15 @@ public class Duration {
 	 * @return the hours property.
 	 */
 	public IntegerProperty hoursProperty() {
+		if (hours == null) {
+			hours = new SimpleIntegerProperty(this, "hours", getHours()) {
+				@Override
+				protected void invalidated() {
+					if (!updating)
+						setHours(get());
+				}
+			};
+		}
 		return hours;
 	}
 
@@ -125,6 +148,15 @@ public class Duration {
 	 * @return the total duration in seconds property.
 	 */
 	public IntegerProperty intValueProperty() {
+		if (intValue == null) {
+			intValue = new SimpleIntegerProperty(this, "intValue", value) {
+				@Override
+				protected void invalidated() {
+					if (!updating)
+						setIntValue(get());
+				}
+			};
+		}
 		return intValue;
 	}
 
@@ -134,6 +166,15 @@ public class Duration {
 	 * @return the ISO-8601 Period property.
 	 */
 	public StringProperty isoValueProperty() {
+		if (isoValue == null) {
+			isoValue = new SimpleStringProperty(this, "isoValue", getIsoValue()) {
+				@Override
+				protected void invalidated() {
+					if (!updating)
+						setIsoValue(get());
+				}
+			};
+		}
 		return isoValue;
 	}
 
@@ -143,82 +184,36 @@ public class Duration {
 	 * @return the minutes property.
 	 */
 	public IntegerProperty minutesProperty() {
-		return minutes;
-	}
-
-	/**
-	 * Sets the total duration in seconds, hours, minutes and seconds fields when
-	 * one of them is updated.
-	 * 
-	 * @param source   The source observable that has been updated.
-	 * @param oldValue The old field value.
-	 * @param newValue The updated field value.
-	 */
-	private void onFieldUpdated(ObservableValue<? extends Number> source, Number oldValue, Number newValue) {
-		if (!updating) {
-			try {
-				updating = true;
-				setIntValue(getHours() * SECONDS_PER_HOUR + getMinutes() * SECONDS_PER_MINUTE + getSeconds());
-				setFields(getIntValue());
-			} finally {
-				updating = false;
-			}
+		if (minutes == null) {
+			minutes = new SimpleIntegerProperty(this, "minutes", getMinutes()) {
+				@Override
+				protected void invalidated() {
+					if (!updating)
+						setMinutes(get());
+				}
+			};
 		}
+		return minutes;
 	}
 
 	/**
-	 * Sets the hours, minutes and seconds fields when total duration in seconds has
-	 * been updated.
+	 * Parses an ISO-8601 Period string.
 	 * 
-	 * @param source   The source observable that has been updated.
-	 * @param oldValue The old total duration in seconds field value.
-	 * @param newValue The updated total duration in seconds field value.
+	 * @param isoValue The ISO-8601 Period string to parse.
+	 * @return the total duration in seconds, or <code>-1</code> if the value is
+	 *         malformed or has any of the unsupported year, month or day fields.
 	 */
-	private void onIntValueUpdated(ObservableValue<? extends Number> source, Number oldValue, Number newValue) {
-		if (!updating) {
-			try {
-				updating = true;
-				setFields(newValue.intValue());
-			} finally {
-				updating = false;
-			}
-		}
-	}
+	static int parseIsoValue(String isoValue) {
+		if (isoValue == null)
+			return -1;
+		Matcher matcher = ISO8601_DURATION.matcher(isoValue);
+		if (!matcher.matches() || getIsoDurationField(matcher, 1) != 0 || getIsoDurationField(matcher, 2) != 0
+				|| getIsoDurationField(matcher, 3) != 0) {
 
-	/**
-	 * Sets the total duration in seconds, hours, minutes and seconds fields when
-	 * the ISO-8601 value is updated.
-	 * 
-	 * @param source   The source observable that has been updated.
-	 * @param oldValue The old ISO-8601 value.
-	 * @param newValue The updated ISO-8601 value.
-	 */
-	private void onIsoValueUpdated(ObservableValue<? extends String> source, String oldValue, String newValue) {
-		if (!updating) {
-			try {
-				updating = true;
-				Matcher matcher = ISO8601_DURATION.matcher(newValue);
-				if (matcher.matches()) {
-					int newYears = getIsoDurationField(matcher, 1);
-					int newMonths = getIsoDurationField(matcher, 2);
-					int newDays = getIsoDurationField(matcher, 3);
-					if (newYears != 0 || newMonths != 0 || newDays != 0) {
-						setIsoValue(oldValue);
-						throw new IllegalArgumentException("ISO-8601 period Y, M and D fields are not supported");
-					}
-					int newHours = getIsoDurationField(matcher, 4);
-					int newMinutes = getIsoDurationField(matcher, 5);
-					int newSeconds = getIsoDurationField(matcher, 6);
-					int newIntValue = newHours * SECONDS_PER_HOUR + newMinutes * SECONDS_PER_MINUTE + newSeconds;
-					setHours(newHours);
-					setMinutes(newMinutes);
-					setSeconds(newSeconds);
-					setIntValue(newIntValue);
-				}
-			} finally {
-				updating = false;
-			}
+			return -1;
 		}
+		return getIsoDurationField(matcher, 4) * SECONDS_PER_HOUR + getIsoDurationField(matcher, 5) * SECONDS_PER_MINUTE
+				+ getIsoDurationField(matcher, 6);
 	}
 
 	/**
@@ -227,53 +222,37 @@ public class Duration {
 	 * @return the seconds property.
 	 */
 	public IntegerProperty secondsProperty() {
+		if (seconds == null) {
+			seconds = new SimpleIntegerProperty(this, "seconds", getSeconds()) {
+				@Override
+				protected void invalidated() {
+					if (!updating)
+						setSeconds(get());
+				}
+			};
+		}
 		return seconds;
 	}
 
-	/**
-	 * Sets the hours, minutes, seconds fields and the ISO-8601 value from the
-	 * specified interval in seconds.
-	 * 
-	 * @param newIntValue the interval in seconds to set.
-	 */
-	private void setFields(int newIntValue) {
-		int newHours = newIntValue / SECONDS_PER_HOUR;
-		int newMinutes = newIntValue / SECONDS_PER_MINUTE - newHours * MINUTES_PER_HOUR;
-		int newSeconds = newIntValue % SECONDS_PER_MINUTE;
-		setHours(newHours);
-		setMinutes(newMinutes);
-		setSeconds(newSeconds);
-		setIsoValue(formatIsoValue(0, 0, 0, newHours, newMinutes, newSeconds));
-	}
-
 	/**
 	 * Returns an ISO-8601 Period string expressing the specified duration.
 	 * 
-	 * @param years   The year field.
-	 * @param months  The months field.
-	 * @param days    The days field.
-	 * @param hours   The hours field.
-	 * @param minutes The minutes field.
-	 * @param seconds The seconds field.
+	 * @param intValue The total duration in seconds.
 	 * @return the corresponding ISO-8601 Period value.
 	 */
-	private String formatIsoValue(int years, int months, int days, int hours, int minutes, int seconds) {
-		StringBuilder isoValue = new StringBuilder("P");
-		if (years != 0)
-			isoValue.append(years).append('Y');
-		if (months != 0)
-			isoValue.append(months).append('M');
-		if (days != 0)
-			isoValue.append(days).append('D');
-		if (hours != 0 || minutes != 0 || seconds != 0) {
-			isoValue.append('T');
-			if (hours != 0)
-				isoValue.append(hours).append('H');
-			if (minutes != 0)
-				isoValue.append(minutes).append('M');
-			if (seconds != 0)
-				isoValue.append(seconds).append('S');
-		}
+	static String formatIsoValue(int intValue) {
+		if (intValue == 0)
+			return ZERO;
+		int hours = intValue / SECONDS_PER_HOUR;
+		int minutes = intValue / SECONDS_PER_MINUTE - hours * MINUTES_PER_HOUR;
+		int seconds = intValue % SECONDS_PER_MINUTE;
+		StringBuilder isoValue = new StringBuilder("PT");
+		if (hours != 0)
+			isoValue.append(hours).append('H');
+		if (minutes != 0)
+			isoValue.append(minutes).append('M');
+		if (seconds != 0)
+			isoValue.append(seconds).append('S');
 		return isoValue.toString();
 	}
 
@@ -283,25 +262,45 @@ public class Duration {
 	 * @param newHours The hours value to set.
 	 */
 	public void setHours(int newHours) {
-		hours.set(newHours);
+		setIntValue(newHours * SECONDS_PER_HOUR + getMinutes() * SECONDS_PER_MINUTE + getSeconds());
 	}
 
 	/**
-	 * Sets all fields from the total duration in seconds.
+	 * Sets all fields from the total duration in seconds, and brings any
+	 * properties that have been created into line.
 	 * 
 	 * @param newIntValue The total duration in seconds to set.
 	 */
 	public void setIntValue(int newIntValue) {
-		intValue.set(newIntValue);
+		value = newIntValue;
+		boolean wasUpdating = updating;
+		try {
+			updating = true;
+			if (hours != null)
+				hours.set(getHours());
+			if (minutes != null)
+				minutes.set(getMinutes());
+			if (seconds != null)
+				seconds.set(getSeconds());
+			if (isoValue != null)
+				isoValue.set(getIsoValue());
+			if (intValue != null)
+				intValue.set(newIntValue);
+		} finally {
+			updating = wasUpdating;
+		}
 	}
 
 	/**
-	 * Sets all fields from an ISO-8601 Period value.
+	 * Sets all fields from an ISO-8601 Period value. A malformed value, or one
+	 * that has year, month or day fields, is ignored.
 	 * 
 	 * @param newIsoValue The ISO-8601 Period value to set.
 	 */
 	public void setIsoValue(String newIsoValue) {
-		isoValue.set(newIsoValue);
+		int newIntValue = parseIsoValue(newIsoValue);
+		// Restoring the current value puts the property back if it was set directly.
+		setIntValue(newIntValue >= 0 ? newIntValue : value);
 	}
 
 	/**
@@ -310,7 +309,7 @@ public class Duration {
 	 * @param newMinutes The minutes value to set.
 	 */
 	public void setMinutes(int newMinutes) {
-		minutes.set(newMinutes);
+		setIntValue(getHours() * SECONDS_PER_HOUR + newMinutes * SECONDS_PER_MINUTE + getSeconds());
 	}
 
 	/**
@@ -319,7 +318,7 @@ public class Duration {
 	 * @param newSeconds The seconds value to set.
 	 */
 	public void setSeconds(int newSeconds) {
-		seconds.set(newSeconds);
+		setIntValue(getHours() * SECONDS_PER_HOUR + getMinutes() * SECONDS_PER_MINUTE + newSeconds);
 	}
 
 	/** {@inheritDoc} */
@@ -0,0 +1,380 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+
+import io.github.demonfiddler.timer.util.Constants;
+import io.github.demonfiddler.timer.util.TimerUtils;
+
+/**
+ * Generates synthetic multi-timers for load and stress testing. The number of
+ * timers, the distribution of their intervals and the proportions of timers
+ * that warn and repeat are configurable. Generation is driven by a seeded
+ * random number generator, so a given configuration always produces the same
+ * timers.
+ * 
+ * @since 1.0.1
+ */
+public class LoadGenerator {
+	/**
+	 * The distribution from which timer intervals are drawn.
+	 */
+	public enum Distribution {
+		/** All intervals are equal to the minimum interval. */
+		FIXED,
+		/** Intervals are uniformly distributed between the minimum and maximum. */
+		UNIFORM,
+		/**
+		 * Interval logarithms are uniformly distributed, so short intervals are as
+		 * common per decade as long ones.
+		 */
+		LOG_UNIFORM,
+		/**
+		 * Intervals are exponentially distributed above the minimum, with a mean of
+		 * the midpoint of the range, and truncated at the maximum.
+		 */
+		EXPONENTIAL
+	}
+
+	private int count = 1000;
+	private int minInterval = 60;
+	private int maxInterval = Constants.SECONDS_PER_HOUR;
+	private Distribution distribution = Distribution.UNIFORM;
+	private double warnRatio = 0.5;
+	private double repeatRatio = 0.5;
+	private int groupSize;
+	private long seed = 1;
+
+	/**
+	 * Constructs a new <code>LoadGenerator</code> with the default settings: 1,000
+	 * timers with intervals uniformly distributed between one minute and one hour,
+	 * half of which warn and half of which repeat.
+	 */
+	public LoadGenerator() {
+	}
+
+	/**
+	 * Writes a generated multi-timer to a file.
+	 * 
+	 * @param args The path of the file to write, followed by optional
+	 *             <code>name=value</code> settings: <code>count</code>,
+	 *             <code>min</code>, <code>max</code> (interval bounds in
+	 *             seconds), <code>distribution</code>, <code>warn</code>,
+	 *             <code>repeat</code>, <code>group</code> and <code>seed</code>.
+	 * @throws IOException if unable to write the file.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: LoadGenerator <file" + Constants.FILE_EXT_DOT_TIMERS
+					+ "> [count=n] [min=seconds] [max=seconds] [distribution=fixed|uniform|log_uniform|exponential]"
+					+ " [warn=ratio] [repeat=ratio] [group=size] [seed=n]");
+			System.exit(1);
+		}
+		LoadGenerator generator = new LoadGenerator();
+		for (int i = 1; i < args.length; i++) {
+			int eq = args[i].indexOf('=');
+			if (eq == -1)
+				throw new IllegalArgumentException("Expected name=value: " + args[i]);
+			String value = args[i].substring(eq + 1);
+			switch (args[i].substring(0, eq)) {
+				case "count":
+					generator.setCount(Integer.parseInt(value));
+					break;
+				case "min":
+					generator.setMinInterval(Integer.parseInt(value));
+					break;
+				case "max":
+					generator.setMaxInterval(Integer.parseInt(value));
+					break;
+				case "distribution":
+					generator.setDistribution(Distribution.valueOf(value.toUpperCase(Locale.ROOT)));
+					break;
+				case "warn":
+					generator.setWarnRatio(Double.parseDouble(value));
+					break;
+				case "repeat":
+					generator.setRepeatRatio(Double.parseDouble(value));
+					break;
+				case "group":
+					generator.setGroupSize(Integer.parseInt(value));
+					break;
+				case "seed":
+					generator.setSeed(Long.parseLong(value));
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown setting: " + args[i]);
+			}
+		}
+		generator.write(new File(args[0]));
+	}
+
+	/**
+	 * Generates a multi-timer according to the current settings. If the group size
+	 * is non-zero the timers are divided into groups of that size, otherwise they
+	 * are all top-level timers.
+	 * 
+	 * @return a new multi-timer.
+	 */
+	public MultiTimerBean generate() {
+		if (minInterval > maxInterval)
+			throw new IllegalArgumentException("minInterval must not exceed maxInterval");
+		Random random = new Random(seed);
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			timers.add(generate(random, i));
+		MultiTimerBean bean = new MultiTimerBean();
+		if (groupSize == 0) {
+			bean.setTimers(timers);
+		} else {
+			List<TimerGroupBean> groups = new ArrayList<>(count / groupSize + 1);
+			for (int i = 0; i < count; i += groupSize) {
+				TimerGroupBean group = new TimerGroupBean();
+				group.setName("Group " + (i / groupSize + 1));
+				group.setCollapsed(true);
+				group.setTimers(timers.subList(i, Math.min(i + groupSize, count)));
+				groups.add(group);
+			}
+			bean.setGroups(groups);
+		}
+		return bean;
+	}
+
+	/**
+	 * Generates a single timer.
+	 * 
+	 * @param random The random number generator.
+	 * @param index  The zero-based index of the timer.
+	 * @return a new timer.
+	 */
+	private TimerBean generate(Random random, int index) {
+		int interval = nextInterval(random);
+		TimerBean timer = new TimerBean();
+		timer.setName(String.format("Timer %05d", index + 1));
+		timer.setIntInterval(interval);
+		// Warn between halfway through and just before the end of the interval.
+		if (interval > 1 && random.nextDouble() < warnRatio)
+			timer.setIntWarnAfter(Math.max((int) (interval * (0.5 + 0.45 * random.nextDouble())), 1));
+		timer.setRepeat(random.nextDouble() < repeatRatio);
+		return timer;
+	}
+
+	/**
+	 * Returns the interval distribution.
+	 * 
+	 * @return the interval distribution.
+	 */
+	public Distribution getDistribution() {
+		return distribution;
+	}
+
+	/**
+	 * Returns the number of timers per group.
+	 * 
+	 * @return the group size, or zero if the timers are not grouped.
+	 */
+	public int getGroupSize() {
+		return groupSize;
+	}
+
+	/**
+	 * Returns the number of timers to generate.
+	 * 
+	 * @return the timer count.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the maximum timer interval in seconds.
+	 * 
+	 * @return the maximum interval.
+	 */
+	public int getMaxInterval() {
+		return maxInterval;
+	}
+
+	/**
+	 * Returns the minimum timer interval in seconds.
+	 * 
+	 * @return the minimum interval.
+	 */
+	public int getMinInterval() {
+		return minInterval;
+	}
+
+	/**
+	 * Returns the proportion of timers that repeat.
+	 * 
+	 * @return the repeat ratio, between 0 and 1.
+	 */
+	public double getRepeatRatio() {
+		return repeatRatio;
+	}
+
+	/**
+	 * Returns the random number generator seed.
+	 * 
+	 * @return the seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the proportion of timers that have a warning period.
+	 * 
+	 * @return the warn ratio, between 0 and 1.
+	 */
+	public double getWarnRatio() {
+		return warnRatio;
+	}
+
+	/**
+	 * Draws the next interval from the configured distribution.
+	 * 
+	 * @param random The random number generator.
+	 * @return an interval in seconds, between the minimum and maximum inclusive.
+	 */
+	private int nextInterval(Random random) {
+		double interval;
+		switch (distribution) {
+			case UNIFORM:
+				interval = minInterval + random.nextDouble() * (maxInterval - minInterval + 1);
+				break;
+			case LOG_UNIFORM:
+				interval = Math.exp(Math.log(minInterval)
+						+ random.nextDouble() * (Math.log(maxInterval + 1) - Math.log(minInterval)));
+				break;
+			case EXPONENTIAL:
+				interval = minInterval - Math.log(1 - random.nextDouble()) * (maxInterval - minInterval) / 2.0;
+				break;
+			case FIXED:
+			default:
+				interval = minInterval;
+				break;
+		}
+		return (int) Math.min(interval, maxInterval);
+	}
+
+	/**
+	 * Sets the number of timers to generate.
+	 * 
+	 * @param count The timer count.
+	 */
+	public void setCount(int count) {
+		if (count < 0)
+			throw new IllegalArgumentException("count must not be negative");
+		this.count = count;
+	}
+
+	/**
+	 * Sets the interval distribution.
+	 * 
+	 * @param distribution The interval distribution.
+	 */
+	public void setDistribution(Distribution distribution) {
+		this.distribution = Objects.requireNonNull(distribution, "distribution is required");
+	}
+
+	/**
+	 * Sets the number of timers per group.
+	 * 
+	 * @param groupSize The group size, or zero not to group the timers.
+	 */
+	public void setGroupSize(int groupSize) {
+		if (groupSize < 0)
+			throw new IllegalArgumentException("groupSize must not be negative");
+		this.groupSize = groupSize;
+	}
+
+	/**
+	 * Sets the maximum timer interval in seconds.
+	 * 
+	 * @param maxInterval The maximum interval.
+	 */
+	public void setMaxInterval(int maxInterval) {
+		if (maxInterval < 1)
+			throw new IllegalArgumentException("maxInterval must be at least one second");
+		this.maxInterval = maxInterval;
+	}
+
+	/**
+	 * Sets the minimum timer interval in seconds.
+	 * 
+	 * @param minInterval The minimum interval.
+	 */
+	public void setMinInterval(int minInterval) {
+		if (minInterval < 1)
+			throw new IllegalArgumentException("minInterval must be at least one second");
+		this.minInterval = minInterval;
+	}
+
+	/**
+	 * Sets the proportion of timers that repeat.
+	 * 
+	 * @param repeatRatio The repeat ratio, between 0 and 1.
+	 */
+	public void setRepeatRatio(double repeatRatio) {
+		if (repeatRatio < 0 || repeatRatio > 1)
+			throw new IllegalArgumentException("repeatRatio must be between 0 and 1");
+		this.repeatRatio = repeatRatio;
+	}
+
+	/**
+	 * Sets the random number generator seed.
+	 * 
+	 * @param seed The seed.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the proportion of timers that have a warning period.
+	 * 
+	 * @param warnRatio The warn ratio, between 0 and 1.
+	 */
+	public void setWarnRatio(double warnRatio) {
+		if (warnRatio < 0 || warnRatio > 1)
+			throw new IllegalArgumentException("warnRatio must be between 0 and 1");
+		this.warnRatio = warnRatio;
+	}
+
+	/**
+	 * Generates a multi-timer and writes it to a timers file.
+	 * 
+	 * @param file The file to write.
+	 * @throws IOException if unable to write the file.
+	 */
+	public void write(File file) throws IOException {
+		try (OutputStream out = new FileOutputStream(file)) {
+			TimerUtils.getJsonb().toJson(generate(), out);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,7 +17,8 @@
 
 package io.github.demonfiddler.timer.model;
 
-import java.util.GregorianCalendar;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ScheduledFuture;
@@ -26,7 +27,9 @@ import java.util.concurrent.TimeUnit;
 import javax.json.bind.annotation.JsonbPropertyOrder;
 import javax.json.bind.annotation.JsonbTransient;
 
+import io.github.demonfiddler.timer.util.Clock;
 import io.github.demonfiddler.timer.util.Constants;
+import io.github.demonfiddler.timer.util.CronSchedule;
 import io.github.demonfiddler.timer.util.TimerUtils;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
@@ -34,47 +37,91 @@ import javafx.beans.property.ListProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleListProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 
 /**
  * A JavaFX bean that represents a arbitrary collection of coordinated timers.
+ * The timers may be arranged into nested {@link TimerGroupBean groups}.
  * 
  * @since 1.0
  */
-@JsonbPropertyOrder({ "format-version", "interval", "delay-start", "minutes-offset" })
-public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeListener<TimerState> {
+@JsonbPropertyOrder({ "format-version", "interval", "delay-start", "minutes-offset", "schedule" })
+public class MultiTimerBean implements ChangeListener<TimerState> {
 	private final IntegerProperty formatVersion = new SimpleIntegerProperty(Constants.FORMAT_VERSION);
 	private final BooleanProperty delayStart = new SimpleBooleanProperty();
 	private final IntegerProperty minutesOffset = new SimpleIntegerProperty();
+	private final StringProperty schedule = new SimpleStringProperty();
 	@JsonbTransient
 	private final ObjectProperty<TimerState> state = new SimpleObjectProperty<>(TimerState.STOPPED);
-	private final ListProperty<TimerBean> timers = new SimpleListProperty<>(FXCollections.observableArrayList());
+	/** The top-level group, whose timers and groups are those of the multi-timer. */
+	@JsonbTransient
+	private final TimerGroupBean root = new TimerGroupBean();
+	@JsonbTransient
+	private volatile CronSchedule armedSchedule;
 	@JsonbTransient
 	private ScheduledFuture<?> scheduledStart;
+	@JsonbTransient
+	private volatile TimerGraph graph;
+	@JsonbTransient
+	private final TransitionListener transitionListener = this::onTransition;
+	/** Whether any timer was armed to start on its own schedule. */
+	@JsonbTransient
+	private boolean hasArmedTimers;
 
 	{
-		timers.addListener(this);
+		root.stateProperty().addListener(this);
 	}
 
 	/**
-	 * Callback invoked when the state of any owned timer state changes. The method
+	 * Callback invoked when the aggregate state of the owned timers changes. The method
 	 * sets the receiver's state to {@link TimerState.RUNNING running} if any of the timers
-	 * is running; otherwise to {@link TimerState.STOPPED stopped}.
+	 * is running; otherwise to {@link TimerState.PAUSED paused} if any of the timers is
+	 * paused; otherwise to {@link TimerState.WAITING waiting} if a scheduled start
+	 * is pending or any timer is waiting for its predecessors; otherwise to {@link TimerState.STOPPED stopped}.
 	 * 
-	 * @param observable The state property of the timer bean whose state has
-	 *                   changed.
+	 * @param observable The aggregate state property of the timers.
 	 * @param oldValue   The previous state value.
 	 * @param newValue   The new state value.
 	 */
 	@Override
 	public void changed(ObservableValue<? extends TimerState> observable, TimerState oldValue, TimerState newValue) {
-		setState(
-				getTimers().stream().anyMatch(t -> t.getState().isRunning()) ? TimerState.RUNNING : TimerState.STOPPED);
+		updateState();
+	}
+
+	/**
+	 * Sets the receiver's state from the states of the timers it owns.
+	 * 
+	 * @see #changed(ObservableValue, TimerState, TimerState)
+	 */
+	private void updateState() {
+		// The aggregate state is maintained incrementally, so only timers that have their
+		// own schedules need to be examined.
+		TimerState aggregateState = root.getState();
+		TimerState newState;
+		if (aggregateState.isRunning())
+			newState = TimerState.RUNNING;
+		else if (aggregateState == TimerState.PAUSED)
+			newState = TimerState.PAUSED;
+		else if (armedSchedule != null || aggregateState == TimerState.WAITING
+				|| hasArmedTimers && root.getAllTimers().stream().anyMatch(TimerBean::isArmed))
+			newState = TimerState.WAITING;
+		else
+			newState = TimerState.STOPPED;
+		setState(newState);
+	}
+
+	/**
+	 * Adds top-level timers in a single list change.
+	 * 
+	 * @param timers The timers to add.
+	 * @see TimerGroupBean#addTimers(Collection)
+	 */
+	public void addTimers(Collection<? extends TimerBean> timers) {
+		root.addTimers(timers);
 	}
 
 	/**
@@ -100,6 +147,19 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 		return formatVersion;
 	}
 
+	/**
+	 * Returns the index of the upcoming deadlines of all the running timers owned
+	 * by this multi-timer instance, which answers "what fires next?" without
+	 * scanning the timers.
+	 * 
+	 * @return the deadline index.
+	 * @since 1.0.1
+	 */
+	@JsonbTransient
+	public DeadlineIndex getDeadlineIndex() {
+		return root.getDeadlineIndex();
+	}
+
 	/**
 	 * Returns the <code>delayStart</code> property value.
 	 * 
@@ -118,6 +178,28 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 		return formatVersion.get();
 	}
 
+	/**
+	 * Returns all the timers owned by this multi-timer, including those in nested
+	 * groups, in display order.
+	 * 
+	 * @return a new list of all the timers.
+	 */
+	@JsonbTransient
+	public List<TimerBean> getAllTimers() {
+		return root.getAllTimers();
+	}
+
+	/**
+	 * Returns the <code>groups</code> property value. This is a list of the
+	 * top-level timer groups.
+	 * 
+	 * @return the groups property value.
+	 * @see #groupsProperty()
+	 */
+	public List<TimerGroupBean> getGroups() {
+		return root.getGroups();
+	}
+
 	/**
 	 * Returns the <code>minutesOffset</code> property value.
 	 * 
@@ -128,6 +210,28 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 		return minutesOffset.get();
 	}
 
+	/**
+	 * Returns the index of the names of all the timers owned by this multi-timer
+	 * instance, for incremental search.
+	 * 
+	 * @return the name index.
+	 * @since 1.0.1
+	 */
+	@JsonbTransient
+	public NameIndex getNameIndex() {
+		return root.getNameIndex();
+	}
+
+	/**
+	 * Returns the <code>schedule</code> property value.
+	 * 
+	 * @return the schedule property value.
+	 * @see #scheduleProperty()
+	 */
+	public String getSchedule() {
+		return schedule.get();
+	}
+
 	/**
 	 * Returns the <code>state</code> property value.
 	 * 
@@ -138,41 +242,34 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 	}
 
 	/**
-	 * Returns the <code>timers</code> property. This is a list of the timers owned
-	 * by this multi-timer.
+	 * Returns the total number of timers owned by this multi-timer, including
+	 * those in nested groups.
 	 * 
-	 * @return the timers property.
-	 * @see #timersProperty()
+	 * @return the number of timers.
 	 */
-	public List<TimerBean> getTimers() {
-		return timers.get();
+	@JsonbTransient
+	public int getTimerCount() {
+		return root.getTimerCount();
 	}
 
 	/**
-	 * Handles the addition of timers to this multi-timer instance.
+	 * Returns the <code>timers</code> property. This is a list of the timers owned
+	 * by this multi-timer that do not belong to any group.
 	 * 
-	 * @param list A list containing the added timers.
-	 * @param from The inclusive start index of the added timers.
-	 * @param to   The exclusive end index of the added timers.
+	 * @return the timers property.
+	 * @see #timersProperty()
 	 */
-	private void handleTimersAdded(List<? extends TimerBean> list, int from, int to) {
-		for (int i = from; i < to; i++)
-			list.get(i).stateProperty().addListener(this);
+	public List<TimerBean> getTimers() {
+		return root.getTimers();
 	}
 
 	/**
-	 * Handles the addition of timers to this multi-timer instance.
+	 * Returns the <code>groups</code> list property.
 	 * 
-	 * @param list A list containing the added timers.
-	 * @param from The inclusive start index of the added timers.
-	 * @param to   The exclusive end index of the added timers.
+	 * @return the groups list property.
 	 */
-	private void handleTimersRemoved(List<? extends TimerBean> list, int from, int count) {
-		for (int i = 0; i < count; i++) {
-			TimerBean bean = list.get(i);
-			bean.stop();
-			bean.stateProperty().removeListener(this);
-		}
+	public ListProperty<TimerGroupBean> groupsProperty() {
+		return root.groupsProperty();
 	}
 
 	/**
@@ -190,20 +287,32 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 	}
 
 	/**
-	 * Callback invoked when a timer is added to or removed from this multi-timer
-	 * instance.
+	 * Callback invoked when an owned timer reaches a deadline. Starts any timers
+	 * whose dependencies have thereby been satisfied.
 	 * 
-	 * @param c The timer bean change descriptor.
+	 * @param timer    The timer whose state changed.
+	 * @param newState The state that the timer entered.
+	 * @param when     The deadline at which the timer entered the state.
 	 */
-	@Override
-	public void onChanged(Change<? extends TimerBean> c) {
-		while (c.next()) {
-			if (c.wasAdded()) {
-				handleTimersAdded(c.getList(), c.getFrom(), c.getTo());
-			} else if (c.wasRemoved()) {
-				handleTimersRemoved(c.getRemoved(), c.getFrom(), c.getRemovedSize());
-			}
-		}
+	private void onTransition(TimerBean timer, TimerState newState, long when) {
+		TimerGraph graph = this.graph;
+		if (graph != null)
+			graph.transition(timer, newState, when);
+	}
+
+	/**
+	 * Pauses or resumes all the timers owned by this multi-timer instance, in one
+	 * bulk operation.
+	 * 
+	 * @param pause <code>true</code> to pause the running timers,
+	 *              <code>false</code> to resume the paused ones.
+	 * @since 1.0.1
+	 */
+	public void pause(boolean pause) {
+		if (pause)
+			root.pause();
+		else
+			root.resume();
 	}
 
 	/**
@@ -219,6 +328,17 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 			stop();
 	}
 
+	/**
+	 * Removes top-level timers in a single list change. The removed timers are
+	 * stopped.
+	 * 
+	 * @param timers The timers to remove.
+	 * @see TimerGroupBean#removeTimers(Collection)
+	 */
+	public void removeTimers(Collection<? extends TimerBean> timers) {
+		root.removeTimers(timers);
+	}
+
 	/**
 	 * Sets the <code>delayStart</code> property value.
 	 * 
@@ -237,6 +357,18 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 		formatVersion.set(newFormatVersion);
 	}
 
+	/**
+	 * Sets the list of top-level timer groups. Note that the receiver does not
+	 * take ownership of this list: it merely replaces the contents of its internal
+	 * list with a reference to each group, in a single list change.
+	 * 
+	 * @param groups The list of groups to set.
+	 * @see #groupsProperty()
+	 */
+	public void setGroups(List<TimerGroupBean> groups) {
+		root.setGroups(groups);
+	}
+
 	/**
 	 * Sets the <code>minutesOffset</code> property value.
 	 * 
@@ -247,6 +379,16 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 		minutesOffset.set(newMinutesOffset);
 	}
 
+	/**
+	 * Sets the <code>schedule</code> property value.
+	 * 
+	 * @param newSchedule The new schedule property value to set.
+	 * @see #scheduleProperty()
+	 */
+	public void setSchedule(String newSchedule) {
+		schedule.set(newSchedule);
+	}
+
 	/**
 	 * Sets the <code>state</code> property value.
 	 * 
@@ -259,54 +401,132 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 
 	/**
 	 * Sets the list of timers owned by this multi-timer instance. Note that the
-	 * receiver does not take ownership of this list: it merely clears its existing
-	 * internal list then adds a reference to each timer to the internal list.
+	 * receiver does not take ownership of this list: it merely replaces the
+	 * contents of its internal list with a reference to each timer, in a single
+	 * list change.
 	 * 
 	 * @param timers The list of timers to set.
 	 * @see #timersProperty()
 	 */
 	public void setTimers(List<TimerBean> timers) {
-		List<TimerBean> timersList = getTimers();
-		timersList.clear();
-		timersList.addAll(timers);
+		root.setTimers(timers);
+	}
+
+	/**
+	 * Returns the <code>schedule</code> property. When this property is set to a
+	 * {@link CronSchedule cron expression} and the bean is {@link #start()
+	 * started}, it will enter the {@link TimerState#WAITING waiting} state and
+	 * will start its timers each time the schedule fires, until it is stopped. The
+	 * schedule takes precedence over the {@link #delayStartProperty() delayStart}
+	 * property. Timers that have their own schedule follow that instead.
+	 * 
+	 * @return the schedule property.
+	 */
+	public StringProperty scheduleProperty() {
+		return schedule;
+	}
+
+	/**
+	 * Schedules the next start of the unscheduled timers.
+	 * 
+	 * @param cron   The compiled schedule.
+	 * @param after  The time after which the timers are next to start.
+	 * @param repeat <code>true</code> to keep starting the timers each time the
+	 *               schedule fires, <code>false</code> to start them only once.
+	 */
+	private void scheduleStart(CronSchedule cron, long after, boolean repeat) {
+		long next = cron.next(after);
+		if (next == Long.MAX_VALUE) {
+			armedSchedule = null;
+			scheduledStart = null;
+			return;
+		}
+		Clock clock = TimerUtils.getClock();
+		long delay = Math.max(next - clock.currentTimeMillis(), 0);
+		scheduledStart = clock.schedule(() -> {
+			// Ignore a start that raced with stop().
+			if (armedSchedule != cron)
+				return;
+			if (repeat) {
+				scheduleStart(cron, next, true);
+			} else {
+				armedSchedule = null;
+				scheduledStart = null;
+			}
+			// Anchor the runs to the scheduled instant rather than the time the task ran.
+			TimerBean.start(getTimersStartedBySet(), next);
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the timers that are started by this multi-timer, rather than by
+	 * their own schedules or by their predecessors.
+	 * 
+	 * @return the timers started by the multi-timer.
+	 */
+	private List<TimerBean> getTimersStartedBySet() {
+		List<TimerBean> timers = new ArrayList<>();
+		root.forEachTimer(t -> {
+			if (isStartedBySet(t))
+				timers.add(t);
+		});
+		return timers;
+	}
+
+	/**
+	 * Returns whether the specified timer is started by this multi-timer, rather
+	 * than by its own schedule or by its predecessors.
+	 * 
+	 * @param timer The timer.
+	 * @return <code>true</code> if the timer is started by the multi-timer.
+	 */
+	private boolean isStartedBySet(TimerBean timer) {
+		TimerGraph graph = this.graph;
+		return !timer.hasSchedule() && (graph == null || !graph.hasPredecessors(timer));
 	}
 
 	/**
 	 * Starts all the timers owned by this multi-timer instance, or schedules them
-	 * for a delayed start if the <code>delayStart</code> property is set to
-	 * <code>true</code>.
+	 * for a delayed start if the <code>schedule</code> property is set or the
+	 * <code>delayStart</code> property is set to <code>true</code>. Timers that
+	 * have their own schedule are armed to start on that schedule and timers that
+	 * have dependencies wait for their predecessors.
+	 * 
+	 * @throws IllegalArgumentException if a schedule expression is invalid or the
+	 *                                  timer dependencies are invalid.
 	 */
 	private void start() {
-		if (getDelayStart()) {
-			if (scheduledStart == null) {
-				// Compute the number of milliseconds past the current hour.
-				GregorianCalendar when = new GregorianCalendar();
-				long nowMinutes = when.get(GregorianCalendar.MINUTE);
-				long nowSeconds = when.get(GregorianCalendar.SECOND);
-				long nowMillis = when.get(GregorianCalendar.MILLISECOND);
-				long nowMillisPastTheHour = (nowMinutes * 60 + nowSeconds) * 1000 + nowMillis;
-				// Compute the time at which we should start the timers.
-				when.set(GregorianCalendar.MINUTE, (int) getMinutesOffset());
-				when.set(GregorianCalendar.SECOND, 0);
-				when.set(GregorianCalendar.MILLISECOND, 0);
-				// If the specified offset past the current hour has already elapsed, start the
-				// timers at this offset past the next hour instead.
-				long startMillisPastTheHour = getMinutesOffset() * 60 * 1000;
-				if (startMillisPastTheHour < nowMillisPastTheHour)
-					when.add(GregorianCalendar.HOUR_OF_DAY, 1);
-				long delay = when.getTimeInMillis() - System.currentTimeMillis();
-				scheduledStart = TimerUtils.EXECUTOR.schedule(() -> {
-					getTimers().forEach(t -> t.start());
-					scheduledStart = null;
-				}, delay, TimeUnit.MILLISECONDS);
-				getTimers().forEach(t -> t.standby());
-				// NOTE: this state change must be applied AFTER placing the timers into standby
-				// mode.
-				setState(TimerState.WAITING);
-			}
+		if (armedSchedule != null)
+			return;
+		List<TimerBean> allTimers = getAllTimers();
+		TimerGraph graph = TimerGraph.build(allTimers);
+		this.graph = graph;
+		long now = TimerUtils.getClock().currentTimeMillis();
+		String schedule = getSchedule();
+		boolean hasSchedule = schedule != null && !schedule.isBlank();
+		CronSchedule cron = null;
+		if (hasSchedule)
+			cron = CronSchedule.parse(schedule);
+		else if (getDelayStart())
+			cron = CronSchedule.minutesPastTheHour(getMinutesOffset());
+		hasArmedTimers = false;
+		for (TimerBean t : allTimers) {
+			t.addTransitionListener(transitionListener);
+			if (graph.hasPredecessors(t))
+				t.standby();
+			else if (t.arm())
+				hasArmedTimers = true;
+		}
+		if (cron != null) {
+			armedSchedule = cron;
+			scheduleStart(cron, now - 1, hasSchedule);
+			allTimers.forEach(t -> t.standby());
 		} else {
-			getTimers().forEach(t -> t.start());
+			TimerBean.start(getTimersStartedBySet(), now);
 		}
+		// NOTE: this state change must be applied AFTER placing the timers into standby
+		// mode.
+		updateState();
 	}
 
 	/**
@@ -323,11 +543,28 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 	 * effect on any timers that are already complete or stopped.
 	 */
 	private void stop() {
+		armedSchedule = null;
+		graph = null;
 		if (scheduledStart != null) {
 			scheduledStart.cancel(true);
 			scheduledStart = null;
 		}
-		getTimers().forEach(t -> t.stop());
+		List<TimerBean> allTimers = getAllTimers();
+		allTimers.forEach(t -> t.removeTransitionListener(transitionListener));
+		TimerBean.stop(allTimers);
+		hasArmedTimers = false;
+		updateState();
+	}
+
+	/**
+	 * Validates the timer dependencies.
+	 * 
+	 * @throws IllegalArgumentException if a dependency refers to a missing or
+	 *                                  ambiguously named timer, or if the
+	 *                                  dependencies contain a cycle.
+	 */
+	public void validate() {
+		TimerGraph.build(getAllTimers());
 	}
 
 	/**
@@ -336,6 +573,6 @@ public class MultiTimerBean implements ListChangeListener<TimerBean>, ChangeList
 	 * @return the timers list property.
 	 */
 	public ListProperty<TimerBean> timersProperty() {
-		return timers;
+		return root.timersProperty();
 	}
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the names of a document's timers, for incremental search. Each
+ * name is lower-cased, marked at both ends with a boundary character and split
+ * into overlapping trigrams, and the index maps each trigram to the timers
+ * whose names contain it. A search for a query of three or more characters
+ * intersects the timers of its trigrams, starting from the rarest, so its cost
+ * depends on how selective the query is rather than on the number of timers.
+ * The single characters and pairs of characters of each name are indexed too,
+ * so a shorter query is answered by a single lookup.
+ * <p>
+ * The index is kept up to date by the groups as timers are added, removed and
+ * renamed.
+ * 
+ * @since 1.0.1
+ */
+public final class NameIndex {
+	/** The length of the longest indexed character sequences. */
+	static final int GRAM_LENGTH = 3;
+	/** The character that marks the start and end of a name. */
+	private static final char BOUNDARY = '\u0000';
+
+	/** The timers whose names contain each indexed character sequence. */
+	private final Map<String, Set<TimerBean>> postings = new HashMap<>();
+	/** The indexed key of each timer. */
+	private final Map<TimerBean, String> keys = new IdentityHashMap<>();
+	/** A read-only view of all the indexed timers, which matches the empty query. */
+	private final Set<TimerBean> all = Collections.unmodifiableSet(keys.keySet());
+
+	/**
+	 * Constructs a new <code>NameIndex</code>.
+	 * 
+	 * @param timers The timers to index.
+	 */
+	NameIndex(Collection<? extends TimerBean> timers) {
+		addAll(timers);
+	}
+
+	/**
+	 * Adds timers to the index.
+	 * 
+	 * @param timers The timers to add.
+	 */
+	synchronized void addAll(Collection<? extends TimerBean> timers) {
+		for (TimerBean timer : timers) {
+			String key = key(timer.getName());
+			keys.put(timer, key);
+			for (String gram : grams(key))
+				postings.computeIfAbsent(gram, g -> new HashSet<>()).add(timer);
+		}
+	}
+
+	/**
+	 * Returns the distinct character sequences of a key that are indexed: its
+	 * trigrams, marked at both ends, and its single characters and pairs of
+	 * characters, which a query can contain without a boundary mark.
+	 * 
+	 * @param key The key.
+	 * @return the indexed character sequences.
+	 */
+	private static Set<String> grams(String key) {
+		String marked = BOUNDARY + key + BOUNDARY;
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM_LENGTH <= marked.length(); i++)
+			grams.add(marked.substring(i, i + GRAM_LENGTH));
+		for (int length = 1; length < GRAM_LENGTH; length++) {
+			for (int i = 0; i + length <= key.length(); i++)
+				grams.add(key.substring(i, i + length));
+		}
+		return grams;
+	}
+
+	/**
+	 * Returns the search key of a name.
+	 * 
+	 * @param name The name.
+	 * @return the lower-cased name.
+	 */
+	private static String key(String name) {
+		return name == null ? "" : name.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Removes timers from the index.
+	 * 
+	 * @param timers The timers to remove. Any that are not indexed are ignored.
+	 */
+	synchronized void removeAll(Collection<? extends TimerBean> timers) {
+		for (TimerBean timer : timers) {
+			String key = keys.remove(timer);
+			if (key == null)
+				continue;
+			for (String gram : grams(key)) {
+				Set<TimerBean> posting = postings.get(gram);
+				posting.remove(timer);
+				if (posting.isEmpty())
+					postings.remove(gram);
+			}
+		}
+	}
+
+	/**
+	 * Re-indexes a timer under its current name.
+	 * 
+	 * @param timer The renamed timer.
+	 */
+	synchronized void rename(TimerBean timer) {
+		if (!keys.containsKey(timer) || keys.get(timer).equals(key(timer.getName())))
+			return;
+		Set<TimerBean> timers = Collections.singleton(timer);
+		removeAll(timers);
+		addAll(timers);
+	}
+
+	/**
+	 * Returns the timers whose names contain a query, ignoring case.
+	 * 
+	 * @param query The text to search for.
+	 * @return the matching timers, or if the query is empty, a read-only view of
+	 *         all the indexed timers, which reflects later changes to the index.
+	 */
+	public synchronized Set<TimerBean> search(String query) {
+		String key = key(query);
+		if (key.isEmpty())
+			return all;
+		Set<TimerBean> matches = new HashSet<>();
+		if (key.length() < GRAM_LENGTH) {
+			// Every sequence this short is indexed, so its timers are exactly the matches.
+			Set<TimerBean> timers = postings.get(key);
+			if (timers != null)
+				matches.addAll(timers);
+		} else {
+			Set<TimerBean> rarest = null;
+			for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+				Set<TimerBean> timers = postings.get(key.substring(i, i + GRAM_LENGTH));
+				if (timers == null)
+					return matches;
+				if (rarest == null || timers.size() < rarest.size())
+					rarest = timers;
+			}
+			// The trigrams can occur out of order, so check each candidate.
+			for (TimerBean timer : rarest) {
+				if (keys.get(timer).contains(key))
+					matches.add(timer);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns the number of indexed timers.
+	 * 
+	 * @return the number of timers.
+	 */
+	public synchronized int size() {
+		return keys.size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized String toString() {
+		return "NameIndex [size=" + keys.size() + ", grams=" + postings.size() + ']';
+	}
+}
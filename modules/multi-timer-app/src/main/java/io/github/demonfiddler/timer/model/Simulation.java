@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import io.github.demonfiddler.timer.util.Clock;
+import io.github.demonfiddler.timer.util.Constants;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import io.github.demonfiddler.timer.util.VirtualClock;
+import javafx.beans.value.ChangeListener;
+
+/**
+ * Runs a multi-timer in simulated time against a {@link VirtualClock}, tracing
+ * every timer state transition. Because the virtual clock jumps straight from
+ * one deadline to the next, hours or days of timer activity can be simulated
+ * in seconds. Timer actions are not executed during a simulation.
+ * <p>
+ * The simulation installs its clock as the engine-wide
+ * {@link TimerUtils#getClock() clock} for the duration of the run, so it must
+ * not be used while other timers are running.
+ * 
+ * @since 1.0.1
+ */
+public final class Simulation {
+	/**
+	 * A timer state transition recorded by a simulation.
+	 */
+	public static final class Transition {
+		private final long time;
+		private final TimerBean timer;
+		private final TimerState oldState;
+		private final TimerState newState;
+
+		/**
+		 * Constructs a new <code>Transition</code>.
+		 * 
+		 * @param time     The simulated time of the transition.
+		 * @param timer    The timer whose state changed.
+		 * @param oldState The previous state.
+		 * @param newState The new state.
+		 */
+		Transition(long time, TimerBean timer, TimerState oldState, TimerState newState) {
+			this.time = time;
+			this.timer = timer;
+			this.oldState = oldState;
+			this.newState = newState;
+		}
+
+		/**
+		 * Returns the new state.
+		 * 
+		 * @return the new state.
+		 */
+		public TimerState getNewState() {
+			return newState;
+		}
+
+		/**
+		 * Returns the previous state.
+		 * 
+		 * @return the previous state.
+		 */
+		public TimerState getOldState() {
+			return oldState;
+		}
+
+		/**
+		 * Returns the simulated time of the transition.
+		 * 
+		 * @return the time in milliseconds since the epoch.
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * Returns the timer whose state changed.
+		 * 
+		 * @return the timer.
+		 */
+		public TimerBean getTimer() {
+			return timer;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String toString() {
+			return Instant.ofEpochMilli(time) + " " + timer.getName() + ' ' + oldState + " -> " + newState;
+		}
+	}
+
+	private final MultiTimerBean timers;
+	private final long startTime;
+
+	/**
+	 * Constructs a new <code>Simulation</code>.
+	 * 
+	 * @param timers    The multi-timer to simulate.
+	 * @param startTime The simulated time at which the multi-timer is started, in
+	 *                  milliseconds since the epoch.
+	 */
+	public Simulation(MultiTimerBean timers, long startTime) {
+		this.timers = Objects.requireNonNull(timers, "timers is required");
+		this.startTime = startTime;
+	}
+
+	/**
+	 * Simulates a multi-timer file, writing the trace to the standard output.
+	 * 
+	 * @param args The path of the timers file, optionally followed by the number
+	 *             of hours to simulate (default 24) and the ISO-8601 start instant
+	 *             (default now).
+	 * @throws Exception if unable to read the file.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: Simulation <file" + Constants.FILE_EXT_DOT_TIMERS + "> [hours [start]]");
+			System.exit(1);
+		}
+		MultiTimerBean timers;
+		try (InputStream in = new FileInputStream(args[0])) {
+			timers = TimerUtils.getJsonb().fromJson(in, MultiTimerBean.class);
+		}
+		long hours = args.length > 1 ? Long.parseLong(args[1]) : 24;
+		long startTime = args.length > 2 ? Instant.parse(args[2]).toEpochMilli() : System.currentTimeMillis();
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+		long began = System.nanoTime();
+		long count = new Simulation(timers, startTime).run(hours * Constants.SECONDS_PER_HOUR * 1000L, out::println);
+		out.flush();
+		System.err.println("Simulated " + count + " transitions of " + timers.getTimerCount() + " timers over " + hours
+				+ " hours in " + (System.nanoTime() - began) / 1_000_000 + " ms");
+	}
+
+	/**
+	 * Runs the simulation, collecting the trace into a list.
+	 * 
+	 * @param durationMillis The simulated duration of the run.
+	 * @return the trace of all state transitions, in order.
+	 * @see #run(long, Consumer)
+	 */
+	public List<Transition> run(long durationMillis) {
+		List<Transition> trace = new ArrayList<>();
+		run(durationMillis, trace::add);
+		return trace;
+	}
+
+	/**
+	 * Runs the simulation. The multi-timer is started at the start time and the
+	 * virtual clock advanced by the specified duration, after which the
+	 * multi-timer is stopped. The trace ends at the end of the simulated
+	 * duration, so it does not include the transitions caused by the final stop.
+	 * 
+	 * @param durationMillis The simulated duration of the run.
+	 * @param trace          A consumer to receive each state transition, in the
+	 *                       order in which they occur.
+	 * @return the number of state transitions.
+	 * @throws IllegalArgumentException if the multi-timer's schedule or
+	 *                                  dependencies are invalid.
+	 */
+	public long run(long durationMillis, Consumer<? super Transition> trace) {
+		VirtualClock clock = new VirtualClock(startTime);
+		Clock previous = TimerUtils.getClock();
+		List<TimerBean> allTimers = timers.getAllTimers();
+		List<ChangeListener<TimerState>> listeners = new ArrayList<>(allTimers.size());
+		long[] count = new long[1];
+		TimerUtils.setClock(clock);
+		try {
+			for (TimerBean timer : allTimers) {
+				ChangeListener<TimerState> listener = (o, oldState, newState) -> {
+					count[0]++;
+					trace.accept(new Transition(clock.currentTimeMillis(), timer, oldState, newState));
+				};
+				timer.stateProperty().addListener(listener);
+				listeners.add(listener);
+			}
+			timers.run(true);
+			clock.advance(durationMillis);
+		} finally {
+			for (int i = 0; i < listeners.size(); i++)
+				allTimers.get(i).stateProperty().removeListener(listeners.get(i));
+			timers.run(false);
+			TimerUtils.setClock(previous);
+		}
+		return count[0];
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,71 +19,435 @@ package io.github.demonfiddler.timer.model;
 
 import static io.github.demonfiddler.timer.util.Constants.*;
 
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import javax.json.bind.annotation.JsonbProperty;
 import javax.json.bind.annotation.JsonbPropertyOrder;
 import javax.json.bind.annotation.JsonbTransient;
 
+import io.github.demonfiddler.timer.action.ActionEvent;
+import io.github.demonfiddler.timer.action.ActionExecutor;
+import io.github.demonfiddler.timer.util.Clock;
+import io.github.demonfiddler.timer.util.CronSchedule;
 import io.github.demonfiddler.timer.util.TimerUtils;
-import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ListProperty;
 import javafx.beans.property.LongProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleListProperty;
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
-import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 
 /**
- * A JavaFX bean that implements a single timer.
+ * A JavaFX bean that implements a single timer. The timer keeps its state in
+ * plain fields and creates each JavaFX property on demand, the first time its
+ * <code>*Property()</code> accessor is called, so that a timer which nothing
+ * observes costs little more than its fields. As with any JavaFX bean, the
+ * properties must only be created and updated by one thread at a time.
+ * <p>
+ * The exception is the timer's state, which may be changed from any thread.
+ * It is held in a single word that is only ever changed by compare-and-set,
+ * and {@link TimerState#canTransitionTo(TimerState) invalid transitions} are
+ * refused. When several threads start or stop the timer at once, exactly one
+ * of them makes each transition, so the transition is reported once and its
+ * side effects happen once. The {@link #stateProperty() state property}
+ * mirrors the state on the {@link Clock#isUiThread() UI thread}.
+ * <p>
+ * A running timer can be {@link #pause() paused}, which freezes its remaining
+ * time and withdraws only its pending deadline; {@link #resume() resuming} it
+ * re-arms the deadline. A paused timer saves its remaining time, and so is
+ * paused again when loaded.
  * 
  * @since 1.0
  */
-@JsonbPropertyOrder({ "name", "interval", "warn-after", "repeat" })
+@JsonbPropertyOrder({ "name", "interval", "warn-after", "repeat", "schedule", "start-after", "actions", "paused" })
 public class TimerBean {
 	/**
-	 * A runnable object that is called for each tick while the timer is running.
+	 * The runs of timers that were started together as of one instant. Instead of
+	 * each run scheduling its own tasks, the batch schedules one task per distinct
+	 * deadline and one ticker for all its runs. Timers that run in lock-step thus
+	 * reach every deadline in the same task, and hence in the same UI pulse, and
+	 * tick in phase, for as long as they keep repeating. The batch cancels its
+	 * tasks once all its runs have ended.
+	 */
+	private static final class Batch {
+		private final long startTime;
+		/** The runs that have not yet ended. */
+		private final Set<Run> live = ConcurrentHashMap.newKeySet();
+		/** The runs awaiting each pending deadline. Guarded by <code>this</code>. */
+		private final Map<Long, List<Run>> runs = new HashMap<>();
+		/** The task that applies each pending deadline. Guarded by <code>this</code>. */
+		private final Map<Long, ScheduledFuture<?>> tasks = new HashMap<>();
+		private ScheduledFuture<?> ticker;
+		private boolean sealed;
+		private boolean ended;
+
+		/**
+		 * Constructs a new <code>Batch</code>.
+		 * 
+		 * @param startTime The instant at which the runs in the batch start.
+		 */
+		Batch(long startTime) {
+			this.startTime = startTime;
+		}
+
+		/**
+		 * Adds a run to the batch.
+		 * 
+		 * @param run The run to add.
+		 */
+		void add(Run run) {
+			live.add(run);
+			// Either cancel() sees the run in the batch or this sees that it was cancelled.
+			if (run.cancelled)
+				remove(run);
+		}
+
+		/** Cancels all the batch's pending tasks. */
+		private synchronized void end() {
+			ended = true;
+			tasks.values().forEach(Run::cancel);
+			tasks.clear();
+			runs.clear();
+			Run.cancel(ticker);
+		}
+
+		/**
+		 * Applies a deadline to every run that awaits it. Called on the UI thread.
+		 * 
+		 * @param due The deadline that has been reached.
+		 */
+		private void reach(long due) {
+			List<Run> dueRuns;
+			synchronized (this) {
+				tasks.remove(due);
+				dueRuns = runs.remove(due);
+			}
+			// Runs that repeat reschedule themselves, outside the lock.
+			if (dueRuns != null)
+				dueRuns.forEach(run -> run.timer.reachDeadline(run, due));
+		}
+
+		/**
+		 * Removes an ended run from the batch, and ends the batch if it was the last.
+		 * 
+		 * @param run The run to remove.
+		 */
+		void remove(Run run) {
+			if (live.remove(run) && live.isEmpty()) {
+				synchronized (this) {
+					if (sealed && !ended && live.isEmpty())
+						end();
+				}
+			}
+		}
+
+		/**
+		 * Removes several ended runs from the batch together. If no runs remain, the
+		 * batch ends and cancels all its tasks at once; otherwise the runs are
+		 * withdrawn from their deadlines in one pass over each deadline's runs.
+		 * 
+		 * @param removed The runs to remove, which have already been cancelled.
+		 */
+		void removeAll(List<Run> removed) {
+			removed.forEach(live::remove);
+			synchronized (this) {
+				if (ended)
+					return;
+				if (live.isEmpty()) {
+					if (sealed)
+						end();
+					return;
+				}
+				Set<Run> gone = Collections.newSetFromMap(new IdentityHashMap<>(removed.size()));
+				gone.addAll(removed);
+				Set<Long> dues = new HashSet<>();
+				for (Run run : removed) {
+					long due = run.nextDeadline;
+					if (!dues.add(due))
+						continue;
+					List<Run> dueRuns = runs.get(due);
+					if (dueRuns != null && dueRuns.removeIf(gone::contains) && dueRuns.isEmpty()) {
+						runs.remove(due);
+						Run.cancel(tasks.remove(due));
+					}
+				}
+			}
+		}
+
+
+		/**
+		 * Schedules the next deadline of a run, sharing the task of any other run
+		 * in the batch with the same deadline.
+		 * 
+		 * @param run The run.
+		 * @param due The run's next deadline.
+		 */
+		synchronized void schedule(Run run, long due) {
+			if (ended || run.cancelled)
+				return;
+			List<Run> dueRuns = runs.get(due);
+			if (dueRuns == null) {
+				dueRuns = new ArrayList<>();
+				runs.put(due, dueRuns);
+				Clock clock = TimerUtils.getClock();
+				// Bound properties must be updated on the UI thread.
+				tasks.put(due, clock.schedule(() -> clock.runLater(() -> reach(due)),
+						Math.max(due - clock.currentTimeMillis(), 0), TimeUnit.MILLISECONDS));
+			}
+			dueRuns.add(run);
+		}
+
+		/**
+		 * Marks the end of adding runs and starts the shared ticker, or ends the
+		 * batch if all its runs have already ended.
+		 */
+		synchronized void seal() {
+			sealed = true;
+			if (live.isEmpty()) {
+				end();
+				return;
+			}
+			Clock clock = TimerUtils.getClock();
+			long tickMillis = clock.getTickMillis();
+			if (tickMillis > 0) {
+				ticker = clock.scheduleAtFixedRate(() -> live.forEach(run -> run.timer.ticker.run()),
+						tickDelay(startTime, tickMillis, clock.currentTimeMillis()), tickMillis,
+						TimeUnit.MILLISECONDS);
+			}
+		}
+
+		/**
+		 * Withdraws a run from a pending deadline, cancelling the deadline's task if
+		 * no other run awaits it.
+		 * 
+		 * @param run The run.
+		 * @param due The deadline.
+		 */
+		synchronized void unschedule(Run run, long due) {
+			List<Run> dueRuns = runs.get(due);
+			if (dueRuns == null || !dueRuns.remove(run) || !dueRuns.isEmpty())
+				return;
+			runs.remove(due);
+			Run.cancel(tasks.remove(due));
+		}
+	}
+
+	/**
+	 * The deadlines and scheduled tasks of one run of the timer, from the time it
+	 * starts until it stops or is started afresh. A run is cancelled as a whole by
+	 * whichever thread ends it, and a task scheduled for a run that has already
+	 * been cancelled is cancelled at once. A run started as part of a
+	 * {@link Batch} leaves the scheduling of its tasks to the batch. While the run
+	 * awaits a deadline, its entry in the document's {@link DeadlineIndex} records
+	 * it.
+	 */
+	private static final class Run {
+		final TimerBean timer;
+		/** The run number, which is also held in the timer's state word. */
+		final long number;
+		/** The batch that schedules the run's tasks, or <code>null</code>. */
+		final Batch batch;
+		final DeadlineIndex.Entry entry;
+		volatile long warningTime;
+		volatile long finishTime;
+		volatile long nextDeadline;
+		private volatile ScheduledFuture<?> deadline;
+		private volatile ScheduledFuture<?> ticker;
+		private volatile boolean cancelled;
+
+		/**
+		 * Constructs a new <code>Run</code>.
+		 * 
+		 * @param timer       The timer.
+		 * @param number      The run number.
+		 * @param warningTime The time at which the run warns, or
+		 *                    <code>Long.MAX_VALUE</code> if it does not.
+		 * @param finishTime  The time at which the run completes.
+		 * @param batch       The batch that schedules the run's tasks, or
+		 *                    <code>null</code> if the run schedules its own.
+		 */
+		Run(TimerBean timer, long number, long warningTime, long finishTime, Batch batch) {
+			this.timer = timer;
+			this.number = number;
+			this.batch = batch;
+			this.entry = new DeadlineIndex.Entry(timer);
+			this.warningTime = warningTime;
+			this.finishTime = finishTime;
+		}
+
+		/**
+		 * Cancels the run's pending deadline and ticker, and any that are set
+		 * hereafter.
+		 */
+		void cancel() {
+			cancelTasks();
+			if (batch != null) {
+				batch.unschedule(this, nextDeadline);
+				batch.remove(this);
+			}
+		}
+
+		/**
+		 * Cancels several runs together. The runs of each batch are withdrawn from
+		 * it at once, so that a batch whose runs all end together cancels its shared
+		 * tasks once instead of searching them for each run in turn.
+		 * 
+		 * @param runs The runs to cancel.
+		 */
+		static void cancelAll(List<Run> runs) {
+			Map<Batch, List<Run>> batched = new IdentityHashMap<>();
+			for (Run run : runs) {
+				if (run.batch == null) {
+					run.cancel();
+				} else {
+					run.cancelTasks();
+					batched.computeIfAbsent(run.batch, b -> new ArrayList<>()).add(run);
+				}
+			}
+			batched.forEach(Batch::removeAll);
+		}
+
+		/**
+		 * Cancels the run's own pending deadline and ticker, and any that are set
+		 * hereafter, and removes it from the deadline index.
+		 */
+		private void cancelTasks() {
+			cancelled = true;
+			cancel(deadline);
+			cancel(ticker);
+			unindex();
+		}
+
+		/**
+		 * Records the run's next deadline in the index of the timer's document, if
+		 * it belongs to one.
+		 * 
+		 * @param due   The deadline.
+		 * @param state The state that the timer enters at the deadline.
+		 */
+		void index(long due, TimerState state) {
+			TimerGroupBean group = timer.group;
+			DeadlineIndex index = group != null ? group.getDeadlineIndex() : null;
+			DeadlineIndex oldIndex = entry.index;
+			if (oldIndex != null && oldIndex != index)
+				oldIndex.remove(entry);
+			if (index == null)
+				return;
+			index.update(entry, due, state);
+			// Either cancel() sees the entry or this sees that the run has ended or paused.
+			if (cancelled || !timer.getState().isRunning())
+				index.remove(entry);
+		}
+
+		/**
+		 * Cancels a task, if any.
+		 * 
+		 * @param task The task to cancel, or <code>null</code>.
+		 */
+		private static void cancel(ScheduledFuture<?> task) {
+			if (task != null)
+				task.cancel(false);
+		}
+
+		/**
+		 * Sets the task that applies the next deadline.
+		 * 
+		 * @param newDeadline The deadline task.
+		 */
+		void setDeadline(ScheduledFuture<?> newDeadline) {
+			deadline = newDeadline;
+			// Either cancel() sees the task or this sees that the run was cancelled.
+			if (cancelled)
+				cancel(newDeadline);
+		}
+
+		/**
+		 * Removes the run's entry from the deadline index, if present.
+		 */
+		private void unindex() {
+			DeadlineIndex index = entry.index;
+			if (index != null)
+				index.remove(entry);
+		}
+
+		/**
+		 * Sets the task that refreshes the progress.
+		 * 
+		 * @param newTicker The ticker task.
+		 */
+		void setTicker(ScheduledFuture<?> newTicker) {
+			ticker = newTicker;
+			if (cancelled)
+				cancel(newTicker);
+		}
+	}
+
+	/**
+	 * A runnable object that is called for each tick while the timer is running,
+	 * to refresh its progress. State transitions do not depend on ticks: they are
+	 * scheduled for the exact deadlines. A tick only publishes an update if it
+	 * would move the progress bar by a step of the progress resolution (one pixel)
+	 * or change the remaining time in whole seconds.
 	 */
 	private class Ticker implements Runnable {
+		private volatile long lastStep = -1;
+		private volatile long lastRemainingSeconds = -1;
+
 		/** {@inheritDoc} */
 		@Override
 		public void run() {
-			switch (getState()) {
-			case STOPPED:
-			case COMPLETE:
-			case WAITING:
-				break;
-			case RUNNING:
-			case WARNING:
-				final long now = System.currentTimeMillis();
-				final long remainingMillis = Math.max(finishTime - now, 0);
-				final long intervalMillis = getIntervalMillis();
-				// Bound properties must be updated on the UI thread.
-				Platform.runLater(() -> {
-					setProgress(1.0 - ((double) remainingMillis / intervalMillis));
-					setRemainingMillis(remainingMillis);
-					if (now >= finishTime) {
-						setState(TimerState.COMPLETE);
-						if (getRepeat()) {
-							setState(TimerState.RUNNING);
-							warningTime += intervalMillis;
-							finishTime += intervalMillis;
-						} else {
-							cleanup();
-						}
-					} else if (now >= warningTime) {
-						setState(TimerState.WARNING);
-					}
-				});
-				break;
+			if (TimerUtils.UPDATE_QUEUE.isSuspended()) {
+				// Nothing is visible, so just make sure that a resync is queued for when it is.
+				if (pendingRemainingMillis.compareAndSet(NO_UPDATE, RESYNC))
+					TimerUtils.UPDATE_QUEUE.post(progressUpdate);
+				lastStep = -1;
+				return;
 			}
+			Run run = TimerBean.this.run;
+			// A tick that races with a pause or stop must not move the frozen or reset remaining time.
+			if (run == null || !getState().isRunning())
+				return;
+			long remainingMillis = Math.max(run.finishTime - TimerUtils.getClock().currentTimeMillis(), 0);
+			double resolution = progressResolution;
+			// The small bias stops rounding errors from skipping a step.
+			long step = resolution == 0 ? lastStep + 1 : (long) (computeProgress(remainingMillis) / resolution + 1e-9);
+			long remainingSeconds = remainingMillis / MILLISECONDS_PER_SECOND;
+			if (step == lastStep && remainingSeconds == lastRemainingSeconds)
+				return;
+			lastStep = step;
+			lastRemainingSeconds = remainingSeconds;
+			// Bound properties must be updated on the UI thread. Overwrite any update that is
+			// still pending there, so that at most one is ever queued.
+			if (pendingRemainingMillis.getAndSet(remainingMillis) == NO_UPDATE)
+				TimerUtils.UPDATE_QUEUE.post(progressUpdate);
 		}
 	}
 
@@ -94,39 +458,79 @@ public class TimerBean {
 	public static final String PROP_STATE = "state";
 	public static final String PROP_PROGRESS = "progress";
 	public static final String PROP_REMAINING_MILLIS = "remainingMillis";
+	public static final String PROP_ACTIONS = "actions";
+	public static final String PROP_SCHEDULE = "schedule";
+	public static final String PROP_START_AFTER = "startAfter";
+	/** The default progress resolution, fine enough for a progress bar 1,000 pixels wide. */
+	public static final double DEFAULT_PROGRESS_RESOLUTION = 0.001;
+	/** The pending remaining time value that indicates no progress update is pending. */
+	private static final long NO_UPDATE = -1;
+	/** The pending remaining time value that requests a resync with the clock when applied. */
+	private static final long RESYNC = -2;
 
-	private final StringProperty name = new SimpleStringProperty(this, PROP_NAME, "(unnamed)");
+	/** The default timer name. */
+	private static final String DEFAULT_NAME = "(unnamed)";
+	/** The number of low-order bits of the state word that hold the state. */
+	private static final int STATE_BITS = 3;
+	private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+	private static final TimerState[] STATES = TimerState.values();
+	private static final AtomicLongFieldUpdater<TimerBean> STATE_WORD = AtomicLongFieldUpdater
+			.newUpdater(TimerBean.class, "stateWord");
+	private static final AtomicReferenceFieldUpdater<TimerBean, Run> RUN = AtomicReferenceFieldUpdater
+			.newUpdater(TimerBean.class, Run.class, "run");
+	private static final AtomicReferenceFieldUpdater<TimerBean, TimerGroupBean.Contribution> CONTRIBUTION = AtomicReferenceFieldUpdater
+			.newUpdater(TimerBean.class, TimerGroupBean.Contribution.class, "contribution");
+
+	private String name = DEFAULT_NAME;
+	private StringProperty nameProperty;
 	@JsonbTransient
-	private final ObjectProperty<Duration> intervalDuration = new SimpleObjectProperty<>(new Duration());
+	private int intInterval;
 	@JsonbTransient
-	private final ObjectProperty<Duration> warnAfterDuration = new SimpleObjectProperty<>(new Duration());
+	private int intWarnAfter;
 	@JsonbTransient
-	private final IntegerProperty intInterval;
-	@JsonbProperty("interval")
-	private final StringProperty isoInterval;
+	private Duration intervalDuration;
+	private ObjectProperty<Duration> intervalDurationProperty;
 	@JsonbTransient
-	private final IntegerProperty intWarnAfter;
-	@JsonbProperty("warn-after")
-	private final StringProperty isoWarnAfter;
+	private Duration warnAfterDuration;
+	private ObjectProperty<Duration> warnAfterDurationProperty;
 	@JsonbTransient
-	private final LongProperty remainingMillis = new SimpleLongProperty(this, PROP_REMAINING_MILLIS);
-	private final BooleanProperty repeat = new SimpleBooleanProperty(this, PROP_REPEAT);
+	private long remainingMillis;
+	private LongProperty remainingMillisProperty;
+	private boolean repeat;
+	private BooleanProperty repeatProperty;
 	@JsonbTransient
-	private final DoubleProperty progress = new SimpleDoubleProperty(this, PROP_PROGRESS);
+	private volatile double progress;
+	private DoubleProperty progressProperty;
+	/**
+	 * The authoritative state in the low-order bits and the number of the current
+	 * run in the rest, only ever changed by compare-and-set.
+	 */
+	private volatile long stateWord = word(0, TimerState.STOPPED);
+	private ReadOnlyObjectWrapper<TimerState> stateProperty;
+	/** The current or latest run, if any. */
+	private volatile Run run;
+	/** The remaining time of the run while the timer is paused. */
+	private volatile long pausedRemainingMillis;
+	private ObservableList<ActionBean> actions;
+	private ListProperty<ActionBean> actionsProperty;
+	private String schedule;
+	private StringProperty scheduleProperty;
+	private ObservableList<DependencyBean> startAfter;
+	private ListProperty<DependencyBean> startAfterProperty;
 	@JsonbTransient
-	private final ObjectProperty<TimerState> state = new SimpleObjectProperty<>(this, PROP_STATE, TimerState.STOPPED);
-	private long warningTime;
-	private long finishTime;
+	private final CopyOnWriteArrayList<TransitionListener> transitionListeners = new CopyOnWriteArrayList<>();
 	private final Runnable ticker = new Ticker();
-	private ScheduledFuture<?> future;
-
-	{
-		intInterval = intervalDuration.get().intValueProperty();
-		isoInterval = intervalDuration.get().isoValueProperty();
-		intInterval.addListener(this::onIntIntervalChanged);
-		intWarnAfter = warnAfterDuration.get().intValueProperty();
-		isoWarnAfter = warnAfterDuration.get().isoValueProperty();
-	}
+	/** The latest remaining time computed by the ticker and not yet applied on the UI thread. */
+	private final AtomicLong pendingRemainingMillis = new AtomicLong(NO_UPDATE);
+	private final Runnable progressUpdate = this::applyPendingProgress;
+	/** The smallest change in progress worth publishing, typically one pixel of the progress bar. */
+	private volatile double progressResolution = DEFAULT_PROGRESS_RESOLUTION;
+	private volatile CronSchedule armedSchedule;
+	private volatile ScheduledFuture<?> scheduledStart;
+	@JsonbTransient
+	private volatile TimerGroupBean group;
+	/** What the timer last contributed to its group's aggregates. */
+	private volatile TimerGroupBean.Contribution contribution = TimerGroupBean.Contribution.NONE;
 
 	/**
 	 * Constructs a new <code>TimerBean</code>.
@@ -145,13 +549,11 @@ public class TimerBean {
 	/**
 	 * Callback invoked when the timer's interval has been changed.
 	 * 
-	 * @param source   The property that changed.
-	 * @param oldValue The previous interval value.
-	 * @param newValue The new interval value.
+	 * @param newIntInterval The new interval in seconds.
 	 */
-	private void onIntIntervalChanged(ObservableValue<? extends Number> source, Number oldValue, Number newValue) {
+	private void onIntIntervalChanged(int newIntInterval) {
 		// FIXME: why are we multiplying by SECONDS_PER_MINUTE?
-		setRemainingMillis(newValue.longValue() * MILLISECONDS_PER_SECOND);
+		setRemainingMillis(newIntInterval * (long) MILLISECONDS_PER_SECOND);
 	}
 
 	/**
@@ -164,16 +566,300 @@ public class TimerBean {
 		setIntInterval(src.getIntInterval());
 		setIntWarnAfter(src.getIntWarnAfter());
 		setRepeat(src.getRepeat());
+		setSchedule(src.getSchedule());
+		List<DependencyBean> startAfterList = getStartAfter();
+		startAfterList.clear();
+		src.getStartAfter().forEach(d -> startAfterList.add(new DependencyBean(d)));
+		List<ActionBean> actionsList = getActions();
+		actionsList.clear();
+		src.getActions().forEach(a -> actionsList.add(new ActionBean(a)));
 	}
 
 	/**
-	 * Cleans up after a scheduled timer run has been cancelled.
+	 * Returns the actions property. This is a list of the actions to execute when
+	 * the timer warns or completes.
+	 * 
+	 * @return the actions property.
 	 */
-	private void cleanup() {
-		if (future != null)
-			future.cancel(true);
-		TimerUtils.EXECUTOR.remove(ticker);
-		warningTime = finishTime = 0;
+	public final ListProperty<ActionBean> actionsProperty() {
+		if (actionsProperty == null)
+			actionsProperty = new SimpleListProperty<>(this, PROP_ACTIONS, (ObservableList<ActionBean>) getActions());
+		return actionsProperty;
+	}
+
+	/**
+	 * Arms the timer's {@link #scheduleProperty() schedule}, if it has one. The
+	 * timer enters the {@link TimerState#WAITING waiting} state and is then
+	 * started afresh each time the schedule fires, until it is {@link #stop()
+	 * stopped}.
+	 * 
+	 * @return <code>true</code> if the timer has a schedule and was armed.
+	 * @throws IllegalArgumentException if the schedule expression is invalid.
+	 */
+	public boolean arm() {
+		if (!hasSchedule())
+			return false;
+		if (armedSchedule == null) {
+			armedSchedule = CronSchedule.parse(getSchedule());
+			scheduleStart(armedSchedule, TimerUtils.getClock().currentTimeMillis());
+			standby();
+		}
+		return true;
+	}
+
+	/**
+	 * Cancels any pending scheduled start.
+	 */
+	private void disarm() {
+		armedSchedule = null;
+		if (scheduledStart != null) {
+			scheduledStart.cancel(false);
+			scheduledStart = null;
+		}
+	}
+
+	/**
+	 * Returns whether the timer is armed to start on its schedule.
+	 * 
+	 * @return <code>true</code> if the timer is armed.
+	 */
+	@JsonbTransient
+	public boolean isArmed() {
+		return armedSchedule != null;
+	}
+
+	/**
+	 * Returns whether the timer has any actions.
+	 * 
+	 * @return <code>true</code> if the timer has actions.
+	 * @see #actionsProperty()
+	 * @since 1.0.1
+	 */
+	public boolean hasActions() {
+		return actions != null && !actions.isEmpty();
+	}
+
+	/**
+	 * Returns whether the timer depends on other timers.
+	 * 
+	 * @return <code>true</code> if the timer has dependencies.
+	 * @see #startAfterProperty()
+	 */
+	public boolean hasDependencies() {
+		return startAfter != null && !startAfter.isEmpty();
+	}
+
+	/**
+	 * Returns whether the timer has its own schedule.
+	 * 
+	 * @return <code>true</code> if the schedule property is neither
+	 *         <code>null</code> nor blank.
+	 */
+	public boolean hasSchedule() {
+		String schedule = getSchedule();
+		return schedule != null && !schedule.isBlank();
+	}
+
+	/**
+	 * Schedules the next start of the timer.
+	 * 
+	 * @param cron  The compiled schedule.
+	 * @param after The time after which the timer is next to start.
+	 */
+	private void scheduleStart(CronSchedule cron, long after) {
+		long next = cron.next(after);
+		if (next == Long.MAX_VALUE) {
+			armedSchedule = null;
+			scheduledStart = null;
+			return;
+		}
+		Clock clock = TimerUtils.getClock();
+		long delay = Math.max(next - clock.currentTimeMillis(), 0);
+		scheduledStart = clock.schedule(() -> {
+			// Ignore a start that raced with disarm().
+			if (armedSchedule != cron)
+				return;
+			// Anchor the run to the scheduled instant rather than the time the task ran. A
+			// run that is still in progress is left to continue.
+			start(next);
+			scheduleStart(cron, next);
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Schedules the next transition of a run, to the warning or complete state.
+	 * 
+	 * @param run The run.
+	 */
+	private void scheduleDeadline(Run run) {
+		Clock clock = TimerUtils.getClock();
+		long warningTime = run.warningTime;
+		long finishTime = run.finishTime;
+		boolean warns = getState() != TimerState.WARNING && warningTime < finishTime;
+		long due = warns ? warningTime : finishTime;
+		run.nextDeadline = due;
+		run.index(due, warns ? TimerState.WARNING : TimerState.COMPLETE);
+		if (run.batch != null) {
+			run.batch.schedule(run, due);
+			return;
+		}
+		// Bound properties must be updated on the UI thread.
+		run.setDeadline(clock.schedule(() -> clock.runLater(() -> reachDeadline(run, due)),
+				Math.max(due - clock.currentTimeMillis(), 0), TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Applies the transition that falls due at the specified deadline of a run.
+	 * Called on the UI thread.
+	 * 
+	 * @param run The run.
+	 * @param due The deadline that has been reached.
+	 */
+	private void reachDeadline(Run run, long due) {
+		long word = stateWord;
+		TimerState state = stateOf(word);
+		// Ignore a deadline that raced with stop(), pause() or a restart.
+		if (run.cancelled || runOf(word) != run.number || due != run.nextDeadline || !state.isRunning())
+			return;
+		// A state transition supersedes any pending progress update with the exact value.
+		supersedePendingProgress();
+		long warningTime = run.warningTime;
+		long finishTime = run.finishTime;
+		if (due == warningTime && state != TimerState.WARNING && warningTime < finishTime) {
+			// Losing the race means that another thread has just stopped the run.
+			if (!transition(word, TimerState.WARNING, run.number))
+				return;
+			updateProgress(finishTime - warningTime);
+			mirrorState();
+			fireTransition(TimerState.WARNING, warningTime);
+			if (stateWord == word(run.number, TimerState.WARNING))
+				scheduleDeadline(run);
+			return;
+		}
+		if (!transition(word, TimerState.COMPLETE, run.number))
+			return;
+		updateProgress(0);
+		mirrorState();
+		fireTransition(TimerState.COMPLETE, finishTime);
+		long intervalMillis = getIntervalMillis();
+		// A transition listener may already have stopped, restarted or rearmed the timer,
+		// in which case the run is over.
+		word = word(run.number, TimerState.COMPLETE);
+		if (getRepeat() && intervalMillis > 0 && transition(word, TimerState.RUNNING, run.number)) {
+			updateProgress(intervalMillis);
+			mirrorState();
+			if (warningTime != Long.MAX_VALUE)
+				run.warningTime = warningTime + intervalMillis;
+			run.finishTime = finishTime + intervalMillis;
+			scheduleDeadline(run);
+		} else {
+			endRun(run);
+		}
+	}
+
+	/**
+	 * Applies the latest progress update computed by the ticker, if any. Called on
+	 * the UI thread.
+	 */
+	private void applyPendingProgress() {
+		long remainingMillis = pendingRemainingMillis.getAndSet(NO_UPDATE);
+		if (remainingMillis == NO_UPDATE)
+			return;
+		long word = stateWord;
+		TimerState state = stateOf(word);
+		if (state.isRunning()) {
+			// A run that has yet to be published requests its own update when it is.
+			Run run = this.run;
+			if (run == null || run.number != runOf(word))
+				return;
+			if (remainingMillis == RESYNC)
+				remainingMillis = Math.max(run.finishTime - TimerUtils.getClock().currentTimeMillis(), 0);
+			updateProgress(remainingMillis);
+		} else if (state == TimerState.PAUSED) {
+			updateProgress(pausedRemainingMillis);
+		} else if (state == TimerState.STOPPED && remainingMillis == RESYNC) {
+			resetProgress();
+		}
+	}
+
+	/**
+	 * Returns whether the calling thread may update the progress and remaining
+	 * time directly. It may if it owns the properties, or if they do not exist
+	 * and the plain fields hold the values.
+	 * 
+	 * @return <code>true</code> if the values may be updated directly.
+	 */
+	private boolean canUpdateProgress() {
+		return progressProperty == null && remainingMillisProperty == null || TimerUtils.getClock().isUiThread();
+	}
+
+	/**
+	 * Returns the progress corresponding to the specified remaining time.
+	 * 
+	 * @param remainingMillis The remaining time in milliseconds.
+	 * @return the progress, as a double between 0 and 1.
+	 */
+	private double computeProgress(long remainingMillis) {
+		long intervalMillis = getIntervalMillis();
+		return intervalMillis == 0 ? 1.0 : 1.0 - ((double) remainingMillis / intervalMillis);
+	}
+
+	/**
+	 * Cancels a run that has ended and forgets it, unless a later run has already
+	 * replaced it.
+	 * 
+	 * @param run The run that has ended.
+	 */
+	private void endRun(Run run) {
+		run.cancel();
+		RUN.compareAndSet(this, run, null);
+	}
+
+	/**
+	 * Registers a listener to be notified when the timer reaches a deadline. Has no
+	 * effect if the listener is already registered.
+	 * 
+	 * @param listener The listener to add.
+	 */
+	public void addTransitionListener(TransitionListener listener) {
+		transitionListeners.addIfAbsent(listener);
+	}
+
+	/**
+	 * Notifies transition listeners and submits the actions configured for the
+	 * specified state to the shared {@link ActionExecutor}. Action submission
+	 * never blocks, so it is safe to call on the JavaFX application thread.
+	 * Actions are not executed when the {@link Clock clock} is simulated.
+	 * 
+	 * @param newState The state that the timer has just entered.
+	 * @param when     The deadline at which the state was entered.
+	 */
+	private void fireTransition(TimerState newState, long when) {
+		if (actions != null && !actions.isEmpty() && !TimerUtils.getClock().isSimulated())
+			ActionExecutor.INSTANCE.execute(actions, new ActionEvent(getName(), newState, when));
+		for (TransitionListener listener : transitionListeners)
+			listener.transition(this, newState, when);
+	}
+
+	/**
+	 * Returns the list of actions to execute when the timer warns or completes.
+	 * 
+	 * @return the timer actions.
+	 * @see #actionsProperty()
+	 */
+	public List<ActionBean> getActions() {
+		if (actions == null)
+			actions = FXCollections.observableArrayList();
+		return actions;
+	}
+
+	/**
+	 * Returns the group to which the timer belongs.
+	 * 
+	 * @return the owning group, or <code>null</code> if none.
+	 */
+	public TimerGroupBean getGroup() {
+		return group;
 	}
 
 	/**
@@ -182,7 +868,14 @@ public class TimerBean {
 	 * @return the timer interval as a <code>Duration</code> object.
 	 */
 	public Duration getIntervalDuration() {
-		return intervalDuration.get();
+		if (intervalDuration == null) {
+			intervalDuration = new Duration(intInterval);
+			intervalDuration.intValueProperty().addListener((o, ov, nv) -> {
+				intInterval = nv.intValue();
+				onIntIntervalChanged(intInterval);
+			});
+		}
+		return intervalDuration;
 	}
 
 	/**
@@ -191,7 +884,7 @@ public class TimerBean {
 	 * @return the timer interval in milliseconds.
 	 */
 	private long getIntervalMillis() {
-		return intInterval.get() * (long) MILLISECONDS_PER_SECOND;
+		return intInterval * (long) MILLISECONDS_PER_SECOND;
 	}
 
 	/**
@@ -200,7 +893,7 @@ public class TimerBean {
 	 * @return the timer interval in seconds.
 	 */
 	public final int getIntInterval() {
-		return intInterval.get();
+		return intInterval;
 	}
 
 	/**
@@ -210,7 +903,7 @@ public class TimerBean {
 	 * @see #warnAfterProperty()
 	 */
 	public final int getIntWarnAfter() {
-		return intWarnAfter.get();
+		return intWarnAfter;
 	}
 
 	/**
@@ -218,8 +911,22 @@ public class TimerBean {
 	 * 
 	 * @return an ISO-8601 Period string.
 	 */
+	@JsonbProperty("interval")
 	public final String getIsoInterval() {
-		return isoInterval.get();
+		return Duration.formatIsoValue(intInterval);
+	}
+
+	/**
+	 * Returns the remaining time of a paused timer as an ISO-8601 duration
+	 * string, which is how a pause is saved.
+	 * 
+	 * @return an ISO-8601 duration string, or <code>null</code> if the timer is
+	 *         not paused.
+	 * @since 1.0.1
+	 */
+	@JsonbProperty("paused")
+	public final String getIsoPaused() {
+		return getState() == TimerState.PAUSED ? java.time.Duration.ofMillis(pausedRemainingMillis).toString() : null;
 	}
 
 	/**
@@ -227,8 +934,32 @@ public class TimerBean {
 	 * 
 	 * @return an ISO-8601 Period string.
 	 */
+	@JsonbProperty("warn-after")
 	public final String getIsoWarnAfter() {
-		return isoWarnAfter.get();
+		return Duration.formatIsoValue(intWarnAfter);
+	}
+
+	/**
+	 * Returns the list of dependencies that must all be satisfied before the
+	 * timer starts.
+	 * 
+	 * @return the timer dependencies.
+	 * @see #startAfterProperty()
+	 */
+	public List<DependencyBean> getStartAfter() {
+		if (startAfter == null)
+			startAfter = FXCollections.observableArrayList();
+		return startAfter;
+	}
+
+	/**
+	 * Returns the timer's schedule expression.
+	 * 
+	 * @return the schedule expression, or <code>null</code> if none.
+	 * @see #scheduleProperty()
+	 */
+	public final String getSchedule() {
+		return schedule;
 	}
 
 	/**
@@ -237,7 +968,7 @@ public class TimerBean {
 	 * @return the timer name.
 	 */
 	public final String getName() {
-		return name.get();
+		return name;
 	}
 
 	/**
@@ -246,7 +977,18 @@ public class TimerBean {
 	 * @return the timer's progress.
 	 */
 	public final double getProgress() {
-		return progress.get();
+		return progress;
+	}
+
+	/**
+	 * Returns the smallest change in progress that the ticker publishes.
+	 * 
+	 * @return the progress resolution.
+	 * @see #setProgressResolution(double)
+	 */
+	@JsonbTransient
+	public double getProgressResolution() {
+		return progressResolution;
 	}
 
 	/**
@@ -255,7 +997,7 @@ public class TimerBean {
 	 * @return the number of milliseconds remaining.
 	 */
 	public final long getRemainingMillis() {
-		return remainingMillis.get();
+		return remainingMillis;
 	}
 
 	/**
@@ -264,16 +1006,18 @@ public class TimerBean {
 	 * @return the value of the repeat property.
 	 */
 	public final boolean getRepeat() {
-		return repeat.get();
+		return repeat;
 	}
 
 	/**
-	 * Returns the value of the <code>state</code> property.
+	 * Returns the timer's state. This is the authoritative state, which the
+	 * <code>state</code> property mirrors.
 	 * 
-	 * @return the value of the state property.
+	 * @return the timer state.
 	 */
+	@JsonbTransient
 	public final TimerState getState() {
-		return state.get();
+		return stateOf(stateWord);
 	}
 
 	/**
@@ -283,7 +1027,11 @@ public class TimerBean {
 	 * @see #warnAfterDurationProperty()
 	 */
 	public Duration getWarnAfterDuration() {
-		return warnAfterDuration.get();
+		if (warnAfterDuration == null) {
+			warnAfterDuration = new Duration(intWarnAfter);
+			warnAfterDuration.intValueProperty().addListener((o, ov, nv) -> intWarnAfter = nv.intValue());
+		}
+		return warnAfterDuration;
 	}
 
 	/**
@@ -292,7 +1040,7 @@ public class TimerBean {
 	 * @return the timer 'warn after' interval.
 	 */
 	private long getWarnAfterMillis() {
-		return intWarnAfter.get() * (long) MILLISECONDS_PER_SECOND;
+		return intWarnAfter * (long) MILLISECONDS_PER_SECOND;
 	}
 
 	/**
@@ -301,7 +1049,9 @@ public class TimerBean {
 	 * @return the timer interval duration property.
 	 */
 	public ObjectProperty<Duration> intervalDurationProperty() {
-		return intervalDuration;
+		if (intervalDurationProperty == null)
+			intervalDurationProperty = new SimpleObjectProperty<>(this, "intervalDuration", getIntervalDuration());
+		return intervalDurationProperty;
 	}
 
 	/**
@@ -310,7 +1060,7 @@ public class TimerBean {
 	 * @return the timer interval seconds property.
 	 */
 	public final IntegerProperty intIntervalProperty() {
-		return intInterval;
+		return getIntervalDuration().intValueProperty();
 	}
 
 	/**
@@ -319,7 +1069,7 @@ public class TimerBean {
 	 * @return the timer interval ISO-8601 Period property.
 	 */
 	public final StringProperty isoIntervalProperty() {
-		return isoInterval;
+		return getIntervalDuration().isoValueProperty();
 	}
 
 	/**
@@ -328,7 +1078,17 @@ public class TimerBean {
 	 * @return the timer name property.
 	 */
 	public final StringProperty nameProperty() {
-		return name;
+		if (nameProperty == null) {
+			nameProperty = new SimpleStringProperty(this, PROP_NAME, name) {
+				@Override
+				protected void invalidated() {
+					String oldName = name;
+					name = get();
+					renamed(oldName);
+				}
+			};
+		}
+		return nameProperty;
 	}
 
 	/**
@@ -337,7 +1097,15 @@ public class TimerBean {
 	 * @return the timer progress property.
 	 */
 	public final DoubleProperty progressProperty() {
-		return progress;
+		if (progressProperty == null) {
+			progressProperty = new SimpleDoubleProperty(this, PROP_PROGRESS, progress) {
+				@Override
+				protected void invalidated() {
+					progressChanged(get());
+				}
+			};
+		}
+		return progressProperty;
 	}
 
 	/**
@@ -346,7 +1114,15 @@ public class TimerBean {
 	 * @return the remaining time in milliseconds property.
 	 */
 	public final LongProperty remainingMillisProperty() {
-		return remainingMillis;
+		if (remainingMillisProperty == null) {
+			remainingMillisProperty = new SimpleLongProperty(this, PROP_REMAINING_MILLIS, remainingMillis) {
+				@Override
+				protected void invalidated() {
+					remainingMillis = get();
+				}
+			};
+		}
+		return remainingMillisProperty;
 	}
 
 	/**
@@ -355,7 +1131,171 @@ public class TimerBean {
 	 * @return the repeat property.
 	 */
 	public final BooleanProperty repeatProperty() {
-		return repeat;
+		if (repeatProperty == null) {
+			repeatProperty = new SimpleBooleanProperty(this, PROP_REPEAT, repeat) {
+				@Override
+				protected void invalidated() {
+					repeat = get();
+				}
+			};
+		}
+		return repeatProperty;
+	}
+
+	/**
+	 * Sets the list of actions to execute when the timer warns or completes. Note
+	 * that the receiver does not take ownership of this list: it merely clears its
+	 * existing internal list then adds a reference to each action to the internal
+	 * list.
+	 * 
+	 * @param actions The list of actions to set.
+	 * @see #actionsProperty()
+	 */
+	public void setActions(List<ActionBean> actions) {
+		// An empty list need not be created just to be cleared.
+		if (this.actions == null && actions.isEmpty())
+			return;
+		List<ActionBean> actionsList = getActions();
+		actionsList.clear();
+		actionsList.addAll(actions);
+	}
+
+	/**
+	 * Deregisters a transition listener.
+	 * 
+	 * @param listener The listener to remove.
+	 */
+	public void removeTransitionListener(TransitionListener listener) {
+		transitionListeners.remove(listener);
+	}
+
+	/**
+	 * Resets the timer. The timer is stopped and its progress and remaining time
+	 * are restored to their initial values, even if it was already stopped.
+	 */
+	public void reset() {
+		stop();
+		setProgress(0, null);
+		setRemainingMillis(getIntervalMillis());
+	}
+
+	/**
+	 * Resumes a paused timer from the remaining time at which it was paused, in
+	 * whichever running state it was paused, by starting a new run of its
+	 * deadline and ticker. Has no effect unless the timer is
+	 * {@link TimerState#PAUSED paused}.
+	 * 
+	 * @since 1.0.1
+	 */
+	public void resume() {
+		Clock clock = TimerUtils.getClock();
+		long now = clock.currentTimeMillis();
+		Run run = resumeRun(now, null);
+		if (run != null)
+			startTicker(run, now);
+	}
+
+	/**
+	 * Resumes several timers together, as of the same instant. The timers that
+	 * need new runs start them in one batch, as by
+	 * {@link #start(Collection, long)}, so timers paused with the same remaining
+	 * time resume in lock-step.
+	 * 
+	 * @param timers The timers to resume.
+	 * @see #resume()
+	 * @since 1.0.1
+	 */
+	public static void resume(Collection<? extends TimerBean> timers) {
+		long now = TimerUtils.getClock().currentTimeMillis();
+		Batch batch = new Batch(now);
+		for (TimerBean timer : timers)
+			timer.resumeRun(now, batch);
+		batch.seal();
+	}
+
+	/**
+	 * Resumes a paused timer by starting a new run for the remaining time. The run
+	 * keeps the paused run's number, since it continues the same run of the timer.
+	 * 
+	 * @param now   The current time.
+	 * @param batch The batch that is to schedule a new run's tasks, or
+	 *              <code>null</code>.
+	 * @return the new run, if one was started without a batch and so needs a
+	 *         ticker, otherwise <code>null</code>.
+	 */
+	private Run resumeRun(long now, Batch batch) {
+		long intervalMillis = getIntervalMillis();
+		long warnAfterMillis = getWarnAfterMillis();
+		long word;
+		long remainingMillis;
+		TimerState newState;
+		do {
+			word = stateWord;
+			if (stateOf(word) != TimerState.PAUSED)
+				return null;
+			remainingMillis = Math.min(pausedRemainingMillis, intervalMillis);
+			newState = warnAfterMillis != 0 && remainingMillis <= intervalMillis - warnAfterMillis
+					? TimerState.WARNING
+					: TimerState.RUNNING;
+		} while (!transition(word, newState, runOf(word)));
+		long number = runOf(word);
+		long finishTime = now + remainingMillis;
+		long warningTime = warnAfterMillis != 0 ? finishTime - intervalMillis + warnAfterMillis : Long.MAX_VALUE;
+		Run run = new Run(this, number, warningTime, finishTime, batch);
+		if (batch != null)
+			batch.add(run);
+		// A stop or restart that has already overtaken this resume ends the new run.
+		if (!publish(run) || stateWord != word(number, newState)) {
+			run.cancel();
+			return null;
+		}
+		updateProgress(remainingMillis);
+		mirrorState();
+		scheduleDeadline(run);
+		return batch != null ? null : run;
+	}
+
+	/**
+	 * Sets the group to which the timer belongs and moves its contribution to the
+	 * aggregates from the old group to the new one.
+	 * 
+	 * @param group The owning group, or <code>null</code> if none.
+	 * @param tally The tally in which to gather the change to the aggregates.
+	 */
+	void setGroup(TimerGroupBean group, TimerGroupBean.Tally tally) {
+		this.group = group;
+		report(tally);
+	}
+
+	/**
+	 * Sets the list of dependencies that must all be satisfied before the timer
+	 * starts. Note that the receiver does not take ownership of this list: it
+	 * merely clears its existing internal list then adds a reference to each
+	 * dependency to the internal list.
+	 * 
+	 * @param startAfter The list of dependencies to set.
+	 * @see #startAfterProperty()
+	 */
+	public void setStartAfter(List<DependencyBean> startAfter) {
+		if (this.startAfter == null && startAfter.isEmpty())
+			return;
+		List<DependencyBean> startAfterList = getStartAfter();
+		startAfterList.clear();
+		startAfterList.addAll(startAfter);
+	}
+
+	/**
+	 * Sets the timer's schedule expression.
+	 * 
+	 * @param newSchedule The new schedule expression, or <code>null</code> for
+	 *                    none.
+	 * @see #scheduleProperty()
+	 */
+	public final void setSchedule(String newSchedule) {
+		if (scheduleProperty == null)
+			schedule = newSchedule;
+		else
+			scheduleProperty.set(newSchedule);
 	}
 
 	/**
@@ -364,7 +1304,12 @@ public class TimerBean {
 	 * @param newIntInterval The new timer interval in seconds.
 	 */
 	public final void setIntInterval(int newIntInterval) {
-		intInterval.set(newIntInterval);
+		if (intervalDuration != null) {
+			intervalDuration.setIntValue(newIntInterval);
+		} else if (newIntInterval != intInterval) {
+			intInterval = newIntInterval;
+			onIntIntervalChanged(newIntInterval);
+		}
 	}
 
 	/**
@@ -374,25 +1319,80 @@ public class TimerBean {
 	 * @see #warnAfterProperty()
 	 */
 	public final void setIntWarnAfter(int newIntWarnAfter) {
-		intWarnAfter.set(newIntWarnAfter);
+		if (warnAfterDuration != null)
+			warnAfterDuration.setIntValue(newIntWarnAfter);
+		else
+			intWarnAfter = newIntWarnAfter;
 	}
 
 	/**
 	 * Sets the timer interval as an ISO-8601 Period string.
 	 * 
 	 * @param newIsoInterval the timer interval as an ISO-8601 Period string.
+	 * @see Duration#setIsoValue(String)
 	 */
+	@JsonbProperty("interval")
 	public final void setIsoInterval(String newIsoInterval) {
-		isoInterval.set(newIsoInterval);
+		int newIntInterval = Duration.parseIsoValue(newIsoInterval);
+		if (newIntInterval >= 0)
+			setIntInterval(newIntInterval);
+	}
+
+	/**
+	 * Restores a saved pause: pauses a stopped timer with the specified remaining
+	 * time, ready to be {@link #resume() resumed}.
+	 * 
+	 * @param newIsoPaused the remaining time as an ISO-8601 duration string, or
+	 *                     <code>null</code> for none.
+	 * @throws IllegalArgumentException if the remaining time is invalid or
+	 *                                  negative.
+	 * @throws IllegalStateException    if the timer is not stopped.
+	 * @since 1.0.1
+	 */
+	@JsonbProperty("paused")
+	public final void setIsoPaused(String newIsoPaused) {
+		if (newIsoPaused == null)
+			return;
+		long remainingMillis;
+		try {
+			remainingMillis = java.time.Duration.parse(newIsoPaused).toMillis();
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("invalid paused time: " + newIsoPaused, e);
+		}
+		if (remainingMillis < 0)
+			throw new IllegalArgumentException("paused time cannot be negative: " + newIsoPaused);
+		long word;
+		do {
+			word = stateWord;
+			pausedRemainingMillis = remainingMillis;
+		} while (!transition(word, TimerState.PAUSED, runOf(word)));
+		updateProgress(remainingMillis);
+		mirrorState();
 	}
 
 	/**
 	 * Sets the timer 'warn after' interval as an ISO-8601 Period string.
 	 * 
 	 * @param newIsoWarnAfter the timer interval as an ISO-8601 Period string.
+	 * @see Duration#setIsoValue(String)
 	 */
+	@JsonbProperty("warn-after")
 	public final void setIsoWarnAfter(String newIsoWarnAfter) {
-		isoWarnAfter.set(newIsoWarnAfter);
+		int newIntWarnAfter = Duration.parseIsoValue(newIsoWarnAfter);
+		if (newIntWarnAfter >= 0)
+			setIntWarnAfter(newIntWarnAfter);
+	}
+
+	/**
+	 * Notifies the timer's group of a change of name, so that it can be found by
+	 * its new name.
+	 * 
+	 * @param oldName The previous name.
+	 */
+	private void renamed(String oldName) {
+		TimerGroupBean group = this.group;
+		if (group != null && !Objects.equals(oldName, name))
+			group.timerRenamed(this);
 	}
 
 	/**
@@ -401,7 +1401,13 @@ public class TimerBean {
 	 * @param newName The new timer name.
 	 */
 	public final void setName(String newName) {
-		name.set(newName);
+		if (nameProperty == null) {
+			String oldName = name;
+			name = newName;
+			renamed(oldName);
+		} else {
+			nameProperty.set(newName);
+		}
 	}
 
 	/**
@@ -409,9 +1415,141 @@ public class TimerBean {
 	 * 
 	 * @param newProgress The timer progress property value as a double between 0
 	 *                    and 1.
+	 * @param tally       The tally in which to gather the change to the group's
+	 *                    aggregates, or <code>null</code> to apply it at once.
+	 */
+	private void setProgress(double newProgress, TimerGroupBean.Tally tally) {
+		if (newProgress == progress)
+			return;
+		progress = newProgress;
+		report(tally);
+		// The property then sees no change to report.
+		if (progressProperty != null)
+			progressProperty.set(newProgress);
+	}
+
+	/**
+	 * Records a change in progress made through the progress property and
+	 * reports it to the owning group.
+	 * 
+	 * @param newProgress The new progress.
 	 */
-	private void setProgress(double newProgress) {
-		progress.set(newProgress);
+	private void progressChanged(double newProgress) {
+		if (newProgress == progress)
+			return;
+		progress = newProgress;
+		report(null);
+	}
+
+	/**
+	 * Sets the smallest change in progress that the ticker publishes. A view
+	 * should set this to the reciprocal of its progress bar width in pixels, so
+	 * that ticks which would not move the bar are not sent to the UI thread. The
+	 * remaining time is still published whenever it changes in whole seconds, and
+	 * state transitions always publish the exact progress.
+	 * 
+	 * @param newProgressResolution The progress resolution, between 0 (publish
+	 *                              every tick) and 1.
+	 */
+	@JsonbTransient
+	public void setProgressResolution(double newProgressResolution) {
+		if (newProgressResolution < 0 || newProgressResolution > 1)
+			throw new IllegalArgumentException("progressResolution must be between 0 and 1");
+		progressResolution = newProgressResolution;
+	}
+
+	/**
+	 * Sets the progress and remaining milliseconds property values, or requests
+	 * that they be resynchronised on the UI thread if the calling thread cannot
+	 * update them.
+	 * 
+	 * @param remainingMillis The number of milliseconds remaining in the current
+	 *                        run.
+	 */
+	private void updateProgress(long remainingMillis) {
+		updateProgress(remainingMillis, null);
+	}
+
+	/**
+	 * Sets the progress and remaining milliseconds property values, or requests
+	 * that they be resynchronised on the UI thread if the calling thread cannot
+	 * update them, gathering the change to the group's aggregates in a tally.
+	 * 
+	 * @param remainingMillis The number of milliseconds remaining in the current
+	 *                        run.
+	 * @param tally           The tally in which to gather the change to the
+	 *                        aggregates, or <code>null</code> to apply it at once.
+	 */
+	private void updateProgress(long remainingMillis, TimerGroupBean.Tally tally) {
+		if (!canUpdateProgress()) {
+			requestResync();
+			return;
+		}
+		setProgress(computeProgress(remainingMillis), tally);
+		setRemainingMillis(remainingMillis);
+	}
+
+	/**
+	 * Sets the progress and remaining milliseconds property values for a stopped
+	 * timer, or requests that they be resynchronised on the UI thread if the
+	 * calling thread cannot update them.
+	 */
+	private void resetProgress() {
+		resetProgress(null);
+	}
+
+	/**
+	 * Sets the progress and remaining milliseconds property values for a stopped
+	 * timer, or requests that they be resynchronised on the UI thread if the
+	 * calling thread cannot update them, gathering the change to the group's
+	 * aggregates in a tally.
+	 * 
+	 * @param tally The tally in which to gather the change to the aggregates, or
+	 *              <code>null</code> to apply it at once.
+	 */
+	private void resetProgress(TimerGroupBean.Tally tally) {
+		if (!canUpdateProgress()) {
+			requestResync();
+			return;
+		}
+		setProgress(0, tally);
+		setRemainingMillis(getIntervalMillis());
+	}
+
+	/**
+	 * Brings the timer's contribution to its group's aggregates into line with its
+	 * group, state and progress. The contribution is replaced by compare-and-set
+	 * after reading all three, so a report that read them before another thread
+	 * changed them either fails and is retried, or is itself replaced by that
+	 * thread's report. Whichever thread replaces the contribution moves the
+	 * difference into the groups' counts.
+	 * 
+	 * @param tally The tally in which to gather the change to the aggregates, or
+	 *              <code>null</code> to apply it at once.
+	 */
+	private void report(TimerGroupBean.Tally tally) {
+		for (;;) {
+			TimerGroupBean.Contribution oldContribution = contribution;
+			TimerGroupBean group = this.group;
+			// A timer outside any group contributes nothing, however stale its reading.
+			if (group == null && oldContribution.group == null)
+				return;
+			// Always a new instance, so that a concurrent report based on staler readings fails.
+			TimerGroupBean.Contribution newContribution = new TimerGroupBean.Contribution(group, getState(), progress);
+			if (CONTRIBUTION.compareAndSet(this, oldContribution, newContribution)) {
+				TimerGroupBean.transfer(oldContribution, newContribution, tally);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Requests that the progress and remaining time be resynchronised with the
+	 * clock on the UI thread.
+	 */
+	private void requestResync() {
+		if (pendingRemainingMillis.getAndSet(RESYNC) == NO_UPDATE)
+			TimerUtils.UPDATE_QUEUE.post(progressUpdate);
 	}
 
 	/**
@@ -420,7 +1558,10 @@ public class TimerBean {
 	 * @param newRemainingMillis The remaining milliseconds.
 	 */
 	private final void setRemainingMillis(long newRemainingMillis) {
-		remainingMillis.set(newRemainingMillis);
+		if (remainingMillisProperty == null)
+			remainingMillis = newRemainingMillis;
+		else
+			remainingMillisProperty.set(newRemainingMillis);
 	}
 
 	/**
@@ -429,16 +1570,163 @@ public class TimerBean {
 	 * @param newRepeat The repeat property value.
 	 */
 	public final void setRepeat(boolean newRepeat) {
-		repeat.set(newRepeat);
+		if (repeatProperty == null)
+			repeat = newRepeat;
+		else
+			repeatProperty.set(newRepeat);
 	}
 
 	/**
-	 * Sets the value of the timer state property.
+	 * Brings the state property, if any, into line with the timer's state:
+	 * directly if called on the UI thread, otherwise by a task run there. Several
+	 * transitions made on other threads in quick succession may be mirrored as
+	 * one, so an observer that must see every transition should listen for them
+	 * on the thread that makes them, as a {@link TransitionListener} does.
+	 */
+	private void mirrorState() {
+		if (stateProperty == null)
+			return;
+		Clock clock = TimerUtils.getClock();
+		if (clock.isUiThread())
+			stateProperty.set(getState());
+		else
+			clock.runLater(() -> stateProperty.set(getState()));
+	}
+
+	/**
+	 * Pauses the timer, freezing its remaining time. The current run is ended,
+	 * cancelling its deadline and its ticker, so that a paused timer schedules no
+	 * work at all; {@link #resume()} starts a new run.
+	 * Has no effect unless the timer is {@link TimerState#RUNNING running} or
+	 * {@link TimerState#WARNING warning}.
+	 * 
+	 * @since 1.0.1
+	 */
+	public void pause() {
+		Run run = pauseRun(TimerUtils.getClock().currentTimeMillis(), null);
+		if (run != null)
+			run.cancel();
+	}
+
+	/**
+	 * Pauses several timers together, such as all the timers of a document, as of
+	 * the same instant. Their runs are ended together, so that timers started in
+	 * one batch cancel the batch's shared tasks at once, and the change to the
+	 * groups' aggregates is applied and published once per group.
+	 * 
+	 * @param timers The timers to pause.
+	 * @see #pause()
+	 * @since 1.0.1
+	 */
+	public static void pause(Collection<? extends TimerBean> timers) {
+		long now = TimerUtils.getClock().currentTimeMillis();
+		TimerGroupBean.Tally tally = new TimerGroupBean.Tally();
+		List<Run> ended = new ArrayList<>(timers.size());
+		for (TimerBean timer : timers) {
+			Run run = timer.pauseRun(now, tally);
+			if (run != null)
+				ended.add(run);
+		}
+		Run.cancelAll(ended);
+		tally.apply();
+	}
+
+	/**
+	 * Pauses the timer, leaving the caller to end the paused run. Until it does,
+	 * the run's deadlines and ticks are ignored, since the timer is no longer
+	 * running.
+	 * 
+	 * @param now   The current time.
+	 * @param tally The tally in which to gather the change to the group's
+	 *              aggregates, or <code>null</code> to apply it at once.
+	 * @return the run to end, or <code>null</code> if none.
+	 */
+	private Run pauseRun(long now, TimerGroupBean.Tally tally) {
+		long word;
+		Run run;
+		long remainingMillis;
+		do {
+			word = stateWord;
+			if (!stateOf(word).isRunning())
+				return null;
+			run = this.run;
+			// A run that is not yet published is ended by the thread that is starting it.
+			if (run != null && run.number != runOf(word))
+				run = null;
+			remainingMillis = run != null ? Math.max(run.finishTime - now, 0) : getIntervalMillis();
+			pausedRemainingMillis = remainingMillis;
+		} while (!transition(word, TimerState.PAUSED, runOf(word), tally));
+		supersedePendingProgress();
+		updateProgress(remainingMillis, tally);
+		mirrorState();
+		return run;
+	}
+
+	/**
+	 * Publishes a new run as the current one and cancels the run that it
+	 * replaces, unless a later run has already been published.
+	 * 
+	 * @param newRun The new run.
+	 * @return <code>true</code> if the run was published.
+	 */
+	private boolean publish(Run newRun) {
+		for (;;) {
+			Run current = run;
+			if (current != null && current.number > newRun.number) {
+				newRun.cancel();
+				return false;
+			}
+			if (RUN.compareAndSet(this, current, newRun)) {
+				if (current != null)
+					current.cancel();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the run number held in a state word.
 	 * 
-	 * @param newState The new timer state value.
+	 * @param word The state word.
+	 * @return the run number.
 	 */
-	private void setState(TimerState newState) {
-		state.set(newState);
+	private static long runOf(long word) {
+		return word >>> STATE_BITS;
+	}
+
+	/**
+	 * Returns the schedule property. If set, this is a {@link CronSchedule cron
+	 * expression} that determines when the timer starts once its owning
+	 * multi-timer has been started.
+	 * 
+	 * @return the schedule property.
+	 */
+	public final StringProperty scheduleProperty() {
+		if (scheduleProperty == null) {
+			scheduleProperty = new SimpleStringProperty(this, PROP_SCHEDULE, schedule) {
+				@Override
+				protected void invalidated() {
+					schedule = get();
+				}
+			};
+		}
+		return scheduleProperty;
+	}
+
+	/**
+	 * Returns the start-after property. This is a list of dependencies upon other
+	 * timers of the same multi-timer. When the multi-timer is started, a timer that
+	 * has dependencies waits until all of them are satisfied then starts as if at
+	 * the latest of its predecessors' deadlines.
+	 * 
+	 * @return the start-after property.
+	 */
+	public final ListProperty<DependencyBean> startAfterProperty() {
+		if (startAfterProperty == null) {
+			startAfterProperty = new SimpleListProperty<>(this, PROP_START_AFTER,
+					(ObservableList<DependencyBean>) getStartAfter());
+		}
+		return startAfterProperty;
 	}
 
 	/**
@@ -446,9 +1734,14 @@ public class TimerBean {
 	 * complete.
 	 */
 	public void standby() {
-		if (getState() != TimerState.STOPPED && getState() != TimerState.COMPLETE)
-			return;
-		setState(TimerState.WAITING);
+		long word;
+		do {
+			word = stateWord;
+			TimerState state = stateOf(word);
+			if (state != TimerState.STOPPED && state != TimerState.COMPLETE)
+				return;
+		} while (!transition(word, TimerState.WAITING, runOf(word)));
+		mirrorState();
 	}
 
 	/**
@@ -457,23 +1750,119 @@ public class TimerBean {
 	 * states.
 	 */
 	public void start() {
-		if (getState() == TimerState.RUNNING || getState() == TimerState.WARNING)
+		start(TimerUtils.getClock().currentTimeMillis());
+	}
+
+	/**
+	 * Starts the timer as if it had started at the specified instant. Has no
+	 * effect if the timer is already in the {@link TimerState#RUNNING running} or
+	 * {@link TimerState#WAITING warning} states.
+	 * 
+	 * @param startTime The instant at which the timer run is deemed to have
+	 *                  started, in milliseconds since the epoch.
+	 */
+	public void start(long startTime) {
+		Run run = startRun(startTime, null);
+		if (run != null)
+			startTicker(run, startTime);
+	}
+
+	/**
+	 * Starts several timers together, as if they had all started at the specified
+	 * instant. The timers' deadlines are armed in one batch: timers with the same
+	 * deadlines share a single scheduled task per deadline and a single ticker,
+	 * so timers in lock-step stay aligned to the millisecond across any number of
+	 * repeats. Timers that are already running are unaffected.
+	 * 
+	 * @param timers    The timers to start.
+	 * @param startTime The instant at which the timer runs are deemed to have
+	 *                  started, in milliseconds since the epoch.
+	 * @since 1.0.1
+	 */
+	public static void start(Collection<? extends TimerBean> timers, long startTime) {
+		// A lone timer has nothing to share a batch with.
+		if (timers.size() == 1) {
+			timers.iterator().next().start(startTime);
 			return;
-		long startTime = System.currentTimeMillis();
-		future = TimerUtils.EXECUTOR.scheduleAtFixedRate(ticker, 100, 100, TimeUnit.MILLISECONDS);
-		setState(TimerState.RUNNING);
-		setProgress(0);
-		warningTime = getWarnAfterMillis() != 0 ? startTime + getWarnAfterMillis() : Long.MAX_VALUE;
-		finishTime = startTime + getIntervalMillis();
+		}
+		Batch batch = new Batch(startTime);
+		for (TimerBean timer : timers)
+			timer.startRun(startTime, batch);
+		batch.seal();
+	}
+
+	/**
+	 * Starts a run of the timer and schedules its first deadline, if the timer is
+	 * not already running.
+	 * 
+	 * @param startTime The instant at which the run is deemed to have started.
+	 * @param batch     The batch that schedules the run's tasks, or
+	 *                  <code>null</code>.
+	 * @return the new run, or <code>null</code> if the timer was already running
+	 *         or was stopped or restarted meanwhile.
+	 */
+	private Run startRun(long startTime, Batch batch) {
+		long intervalMillis = getIntervalMillis();
+		long warnAfterMillis = getWarnAfterMillis();
+		long warningTime = warnAfterMillis != 0 ? startTime + warnAfterMillis : Long.MAX_VALUE;
+		long finishTime = startTime + intervalMillis;
+		long word;
+		do {
+			word = stateWord;
+			if (stateOf(word).isRunning())
+				return null;
+		} while (!transition(word, TimerState.RUNNING, runOf(word) + 1));
+		Run run = new Run(this, runOf(word) + 1, warningTime, finishTime, batch);
+		if (batch != null)
+			batch.add(run);
+		// A stop or restart that has already overtaken this start ends the new run.
+		if (!publish(run) || stateWord != word(run.number, TimerState.RUNNING)) {
+			run.cancel();
+			return null;
+		}
+		updateProgress(Math.min(Math.max(finishTime - TimerUtils.getClock().currentTimeMillis(), 0), intervalMillis));
+		mirrorState();
+		scheduleDeadline(run);
+		return run;
+	}
+
+	/**
+	 * Schedules the ticker of a run that is not part of a batch.
+	 * 
+	 * @param run       The run.
+	 * @param startTime The instant from which the ticks are phased.
+	 */
+	private void startTicker(Run run, long startTime) {
+		Clock clock = TimerUtils.getClock();
+		long tickMillis = clock.getTickMillis();
+		if (tickMillis > 0) {
+			run.setTicker(clock.scheduleAtFixedRate(ticker, tickDelay(startTime, tickMillis, clock.currentTimeMillis()),
+					tickMillis, TimeUnit.MILLISECONDS));
+		}
 	}
 
 	/**
-	 * Returns the timer <code>state</code> property.
+	 * Returns the timer <code>state</code> property, which mirrors the timer's
+	 * state on the UI thread. It is read-only because the state only changes by
+	 * starting, stopping or arming the timer.
 	 * 
 	 * @return the timer state property.
+	 * @see #getState()
 	 */
-	public final ObjectProperty<TimerState> stateProperty() {
-		return state;
+	public final ReadOnlyObjectProperty<TimerState> stateProperty() {
+		if (stateProperty == null)
+			stateProperty = new ReadOnlyObjectWrapper<>(this, PROP_STATE, getState());
+		return stateProperty.getReadOnlyProperty();
+	}
+
+	/**
+	 * Returns the state held in a state word.
+	 * 
+	 * @param word The state word.
+	 * @return the state.
+	 */
+	private static TimerState stateOf(long word) {
+		return STATES[(int) (word & STATE_MASK)];
 	}
 
 	/**
@@ -481,15 +1870,126 @@ public class TimerBean {
 	 * {@link TimerState#STOPPED stopped}
 	 */
 	public void stop() {
-		if (getState() == TimerState.STOPPED)
-			return;
-		if (future != null)
-			future.cancel(true);
-		TimerUtils.EXECUTOR.remove(ticker);
-		setState(TimerState.STOPPED);
-		setProgress(0);
-		setRemainingMillis((long) getIntInterval() * 60 * 1000);
-		warningTime = finishTime = 0;
+		Run run = stopRun(null);
+		if (run != null)
+			endRun(run);
+	}
+
+	/**
+	 * Stops several timers together, such as all the timers of a document. Their
+	 * runs are ended together, so that timers started in one batch cancel the
+	 * batch's shared tasks at once rather than each withdrawing from them in
+	 * turn, and the change to the groups' aggregates is applied and published
+	 * once per group. Each of a run's own tasks is cancelled through its handle,
+	 * which removes it from the scheduler's queue by its heap index rather than
+	 * by searching the queue. So the cost grows linearly with the number of
+	 * timers.
+	 * 
+	 * @param timers The timers to stop.
+	 * @since 1.0.1
+	 */
+	public static void stop(Collection<? extends TimerBean> timers) {
+		TimerGroupBean.Tally tally = new TimerGroupBean.Tally();
+		List<Run> ended = new ArrayList<>(timers.size());
+		for (TimerBean timer : timers) {
+			Run run = timer.stopRun(tally);
+			if (run != null)
+				ended.add(run);
+		}
+		Run.cancelAll(ended);
+		for (Run run : ended)
+			RUN.compareAndSet(run.timer, run, null);
+		tally.apply();
+	}
+
+	/**
+	 * Stops the timer, leaving the caller to end the stopped run. Until it does,
+	 * the run's deadlines and ticks are ignored, since the timer is no longer
+	 * running.
+	 * 
+	 * @param tally The tally in which to gather the change to the group's
+	 *              aggregates, or <code>null</code> to apply it at once.
+	 * @return the run to end, or <code>null</code> if none.
+	 */
+	private Run stopRun(TimerGroupBean.Tally tally) {
+		disarm();
+		long word;
+		do {
+			word = stateWord;
+			if (stateOf(word) == TimerState.STOPPED)
+				return null;
+		} while (!transition(word, TimerState.STOPPED, runOf(word), tally));
+		supersedePendingProgress();
+		resetProgress(tally);
+		mirrorState();
+		// A run that is not yet published is ended by the thread that is starting it.
+		Run run = this.run;
+		return run != null && run.number <= runOf(word) ? run : null;
+	}
+
+	/**
+	 * Supersedes any pending progress update. An update that is still queued
+	 * resynchronises with the clock when applied, rather than applying its stale
+	 * value, and is reused by the ticker instead of queueing another. So however
+	 * many transitions occur while the UI thread is stalled or suspended, the
+	 * update queue holds at most one entry per timer.
+	 */
+	private void supersedePendingProgress() {
+		pendingRemainingMillis.updateAndGet(v -> v == NO_UPDATE ? NO_UPDATE : RESYNC);
+	}
+
+	/**
+	 * Returns the delay until the next tick of a run, such that ticks fall at
+	 * whole multiples of the tick interval after the run's start time.
+	 * 
+	 * @param startTime  The instant at which the run started.
+	 * @param tickMillis The tick interval in milliseconds.
+	 * @param now        The current time.
+	 * @return the delay in milliseconds until the next tick.
+	 */
+	private static long tickDelay(long startTime, long tickMillis, long now) {
+		return tickMillis - Math.floorMod(now - startTime, tickMillis);
+	}
+
+	/**
+	 * Moves the timer from the state held in a state word to a new state, provided
+	 * that no other thread has changed the word meanwhile. The thread that makes
+	 * the transition reports it to the owning group; the caller mirrors it once
+	 * the transition's other effects are in place.
+	 * 
+	 * @param expect   The state word from which to move.
+	 * @param newState The new state.
+	 * @param newRun   The run number of the new state.
+	 * @return <code>true</code> if the transition was made, <code>false</code> if
+	 *         another thread changed the state first.
+	 * @throws IllegalStateException if the transition is invalid.
+	 */
+	private boolean transition(long expect, TimerState newState, long newRun) {
+		return transition(expect, newState, newRun, null);
+	}
+
+	/**
+	 * Moves the timer from the state held in a state word to a new state, provided
+	 * that no other thread has changed the word meanwhile, gathering the change
+	 * to the group's aggregates in a tally.
+	 * 
+	 * @param expect   The state word from which to move.
+	 * @param newState The new state.
+	 * @param newRun   The run number of the new state.
+	 * @param tally    The tally in which to gather the change to the aggregates,
+	 *                 or <code>null</code> to apply it at once.
+	 * @return <code>true</code> if the transition was made, <code>false</code> if
+	 *         another thread changed the state first.
+	 * @throws IllegalStateException if the transition is invalid.
+	 */
+	private boolean transition(long expect, TimerState newState, long newRun, TimerGroupBean.Tally tally) {
+		TimerState oldState = stateOf(expect);
+		if (!oldState.canTransitionTo(newState))
+			throw new IllegalStateException("invalid transition from " + oldState + " to " + newState);
+		if (!STATE_WORD.compareAndSet(this, expect, word(newRun, newState)))
+			return false;
+		report(tally);
+		return true;
 	}
 
 	/** {@inheritDoc} */
@@ -497,7 +1997,7 @@ public class TimerBean {
 	public String toString() {
 		return "TimerBean [name=" + getName() + ", intInterval=" + getIntInterval() + ", isoInterval="
 				+ getIsoInterval() + ", intWarnAfter=" + getIntWarnAfter() + ", isoWarnAfter=" + getIsoWarnAfter()
-				+ ", repeat=" + getRepeat() + ", state=" + getState() + ", progress=" + getProgress()
+				+ ", repeat=" + getRepeat() + ", schedule=" + getSchedule() + ", state=" + getState() + ", progress=" + getProgress()
 				+ ", remainingMillis=" + getRemainingMillis() + ']';
 	}
 
@@ -507,7 +2007,9 @@ public class TimerBean {
 	 * @return the 'warn after' duration property.
 	 */
 	public ObjectProperty<Duration> warnAfterDurationProperty() {
-		return warnAfterDuration;
+		if (warnAfterDurationProperty == null)
+			warnAfterDurationProperty = new SimpleObjectProperty<>(this, "warnAfterDuration", getWarnAfterDuration());
+		return warnAfterDurationProperty;
 	}
 
 	/**
@@ -518,6 +2020,17 @@ public class TimerBean {
 	 * @return the 'warn after' interval seconds property.
 	 */
 	public final IntegerProperty warnAfterProperty() {
-		return intWarnAfter;
+		return getWarnAfterDuration().intValueProperty();
+	}
+
+	/**
+	 * Returns the state word for a run number and state.
+	 * 
+	 * @param run   The run number.
+	 * @param state The state.
+	 * @return the state word.
+	 */
+	private static long word(long run, TimerState state) {
+		return run << STATE_BITS | state.ordinal();
 	}
 }
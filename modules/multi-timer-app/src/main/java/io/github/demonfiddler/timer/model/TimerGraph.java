@@ -0,0 +1,256 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The dependency graph between the timers of a multi-timer. A timer that has
+ * dependencies is started when all its predecessors have entered the required
+ * states, as if it had started at the latest of their deadlines. Because each
+ * successor is anchored to its predecessors' deadlines rather than to the time
+ * at which their transitions were detected, no drift accumulates along a chain.
+ * Once a successor has started, its dependencies are reset so that repeating
+ * predecessors start it again on their next cycle.
+ * 
+ * @since 1.0.1
+ */
+public final class TimerGraph {
+	/**
+	 * A dependency edge between a predecessor and a successor timer.
+	 */
+	private static final class Edge {
+		final Node successor;
+		final TimerState on;
+		boolean satisfied;
+
+		Edge(Node successor, TimerState on) {
+			this.successor = successor;
+			this.on = on;
+		}
+	}
+
+	/**
+	 * A timer node in the graph.
+	 */
+	private static final class Node {
+		final TimerBean timer;
+		final List<Edge> successors = new ArrayList<>();
+		final List<Edge> predecessors = new ArrayList<>();
+		int pending;
+		long readyAt = Long.MIN_VALUE;
+
+		Node(TimerBean timer) {
+			this.timer = timer;
+		}
+	}
+
+	private final Map<TimerBean, Node> nodes = new IdentityHashMap<>();
+
+	/**
+	 * Builds and validates the dependency graph for the specified timers.
+	 * 
+	 * @param timers The timers.
+	 * @return the dependency graph.
+	 * @throws IllegalArgumentException if a dependency refers to a missing or
+	 *                                  ambiguously named timer, or if the
+	 *                                  dependencies contain a cycle.
+	 */
+	public static TimerGraph build(List<TimerBean> timers) {
+		return new TimerGraph(timers);
+	}
+
+	/**
+	 * Constructs a new <code>TimerGraph</code>.
+	 * 
+	 * @param timers The timers.
+	 */
+	private TimerGraph(List<TimerBean> timers) {
+		Map<String, Node> byName = new HashMap<>();
+		List<String> duplicates = new ArrayList<>();
+		for (TimerBean timer : timers) {
+			Node node = new Node(timer);
+			nodes.put(timer, node);
+			if (byName.put(timer.getName(), node) != null)
+				duplicates.add(timer.getName());
+		}
+		for (Node node : nodes.values()) {
+			if (!node.timer.hasDependencies())
+				continue;
+			for (DependencyBean dependency : node.timer.getStartAfter()) {
+				String name = dependency.getTimer();
+				if (duplicates.contains(name))
+					throw new IllegalArgumentException(
+							"Timer '" + node.timer.getName() + "' depends on ambiguous timer name '" + name + '\'');
+				Node predecessor = byName.get(name);
+				if (predecessor == null)
+					throw new IllegalArgumentException(
+							"Timer '" + node.timer.getName() + "' depends on unknown timer '" + name + '\'');
+				Edge edge = new Edge(node, dependency.getOn());
+				predecessor.successors.add(edge);
+				node.predecessors.add(edge);
+			}
+			node.pending = node.predecessors.size();
+		}
+		checkAcyclic();
+	}
+
+	/**
+	 * Checks that the graph contains no cycles, using Kahn's algorithm.
+	 * 
+	 * @throws IllegalArgumentException if the graph contains a cycle.
+	 */
+	private void checkAcyclic() {
+		Map<Node, Integer> inDegree = new IdentityHashMap<>();
+		Deque<Node> ready = new ArrayDeque<>();
+		for (Node node : nodes.values()) {
+			inDegree.put(node, node.predecessors.size());
+			if (node.predecessors.isEmpty())
+				ready.add(node);
+		}
+		int visited = 0;
+		while (!ready.isEmpty()) {
+			Node node = ready.remove();
+			visited++;
+			for (Edge edge : node.successors) {
+				if (inDegree.merge(edge.successor, -1, Integer::sum) == 0)
+					ready.add(edge.successor);
+			}
+		}
+		if (visited < nodes.size())
+			throw new IllegalArgumentException("Timer dependencies contain a cycle: " + findCycle(inDegree));
+	}
+
+	/**
+	 * Describes a cycle among the nodes left unvisited by Kahn's algorithm.
+	 * 
+	 * @param inDegree The residual in-degree of each node.
+	 * @return a description of the cycle, such as <code>A -> B -> A</code>.
+	 */
+	private String findCycle(Map<Node, Integer> inDegree) {
+		// Every unvisited node has an unvisited predecessor, so walking backwards must
+		// eventually revisit a node.
+		Node node = null;
+		for (Map.Entry<Node, Integer> entry : inDegree.entrySet()) {
+			if (entry.getValue() > 0) {
+				node = entry.getKey();
+				break;
+			}
+		}
+		Map<Node, Node> next = new IdentityHashMap<>();
+		while (!next.containsKey(node)) {
+			Node predecessor = null;
+			for (Node candidate : nodes.values()) {
+				if (inDegree.get(candidate) > 0) {
+					for (Edge edge : candidate.successors) {
+						if (edge.successor == node)
+							predecessor = candidate;
+					}
+				}
+			}
+			next.put(node, predecessor);
+			node = predecessor;
+		}
+		List<String> names = new ArrayList<>();
+		Node start = node;
+		do {
+			names.add(node.timer.getName());
+			node = next.get(node);
+		} while (node != start);
+		names.add(start.timer.getName());
+		Collections.reverse(names);
+		return String.join(" -> ", names);
+	}
+
+	/**
+	 * Returns whether the specified timer has any dependencies.
+	 * 
+	 * @param timer The timer.
+	 * @return <code>true</code> if the timer is started by its predecessors.
+	 */
+	public boolean hasPredecessors(TimerBean timer) {
+		Node node = nodes.get(timer);
+		return node != null && !node.predecessors.isEmpty();
+	}
+
+	/**
+	 * Resets all dependencies to unsatisfied.
+	 */
+	public synchronized void reset() {
+		for (Node node : nodes.values()) {
+			for (Edge edge : node.predecessors)
+				edge.satisfied = false;
+			node.pending = node.predecessors.size();
+			node.readyAt = Long.MIN_VALUE;
+		}
+	}
+
+	/**
+	 * Records that a timer has entered a state, starting any successors whose
+	 * dependencies are now all satisfied.
+	 * 
+	 * @param timer    The timer whose state changed.
+	 * @param newState The state that the timer entered.
+	 * @param when     The deadline at which the timer entered the state.
+	 */
+	public void transition(TimerBean timer, TimerState newState, long when) {
+		Node node = nodes.get(timer);
+		if (node == null)
+			return;
+		List<Node> ready = null;
+		synchronized (this) {
+			for (Edge edge : node.successors) {
+				if (edge.on != newState || edge.satisfied)
+					continue;
+				Node successor = edge.successor;
+				edge.satisfied = true;
+				successor.readyAt = Math.max(successor.readyAt, when);
+				if (--successor.pending == 0) {
+					if (ready == null)
+						ready = new ArrayList<>();
+					ready.add(successor);
+				}
+			}
+		}
+		if (ready != null) {
+			// Successors that become ready as of the same instant start together.
+			Map<Long, List<TimerBean>> starts = new LinkedHashMap<>();
+			for (Node successor : ready) {
+				long startTime;
+				synchronized (this) {
+					startTime = successor.readyAt;
+					for (Edge edge : successor.predecessors)
+						edge.satisfied = false;
+					successor.pending = successor.predecessors.size();
+					successor.readyAt = Long.MIN_VALUE;
+				}
+				starts.computeIfAbsent(startTime, k -> new ArrayList<>()).add(successor.timer);
+			}
+			starts.forEach((startTime, timers) -> TimerBean.start(timers, startTime));
+		}
+	}
+}
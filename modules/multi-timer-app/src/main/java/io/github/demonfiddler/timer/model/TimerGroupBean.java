@@ -0,0 +1,921 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.json.bind.annotation.JsonbPropertyOrder;
+import javax.json.bind.annotation.JsonbTransient;
+
+import io.github.demonfiddler.timer.util.Clock;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ListProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleListProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ModifiableObservableListBase;
+
+/**
+ * A JavaFX bean that represents a named, nestable group of timers. The group
+ * maintains an aggregate state and progress for all the timers it contains,
+ * directly or in nested groups. The aggregates are updated incrementally as
+ * each timer changes, at a constant cost rather than one proportional to the
+ * number of timers. Timers may change on any thread, so each group keeps
+ * atomic counts of its own timers' states, which the timers adjust without
+ * locking; the aggregates sum these over the nested groups, and the state and
+ * progress properties mirror them on the UI thread.
+ * 
+ * @since 1.0.1
+ */
+@JsonbPropertyOrder({ "name", "collapsed", "timers", "groups" })
+public class TimerGroupBean {
+	/** The number of timer states. */
+	private static final int STATES = TimerState.values().length;
+	/** The index of the progress sum in an array of totals, after the state counts. */
+	private static final int PROGRESS = STATES;
+	/** The length of an array of totals. */
+	private static final int TOTALS_LENGTH = STATES + 1;
+	/** The fixed-point unit of progress, in which contributions add up exactly. */
+	static final long PROGRESS_SCALE = 1L << 30;
+
+	/**
+	 * What a timer contributes to the aggregates of its group: one timer in its
+	 * state, and its progress. A timer replaces its contribution by a single
+	 * compare-and-set whenever its group, state or progress changes, and the
+	 * thread that replaces it moves the difference into the groups' counts. So
+	 * however joining, leaving and state changes interleave, each group's counts
+	 * converge on the sum of its members' latest contributions.
+	 */
+	static final class Contribution {
+		/** The contribution of a timer that has never belonged to a group. */
+		static final Contribution NONE = new Contribution(null, TimerState.STOPPED, 0);
+
+		final TimerGroupBean group;
+		final TimerState state;
+		/** The progress in units of 1/{@link TimerGroupBean#PROGRESS_SCALE}. */
+		final long progress;
+
+		/**
+		 * Constructs a new <code>Contribution</code>.
+		 * 
+		 * @param group    The group to which the timer belongs, or
+		 *                 <code>null</code> if none.
+		 * @param state    The timer's state.
+		 * @param progress The timer's progress, between 0 and 1.
+		 */
+		Contribution(TimerGroupBean group, TimerState state, double progress) {
+			this.group = group;
+			this.state = state;
+			this.progress = Math.round(progress * PROGRESS_SCALE);
+		}
+	}
+
+	/**
+	 * The changes to the aggregates of several groups, gathered while many timers
+	 * change together and then applied, and published, once per group.
+	 */
+	static final class Tally {
+		private final Map<TimerGroupBean, long[]> deltas = new IdentityHashMap<>();
+
+		/**
+		 * Adds or withdraws a contribution.
+		 * 
+		 * @param contribution The contribution.
+		 * @param sign         <code>1</code> to add the contribution,
+		 *                     <code>-1</code> to withdraw it.
+		 */
+		void add(Contribution contribution, int sign) {
+			if (contribution.group == null)
+				return;
+			long[] delta = deltas.computeIfAbsent(contribution.group, g -> new long[TOTALS_LENGTH]);
+			delta[contribution.state.ordinal()] += sign;
+			delta[PROGRESS] += sign * contribution.progress;
+		}
+
+		/**
+		 * Applies the changes to the groups' counts and publishes their new
+		 * aggregates.
+		 */
+		void apply() {
+			if (deltas.isEmpty())
+				return;
+			deltas.forEach(TimerGroupBean::add);
+			// Mirror each group once, however many of its nested groups changed.
+			Set<TimerGroupBean> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (TimerGroupBean group : deltas.keySet()) {
+				TimerGroupBean g = group;
+				while (g != null && changed.add(g))
+					g = g.parent;
+			}
+			changed.forEach(TimerGroupBean::publishOne);
+			deltas.clear();
+		}
+	}
+
+	/**
+	 * The members of a group, which rejects any member that already belongs to
+	 * another group before the list changes, so that the list never holds a
+	 * member whose aggregates it has not taken over.
+	 * 
+	 * @param <E> The member type.
+	 */
+	private final class MemberList<E> extends ModifiableObservableListBase<E> {
+		private final List<E> members = new ArrayList<>();
+		private final Function<E, TimerGroupBean> owner;
+		private final Function<E, String> name;
+
+		/**
+		 * Constructs a new <code>MemberList</code>.
+		 * 
+		 * @param owner Returns the group to which a member belongs, if any.
+		 * @param name  Returns the name of a member.
+		 */
+		MemberList(Function<E, TimerGroupBean> owner, Function<E, String> name) {
+			this.owner = owner;
+			this.name = name;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void add(int index, E element) {
+			check(element, false);
+			super.add(index, element);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean addAll(Collection<? extends E> c) {
+			c.forEach(e -> check(e, false));
+			return super.addAll(c);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean addAll(int index, Collection<? extends E> c) {
+			c.forEach(e -> check(e, false));
+			return super.addAll(index, c);
+		}
+
+		/**
+		 * Checks that an element may become a member of the group.
+		 * 
+		 * @param element The element to check.
+		 * @param replacing Whether the group's current members are being replaced.
+		 * @throws IllegalArgumentException if the element belongs to another
+		 *                                  group, or to this one unless
+		 *                                  <code>replacing</code>.
+		 */
+		private void check(E element, boolean replacing) {
+			TimerGroupBean group = owner.apply(element);
+			if (group != null && !(replacing && group == TimerGroupBean.this))
+				throw new IllegalArgumentException("'" + name.apply(element) + "' already belongs to a group");
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected void doAdd(int index, E element) {
+			members.add(index, element);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected E doRemove(int index) {
+			return members.remove(index);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected E doSet(int index, E element) {
+			return members.set(index, element);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public E get(int index) {
+			return members.get(index);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public E set(int index, E element) {
+			if (element != members.get(index))
+				check(element, false);
+			return super.set(index, element);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean setAll(Collection<? extends E> c) {
+			c.forEach(e -> check(e, true));
+			return super.setAll(c);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int size() {
+			return members.size();
+		}
+	}
+
+	public static final String PROP_NAME = "name";
+	public static final String PROP_COLLAPSED = "collapsed";
+	public static final String PROP_TIMERS = "timers";
+	public static final String PROP_GROUPS = "groups";
+	public static final String PROP_STATE = "state";
+	public static final String PROP_PROGRESS = "progress";
+
+	private final StringProperty name = new SimpleStringProperty(this, PROP_NAME);
+	private final BooleanProperty collapsed = new SimpleBooleanProperty(this, PROP_COLLAPSED);
+	private final ListProperty<TimerBean> timers = new SimpleListProperty<>(this, PROP_TIMERS,
+			new MemberList<>(TimerBean::getGroup, TimerBean::getName));
+	private final ListProperty<TimerGroupBean> groups = new SimpleListProperty<>(this, PROP_GROUPS,
+			new MemberList<>(TimerGroupBean::getParent, TimerGroupBean::getName));
+	@JsonbTransient
+	private final ObjectProperty<TimerState> state = new SimpleObjectProperty<>(this, PROP_STATE, TimerState.STOPPED);
+	@JsonbTransient
+	private final DoubleProperty progress = new SimpleDoubleProperty(this, PROP_PROGRESS);
+	@JsonbTransient
+	private volatile TimerGroupBean parent;
+	/** The index of upcoming deadlines, which only a root group creates. */
+	@JsonbTransient
+	private volatile DeadlineIndex deadlineIndex;
+	/** The index of timer names, which only a root group creates. */
+	@JsonbTransient
+	private NameIndex nameIndex;
+	/** The nested groups, which may be summed on any thread. */
+	private final List<TimerGroupBean> nested = new CopyOnWriteArrayList<>();
+	/** The number of the group's own timers in each state, indexed by state ordinal. */
+	private final AtomicIntegerArray counts = new AtomicIntegerArray(STATES);
+	/** The sum of the progress of the group's own timers, in units of 1/PROGRESS_SCALE. */
+	private final AtomicLong progressSum = new AtomicLong();
+	/** Whether the properties are due to be updated on the UI thread. */
+	private final AtomicBoolean publishPending = new AtomicBoolean();
+
+	{
+		timers.addListener((ListChangeListener<TimerBean>) c -> {
+			while (c.next()) {
+				// A permutation reports neither additions nor removals.
+				if (c.wasRemoved())
+					handleTimersRemoved(c.getRemoved());
+				if (c.wasAdded())
+					handleTimersAdded(c.getAddedSubList());
+			}
+		});
+		groups.addListener((ListChangeListener<TimerGroupBean>) c -> {
+			while (c.next()) {
+				for (TimerGroupBean group : c.getRemoved())
+					handleGroupRemoved(group);
+				for (TimerGroupBean group : c.getAddedSubList())
+					handleGroupAdded(group);
+			}
+		});
+	}
+
+	/**
+	 * Constructs a new <code>TimerGroupBean</code>.
+	 */
+	public TimerGroupBean() {
+	}
+
+	/**
+	 * Constructs a new, empty <code>TimerGroupBean</code> with the specified name.
+	 * 
+	 * @param name The group name.
+	 */
+	public TimerGroupBean(String name) {
+		setName(name);
+	}
+
+	/**
+	 * Applies changes to the counts and progress of the group's own timers.
+	 * 
+	 * @param delta The change in the number of timers in each state, followed by
+	 *              the change in their progress.
+	 */
+	private void add(long[] delta) {
+		for (int i = 0; i < STATES; i++) {
+			if (delta[i] != 0)
+				counts.addAndGet(i, (int) delta[i]);
+		}
+		if (delta[PROGRESS] != 0)
+			progressSum.addAndGet(delta[PROGRESS]);
+	}
+
+	/**
+	 * Adds timers to the group in a single list change, so that listeners are
+	 * notified, and the aggregates updated, once for the whole batch.
+	 * 
+	 * @param timers The timers to add.
+	 */
+	public void addTimers(Collection<? extends TimerBean> timers) {
+		getTimers().addAll(timers);
+	}
+
+	/**
+	 * Returns the collapsed property. A collapsed group is displayed without its
+	 * members.
+	 * 
+	 * @return the collapsed property.
+	 */
+	public final BooleanProperty collapsedProperty() {
+		return collapsed;
+	}
+
+	/**
+	 * Invokes an action for each timer in the group and its nested groups, in
+	 * display order.
+	 * 
+	 * @param action The action to invoke.
+	 */
+	public void forEachTimer(Consumer<? super TimerBean> action) {
+		getTimers().forEach(action);
+		getGroups().forEach(g -> g.forEachTimer(action));
+	}
+
+	/**
+	 * Returns all the timers in the group and its nested groups, in display
+	 * order.
+	 * 
+	 * @return a new list of timers.
+	 */
+	@JsonbTransient
+	public List<TimerBean> getAllTimers() {
+		List<TimerBean> allTimers = new ArrayList<>(getTimerCount());
+		forEachTimer(allTimers::add);
+		return allTimers;
+	}
+
+	/**
+	 * Returns the <code>collapsed</code> property value.
+	 * 
+	 * @return the collapsed property value.
+	 * @see #collapsedProperty()
+	 */
+	public final boolean getCollapsed() {
+		return collapsed.get();
+	}
+
+	/**
+	 * Returns the number of timers in the group and its nested groups that are in
+	 * the specified state.
+	 * 
+	 * @param state The timer state.
+	 * @return the number of timers in that state.
+	 */
+	public int getCount(TimerState state) {
+		return (int) totals()[state.ordinal()];
+	}
+
+	/**
+	 * Returns the nested groups.
+	 * 
+	 * @return the nested groups.
+	 * @see #groupsProperty()
+	 */
+	public List<TimerGroupBean> getGroups() {
+		return groups.get();
+	}
+
+	/**
+	 * Returns the group name.
+	 * 
+	 * @return the group name.
+	 */
+	public final String getName() {
+		return name.get();
+	}
+
+	/**
+	 * Returns the index of the upcoming deadlines of all the running timers in the
+	 * root group to which this group belongs. The index is shared by all the
+	 * root's nested groups.
+	 * 
+	 * @return the deadline index.
+	 * @since 1.0.1
+	 */
+	public DeadlineIndex getDeadlineIndex() {
+		TimerGroupBean root = getRoot();
+		DeadlineIndex index = root.deadlineIndex;
+		if (index == null) {
+			synchronized (root) {
+				index = root.deadlineIndex;
+				if (index == null)
+					root.deadlineIndex = index = new DeadlineIndex();
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of the names of all the timers in the root group to which
+	 * this group belongs. The index is built on first use and then kept up to
+	 * date as timers are added, removed and renamed.
+	 * 
+	 * @return the name index.
+	 * @since 1.0.1
+	 */
+	public NameIndex getNameIndex() {
+		TimerGroupBean root = getRoot();
+		if (root.nameIndex == null)
+			root.nameIndex = new NameIndex(root.getAllTimers());
+		return root.nameIndex;
+	}
+
+	/**
+	 * Returns the group that contains this group.
+	 * 
+	 * @return the parent group, or <code>null</code> if none.
+	 */
+	public TimerGroupBean getParent() {
+		return parent;
+	}
+
+	/**
+	 * Returns the aggregate progress of the group as a double between 0 and 1.
+	 * This may be ahead of the progress property, which is only updated on the UI
+	 * thread.
+	 * 
+	 * @return the aggregate progress.
+	 * @see #progressProperty()
+	 */
+	public final double getProgress() {
+		return progressOf(totals());
+	}
+
+	/**
+	 * Returns the aggregate state of the group. This may be ahead of the state
+	 * property, which is only updated on the UI thread.
+	 * 
+	 * @return the aggregate state.
+	 * @see #stateProperty()
+	 */
+	public final TimerState getState() {
+		return stateOf(totals());
+	}
+
+	/**
+	 * Returns the number of timers in the group and its nested groups.
+	 * 
+	 * @return the number of timers.
+	 */
+	@JsonbTransient
+	public int getTimerCount() {
+		return (int) timerCount(totals());
+	}
+
+	/**
+	 * Returns the timers that belong directly to the group.
+	 * 
+	 * @return the timers.
+	 * @see #timersProperty()
+	 */
+	public List<TimerBean> getTimers() {
+		return timers.get();
+	}
+
+	/**
+	 * Returns the nested groups property.
+	 * 
+	 * @return the nested groups property.
+	 */
+	public final ListProperty<TimerGroupBean> groupsProperty() {
+		return groups;
+	}
+
+	/**
+	 * Returns the outermost group to which this group belongs.
+	 * 
+	 * @return the root group, which may be this group.
+	 */
+	private TimerGroupBean getRoot() {
+		TimerGroupBean root = this;
+		while (root.parent != null)
+			root = root.parent;
+		return root;
+	}
+
+	/**
+	 * Handles the addition of a nested group.
+	 * 
+	 * @param group The added group.
+	 */
+	private void handleGroupAdded(TimerGroupBean group) {
+		group.parent = this;
+		nested.add(group);
+		publish();
+		// The group's timers now belong to this group's root, whose index takes them over.
+		group.nameIndex = null;
+		NameIndex index = getRoot().nameIndex;
+		if (index != null)
+			index.addAll(group.getAllTimers());
+	}
+
+	/**
+	 * Handles the removal of a nested group. The group's timers are stopped.
+	 * 
+	 * @param group The removed group.
+	 */
+	private void handleGroupRemoved(TimerGroupBean group) {
+		group.stop();
+		NameIndex index = getRoot().nameIndex;
+		if (index != null)
+			index.removeAll(group.getAllTimers());
+		nested.remove(group);
+		group.parent = null;
+		publish();
+	}
+
+	/**
+	 * Handles the addition of timers. The contributions of all the added timers
+	 * are tallied and applied together, and the aggregates published once. The
+	 * timers have already been checked not to belong to another group.
+	 * 
+	 * @param added The added timers.
+	 */
+	private void handleTimersAdded(List<? extends TimerBean> added) {
+		Tally tally = new Tally();
+		for (TimerBean timer : added)
+			timer.setGroup(this, tally);
+		tally.apply();
+		NameIndex index = getRoot().nameIndex;
+		if (index != null)
+			index.addAll(added);
+	}
+
+	/**
+	 * Handles the removal of timers, which are stopped. The contributions of all
+	 * the removed timers are withdrawn together, and the aggregates published
+	 * once.
+	 * 
+	 * @param removed The removed timers.
+	 */
+	private void handleTimersRemoved(List<? extends TimerBean> removed) {
+		TimerBean.stop(removed);
+		Tally tally = new Tally();
+		for (TimerBean timer : removed)
+			timer.setGroup(null, tally);
+		tally.apply();
+		NameIndex index = getRoot().nameIndex;
+		if (index != null)
+			index.removeAll(removed);
+	}
+
+	/**
+	 * Sets the state and progress properties to the aggregate values. Called on
+	 * the UI thread.
+	 */
+	private void mirror() {
+		long[] totals = totals();
+		state.set(stateOf(totals));
+		progress.set(progressOf(totals));
+	}
+
+	/**
+	 * Returns the group name property.
+	 * 
+	 * @return the group name property.
+	 */
+	public final StringProperty nameProperty() {
+		return name;
+	}
+
+	/**
+	 * Returns the aggregate progress property. This is the mean progress of all
+	 * the timers in the group and its nested groups, as last published on the UI
+	 * thread.
+	 * 
+	 * @return the aggregate progress property.
+	 */
+	public final DoubleProperty progressProperty() {
+		return progress;
+	}
+
+	/**
+	 * Returns the aggregate progress for a set of totals.
+	 * 
+	 * @param totals The totals.
+	 * @return the mean progress of the timers, between 0 and 1.
+	 */
+	private static double progressOf(long[] totals) {
+		long timerCount = timerCount(totals);
+		if (timerCount <= 0)
+			return 0;
+		return Math.min(Math.max((double) totals[PROGRESS] / PROGRESS_SCALE / timerCount, 0), 1);
+	}
+
+	/**
+	 * Updates the state and progress properties of this group and its ancestors
+	 * from their aggregates.
+	 */
+	private void publish() {
+		for (TimerGroupBean g = this; g != null; g = g.parent)
+			g.publishOne();
+	}
+
+	/**
+	 * Updates the state and progress properties of this group from its
+	 * aggregates: directly if called on the UI thread, otherwise by a task run
+	 * there, of which at most one is queued at a time.
+	 */
+	private void publishOne() {
+		Clock clock = TimerUtils.getClock();
+		if (clock.isUiThread()) {
+			mirror();
+		} else if (publishPending.compareAndSet(false, true)) {
+			// Bound properties must be updated on the UI thread.
+			clock.runLater(() -> {
+				publishPending.set(false);
+				mirror();
+			});
+		}
+	}
+
+	/**
+	 * Removes timers from the group in a single list change, so that listeners
+	 * are notified, and the aggregates updated, once for the whole batch. The
+	 * removed timers are stopped. The cost is proportional to the number of timers
+	 * in the group, however many are removed.
+	 * 
+	 * @param timers The timers to remove. Any that do not belong directly to the
+	 *               group are ignored.
+	 */
+	public void removeTimers(Collection<? extends TimerBean> timers) {
+		// Membership tests against the argument must be constant-time.
+		Set<TimerBean> removed = Collections.newSetFromMap(new IdentityHashMap<>(timers.size()));
+		removed.addAll(timers);
+		getTimers().removeAll(removed);
+	}
+
+	/**
+	 * Pauses all the running timers in the group and its nested groups.
+	 * 
+	 * @see TimerBean#pause(Collection)
+	 * @since 1.0.1
+	 */
+	public void pause() {
+		TimerBean.pause(getAllTimers());
+	}
+
+	/**
+	 * Resets all the timers in the group and its nested groups.
+	 * 
+	 * @see TimerBean#reset()
+	 */
+	public void reset() {
+		forEachTimer(TimerBean::reset);
+	}
+
+	/**
+	 * Sets the <code>collapsed</code> property value.
+	 * 
+	 * @param newCollapsed The new collapsed property value.
+	 * @see #collapsedProperty()
+	 */
+	public final void setCollapsed(boolean newCollapsed) {
+		collapsed.set(newCollapsed);
+	}
+
+	/**
+	 * Sets the nested groups. Note that the receiver does not take ownership of
+	 * this list: it merely replaces the contents of its internal list with a
+	 * reference to each group, in a single list change.
+	 * 
+	 * @param groups The list of groups to set.
+	 * @see #groupsProperty()
+	 */
+	public void setGroups(List<TimerGroupBean> groups) {
+		this.groups.setAll(groups);
+	}
+
+	/**
+	 * Sets the group name.
+	 * 
+	 * @param newName The new group name.
+	 */
+	public final void setName(String newName) {
+		name.set(newName);
+	}
+
+	/**
+	 * Sets the timers that belong directly to the group. Note that the receiver
+	 * does not take ownership of this list: it merely replaces the contents of its
+	 * internal list with a reference to each timer, in a single list change.
+	 * 
+	 * @param timers The list of timers to set.
+	 * @see #timersProperty()
+	 */
+	public void setTimers(List<TimerBean> timers) {
+		this.timers.setAll(timers);
+	}
+
+	/**
+	 * Resumes all the paused timers in the group and its nested groups, all as of
+	 * the same instant.
+	 * 
+	 * @see TimerBean#resume(Collection)
+	 * @since 1.0.1
+	 */
+	public void resume() {
+		TimerBean.resume(getAllTimers());
+	}
+
+	/**
+	 * Starts all the timers in the group and its nested groups, all as of the
+	 * same instant and with their deadlines armed in one batch. Timers that are
+	 * already running are unaffected.
+	 * 
+	 * @see TimerBean#start(Collection, long)
+	 */
+	public void start() {
+		TimerBean.start(getAllTimers(), TimerUtils.getClock().currentTimeMillis());
+	}
+
+	/**
+	 * Returns the aggregate state property. The aggregate state is
+	 * {@link TimerState#WARNING warning} if any timer is warning, otherwise
+	 * {@link TimerState#RUNNING running} if any timer is running, otherwise
+	 * {@link TimerState#PAUSED paused} if any timer is paused, otherwise
+	 * {@link TimerState#WAITING waiting} if any timer is waiting, otherwise
+	 * {@link TimerState#COMPLETE complete} if every timer is complete, otherwise
+	 * {@link TimerState#STOPPED stopped}. The property is only updated on the UI
+	 * thread.
+	 * 
+	 * @return the aggregate state property.
+	 */
+	public final ObjectProperty<TimerState> stateProperty() {
+		return state;
+	}
+
+	/**
+	 * Returns the aggregate state for a set of totals.
+	 * 
+	 * @param totals The totals.
+	 * @return the aggregate state.
+	 * @see #stateProperty()
+	 */
+	private static TimerState stateOf(long[] totals) {
+		if (totals[TimerState.WARNING.ordinal()] > 0)
+			return TimerState.WARNING;
+		if (totals[TimerState.RUNNING.ordinal()] > 0)
+			return TimerState.RUNNING;
+		if (totals[TimerState.PAUSED.ordinal()] > 0)
+			return TimerState.PAUSED;
+		if (totals[TimerState.WAITING.ordinal()] > 0)
+			return TimerState.WAITING;
+		long timerCount = timerCount(totals);
+		if (timerCount > 0 && totals[TimerState.COMPLETE.ordinal()] == timerCount)
+			return TimerState.COMPLETE;
+		return TimerState.STOPPED;
+	}
+
+	/**
+	 * Stops all the timers in the group and its nested groups.
+	 */
+	public void stop() {
+		TimerBean.stop(getAllTimers());
+	}
+
+	/**
+	 * Adds the counts and progress sum of the group's own timers, and those of its
+	 * nested groups, to a set of totals.
+	 * 
+	 * @param totals The totals to which to add.
+	 */
+	private void sum(long[] totals) {
+		for (int i = 0; i < STATES; i++)
+			totals[i] += counts.get(i);
+		totals[PROGRESS] += progressSum.get();
+		for (TimerGroupBean group : nested)
+			group.sum(totals);
+	}
+
+	/**
+	 * Called by a member timer when its name changes.
+	 * 
+	 * @param timer The renamed timer.
+	 */
+	void timerRenamed(TimerBean timer) {
+		NameIndex index = getRoot().nameIndex;
+		if (index != null)
+			index.rename(timer);
+	}
+
+	/**
+	 * Returns the timers property. This is a list of the timers that belong
+	 * directly to the group, excluding those in nested groups.
+	 * 
+	 * @return the timers property.
+	 */
+	public final ListProperty<TimerBean> timersProperty() {
+		return timers;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "TimerGroupBean [name=" + getName() + ", collapsed=" + getCollapsed() + ", timers=" + getTimers().size()
+				+ ", groups=" + getGroups().size() + ", state=" + getState() + ", progress=" + getProgress() + ']';
+	}
+
+	/**
+	 * Returns the number of timers in a set of totals.
+	 * 
+	 * @param totals The totals.
+	 * @return the number of timers.
+	 */
+	private static long timerCount(long[] totals) {
+		long timerCount = 0;
+		for (int i = 0; i < STATES; i++)
+			timerCount += totals[i];
+		return timerCount;
+	}
+
+	/**
+	 * Returns the number of timers in each state in the group and its nested
+	 * groups, followed by the sum of their progress. The cost is proportional to
+	 * the number of nested groups, not to the number of timers.
+	 * 
+	 * @return the totals, indexed by state ordinal then {@link #PROGRESS}.
+	 */
+	private long[] totals() {
+		long[] totals = new long[TOTALS_LENGTH];
+		sum(totals);
+		return totals;
+	}
+
+	/**
+	 * Moves the difference between a timer's old and new contributions into the
+	 * counts of the groups concerned.
+	 * 
+	 * @param from  The timer's old contribution.
+	 * @param to    The timer's new contribution.
+	 * @param tally The tally in which to gather the difference, or
+	 *              <code>null</code> to apply it and publish the aggregates at
+	 *              once.
+	 */
+	static void transfer(Contribution from, Contribution to, Tally tally) {
+		if (tally != null) {
+			tally.add(from, -1);
+			tally.add(to, 1);
+			return;
+		}
+		TimerGroupBean group = to.group;
+		if (group != null && group == from.group) {
+			// Counting the new state before discounting the old one never shows fewer timers.
+			if (to.state != from.state) {
+				group.counts.incrementAndGet(to.state.ordinal());
+				group.counts.decrementAndGet(from.state.ordinal());
+			}
+			if (to.progress != from.progress)
+				group.progressSum.addAndGet(to.progress - from.progress);
+			group.publish();
+			return;
+		}
+		if (from.group != null) {
+			from.group.counts.decrementAndGet(from.state.ordinal());
+			from.group.progressSum.addAndGet(-from.progress);
+			from.group.publish();
+		}
+		if (group != null) {
+			group.counts.incrementAndGet(to.state.ordinal());
+			group.progressSum.addAndGet(to.progress);
+			group.publish();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,7 +23,49 @@ package io.github.demonfiddler.timer.model;
  * @since 1.0
  */
 public enum TimerState {
-	STOPPED, WAITING, RUNNING, WARNING, COMPLETE;
+	STOPPED, WAITING, RUNNING, WARNING, COMPLETE, PAUSED;
+
+	/**
+	 * Returns whether a timer may move directly from this state to another. A
+	 * timer can be stopped from any other state and started from any state in
+	 * which it is not already running; it can only wait once stopped or complete,
+	 * and it can only warn or complete while running. A timer can be paused while
+	 * running, or when stopped to restore a saved pause, and resumed into
+	 * whichever running state it was paused in.
+	 * 
+	 * @param newState The state to move to.
+	 * @return <code>true</code> if the transition is valid.
+	 */
+	public boolean canTransitionTo(TimerState newState) {
+		switch (newState) {
+			case STOPPED:
+				return this != STOPPED;
+			case WAITING:
+				return this == STOPPED || this == COMPLETE;
+			case RUNNING:
+				return !isRunning();
+			case WARNING:
+				return this == RUNNING || this == PAUSED;
+			case COMPLETE:
+				return isRunning();
+			case PAUSED:
+				return isRunning() || this == STOPPED;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Returns whether the timer is in an active state, one that stopping the
+	 * timer would end. That is to say, {@link #RUNNING running},
+	 * {@link #WARNING warning}, {@link #WAITING waiting} or {@link #PAUSED paused}.
+	 * 
+	 * @return <code>true</code> if the timer is active.
+	 * @since 1.0.1
+	 */
+	public boolean isActive() {
+		return isRunningOrWaiting() || this == PAUSED;
+	}
 
 	/**
 	 * Returns whether the timer is in a quiescent state. That is to say,
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+/**
+ * A listener that is notified when a running timer reaches one of its
+ * deadlines.
+ * 
+ * @since 1.0.1
+ */
+@FunctionalInterface
+public interface TransitionListener {
+	/**
+	 * Invoked when a timer enters the {@link TimerState#WARNING warning} or
+	 * {@link TimerState#COMPLETE complete} state.
+	 * 
+	 * @param timer    The timer whose state changed.
+	 * @param newState The state that the timer entered.
+	 * @param when     The deadline at which the timer entered the state, in
+	 *                 milliseconds since the epoch. This is the exact scheduled
+	 *                 instant, not the (slightly later) time at which the
+	 *                 transition was detected.
+	 */
+	void transition(TimerBean timer, TimerState newState, long when);
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The source of time for the timer engine. Besides telling the time, a clock
+ * schedules tasks against its own notion of time and delivers updates to the
+ * thread that owns the timers' observable properties, so that the engine can
+ * run either in real time or in simulated time.
+ * 
+ * @see SystemClock
+ * @see VirtualClock
+ * @see TimerUtils#getClock()
+ * @since 1.0.1
+ */
+public interface Clock {
+	/**
+	 * Returns the current time.
+	 * 
+	 * @return the current time in milliseconds since the epoch.
+	 */
+	long currentTimeMillis();
+
+	/**
+	 * Returns the interval at which running timers should refresh their progress.
+	 * Progress is purely cosmetic: state transitions happen at the exact
+	 * deadlines whatever the refresh interval.
+	 * 
+	 * @return the refresh interval in milliseconds, or zero if running timers
+	 *         need not refresh their progress between transitions.
+	 */
+	default long getTickMillis() {
+		return 0;
+	}
+
+	/**
+	 * Returns whether the clock simulates the passage of time. Timer actions are
+	 * not executed against a simulated clock, since their effects are real.
+	 * 
+	 * @return <code>true</code> if time is simulated.
+	 */
+	default boolean isSimulated() {
+		return false;
+	}
+
+	/**
+	 * Returns whether the calling thread owns the timers' observable properties,
+	 * so that it may update them directly rather than via
+	 * {@link #runLater(Runnable)}. The default implementation returns
+	 * <code>true</code>, which suits clocks that run every task on a single
+	 * thread.
+	 * 
+	 * @return <code>true</code> if the calling thread owns the properties.
+	 */
+	default boolean isUiThread() {
+		return true;
+	}
+
+	/**
+	 * Runs a task on the thread that owns the timers' observable properties.
+	 * 
+	 * @param task The task to run.
+	 */
+	void runLater(Runnable task);
+
+	/**
+	 * Schedules a one-shot task.
+	 * 
+	 * @param task  The task to run.
+	 * @param delay The delay from now until the task is to run.
+	 * @param unit  The time unit of the delay.
+	 * @return a future that can be used to cancel the task.
+	 */
+	ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit);
+
+	/**
+	 * Schedules a periodic task.
+	 * 
+	 * @param task         The task to run.
+	 * @param initialDelay The delay from now until the first run.
+	 * @param period       The period between successive runs.
+	 * @param unit         The time unit of the delay and period.
+	 * @return a future that can be used to cancel the task.
+	 */
+	ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit);
+}
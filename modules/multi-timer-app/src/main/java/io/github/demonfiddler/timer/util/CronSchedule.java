@@ -0,0 +1,402 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TimeZone;
+
+/**
+ * A compiled cron-like schedule. The expression has the five standard fields
+ * <code>minute hour day-of-month month day-of-week</code>, each of which may be
+ * <code>*</code>, a value, a range <code>a-b</code>, a step <code>*&#47;n</code>
+ * or <code>a-b/n</code>, or a comma-separated list of these. Months and days
+ * of the week may also be given by their three-letter English names, and
+ * Sunday may be given as either 0 or 7. As in cron, if both the day-of-month
+ * and day-of-week fields are restricted then a day matches if <i>either</i>
+ * matches. The macros <code>@yearly</code>, <code>@monthly</code>,
+ * <code>@weekly</code>, <code>@daily</code> and <code>@hourly</code> are also
+ * accepted.
+ * <p>
+ * The expression is compiled into bit masks together with a table that maps
+ * each minute of the day to the next matching minute, and a table of the days
+ * of a month that match the day-of-week field for each weekday on which the
+ * month can begin. {@link #next(long)} steps through the calendar a month at a
+ * time: it combines the masks into the matching days of the month, finds the
+ * first of them by counting trailing zeros and the fire time within that day by
+ * table lookup, and allocates no calendar objects. So even a sparse schedule
+ * such as <code>0 0 29 2 *</code> takes at most 97 steps, one per month over
+ * eight years, and schedules that fire at least monthly take one or two.
+ * Instances are immutable and thread-safe.
+ * 
+ * @since 1.0.1
+ */
+public final class CronSchedule {
+	private static final long MILLISECONDS_PER_MINUTE = 60_000L;
+	private static final long MILLISECONDS_PER_DAY = 24 * 60 * MILLISECONDS_PER_MINUTE;
+	private static final int MINUTES_PER_DAY = 24 * 60;
+	/** Long enough to find the next 29th February even across a skipped leap year. */
+	private static final int MAX_SEARCH_MONTHS = 8 * 12;
+	private static final int[] MAX_DAYS_PER_MONTH = { 0, 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+	private static final String[] MONTH_NAMES = { null, "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG",
+			"SEP", "OCT", "NOV", "DEC" };
+	private static final String[] DAY_NAMES = { "SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN" };
+
+	private final String expression;
+	private final TimeZone zone;
+	private final long minutes;
+	private final long hours;
+	private final long daysOfMonth;
+	private final long months;
+	private final long daysOfWeek;
+	private final boolean anyDayOfMonth;
+	private final boolean anyDayOfWeek;
+	/** Maps each minute of the day to the next matching minute of the day, or -1. */
+	private final short[] nextMinuteOfDay = new short[MINUTES_PER_DAY];
+	/**
+	 * Maps the day of the week on which a month begins (0 for Sunday) to a mask of
+	 * the days of the month, up to the 31st, that match the day-of-week field.
+	 */
+	private final long[] daysOfWeekByFirstDay = new long[7];
+
+	/**
+	 * Returns a schedule that fires at the specified number of minutes past every
+	 * hour.
+	 * 
+	 * @param minutesPastTheHour The number of minutes past the hour, 0-59.
+	 * @return the corresponding schedule.
+	 */
+	public static CronSchedule minutesPastTheHour(int minutesPastTheHour) {
+		return parse(minutesPastTheHour + " * * * *");
+	}
+
+	/**
+	 * Compiles a schedule expression in the default time zone.
+	 * 
+	 * @param expression The schedule expression.
+	 * @return the compiled schedule.
+	 * @throws IllegalArgumentException if the expression is invalid or can never
+	 *                                  fire.
+	 */
+	public static CronSchedule parse(String expression) {
+		return parse(expression, TimeZone.getDefault());
+	}
+
+	/**
+	 * Compiles a schedule expression in the specified time zone.
+	 * 
+	 * @param expression The schedule expression.
+	 * @param zone       The time zone in which to interpret the expression.
+	 * @return the compiled schedule.
+	 * @throws IllegalArgumentException if the expression is invalid or can never
+	 *                                  fire.
+	 */
+	public static CronSchedule parse(String expression, TimeZone zone) {
+		Objects.requireNonNull(expression, "expression is required");
+		Objects.requireNonNull(zone, "zone is required");
+		return new CronSchedule(expression.trim(), zone);
+	}
+
+	/**
+	 * Returns whether the specified expression is a valid schedule.
+	 * 
+	 * @param expression The schedule expression.
+	 * @return <code>true</code> if the expression can be compiled.
+	 */
+	public static boolean isValid(String expression) {
+		try {
+			parse(expression);
+			return true;
+		} catch (IllegalArgumentException | NullPointerException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Expands a macro into the equivalent five-field expression.
+	 * 
+	 * @param expression The expression, which may be a macro.
+	 * @return the expanded expression.
+	 */
+	private static String expandMacro(String expression) {
+		switch (expression.toLowerCase(Locale.ROOT)) {
+		case "@yearly":
+		case "@annually":
+			return "0 0 1 1 *";
+		case "@monthly":
+			return "0 0 1 * *";
+		case "@weekly":
+			return "0 0 * * 0";
+		case "@daily":
+		case "@midnight":
+			return "0 0 * * *";
+		case "@hourly":
+			return "0 * * * *";
+		default:
+			return expression;
+		}
+	}
+
+	/**
+	 * Compiles a single field of a schedule expression into a bit mask.
+	 * 
+	 * @param field The field text.
+	 * @param name  The field name, for error messages.
+	 * @param min   The minimum permitted value.
+	 * @param max   The maximum permitted value.
+	 * @param names The names of the permitted values, or <code>null</code>.
+	 * @return the bit mask, in which bit <i>n</i> is set if value <i>n</i> matches.
+	 */
+	private static long parseField(String field, String name, int min, int max, String[] names) {
+		long mask = 0;
+		for (String part : field.split(",", -1)) {
+			int step = 1;
+			int slash = part.indexOf('/');
+			String range = part;
+			if (slash != -1) {
+				step = parseValue(part.substring(slash + 1), name, 1, max, null);
+				range = part.substring(0, slash);
+			}
+			int lo;
+			int hi;
+			if (range.equals("*") || range.equals("?")) {
+				lo = min;
+				hi = max;
+			} else {
+				int dash = range.indexOf('-');
+				if (dash != -1) {
+					lo = parseValue(range.substring(0, dash), name, min, max, names);
+					hi = parseValue(range.substring(dash + 1), name, min, max, names);
+				} else {
+					lo = parseValue(range, name, min, max, names);
+					hi = slash != -1 ? max : lo;
+				}
+				if (lo > hi)
+					throw new IllegalArgumentException("invalid " + name + " range: " + range);
+			}
+			for (int i = lo; i <= hi; i += step)
+				mask |= 1L << i;
+		}
+		return mask;
+	}
+
+	/**
+	 * Parses a single value within a schedule expression field.
+	 * 
+	 * @param value The value text, either a number or one of <code>names</code>.
+	 * @param name  The field name, for error messages.
+	 * @param min   The minimum permitted value.
+	 * @param max   The maximum permitted value.
+	 * @param names The names of the permitted values, or <code>null</code>.
+	 * @return the value.
+	 */
+	private static int parseValue(String value, String name, int min, int max, String[] names) {
+		if (names != null) {
+			for (int i = 0; i < names.length; i++) {
+				if (value.equalsIgnoreCase(names[i]))
+					return i;
+			}
+		}
+		int result;
+		try {
+			result = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid " + name + ": " + value);
+		}
+		if (result < min || result > max)
+			throw new IllegalArgumentException(name + " out of range " + min + '-' + max + ": " + value);
+		return result;
+	}
+
+	/**
+	 * Constructs and compiles a new <code>CronSchedule</code>.
+	 * 
+	 * @param expression The schedule expression.
+	 * @param zone       The time zone in which to interpret the expression.
+	 */
+	private CronSchedule(String expression, TimeZone zone) {
+		this.expression = expression;
+		this.zone = zone;
+		String[] fields = expandMacro(expression).split("\\s+");
+		if (fields.length != 5)
+			throw new IllegalArgumentException("schedule must have 5 fields: " + expression);
+		minutes = parseField(fields[0], "minute", 0, 59, null);
+		hours = parseField(fields[1], "hour", 0, 23, null);
+		daysOfMonth = parseField(fields[2], "day of month", 1, 31, null);
+		months = parseField(fields[3], "month", 1, 12, MONTH_NAMES);
+		long dow = parseField(fields[4], "day of week", 0, 7, DAY_NAMES);
+		// Sunday can be either 0 or 7.
+		daysOfWeek = (dow | dow >>> 7) & 0x7F;
+		anyDayOfMonth = fields[2].equals("*") || fields[2].equals("?");
+		anyDayOfWeek = fields[4].equals("*") || fields[4].equals("?");
+
+		if (anyDayOfWeek) {
+			boolean possible = false;
+			int firstDayOfMonth = Long.numberOfTrailingZeros(daysOfMonth);
+			for (int month = 1; month <= 12; month++) {
+				if ((months & 1L << month) != 0 && firstDayOfMonth <= MAX_DAYS_PER_MONTH[month])
+					possible = true;
+			}
+			if (!possible)
+				throw new IllegalArgumentException("schedule can never fire: " + expression);
+		}
+
+		short next = -1;
+		for (int minuteOfDay = MINUTES_PER_DAY - 1; minuteOfDay >= 0; minuteOfDay--) {
+			if ((hours & 1L << minuteOfDay / 60) != 0 && (minutes & 1L << minuteOfDay % 60) != 0)
+				next = (short) minuteOfDay;
+			nextMinuteOfDay[minuteOfDay] = next;
+		}
+		for (int firstDay = 0; firstDay < 7; firstDay++) {
+			long mask = 0;
+			for (int dayOfMonth = 1; dayOfMonth <= 31; dayOfMonth++) {
+				if ((daysOfWeek & 1L << (firstDay + dayOfMonth - 1) % 7) != 0)
+					mask |= 1L << dayOfMonth;
+			}
+			daysOfWeekByFirstDay[firstDay] = mask;
+		}
+	}
+
+	/**
+	 * Returns the first time on a matching day at which the schedule fires
+	 * strictly after the specified time.
+	 * 
+	 * @param epochDay    The local day number, counting from 1970-01-01.
+	 * @param minuteOfDay The local minute of the day from which to search.
+	 * @param afterMillis The time after which to search, in milliseconds since
+	 *                    the epoch.
+	 * @param offset      The zone offset at <code>afterMillis</code>.
+	 * @return the fire time in milliseconds since the epoch, or
+	 *         <code>Long.MAX_VALUE</code> if the schedule does not fire on that
+	 *         day after the specified time.
+	 */
+	private long fireTime(long epochDay, int minuteOfDay, long afterMillis, int offset) {
+		int m = minuteOfDay < MINUTES_PER_DAY ? nextMinuteOfDay[minuteOfDay] : -1;
+		while (m != -1) {
+			long localFire = epochDay * MILLISECONDS_PER_DAY + m * MILLISECONDS_PER_MINUTE;
+			long fire = localFire - zone.getOffset(localFire - offset);
+			// Only when the clocks go back can a later local time map to an earlier instant.
+			if (fire > afterMillis)
+				return fire;
+			m = m + 1 < MINUTES_PER_DAY ? nextMinuteOfDay[m + 1] : -1;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the schedule expression.
+	 * 
+	 * @return the schedule expression.
+	 */
+	public String getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Returns the number of days in a month.
+	 * 
+	 * @param year  The year.
+	 * @param month The month, 1-12.
+	 * @return the number of days in the month.
+	 */
+	private static int lengthOfMonth(long year, int month) {
+		if (month != 2)
+			return MAX_DAYS_PER_MONTH[month];
+		boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+		return leap ? 29 : 28;
+	}
+
+	/**
+	 * Returns the days of a month that match the day-of-month and day-of-week
+	 * fields.
+	 * 
+	 * @param length   The number of days in the month.
+	 * @param firstDay The local day number of the first day of the month,
+	 *                 counting from 1970-01-01.
+	 * @return a mask in which bit <i>n</i> is set if day <i>n</i> of the month
+	 *         matches.
+	 */
+	private long matchingDays(int length, long firstDay) {
+		long inMonth = (1L << length + 1) - 2;
+		long domMatches = daysOfMonth & inMonth;
+		// 1970-01-01 was a Thursday.
+		long dowMatches = daysOfWeekByFirstDay[Math.floorMod(firstDay + 4, 7)] & inMonth;
+		if (anyDayOfMonth)
+			return dowMatches;
+		if (anyDayOfWeek)
+			return domMatches;
+		return domMatches | dowMatches;
+	}
+
+	/**
+	 * Returns the first time at which the schedule fires strictly after the
+	 * specified time.
+	 * 
+	 * @param afterMillis The time after which to search, in milliseconds since the
+	 *                    epoch.
+	 * @return the next fire time in milliseconds since the epoch, or
+	 *         <code>Long.MAX_VALUE</code> if the schedule does not fire within the
+	 *         next eight years.
+	 */
+	public long next(long afterMillis) {
+		int offset = zone.getOffset(afterMillis);
+		long local = afterMillis + offset;
+		long epochDay = Math.floorDiv(local, MILLISECONDS_PER_DAY);
+		int minuteOfDay = (int) (Math.floorMod(local, MILLISECONDS_PER_DAY) / MILLISECONDS_PER_MINUTE) + 1;
+		// Convert the day number to a date using the civil-from-days algorithm, which needs
+		// no calendar object.
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long doe = z - era * 146097;
+		long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		long mp = (5 * doy + 2) / 153;
+		int dayOfMonth = (int) (doy - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+		long firstDay = epochDay - dayOfMonth + 1;
+		for (int i = 0; i <= MAX_SEARCH_MONTHS; i++) {
+			int length = lengthOfMonth(year, month);
+			if ((months & 1L << month) != 0) {
+				// Only days from the current one onwards.
+				long days = matchingDays(length, firstDay) & -(1L << dayOfMonth);
+				for (; days != 0; days &= days - 1) {
+					int day = Long.numberOfTrailingZeros(days);
+					long fire = fireTime(firstDay + day - 1, day == dayOfMonth ? minuteOfDay : 0, afterMillis, offset);
+					if (fire != Long.MAX_VALUE)
+						return fire;
+				}
+			}
+			firstDay += length;
+			dayOfMonth = 1;
+			minuteOfDay = 0;
+			if (++month > 12) {
+				month = 1;
+				year++;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "CronSchedule [" + expression + ']';
+	}
+}
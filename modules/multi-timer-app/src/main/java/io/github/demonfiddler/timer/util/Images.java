@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -24,23 +24,30 @@ import javafx.scene.image.Image;
  * @since 1.0
  */
 public final class Images {
+	public static final Image IMG_DELETE;
+	public static final Image IMG_EDIT;
 	public static final Image IMG_START;
 	public static final Image IMG_STOP;
 	public static final Image IMG_TIMER;
 
 	static {
-		IMG_START = loadImage("/start.png");
-		IMG_STOP = loadImage("/stop.png");
-		IMG_TIMER = loadImage("/timer.png");
+		// Only the images in the initial window are needed before it appears.
+		IMG_DELETE = loadImage("/delete.png", true);
+		IMG_EDIT = loadImage("/edit.png", true);
+		IMG_START = loadImage("/start.png", false);
+		IMG_STOP = loadImage("/stop.png", true);
+		IMG_TIMER = loadImage("/timer.png", false);
 	}
 
 	/**
 	 * Loads an image from the specified path within the application JAR.
 	 * @param path The image path.
+	 * @param background Whether to load the image on a background thread. Such
+	 * an image can be used at once, but is blank until it has loaded.
 	 * @return The image.
 	 */
-	private static Image loadImage(String path) {
-		return new Image(Images.class.getResource(path).toExternalForm());
+	private static Image loadImage(String path, boolean background) {
+		return new Image(Images.class.getResource(path).toExternalForm(), background);
 	}
 
 	/** Private ctor prevents instantiation. */
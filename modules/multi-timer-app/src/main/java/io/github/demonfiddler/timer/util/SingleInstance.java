@@ -0,0 +1,283 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Ensures that a user runs a single instance of the application. The first
+ * instance to start takes a lock file and listens on a loopback port, which it
+ * records with a random token in a port file beside the lock. A later launch
+ * finds the lock taken, sends the running instance its file arguments over the
+ * port and exits, without ever starting JavaFX.
+ * 
+ * @since 1.0.1
+ */
+public final class SingleInstance implements Closeable {
+	private static final String LOCK_FILE = "instance.lock";
+	private static final String PORT_FILE = "instance.port";
+	/** The reply that acknowledges a valid request. */
+	private static final String ACK = "OK";
+	/** The maximum time to wait for a connection or a reply, in milliseconds. */
+	private static final int TIMEOUT_MILLIS = 2000;
+	/** The maximum time to wait for a running instance that is still starting up, in milliseconds. */
+	private static final long MAX_WAIT_MILLIS = 10_000;
+	/** The interval between attempts to reach an instance that is starting up, in milliseconds. */
+	private static final long RETRY_MILLIS = 50;
+
+	private final Path portFile;
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private final ServerSocket server;
+	private final String token;
+	/** The files received before a handler was set. */
+	private final List<File> pending = new ArrayList<>();
+	private Consumer<List<File>> handler;
+
+	/**
+	 * Constructs a new <code>SingleInstance</code> and starts listening.
+	 * 
+	 * @param dir         The directory that holds the lock and port files.
+	 * @param lockChannel The open lock file.
+	 * @param lock        The lock held on the lock file.
+	 * @throws IOException if unable to listen or to write the port file.
+	 */
+	private SingleInstance(Path dir, FileChannel lockChannel, FileLock lock) throws IOException {
+		this.portFile = dir.resolve(PORT_FILE);
+		this.lockChannel = lockChannel;
+		this.lock = lock;
+		byte[] bytes = new byte[16];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder token = new StringBuilder();
+		for (byte b : bytes)
+			token.append(String.format("%02x", b));
+		this.token = token.toString();
+		server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		writePortFile(server.getLocalPort() + " " + this.token);
+		Thread listener = new Thread(this::listen, "single-instance-listener");
+		listener.setDaemon(true);
+		listener.start();
+	}
+
+	/**
+	 * Makes the calling process the running instance, unless another process
+	 * already is.
+	 * 
+	 * @param dir The directory that holds the lock and port files, which is
+	 *            created if necessary.
+	 * @return the running instance, or <code>null</code> if another process is
+	 *         the running instance.
+	 * @throws IOException if unable to create the files or to listen.
+	 */
+	public static SingleInstance acquire(Path dir) throws IOException {
+		Files.createDirectories(dir);
+		FileChannel lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+		try {
+			FileLock lock;
+			try {
+				lock = lockChannel.tryLock();
+			} catch (OverlappingFileLockException e) {
+				// Held elsewhere in this JVM.
+				lock = null;
+			}
+			if (lock == null) {
+				lockChannel.close();
+				return null;
+			}
+			return new SingleInstance(dir, lockChannel, lock);
+		} catch (IOException | RuntimeException e) {
+			lockChannel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Sends files to the running instance. If the instance is still starting up,
+	 * waits a few seconds for it to start listening.
+	 * 
+	 * @param dir   The directory that holds the lock and port files.
+	 * @param files The files to send.
+	 * @return <code>true</code> if the running instance acknowledged the files,
+	 *         <code>false</code> if there is no running instance that could be
+	 *         reached.
+	 */
+	public static boolean send(Path dir, List<File> files) {
+		Path portFile = dir.resolve(PORT_FILE);
+		long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+		do {
+			try {
+				String[] portAndToken = Files.readString(portFile, UTF_8).trim().split(" ");
+				if (portAndToken.length == 2 && send(Integer.parseInt(portAndToken[0]), portAndToken[1], files))
+					return true;
+			} catch (IOException | NumberFormatException e) {
+				// Not listening yet, or a stale port file.
+			}
+			try {
+				Thread.sleep(RETRY_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		} while (System.currentTimeMillis() < deadline);
+		return false;
+	}
+
+	/**
+	 * Sends files to the instance listening on the specified port.
+	 * 
+	 * @param port  The loopback port.
+	 * @param token The token that authenticates the request.
+	 * @param files The files to send.
+	 * @return <code>true</code> if the instance acknowledged the files.
+	 * @throws IOException if unable to communicate with the instance.
+	 */
+	private static boolean send(int port, String token, List<File> files) throws IOException {
+		try (Socket socket = new Socket()) {
+			socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), TIMEOUT_MILLIS);
+			socket.setSoTimeout(TIMEOUT_MILLIS);
+			Writer out = new OutputStreamWriter(socket.getOutputStream(), UTF_8);
+			out.write(token + '\n');
+			for (File file : files)
+				out.write(file.getAbsolutePath() + '\n');
+			out.flush();
+			socket.shutdownOutput();
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+			return ACK.equals(in.readLine());
+		}
+	}
+
+	/**
+	 * Stops listening, deletes the port file and releases the lock.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			server.close();
+			Files.deleteIfExists(portFile);
+		} finally {
+			lock.release();
+			lockChannel.close();
+		}
+	}
+
+	/**
+	 * Passes files to the handler, or holds them until there is one.
+	 * 
+	 * @param files The files received.
+	 */
+	private void deliver(List<File> files) {
+		Consumer<List<File>> handler;
+		synchronized (pending) {
+			handler = this.handler;
+			if (handler == null) {
+				pending.addAll(files);
+				return;
+			}
+		}
+		handler.accept(files);
+	}
+
+	/**
+	 * Accepts requests from later launches until the instance is closed.
+	 */
+	private void listen() {
+		while (!server.isClosed()) {
+			try (Socket socket = server.accept()) {
+				socket.setSoTimeout(TIMEOUT_MILLIS);
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+				// Ignore anything that does not know the token, which only the user can read.
+				if (!token.equals(in.readLine()))
+					continue;
+				List<File> files = new ArrayList<>();
+				for (String line = in.readLine(); line != null; line = in.readLine()) {
+					if (!line.isEmpty())
+						files.add(new File(line));
+				}
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), UTF_8);
+				out.write(ACK + '\n');
+				out.flush();
+				deliver(files);
+			} catch (SocketException e) {
+				// Closed.
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Sets the handler that receives the files sent by later launches. Any files
+	 * that have already arrived are passed to it at once. The handler is called on
+	 * a background thread.
+	 * 
+	 * @param handler The file handler.
+	 */
+	public void setHandler(Consumer<List<File>> handler) {
+		List<File> files;
+		synchronized (pending) {
+			this.handler = handler;
+			files = new ArrayList<>(pending);
+			pending.clear();
+		}
+		if (!files.isEmpty())
+			handler.accept(files);
+	}
+
+	/**
+	 * Writes the port file, readable only by its owner where the file system
+	 * supports it.
+	 * 
+	 * @param content The port and token.
+	 * @throws IOException if unable to write the file.
+	 */
+	private void writePortFile(String content) throws IOException {
+		Path tmpFile = portFile.resolveSibling(PORT_FILE + ".tmp");
+		Files.deleteIfExists(tmpFile);
+		if (tmpFile.getFileSystem().supportedFileAttributeViews().contains("posix"))
+			Files.createFile(tmpFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		Files.writeString(tmpFile, content, UTF_8);
+		// Never let a later launch read a partly written file.
+		Files.move(tmpFile, portFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
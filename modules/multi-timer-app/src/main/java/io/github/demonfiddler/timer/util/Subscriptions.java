@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.demonfiddler.timer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.property.Property;
+import javafx.beans.property.StringProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.util.StringConverter;
+
+/**
+ * Records the listeners and bindings that a view registers on a model, so that
+ * they can all be removed in one call when the view is unbound from that model.
+ * Every registration made through a <code>Subscriptions</code> instance is
+ * undone by {@link #dispose()}, which leaves nothing in the model referring back
+ * to the view and nothing in the view referring to the model.
+ * 
+ * @since 1.0.1
+ */
+public final class Subscriptions {
+	private final List<Runnable> disposers = new ArrayList<>();
+
+	/**
+	 * Constructs a new, empty <code>Subscriptions</code>.
+	 */
+	public Subscriptions() {
+	}
+
+	/**
+	 * Records an action to be performed on disposal.
+	 * 
+	 * @param disposer The action that undoes a registration.
+	 */
+	public void add(Runnable disposer) {
+		disposers.add(disposer);
+	}
+
+	/**
+	 * Adds an invalidation listener to an observable.
+	 * 
+	 * @param observable The observable.
+	 * @param listener   The listener to add.
+	 */
+	public void addInvalidationListener(Observable observable, InvalidationListener listener) {
+		observable.addListener(listener);
+		add(() -> observable.removeListener(listener));
+	}
+
+	/**
+	 * Adds a change listener to an observable value.
+	 * 
+	 * @param <T>        The value type.
+	 * @param observable The observable value.
+	 * @param listener   The listener to add.
+	 */
+	public <T> void addChangeListener(ObservableValue<T> observable, ChangeListener<? super T> listener) {
+		observable.addListener(listener);
+		add(() -> observable.removeListener(listener));
+	}
+
+	/**
+	 * Adds a list change listener to an observable list.
+	 * 
+	 * @param <E>      The element type.
+	 * @param list     The observable list.
+	 * @param listener The listener to add.
+	 */
+	public <E> void addListChangeListener(ObservableList<E> list, ListChangeListener<? super E> listener) {
+		list.addListener(listener);
+		add(() -> list.removeListener(listener));
+	}
+
+	/**
+	 * Binds a property to an observable value.
+	 * 
+	 * @param <T>      The value type.
+	 * @param property The property to bind.
+	 * @param source   The value to which to bind the property.
+	 */
+	public <T> void bind(Property<T> property, ObservableValue<? extends T> source) {
+		property.bind(source);
+		add(property::unbind);
+	}
+
+	/**
+	 * Binds two properties bidirectionally.
+	 * 
+	 * @param <T>      The value type.
+	 * @param property The first property.
+	 * @param other    The second property.
+	 */
+	public <T> void bindBidirectional(Property<T> property, Property<T> other) {
+		property.bindBidirectional(other);
+		add(() -> property.unbindBidirectional(other));
+	}
+
+	/**
+	 * Binds a string property bidirectionally to a property of another type,
+	 * using a converter.
+	 * 
+	 * @param <T>       The type of the other property.
+	 * @param property  The string property.
+	 * @param other     The other property.
+	 * @param converter The converter between the two types.
+	 */
+	public <T> void bindBidirectional(StringProperty property, Property<T> other, StringConverter<T> converter) {
+		property.bindBidirectional(other, converter);
+		add(() -> property.unbindBidirectional(other));
+	}
+
+	/**
+	 * Undoes every registration, most recent first, leaving this instance empty
+	 * and ready for reuse.
+	 */
+	public void dispose() {
+		for (int i = disposers.size() - 1; i >= 0; i--)
+			disposers.get(i).run();
+		disposers.clear();
+	}
+
+	/**
+	 * Returns whether there are any registrations to undo.
+	 * 
+	 * @return <code>true</code> if there are none.
+	 */
+	public boolean isEmpty() {
+		return disposers.isEmpty();
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+
+/**
+ * The real-time clock, which schedules tasks on the shared
+ * {@link TimerUtils#EXECUTOR executor} and delivers updates on the JavaFX
+ * application thread.
+ * 
+ * @since 1.0.1
+ */
+public final class SystemClock implements Clock {
+	/** The singleton instance. */
+	public static final SystemClock INSTANCE = new SystemClock();
+	/** The interval at which running timers refresh their progress. */
+	private static final long TICK_MILLIS = 100;
+
+	/** Private ctor prevents instantiation. */
+	private SystemClock() {
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getTickMillis() {
+		return TICK_MILLIS;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isUiThread() {
+		return Platform.isFxApplicationThread();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void runLater(Runnable task) {
+		Platform.runLater(task);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		return TimerUtils.EXECUTOR.schedule(task, delay, unit);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+		return TimerUtils.EXECUTOR.scheduleAtFixedRate(task, initialDelay, period, unit);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "SystemClock";
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright  2020 Adrian Price. All rights reserved.
+ * Copyright © 2020 Adrian Price. All rights reserved.
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,9 +17,20 @@
 
 package io.github.demonfiddler.timer.util;
 
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyNamingStrategy;
 
 /**
  * Various timer-related utility methodsand objects.
@@ -29,24 +40,170 @@ public final class TimerUtils {
 	/**
 	 * A custom thread factory that creates daemon threads.
 	 */
-	static final class DaemonThreadFactory implements ThreadFactory {
+	public static final class DaemonThreadFactory implements ThreadFactory {
 		private final ThreadFactory delegate = Executors.defaultThreadFactory();
+		private final String name;
+		private final AtomicInteger count = new AtomicInteger();
+
+		/**
+		 * Constructs a new <code>DaemonThreadFactory</code> whose threads have the
+		 * default names.
+		 */
+		public DaemonThreadFactory() {
+			this(null);
+		}
+
+		/**
+		 * Constructs a new <code>DaemonThreadFactory</code> whose threads are named
+		 * <code><i>name</i>-<i>n</i></code>.
+		 * 
+		 * @param name The prefix for thread names, or <code>null</code> for the
+		 *             default names.
+		 */
+		public DaemonThreadFactory(String name) {
+			this.name = name;
+		}
 
 		/** {@inheritDoc} */
 		@Override
 		public Thread newThread(Runnable r) {
 			Thread t = delegate.newThread(r);
 			t.setDaemon(true);
+			if (name != null)
+				t.setName(name + '-' + count.incrementAndGet());
 			return t;
 		}
 	}
 
 	/**
-	 * A scheduled executor that uses a pool of daemon threads.
+	 * Holds the executor for blocking work, which is only created when first used.
+	 */
+	private static final class BlockingHolder {
+		static final ExecutorService EXECUTOR;
+		static final boolean VIRTUAL;
+
+		static {
+			ExecutorService executor = null;
+			if (Boolean.parseBoolean(System.getProperty(PROP_VIRTUAL_THREADS, "true"))) {
+				// Virtual threads need JDK 21, so look them up reflectively while the code
+				// still targets older releases.
+				try {
+					executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+							.invoke(null);
+				} catch (ReflectiveOperationException | RuntimeException e) {
+					// Not supported by this JDK, or only as a preview feature.
+				}
+			}
+			VIRTUAL = executor != null;
+			if (!VIRTUAL) {
+				// Platform threads are costly, so cap them and queue any excess work.
+				ThreadPoolExecutor pool = new ThreadPoolExecutor(BLOCKING_THREADS, BLOCKING_THREADS, 60,
+						TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DaemonThreadFactory("timer-blocking"));
+				pool.allowCoreThreadTimeOut(true);
+				executor = pool;
+			}
+			EXECUTOR = executor;
+		}
+	}
+
+	/**
+	 * Holds the JSON binding, which is only built when first used because the
+	 * JSON-B provider is slow to initialise.
+	 */
+	private static final class JsonbHolder {
+		static final Jsonb JSONB;
+
+		static {
+			JsonbConfig jsonbConfig = new JsonbConfig();
+			jsonbConfig.setProperty(JsonbConfig.FORMATTING, true);
+			jsonbConfig.setProperty(JsonbConfig.PROPERTY_NAMING_STRATEGY, PropertyNamingStrategy.LOWER_CASE_WITH_DASHES);
+			// OOTB, Yasson doesn't deserialize generic list properties.
+//			JsonbBuilder builder = JsonbBuilder.newBuilder("org.eclipse.yasson.JsonBindingProvider");
+			JsonbBuilder builder = JsonbBuilder.newBuilder("org.apache.johnzon.jsonb.JohnzonProvider");
+			JSONB = builder.withConfig(jsonbConfig).build();
+		}
+	}
+
+	/**
+	 * The system property that, when <code>false</code>, stops blocking work from
+	 * running on virtual threads even when the JDK supports them.
+	 */
+	public static final String PROP_VIRTUAL_THREADS = "multi-timer.virtual-threads";
+	/**
+	 * The maximum number of platform threads that run blocking work when virtual
+	 * threads are not available.
+	 */
+	public static final int BLOCKING_THREADS = 64;
+	/** The number of threads that run timer deadlines. */
+	private static final int SCHEDULER_THREADS = 2;
+	/**
+	 * The scheduled executor that runs timer deadlines and ticks, on a small pool
+	 * of daemon platform threads. Its tasks must never block: blocking work belongs
+	 * on the {@link #getBlockingExecutor() blocking executor}.
+	 */
+	public static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(SCHEDULER_THREADS,
+			new DaemonThreadFactory("timer-scheduler"));
+	/** The queue that batches cosmetic timer updates for the UI thread. */
+	public static final UpdateQueue UPDATE_QUEUE = new UpdateQueue();
+	/** The clock that drives all timers. */
+	private static volatile Clock clock = SystemClock.INSTANCE;
+
+	static {
+		// Otherwise a cancelled deadline would keep its timer reachable until it fell due.
+		EXECUTOR.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Returns the executor for work that may block, such as I/O. It runs each task
+	 * on a new virtual thread if the JDK supports them, otherwise on a pool of at
+	 * most {@link #BLOCKING_THREADS} daemon platform threads, queueing any excess
+	 * tasks. Either way blocking tasks never hold up timer deadlines.
+	 * 
+	 * @return the blocking executor.
+	 * @see #isVirtualThreads()
 	 */
-	public static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(10,
-			new DaemonThreadFactory());
+	public static ExecutorService getBlockingExecutor() {
+		return BlockingHolder.EXECUTOR;
+	}
 
+	/**
+	 * Returns the JSON binding used to read and write timer files. The binding is
+	 * built on the first call, which blocks until it is ready.
+	 * 
+	 * @return the JSON binding.
+	 */
+	public static Jsonb getJsonb() {
+		return JsonbHolder.JSONB;
+	}
+
+	/**
+	 * Returns the clock that drives all timers.
+	 * 
+	 * @return the current clock, by default the {@link SystemClock system clock}.
+	 */
+	public static Clock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Returns whether the {@link #getBlockingExecutor() blocking executor} uses
+	 * virtual threads.
+	 * 
+	 * @return <code>true</code> if blocking work runs on virtual threads.
+	 */
+	public static boolean isVirtualThreads() {
+		return BlockingHolder.VIRTUAL;
+	}
+
+	/**
+	 * Sets the clock that drives all timers. The clock should only be changed
+	 * while no timers are running or waiting.
+	 * 
+	 * @param newClock The new clock.
+	 */
+	public static void setClock(Clock newClock) {
+		clock = Objects.requireNonNull(newClock, "newClock is required");
+	}
 
 	/** Private ctor prevents instantiation. */
 	private TimerUtils() {
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batches cosmetic updates bound for the UI thread. However many updates are
+ * posted, at most one drain task is outstanding on the UI thread at a time.
+ * Producers are expected to coalesce their own updates, posting only when they
+ * have no update already pending and otherwise just overwriting the value that
+ * the pending update will apply. The queue then holds at most one entry per
+ * producer, so a stalled UI thread costs bounded memory and catches up in a
+ * single pass.
+ * <p>
+ * While the queue is {@link #setSuspended(boolean) suspended}, because nothing
+ * is visible, updates are held rather than drained. Resuming applies them all
+ * in a single drain.
+ * 
+ * @since 1.0.1
+ */
+public final class UpdateQueue {
+	private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final AtomicBoolean drainPosted = new AtomicBoolean();
+	private final Runnable drain = this::drain;
+	private volatile boolean suspended;
+
+	/**
+	 * Constructs a new <code>UpdateQueue</code>.
+	 */
+	public UpdateQueue() {
+	}
+
+	/**
+	 * Applies the pending updates. Updates posted while draining are left for the
+	 * next drain, so that a steady stream of updates cannot monopolise the UI
+	 * thread. Must be called on the UI thread.
+	 */
+	public void drain() {
+		drainPosted.set(false);
+		for (int n = pendingCount.get(); n > 0; n--) {
+			Runnable update = pending.poll();
+			if (update == null)
+				break;
+			pendingCount.decrementAndGet();
+			try {
+				update.run();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of updates awaiting the next drain.
+	 * 
+	 * @return the pending update count.
+	 */
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
+	/**
+	 * Returns whether the queue is suspended.
+	 * 
+	 * @return <code>true</code> if updates are being held.
+	 */
+	public boolean isSuspended() {
+		return suspended;
+	}
+
+	/**
+	 * Posts an update to be applied on the UI thread by the next drain. May be
+	 * called on any thread.
+	 * 
+	 * @param update The update to apply.
+	 */
+	public void post(Runnable update) {
+		pending.add(update);
+		pendingCount.incrementAndGet();
+		if (!suspended)
+			postDrain();
+	}
+
+	/**
+	 * Posts a drain to the UI thread unless one is already outstanding.
+	 */
+	private void postDrain() {
+		if (drainPosted.compareAndSet(false, true))
+			TimerUtils.getClock().runLater(drain);
+	}
+
+	/**
+	 * Suspends or resumes draining. Updates posted while suspended are held and
+	 * applied in a single drain on resuming. May be called on any thread.
+	 * 
+	 * @param suspended <code>true</code> to hold updates, <code>false</code> to
+	 *                  apply them.
+	 */
+	public void setSuspended(boolean suspended) {
+		this.suspended = suspended;
+		if (!suspended && pendingCount.get() > 0)
+			postDrain();
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A deterministic, simulated clock whose time only moves when it is
+ * {@link #advance(long) advanced}. Advancing the clock runs every task that
+ * falls due in the interval, in order of due time then of scheduling, with the
+ * clock set to each task's due time while it runs. Tasks passed to
+ * {@link #runLater(Runnable)} run after the current task, before time moves
+ * on. All tasks run on the thread that advances the clock, so a simulation
+ * spanning days completes as fast as the tasks themselves can run.
+ * 
+ * @since 1.0.1
+ */
+public final class VirtualClock implements Clock {
+	/**
+	 * A task scheduled against the virtual clock.
+	 */
+	private final class Task implements ScheduledFuture<Object>, Comparable<Delayed> {
+		private final Runnable action;
+		private final long period;
+		private final long seq;
+		private long time;
+		private boolean cancelled;
+		private boolean done;
+
+		Task(Runnable action, long time, long period) {
+			this.action = action;
+			this.time = time;
+			this.period = period;
+			this.seq = nextSeq++;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			synchronized (VirtualClock.this) {
+				if (done || cancelled)
+					return false;
+				// The task is discarded when it reaches the head of the queue.
+				cancelled = true;
+				return true;
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int compareTo(Delayed o) {
+			if (o instanceof Task) {
+				Task other = (Task) o;
+				int result = Long.compare(time, other.time);
+				return result != 0 ? result : Long.compare(seq, other.seq);
+			}
+			return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Object get() {
+			if (!isDone())
+				throw new IllegalStateException("virtual clock tasks cannot be awaited");
+			return null;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Object get(long timeout, TimeUnit unit) {
+			return get();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public long getDelay(TimeUnit unit) {
+			synchronized (VirtualClock.this) {
+				return unit.convert(time - now, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isCancelled() {
+			synchronized (VirtualClock.this) {
+				return cancelled;
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isDone() {
+			synchronized (VirtualClock.this) {
+				return done || cancelled;
+			}
+		}
+	}
+
+	private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+	private final Deque<Runnable> pending = new ArrayDeque<>();
+	private final long tickMillis;
+	private long now;
+	private long nextSeq;
+
+	/**
+	 * Constructs a new <code>VirtualClock</code> that does not refresh timer
+	 * progress.
+	 * 
+	 * @param startTime The initial time in milliseconds since the epoch.
+	 */
+	public VirtualClock(long startTime) {
+		this(startTime, 0);
+	}
+
+	/**
+	 * Constructs a new <code>VirtualClock</code>.
+	 * 
+	 * @param startTime  The initial time in milliseconds since the epoch.
+	 * @param tickMillis The interval at which running timers refresh their
+	 *                   progress, or zero for no refresh.
+	 */
+	public VirtualClock(long startTime, long tickMillis) {
+		if (tickMillis < 0)
+			throw new IllegalArgumentException("tickMillis cannot be negative");
+		this.now = startTime;
+		this.tickMillis = tickMillis;
+	}
+
+	/**
+	 * Advances the clock by the specified amount, running all the tasks that
+	 * fall due.
+	 * 
+	 * @param millis The number of milliseconds by which to advance.
+	 * @return the number of scheduled tasks that were run.
+	 * @throws IllegalArgumentException if <code>millis</code> is negative.
+	 */
+	public int advance(long millis) {
+		if (millis < 0)
+			throw new IllegalArgumentException("cannot advance by a negative amount");
+		synchronized (this) {
+			return advanceTo(now + millis);
+		}
+	}
+
+	/**
+	 * Advances the clock to the specified time, running all the tasks that fall
+	 * due up to and including that time.
+	 * 
+	 * @param time The time to advance to, in milliseconds since the epoch.
+	 * @return the number of scheduled tasks that were run.
+	 * @throws IllegalArgumentException if <code>time</code> is in the past.
+	 */
+	public synchronized int advanceTo(long time) {
+		if (time < now)
+			throw new IllegalArgumentException("cannot go back in time");
+		int count = 0;
+		runPending();
+		Task task;
+		while ((task = tasks.peek()) != null && task.time <= time) {
+			tasks.poll();
+			if (task.cancelled)
+				continue;
+			now = task.time;
+			task.action.run();
+			count++;
+			if (task.period > 0 && !task.cancelled) {
+				task.time += task.period;
+				tasks.add(task);
+			} else {
+				task.done = true;
+			}
+			runPending();
+		}
+		now = time;
+		runPending();
+		return count;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized long currentTimeMillis() {
+		return now;
+	}
+
+	/**
+	 * Returns the due time of the next scheduled task.
+	 * 
+	 * @return the due time in milliseconds since the epoch, or
+	 *         <code>Long.MAX_VALUE</code> if there are no scheduled tasks.
+	 */
+	public synchronized long getNextTime() {
+		Task task;
+		while ((task = tasks.peek()) != null && task.cancelled)
+			tasks.poll();
+		return task == null ? Long.MAX_VALUE : task.time;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isSimulated() {
+		return true;
+	}
+
+	/**
+	 * Runs the tasks passed to {@link #runLater(Runnable)}, including any that
+	 * they in turn pass.
+	 */
+	private void runPending() {
+		Runnable r;
+		while ((r = pending.poll()) != null)
+			r.run();
+	}
+
+	/**
+	 * {@inheritDoc} The task runs after the current task, or on the next
+	 * {@link #advance(long) advance} if called while the clock is not advancing.
+	 */
+	@Override
+	public synchronized void runLater(Runnable task) {
+		pending.add(task);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		Task t = new Task(task, now + Math.max(unit.toMillis(delay), 0), 0);
+		tasks.add(t);
+		return t;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period,
+			TimeUnit unit) {
+		if (period <= 0)
+			throw new IllegalArgumentException("period must be positive");
+		Task t = new Task(task, now + Math.max(unit.toMillis(initialDelay), 0), unit.toMillis(period));
+		tasks.add(t);
+		return t;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized String toString() {
+		return "VirtualClock [now=" + now + ", tasks=" + tasks.size() + ']';
+	}
+}
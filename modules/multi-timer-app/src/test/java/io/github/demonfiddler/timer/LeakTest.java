@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.demonfiddler.timer.model.LoadGenerator;
+import io.github.demonfiddler.timer.model.MultiTimerBean;
+import io.github.demonfiddler.timer.util.Headless;
+import javafx.stage.Stage;
+
+/**
+ * Opens and closes a file repeatedly, checking that nothing from a closed file
+ * remains reachable. The number of cycles and the number of timers in the file
+ * can be set with the <code>leak.cycles</code> and <code>leak.count</code>
+ * system properties.
+ */
+class LeakTest {
+	private static final int CYCLES = Integer.getInteger("leak.cycles", 1000);
+	private static final int COUNT = Integer.getInteger("leak.count", 200);
+	/** The number of cycles run before the baseline heap usage is measured. */
+	private static final int WARM_UP_CYCLES = 50;
+	/** The number of cycles run on the UI thread between pauses. */
+	private static final int BATCH = 50;
+	/** The maximum growth in heap usage, in bytes, well under that of leaking a timer view per cycle. */
+	private static final long MAX_HEAP_GROWTH = 1024 * 1024;
+
+	private static MultiTimerController controller;
+
+	@BeforeAll
+	static void startApplication() throws Exception {
+		Headless.start();
+		controller = Headless.call(() -> MultiTimerApp.createWindow(new Stage()));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static MultiTimerBean timersBean() throws Exception {
+		Field timersBeanField = MultiTimerController.class.getDeclaredField("timersBean");
+		timersBeanField.setAccessible(true);
+		return (MultiTimerBean) timersBeanField.get(controller);
+	}
+
+	/**
+	 * Opens and closes the file repeatedly, pausing between batches so that
+	 * tasks queued for the UI thread can run.
+	 */
+	private static void cycle(File file, int cycles) throws Exception {
+		for (int done = 0; done < cycles; done += BATCH) {
+			int batch = Math.min(BATCH, cycles - done);
+			Headless.call(() -> {
+				for (int i = 0; i < batch; i++) {
+					controller.open(file);
+					controller.close();
+				}
+				return null;
+			});
+		}
+	}
+
+	@Test
+	void testOpenCloseHeapIsFlat(@TempDir File dir) throws Exception {
+		File file = new File(dir, "leak.timers");
+		LoadGenerator generator = new LoadGenerator();
+		generator.setCount(COUNT);
+		generator.setGroupSize(COUNT / 4);
+		generator.write(file);
+
+		// Nothing from the first file opened remains reachable after it is closed.
+		WeakReference<MultiTimerBean> first = Headless.call(() -> {
+			controller.open(file);
+			return new WeakReference<>(timersBean());
+		});
+		assertEquals(COUNT, first.get().getTimerCount());
+		Headless.call(() -> controller.close());
+		usedHeap();
+		assertNull(first.get(), "closed file is still reachable");
+
+		cycle(file, WARM_UP_CYCLES);
+		long baseline = usedHeap();
+		cycle(file, CYCLES - WARM_UP_CYCLES);
+		long growth = usedHeap() - baseline;
+		System.out.printf("LeakTest: heap grew by %,d bytes over %,d cycles of %,d timers%n", growth,
+				CYCLES - WARM_UP_CYCLES, COUNT);
+		assertTrue(growth <= MAX_HEAP_GROWTH, "heap grew by " + growth + " bytes, limit " + MAX_HEAP_GROWTH);
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.demonfiddler.timer.model.LoadGenerator;
+import io.github.demonfiddler.timer.model.MultiTimerBean;
+import io.github.demonfiddler.timer.util.Headless;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import javafx.stage.Stage;
+
+/**
+ * Opens several multi-timers at once, each in its own window, checking that
+ * they share the scheduling engine rather than each adding threads of their
+ * own.
+ */
+class MultiDocumentTest {
+	private static final int DOCUMENTS = 10;
+	private static final int COUNT = 100;
+	/** The time allowed for running timers to schedule their deadlines. */
+	private static final long SETTLE_MILLIS = 500;
+	/** The name prefix of the scheduling engine's threads. */
+	private static final String SCHEDULER_THREAD_PREFIX = "timer-scheduler-";
+
+	private static final List<MultiTimerController> controllers = new ArrayList<>();
+
+	@BeforeAll
+	static void startToolkit() {
+		Headless.start();
+	}
+
+	@AfterAll
+	static void closeWindows() throws Exception {
+		Headless.call(() -> {
+			for (MultiTimerController controller : controllers) {
+				controller.close();
+				controller.getStage().hide();
+			}
+			return null;
+		});
+	}
+
+	private static MultiTimerBean timersBean(MultiTimerController controller) throws Exception {
+		Field timersBeanField = MultiTimerController.class.getDeclaredField("timersBean");
+		timersBeanField.setAccessible(true);
+		return (MultiTimerBean) timersBeanField.get(controller);
+	}
+
+	/**
+	 * Counts the live threads of the scheduling engine, ignoring threads that
+	 * other tests in the same JVM may have left behind.
+	 */
+	private static long schedulerThreadCount() throws InterruptedException {
+		Thread.sleep(SETTLE_MILLIS);
+		return Thread.getAllStackTraces().keySet().stream()
+				.filter(t -> t.isAlive() && t.getName().startsWith(SCHEDULER_THREAD_PREFIX)).count();
+	}
+
+	/**
+	 * Opens a file in a new window and runs its timers. The window is not shown,
+	 * because that needs native font support.
+	 */
+	private static MultiTimerController openAndRun(File file) throws Exception {
+		MultiTimerController controller = Headless.call(() -> {
+			MultiTimerController c = MultiTimerApp.createWindow(new Stage());
+			c.open(file);
+			c.run();
+			return c;
+		});
+		controllers.add(controller);
+		return controller;
+	}
+
+	@Test
+	void testDocumentsShareEngine(@TempDir File dir) throws Exception {
+		LoadGenerator generator = new LoadGenerator();
+		generator.setCount(COUNT);
+		generator.setGroupSize(COUNT / 4);
+		List<File> files = new ArrayList<>();
+		for (int i = 0; i < DOCUMENTS; i++) {
+			File file = new File(dir, "document" + i + ".timers");
+			generator.setSeed(i);
+			generator.write(file);
+			files.add(file);
+		}
+
+		MultiTimerController first = openAndRun(files.get(0));
+		long baseline = schedulerThreadCount();
+		for (File file : files.subList(1, DOCUMENTS))
+			openAndRun(file);
+		long threads = schedulerThreadCount();
+		System.out.printf("MultiDocumentTest: %d scheduler threads with one document, %d with %d documents%n",
+				baseline, threads, DOCUMENTS);
+
+		for (MultiTimerController controller : controllers)
+			assertTrue(Headless.call(() -> timersBean(controller).getState().isRunning()));
+		assertTrue(baseline > 0, "no scheduler threads with one document");
+		assertEquals(baseline, threads, "scheduler threads with " + DOCUMENTS + " documents");
+		assertTrue(TimerUtils.EXECUTOR.getPoolSize() <= TimerUtils.EXECUTOR.getCorePoolSize(),
+				"executor grew to " + TimerUtils.EXECUTOR.getPoolSize() + " threads");
+
+		// Each file is open in exactly one window.
+		for (int i = 0; i < DOCUMENTS; i++)
+			assertSame(controllers.get(i), MultiTimerApp.findWindow(files.get(i)));
+		assertSame(first, MultiTimerApp.findWindow(new File(dir, "./document0.timers")));
+		assertNull(MultiTimerApp.findWindow(new File(dir, "missing.timers")));
+	}
+}
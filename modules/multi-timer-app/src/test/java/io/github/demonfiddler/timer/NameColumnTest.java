@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.util.Headless;
+import javafx.scene.Node;
+import javafx.scene.layout.GridPane;
+
+class NameColumnTest {
+	@BeforeAll
+	static void startToolkit() {
+		Headless.start();
+	}
+
+	/**
+	 * Returns the name column widths of the specified timer views, once any
+	 * pending resize has run.
+	 */
+	private static List<Double> nameColumnWidths(List<Node> views) throws Exception {
+		return Headless.call(() -> {
+			List<Double> widths = new ArrayList<>();
+			for (Node view : views)
+				widths.add(((GridPane) view).getColumnConstraints().get(0).getPrefWidth());
+			return widths;
+		});
+	}
+
+	@Test
+	void testIncrementalNameWidth() throws Exception {
+		MultiTimerController controller = new MultiTimerController();
+		List<Node> views = new ArrayList<>();
+		List<TimerBean> timers = new ArrayList<>();
+		for (int i = 0; i < 3; i++)
+			timers.add(new TimerBean());
+		// The views are not styled, so their names report zero width. Simulate names of
+		// various widths being measured instead.
+		Headless.call(() -> {
+			controller.addTimerViews(views, timers, 0, timers.size());
+			controller.nameWidthChanged(Double.NaN, 40);
+			controller.nameWidthChanged(Double.NaN, 120);
+			controller.nameWidthChanged(Double.NaN, 120);
+			controller.nameWidthChanged(Double.NaN, 80);
+			return null;
+		});
+		assertEquals(List.of(120.0, 120.0, 120.0), nameColumnWidths(views));
+
+		// Removing one of two widest names changes nothing; removing the other shrinks
+		// the column to the next widest.
+		Headless.call(() -> {
+			controller.nameWidthChanged(120, Double.NaN);
+			return null;
+		});
+		assertEquals(List.of(120.0, 120.0, 120.0), nameColumnWidths(views));
+		Headless.call(() -> {
+			controller.nameWidthChanged(120, 60);
+			return null;
+		});
+		assertEquals(List.of(80.0, 80.0, 80.0), nameColumnWidths(views));
+
+		// A view added later adopts the current width without a layout pass.
+		Headless.call(() -> {
+			timers.add(new TimerBean());
+			controller.addTimerViews(views, timers, 3, 4);
+			return null;
+		});
+		assertEquals(List.of(80.0, 80.0, 80.0, 80.0), nameColumnWidths(views));
+
+		// Disposing of the views leaves only the simulated widths.
+		Headless.call(() -> {
+			controller.removeTimerViews(views, timers, 0);
+			controller.nameWidthChanged(80, Double.NaN);
+			return null;
+		});
+		assertEquals(0, views.size());
+		Headless.call(() -> {
+			controller.addTimerViews(views, timers, 0, 1);
+			return null;
+		});
+		assertEquals(List.of(60.0), nameColumnWidths(views));
+	}
+}
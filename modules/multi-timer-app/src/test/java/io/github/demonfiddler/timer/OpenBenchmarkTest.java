@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.util.Headless;
+import javafx.scene.Node;
+
+/**
+ * Benchmarks the time taken to create the views for an opened file's timers,
+ * against the number of timers. The absolute times are only reported, since
+ * they depend on the machine; the test fails if the time grows faster than
+ * linearly with the number of timers.
+ */
+class OpenBenchmarkTest {
+	/** The maximum ratio of the time for 5,000 timers to five times that for 1,000 timers. */
+	private static final double MAX_SCALING = 2.0;
+
+	@BeforeAll
+	static void startToolkit() {
+		Headless.start();
+	}
+
+	private static List<TimerBean> timers(int count) {
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TimerBean timer = new TimerBean();
+			timer.setName("Timer " + i);
+			timer.setIntInterval(60 + i % 600);
+			timers.add(timer);
+		}
+		return timers;
+	}
+
+	/**
+	 * Returns the time taken to create the views for a number of timers.
+	 * 
+	 * @param count The number of timers.
+	 * @return the elapsed time in milliseconds.
+	 */
+	private static long openMillis(int count) throws Exception {
+		List<TimerBean> timers = timers(count);
+		return Headless.call(() -> {
+			MultiTimerController controller = new MultiTimerController();
+			List<Node> views = new ArrayList<>(count);
+			long start = System.nanoTime();
+			controller.addTimerViews(views, timers, 0, count);
+			long elapsed = (System.nanoTime() - start) / 1_000_000;
+			assertEquals(count, views.size());
+			return elapsed;
+		});
+	}
+
+	@Test
+	void testOpenTime() throws Exception {
+		// Warm up.
+		openMillis(1000);
+		long millis1000 = 0;
+		long millis5000 = 0;
+		for (int count : new int[] { 100, 1000, 5000 }) {
+			long millis = openMillis(count);
+			System.out.printf("OpenBenchmarkTest: %,d timers in %,d ms%n", count, millis);
+			if (count == 1000)
+				millis1000 = millis;
+			else if (count == 5000)
+				millis5000 = millis;
+		}
+		// Allow for timer resolution when 1,000 timers take next to no time.
+		double scaling = millis5000 / (5.0 * Math.max(millis1000, 20));
+		assertTrue(scaling <= MAX_SCALING, "creating 5,000 timer views took " + millis5000 + " ms, against "
+				+ millis1000 + " ms for 1,000; scaling " + scaling + ", limit " + MAX_SCALING);
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.demonfiddler.timer.model.LoadGenerator;
+import io.github.demonfiddler.timer.model.MultiTimerBean;
+import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.model.TimerGroupBean;
+import io.github.demonfiddler.timer.util.Headless;
+import javafx.scene.Node;
+import javafx.scene.control.TextField;
+import javafx.stage.Stage;
+
+class SearchTest {
+	private static final int COUNT = 200;
+
+	@BeforeAll
+	static void startToolkit() {
+		Headless.start();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T field(MultiTimerController controller, String name) throws Exception {
+		Field field = MultiTimerController.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return (T) field.get(controller);
+	}
+
+	/**
+	 * Returns the views of the timers and groups that are showing.
+	 */
+	private static Map<Object, Node> shownViews(MultiTimerController controller) throws Exception {
+		Map<TimerBean, TimerController> controllers = field(controller, "controllers");
+		Map<TimerGroupBean, TimerGroupController> groupControllers = field(controller, "groupControllers");
+		Map<Object, Node> views = new IdentityHashMap<>();
+		controllers.forEach((bean, c) -> {
+			if (c.getView().isVisible() && c.getView().isManaged())
+				views.put(bean, c.getView());
+		});
+		groupControllers.forEach((group, c) -> {
+			if (c.getView().isVisible() && c.getView().isManaged())
+				views.put(group, c.getView());
+		});
+		return views;
+	}
+
+	@Test
+	void testSearchHidesViews(@TempDir File dir) throws Exception {
+		LoadGenerator generator = new LoadGenerator();
+		generator.setCount(COUNT);
+		generator.setGroupSize(COUNT / 4);
+		File file = new File(dir, "search.timers");
+		generator.write(file);
+		Headless.call(() -> {
+			MultiTimerController controller = MultiTimerApp.createWindow(new Stage());
+			controller.open(file);
+			TextField txtSearch = field(controller, "txtSearch");
+			assertEquals(4, shownViews(controller).size());
+
+			// Only the group that contains the matching timer remains showing, and the
+			// views created when the groups are expanded honour the search.
+			txtSearch.setText("timer 00042");
+			assertEquals(1, shownViews(controller).size());
+			MultiTimerBean timersBean = field(controller, "timersBean");
+			timersBean.getGroups().forEach(group -> group.setCollapsed(false));
+			Map<Object, Node> shown = shownViews(controller);
+			assertEquals(2, shown.size());
+			for (Object member : shown.keySet()) {
+				String name = member instanceof TimerBean ? ((TimerBean) member).getName()
+						: ((TimerGroupBean) member).getName();
+				assertEquals(member instanceof TimerBean ? "Timer 00042" : "Group 1", name);
+			}
+
+			// Clearing the search shows the same views again, without rebuilding them.
+			txtSearch.setText("");
+			Map<Object, Node> all = shownViews(controller);
+			assertEquals(COUNT + 4, all.size());
+			txtSearch.setText("00");
+			txtSearch.setText("");
+			shown = shownViews(controller);
+			assertEquals(all.size(), shown.size());
+			for (Map.Entry<Object, Node> entry : all.entrySet())
+				assertSame(entry.getValue(), shown.get(entry.getKey()));
+			controller.close();
+			return null;
+		});
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Benchmarks the application's time to first frame, with and without a
+ * class-data sharing archive of the classes loaded at startup. Each run starts
+ * the application in a fresh JVM, in its startup benchmark mode. The benchmark
+ * needs a display, so it only runs when the number of runs is set with
+ * <code>-Dstartup.runs=<i>n</i></code>.
+ */
+class StartupBenchmarkTest {
+	private static final int RUNS = Integer.getInteger("startup.runs", 0);
+
+	/**
+	 * Returns the command that starts the application in a fresh JVM. The JavaFX
+	 * jars go on the module path, as the launcher puts them.
+	 * 
+	 * @param jvmArgs Extra JVM arguments.
+	 * @return the command line.
+	 */
+	private static List<String> command(String... jvmArgs) {
+		List<String> javafx = new ArrayList<>();
+		List<String> classpath = new ArrayList<>();
+		for (String entry : System.getProperty("java.class.path").split(File.pathSeparator))
+			(new File(entry).getName().startsWith("javafx-") ? javafx : classpath).add(entry);
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(Arrays.asList(jvmArgs));
+		command.add("-D" + MultiTimerApp.PROP_STARTUP_BENCHMARK + "=true");
+		command.add("--module-path");
+		command.add(String.join(File.pathSeparator, javafx));
+		command.add("--add-modules");
+		command.add("javafx.controls,javafx.fxml");
+		command.add("-classpath");
+		command.add(String.join(File.pathSeparator, classpath));
+		command.add(Launcher.class.getName());
+		return command;
+	}
+
+	/**
+	 * Starts the application and returns its time to first frame.
+	 * 
+	 * @param jvmArgs Extra JVM arguments.
+	 * @return the time to first frame in milliseconds.
+	 */
+	private static long firstFrameMillis(String... jvmArgs) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(command(jvmArgs)).redirectErrorStream(true).start();
+		List<String> output;
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			output = in.lines().collect(Collectors.toList());
+		}
+		assertEquals(0, process.waitFor(), () -> String.join(System.lineSeparator(), output));
+		return output.stream() //
+				.filter(line -> line.startsWith(MultiTimerApp.FIRST_FRAME_PREFIX)) //
+				.map(line -> Long.parseLong(line.replaceAll("\\D", ""))) //
+				.findFirst() //
+				.orElseThrow(() -> new AssertionError("no first frame reported: " + output));
+	}
+
+	/**
+	 * Returns the median time to first frame over a number of runs.
+	 * 
+	 * @param jvmArgs Extra JVM arguments.
+	 * @return the median time to first frame in milliseconds.
+	 */
+	private static long medianFirstFrameMillis(String... jvmArgs) throws IOException, InterruptedException {
+		List<Long> millis = new ArrayList<>(RUNS);
+		for (int i = 0; i < RUNS; i++)
+			millis.add(firstFrameMillis(jvmArgs));
+		Collections.sort(millis);
+		return millis.get(RUNS / 2);
+	}
+
+	@Test
+	void testTimeToFirstFrame() throws Exception {
+		assumeTrue(RUNS > 0, "startup.runs is not set");
+		Path archive = Files.createTempFile("multi-timer", ".jsa");
+		try {
+			// A training run records the classes loaded at startup, as the installer build does.
+			Files.delete(archive);
+			firstFrameMillis("-XX:ArchiveClassesAtExit=" + archive);
+			assertTrue(Files.exists(archive), "no archive was created");
+
+			long withoutArchive = medianFirstFrameMillis();
+			long withArchive = medianFirstFrameMillis("-XX:SharedArchiveFile=" + archive);
+			System.out.println("Time to first frame without archive: " + withoutArchive + " ms");
+			System.out.println("Time to first frame with archive: " + withArchive + " ms");
+		} finally {
+			Files.deleteIfExists(archive);
+		}
+	}
+}
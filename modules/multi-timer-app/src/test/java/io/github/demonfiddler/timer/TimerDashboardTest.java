@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer;
+
+import static io.github.demonfiddler.timer.TimerDashboard.CELL_HEIGHT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.demonfiddler.timer.model.DeadlineIndex.Deadline;
+import io.github.demonfiddler.timer.model.TimerBean;
+import io.github.demonfiddler.timer.model.TimerGroupBean;
+import io.github.demonfiddler.timer.model.TimerState;
+import io.github.demonfiddler.timer.util.Headless;
+import io.github.demonfiddler.timer.util.SystemClock;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import io.github.demonfiddler.timer.util.VirtualClock;
+import javafx.event.Event;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+
+class TimerDashboardTest {
+	@BeforeAll
+	static void startToolkit() {
+		Headless.start();
+	}
+
+	@AfterEach
+	void restoreClock() {
+		TimerUtils.setClock(SystemClock.INSTANCE);
+	}
+
+	private static List<TimerBean> timers(int count) {
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TimerBean timer = new TimerBean();
+			timer.setName("Timer " + i);
+			timer.setIntInterval(60 + i % 600);
+			timers.add(timer);
+		}
+		return timers;
+	}
+
+	private static TimerDashboard dashboard(List<TimerBean> timers, double width, double height) {
+		TimerDashboard dashboard = new TimerDashboard();
+		new Scene(dashboard);
+		dashboard.applyCss();
+		dashboard.resize(width, height);
+		dashboard.layout();
+		dashboard.setTimers(timers);
+		return dashboard;
+	}
+
+	private static void click(TimerDashboard dashboard, double x, double y) {
+		Event.fireEvent(dashboard, new MouseEvent(MouseEvent.MOUSE_CLICKED, x, y, x, y, MouseButton.PRIMARY, 1, false,
+				false, false, false, true, false, false, true, false, false, null));
+	}
+
+	@Test
+	void testHitTesting() throws Exception {
+		TimerUtils.setClock(new VirtualClock(0));
+		List<TimerBean> timers = timers(100);
+		Headless.call(() -> {
+			TimerDashboard dashboard = dashboard(timers, 960, CELL_HEIGHT * 10);
+			assertEquals(3, dashboard.getColumns());
+			assertEquals(0, dashboard.indexAt(1, 1));
+			assertEquals(1, dashboard.indexAt(480, 1));
+			assertEquals(5, dashboard.indexAt(800, CELL_HEIGHT + 1));
+			assertEquals(-1, dashboard.indexAt(1, CELL_HEIGHT * 10 + 1));
+			assertTrue(dashboard.isRunButtonAt(12, CELL_HEIGHT / 2));
+			assertFalse(dashboard.isRunButtonAt(100, CELL_HEIGHT / 2));
+
+			// Clicking the run button starts and then stops the timer.
+			click(dashboard, 12, CELL_HEIGHT * 1.5);
+			assertEquals(TimerState.RUNNING, timers.get(3).getState());
+			click(dashboard, 100, CELL_HEIGHT * 1.5);
+			assertEquals(TimerState.RUNNING, timers.get(3).getState(), "clicking the name stopped the timer");
+			click(dashboard, 12, CELL_HEIGHT * 1.5);
+			assertEquals(TimerState.STOPPED, timers.get(3).getState());
+			return null;
+		});
+	}
+
+	@Test
+	void testHitTestingScrolled() throws Exception {
+		TimerUtils.setClock(new VirtualClock(0));
+		List<TimerBean> timers = timers(100);
+		Headless.call(() -> {
+			TimerDashboard dashboard = dashboard(timers, 640, CELL_HEIGHT * 10);
+			assertEquals(2, dashboard.getColumns());
+			((ScrollBar) dashboard.lookup(".scroll-bar")).setValue(CELL_HEIGHT * 40.5);
+			// The last rows are 40.5 to 50 (timers 80 to 99).
+			assertEquals(80, dashboard.indexAt(1, 1));
+			assertEquals(83, dashboard.indexAt(480, CELL_HEIGHT));
+			assertEquals(-1, dashboard.indexAt(1, CELL_HEIGHT * 9.6));
+			click(dashboard, 12, CELL_HEIGHT);
+			assertEquals(TimerState.RUNNING, timers.get(82).getState());
+			timers.get(82).stop();
+			return null;
+		});
+	}
+
+	@Test
+	void testDrawTenThousandRunningTimers() throws Exception {
+		TimerUtils.setClock(new VirtualClock(0));
+		List<TimerBean> timers = timers(10_000);
+		timers.forEach(TimerBean::start);
+		long frameNanos = Headless.call(() -> {
+			TimerDashboard dashboard = dashboard(timers, 1920, 1080);
+			for (int i = 0; i < 60; i++)
+				dashboard.draw();
+			long began = System.nanoTime();
+			for (int i = 0; i < 600; i++)
+				dashboard.draw();
+			return (System.nanoTime() - began) / 600;
+		});
+		timers.forEach(TimerBean::stop);
+		// Leave most of the 16.7 ms frame budget for rendering.
+		assertTrue(frameNanos < 4_000_000, "drawing a frame took " + frameNanos / 1000 + " us");
+	}
+
+	@Test
+	void testNextExpirations() throws Exception {
+		TimerUtils.setClock(new VirtualClock(0));
+		List<TimerBean> timers = timers(10_000);
+		TimerGroupBean group = new TimerGroupBean("Group");
+		group.setTimers(timers);
+		group.start();
+		Headless.call(() -> {
+			NextExpirationsPanel panel = new NextExpirationsPanel();
+			new Scene(panel);
+			panel.resize(TimerDashboard.CELL_WIDTH, NextExpirationsPanel.ROW_HEIGHT * 6);
+			panel.layout();
+			panel.setDeadlineIndex(group.getDeadlineIndex());
+			panel.refresh();
+			List<Deadline> deadlines = panel.getDeadlines();
+			assertEquals(NextExpirationsPanel.DEFAULT_COUNT, deadlines.size());
+			// Every 600th timer has the shortest interval.
+			for (Deadline deadline : deadlines) {
+				assertEquals(0, timers.indexOf(deadline.getTimer()) % 600);
+				assertEquals(60_000, deadline.getTime());
+			}
+
+			// The deadlines are only read again when the index changes.
+			panel.refresh();
+			assertSame(deadlines, panel.getDeadlines());
+			TimerBean first = deadlines.get(0).getTimer();
+			first.stop();
+			panel.refresh();
+			assertNotSame(deadlines, panel.getDeadlines());
+			assertEquals(NextExpirationsPanel.DEFAULT_COUNT, panel.getDeadlines().size());
+			assertFalse(panel.getDeadlines().stream().anyMatch(d -> d.getTimer() == first));
+			return null;
+		});
+		group.stop();
+	}
+}
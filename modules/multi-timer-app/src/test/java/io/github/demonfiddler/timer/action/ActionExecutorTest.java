@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.action;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.demonfiddler.timer.model.ActionBean;
+import io.github.demonfiddler.timer.model.TimerState;
+import io.github.demonfiddler.timer.util.TimerUtils;
+
+class ActionExecutorTest {
+	/**
+	 * A test action that sleeps for the number of milliseconds given by its target,
+	 * ignoring interrupts if its text is <code>uninterruptible</code>.
+	 */
+	public static class SleepAction implements TimerAction {
+		static volatile CountDownLatch finished;
+
+		@Override
+		public String getType() {
+			return "sleep";
+		}
+
+		@Override
+		public void execute(ActionBean config, ActionEvent event) throws Exception {
+			try {
+				long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Long.parseLong(config.getTarget()));
+				for (long nanos; (nanos = until - System.nanoTime()) > 0;) {
+					try {
+						TimeUnit.NANOSECONDS.sleep(nanos);
+					} catch (InterruptedException e) {
+						if (!"uninterruptible".equals(config.getText()))
+							throw e;
+					}
+				}
+			} finally {
+				finished.countDown();
+			}
+		}
+	}
+
+	private static final ActionEvent EVENT = new ActionEvent("test", TimerState.COMPLETE, 0);
+	/** The number of slow actions run at once on virtual threads. */
+	private static final int SLOW_VIRTUAL_ACTIONS = 1000;
+	/** The name prefix of the blocking executor's platform threads. */
+	private static final String BLOCKING_THREAD_PREFIX = "timer-blocking-";
+	/** The duration of each slow action. */
+	private static final long SLOW_MILLIS = 1000;
+	/** The maximum lateness of a deadline while the slow actions run. */
+	private static final long MAX_LATENESS_MILLIS = 50;
+
+	ActionExecutor executor;
+
+	private ActionBean sleep(long millis, int timeout) {
+		ActionBean config = new ActionBean();
+		config.setType("sleep");
+		config.setTarget(String.valueOf(millis));
+		config.setTimeout(timeout);
+		return config;
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		executor = new ActionExecutor(1, 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void testCompleted() throws Exception {
+		SleepAction.finished = new CountDownLatch(1);
+		assertTrue(executor.submit(sleep(0, 0), EVENT));
+		assertTrue(SleepAction.finished.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		assertEquals(1, executor.getCompletedCount(), "completed count incorrect");
+	}
+
+	@Test
+	void testDisabledNotRun() throws Exception {
+		SleepAction.finished = new CountDownLatch(1);
+		ActionBean disabled = sleep(0, 0);
+		disabled.setEnabled(false);
+		assertFalse(new ActionBean(disabled).isEnabled(), "copy enabled");
+		executor.execute(List.of(disabled, sleep(0, 0)), EVENT);
+		assertTrue(SleepAction.finished.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		assertEquals(1, executor.getCompletedCount(), "completed count incorrect");
+	}
+
+	@Test
+	void testSlowActionsDoNotDelayDeadlines() throws Exception {
+		boolean virtual = TimerUtils.isVirtualThreads();
+		System.out.println("ActionExecutorTest: virtual threads " + virtual);
+		// Platform threads are capped, so give them only two rounds of work.
+		int slowActions = virtual ? SLOW_VIRTUAL_ACTIONS : 2 * TimerUtils.BLOCKING_THREADS;
+		ActionExecutor blocking = new ActionExecutor(TimerUtils.getBlockingExecutor(), slowActions);
+		SleepAction.finished = new CountDownLatch(slowActions);
+		long start = System.nanoTime();
+		for (int i = 0; i < slowActions; i++)
+			assertTrue(blocking.submit(sleep(SLOW_MILLIS, 0), EVENT), "action rejected");
+		assertFalse(blocking.submit(sleep(SLOW_MILLIS, 0), EVENT), "capacity exceeded");
+		if (!virtual) {
+			long threads = Thread.getAllStackTraces().keySet().stream()
+					.filter(t -> t.getName().startsWith(BLOCKING_THREAD_PREFIX)).count();
+			assertTrue(threads <= TimerUtils.BLOCKING_THREADS, threads + " blocking threads");
+		}
+
+		// A deadline falls due on time while every action is blocked.
+		long delay = SLOW_MILLIS / 2;
+		long scheduled = System.nanoTime();
+		long fired = TimerUtils.EXECUTOR.schedule(System::nanoTime, delay, TimeUnit.MILLISECONDS).get();
+		long lateness = TimeUnit.NANOSECONDS.toMillis(fired - scheduled) - delay;
+		assertTrue(lateness <= MAX_LATENESS_MILLIS, "deadline was " + lateness + " ms late");
+
+		// The actions run concurrently rather than a few at a time.
+		assertTrue(SleepAction.finished.await(SLOW_MILLIS * 5, TimeUnit.MILLISECONDS), "actions did not finish");
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsed < SLOW_MILLIS * 5, slowActions + " actions took " + elapsed + " ms");
+		blocking.shutdown();
+		assertFalse(blocking.submit(sleep(0, 0), EVENT), "accepted after shutdown");
+		assertFalse(TimerUtils.getBlockingExecutor().isShutdown(), "shared executor shut down");
+	}
+
+	@Test
+	void testTimedOut() throws Exception {
+		SleepAction.finished = new CountDownLatch(1);
+		assertTrue(executor.submit(sleep(10_000, 1), EVENT));
+		assertTrue(SleepAction.finished.await(5, TimeUnit.SECONDS), "action was not interrupted");
+		Thread.sleep(100);
+		assertEquals(1, executor.getTimedOutCount(), "timed out count incorrect");
+	}
+
+	@Test
+	void testTimedOutUninterruptible() throws Exception {
+		SleepAction.finished = new CountDownLatch(1);
+		ActionBean hung = sleep(2500, 1);
+		hung.setText("uninterruptible");
+		assertTrue(executor.submit(hung, EVENT));
+		Thread.sleep(1500);
+		// The action has timed out, but it still holds the only thread, so it still counts against capacity.
+		assertEquals(1, executor.getTimedOutCount(), "timed out count incorrect");
+		assertEquals(1, executor.getInFlightCount(), "timed out action released its capacity");
+		assertTrue(executor.submit(sleep(0, 0), EVENT));
+		assertFalse(executor.submit(sleep(0, 0), EVENT), "capacity exceeded");
+		assertTrue(SleepAction.finished.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testRejected() throws Exception {
+		SleepAction.finished = new CountDownLatch(2);
+		long start = System.nanoTime();
+		assertTrue(executor.submit(sleep(500, 0), EVENT));
+		assertTrue(executor.submit(sleep(500, 0), EVENT));
+		assertFalse(executor.submit(sleep(500, 0), EVENT));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 250, "submission blocked");
+		assertEquals(1, executor.getRejectedCount(), "rejected count incorrect");
+		assertTrue(SleepAction.finished.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testUnknownType() {
+		ActionBean config = new ActionBean();
+		config.setType("no-such-type");
+		assertFalse(executor.submit(config, EVENT));
+		assertEquals(1, executor.getFailedCount(), "failed count incorrect");
+	}
+
+	@Test
+	void testCommandLineExpandedPerArgument() {
+		ActionEvent event = new ActionEvent("Tea \"x\" ${state}", TimerState.WARNING, 0);
+		assertEquals(List.of("notify", "--title", "Tea \"x\" ${state} is WARNING", "Tea \"x\" ${state}"),
+				CommandAction.commandLine("notify --title \"${name} is ${state}\" ${name}", event));
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.demonfiddler.timer.model.DeadlineIndex.Deadline;
+import io.github.demonfiddler.timer.model.DeadlineIndex.Entry;
+import io.github.demonfiddler.timer.model.TimerBeanTest.CountingClock;
+import io.github.demonfiddler.timer.util.SystemClock;
+import io.github.demonfiddler.timer.util.TimerUtils;
+
+class DeadlineIndexTest {
+	@AfterEach
+	void restoreClock() {
+		TimerUtils.setClock(SystemClock.INSTANCE);
+	}
+
+	private static List<Long> times(List<Deadline> deadlines) {
+		return deadlines.stream().map(Deadline::getTime).collect(Collectors.toList());
+	}
+
+	@Test
+	void testOrder() {
+		final int count = 1000;
+		Random random = new Random(42);
+		DeadlineIndex index = new DeadlineIndex();
+		assertNull(index.peek());
+		assertEquals(List.of(), index.next(5));
+		assertThrows(IllegalArgumentException.class, () -> index.next(-1));
+
+		List<Entry> entries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Entry entry = new Entry(new TimerBean());
+			index.update(entry, random.nextInt(1_000_000), TimerState.COMPLETE);
+			entries.add(entry);
+		}
+		// Move half of the deadlines, either way, and remove a quarter of the entries.
+		for (int i = 0; i < count; i += 2)
+			index.update(entries.get(i), random.nextInt(1_000_000), TimerState.WARNING);
+		for (int i = 1; i < count; i += 4)
+			index.remove(entries.get(i));
+		index.remove(entries.get(1));
+		assertEquals(count - count / 4, index.size());
+
+		List<Long> expected = entries.stream().filter(e -> e.index == index)
+				.map(e -> index.next(count).stream().filter(d -> d.getTimer() == e.timer).findFirst().get())
+				.map(Deadline::getTime).sorted().collect(Collectors.toList());
+		assertEquals(expected.get(0), index.peek().getTime());
+		assertEquals(expected.subList(0, 10), times(index.next(10)));
+		assertEquals(expected, times(index.next(count)));
+		assertEquals(List.of(), index.next(0));
+	}
+
+	@Test
+	void testMaintainedByTimers() {
+		final int count = 50;
+		CountingClock clock = new CountingClock(1000);
+		TimerUtils.setClock(clock);
+		TimerGroupBean root = new TimerGroupBean("Root");
+		TimerGroupBean nested = new TimerGroupBean("Nested");
+		root.getGroups().add(nested);
+		assertSame(root.getDeadlineIndex(), nested.getDeadlineIndex());
+		DeadlineIndex index = root.getDeadlineIndex();
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TimerBean timer = new TimerBean();
+			timer.setName("Timer " + i);
+			timer.setIntInterval(100 - i);
+			if (i % 2 == 0)
+				timer.setIsoWarnAfter("PT10S");
+			timers.add(timer);
+		}
+		root.setTimers(timers.subList(0, count / 2));
+		nested.setTimers(timers.subList(count / 2, count));
+
+		root.start();
+		assertEquals(count, index.size());
+		Deadline next = index.peek();
+		assertSame(timers.get(0), next.getTimer());
+		assertEquals(10_000, next.getTime());
+		assertEquals(TimerState.WARNING, next.getState());
+
+		// Reaching the warnings moves those timers on to their finish deadlines.
+		clock.delegate.advance(10_000);
+		List<Deadline> deadlines = index.next(count);
+		assertEquals(count, deadlines.size());
+		for (int i = 0; i < count; i++) {
+			Deadline deadline = deadlines.get(i);
+			assertEquals(TimerState.COMPLETE, deadline.getState());
+			assertSame(timers.get(count - 1 - i), deadline.getTimer());
+			assertEquals((51 + i) * 1000L, deadline.getTime());
+		}
+
+		// Completed, paused and stopped timers leave the index; resumed ones return.
+		clock.delegate.advance(41_000);
+		assertEquals(count - 1, index.size());
+		TimerBean paused = timers.get(0);
+		paused.pause();
+		assertEquals(count - 2, index.size());
+		clock.delegate.advance(500);
+		paused.resume();
+		assertEquals(count - 1, index.size());
+		assertEquals(100_500, index.next(count).stream().filter(d -> d.getTimer() == paused).findFirst().get()
+				.getTime());
+		root.stop();
+		assertEquals(0, index.size());
+		assertNull(index.peek());
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.demonfiddler.timer.model.LoadGenerator.Distribution;
+import io.github.demonfiddler.timer.util.TimerUtils;
+
+class LoadGeneratorTest {
+	@Test
+	void testDistributions() {
+		LoadGenerator generator = new LoadGenerator();
+		generator.setCount(5000);
+		generator.setMinInterval(10);
+		generator.setMaxInterval(1000);
+		generator.setWarnRatio(0.25);
+		generator.setRepeatRatio(0.75);
+		for (Distribution distribution : Distribution.values()) {
+			generator.setDistribution(distribution);
+			List<TimerBean> timers = generator.generate().getAllTimers();
+			assertEquals(5000, timers.size());
+			int warn = 0;
+			int repeat = 0;
+			long sum = 0;
+			for (TimerBean timer : timers) {
+				assertTrue(timer.getIntInterval() >= 10 && timer.getIntInterval() <= 1000,
+						distribution + " interval out of range: " + timer.getIntInterval());
+				assertTrue(timer.getIntWarnAfter() < timer.getIntInterval());
+				if (timer.getIntWarnAfter() != 0)
+					warn++;
+				if (timer.getRepeat())
+					repeat++;
+				sum += timer.getIntInterval();
+			}
+			assertEquals(0.25, warn / 5000.0, 0.03, distribution + " warn ratio");
+			assertEquals(0.75, repeat / 5000.0, 0.03, distribution + " repeat ratio");
+			double mean = sum / 5000.0;
+			switch (distribution) {
+				case FIXED:
+					assertEquals(10, mean);
+					break;
+				case UNIFORM:
+					assertEquals(505, mean, 25);
+					break;
+				case LOG_UNIFORM:
+					// (max - min) / ln(max / min)
+					assertEquals(215, mean, 25);
+					break;
+				case EXPONENTIAL:
+					assertTrue(mean > 300 && mean < 505, "exponential mean " + mean);
+					break;
+			}
+		}
+	}
+
+	@Test
+	void testWriteAndGroups(@TempDir File dir) throws Exception {
+		LoadGenerator generator = new LoadGenerator();
+		generator.setCount(250);
+		generator.setGroupSize(100);
+		File file = new File(dir, "load.timers");
+		generator.write(file);
+		MultiTimerBean bean;
+		try (InputStream in = new FileInputStream(file)) {
+			bean = TimerUtils.getJsonb().fromJson(in, MultiTimerBean.class);
+		}
+		assertEquals(3, bean.getGroups().size());
+		assertEquals(50, bean.getGroups().get(2).getTimers().size());
+		assertEquals(250, bean.getTimerCount());
+		List<TimerBean> expected = generator.generate().getAllTimers();
+		List<TimerBean> actual = bean.getAllTimers();
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getName(), actual.get(i).getName());
+			assertEquals(expected.get(i).getIntInterval(), actual.get(i).getIntInterval());
+			assertEquals(expected.get(i).getIntWarnAfter(), actual.get(i).getIntWarnAfter());
+			assertEquals(expected.get(i).getRepeat(), actual.get(i).getRepeat());
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class NameIndexTest {
+	private static final String[] WORDS = { "Alpha", "Bravo", "Charlie", "Delta", "Echo", "Foxtrot", "Golf", "Hotel" };
+
+	private static TimerBean timer(String name) {
+		TimerBean timer = new TimerBean();
+		timer.setName(name);
+		return timer;
+	}
+
+	private static Set<String> names(Set<TimerBean> timers) {
+		return timers.stream().map(TimerBean::getName).collect(Collectors.toSet());
+	}
+
+	@Test
+	void testSearch() {
+		TimerGroupBean group = new TimerGroupBean("Group");
+		group.setTimers(List.of(timer("Tea"), timer("Boiled egg"), timer("Egg timer"), timer("X"), timer("Pizza")));
+		NameIndex index = group.getNameIndex();
+		assertEquals(5, index.size());
+
+		assertEquals(Set.of("Boiled egg", "Egg timer"), names(index.search("EGG")));
+		assertEquals(Set.of("Egg timer"), names(index.search("g ti")));
+		assertEquals(Set.of("Pizza"), names(index.search("PI")), "prefix not matched");
+		assertEquals(Set.of("Boiled egg", "Egg timer", "Tea"), names(index.search("e")));
+		assertEquals(Set.of("X"), names(index.search("x")), "single character name not matched");
+		assertEquals(Set.of("Tea"), names(index.search("ea")), "suffix not matched");
+		assertEquals(Set.of(), names(index.search("eggs")));
+		assertEquals(Set.of(), names(index.search("gge")));
+		assertEquals(Set.of("Boiled egg"), names(index.search("D ")), "pair spanning a space not matched");
+		assertEquals(Set.of(), names(index.search("gt")));
+		assertEquals(5, index.search("").size());
+		assertSame(index.search(""), index.search(""), "empty query copied the timers");
+	}
+
+	@Test
+	void testMaintainedByGroups() {
+		TimerGroupBean root = new TimerGroupBean("Root");
+		TimerGroupBean nested = new TimerGroupBean("Nested");
+		TimerBean tea = timer("Tea");
+		TimerBean coffee = timer("Coffee");
+		root.getTimers().add(tea);
+		NameIndex index = root.getNameIndex();
+		assertEquals(Set.of(tea), index.search("tea"));
+
+		// Timers added later, directly or in a nested group, are indexed.
+		nested.getTimers().add(coffee);
+		root.getGroups().add(nested);
+		assertEquals(Set.of(coffee), index.search("fee"));
+		nested.getTimers().add(timer("Cocoa"));
+		assertEquals(2, index.search("co").size());
+
+		// Renamed timers are found by their new names only, however they are renamed.
+		tea.setName("Green tea");
+		assertEquals(Set.of(tea), index.search("green"));
+		coffee.nameProperty().set("Espresso");
+		assertEquals(Set.of(), index.search("coffee"));
+		assertEquals(Set.of(coffee), index.search("press"));
+
+		// Removed timers and groups are no longer found.
+		root.getTimers().remove(tea);
+		assertEquals(Set.of(), index.search("tea"));
+		root.getGroups().remove(nested);
+		assertEquals(0, index.size());
+		tea.setName("Tea");
+		assertEquals(Set.of(), index.search("tea"));
+	}
+
+	@Test
+	void testSearchTime() {
+		final int count = 100_000;
+		final int queries = 2_000;
+		// The maximum mean time for a selective search.
+		final long maxNanos = 1_000_000;
+		Random random = new Random(42);
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			timers.add(timer(String.format(Locale.ROOT, "%s %05d", WORDS[i % WORDS.length], i)));
+		TimerGroupBean group = new TimerGroupBean("Group");
+		group.setTimers(timers);
+		NameIndex index = group.getNameIndex();
+
+		List<String> terms = new ArrayList<>(queries);
+		for (int i = 0; i < queries; i++) {
+			int n = random.nextInt(count);
+			terms.add(i % 2 == 0 ? String.format(Locale.ROOT, "%04d", n % 10_000)
+					: WORDS[n % WORDS.length].substring(2) + String.format(Locale.ROOT, " %05d", n).substring(0, 3));
+		}
+		for (String term : terms)
+			index.search(term);
+		long began = System.nanoTime();
+		int found = 0;
+		for (String term : terms)
+			found += index.search(term).size();
+		long meanNanos = (System.nanoTime() - began) / queries;
+		assertTrue(found >= queries, "searches missed their timers");
+		assertTrue(meanNanos <= maxNanos,
+				"searching " + count + " timers took " + meanNanos / 1000 + " us, budget " + maxNanos / 1000 + " us");
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import static io.github.demonfiddler.timer.model.TimerState.RUNNING;
+import static io.github.demonfiddler.timer.model.TimerState.STOPPED;
+import static io.github.demonfiddler.timer.model.TimerState.WAITING;
+import static io.github.demonfiddler.timer.model.TimerState.WARNING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.demonfiddler.timer.util.SystemClock;
+import io.github.demonfiddler.timer.util.TimerUtils;
+
+class SimulationTest {
+	private static final long MINUTE = 60 * 1000;
+
+	private static TimerBean timer(String name, String interval, String warnAfter, boolean repeat,
+			String... startAfter) {
+		TimerBean timer = new TimerBean();
+		timer.setName(name);
+		timer.setIsoInterval(interval);
+		timer.setIsoWarnAfter(warnAfter);
+		timer.setRepeat(repeat);
+		for (String predecessor : startAfter) {
+			String[] parts = predecessor.split(":");
+			timer.getStartAfter().add(new DependencyBean(parts[0], TimerState.valueOf(parts[1])));
+		}
+		return timer;
+	}
+
+	private static List<String> format(List<Simulation.Transition> trace, long startTime) {
+		return trace.stream()
+				.map(t -> (t.getTime() - startTime) / MINUTE + " " + t.getTimer().getName() + ' ' + t.getNewState())
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	void testRepeating() {
+		MultiTimerBean timers = new MultiTimerBean();
+		timers.getTimers().add(timer("A", "PT10M", "PT8M", true));
+		List<Simulation.Transition> trace = new Simulation(timers, 0).run(25 * MINUTE);
+		assertEquals(Arrays.asList("0 A RUNNING", "8 A WARNING", "10 A COMPLETE", "10 A RUNNING", "18 A WARNING",
+				"20 A COMPLETE", "20 A RUNNING"), format(trace, 0));
+		assertEquals(STOPPED, trace.get(0).getOldState());
+		assertEquals(STOPPED, timers.getTimers().get(0).getState(), "timer not stopped after the run");
+		assertSame(SystemClock.INSTANCE, TimerUtils.getClock(), "clock not restored");
+	}
+
+	@Test
+	void testChain() {
+		MultiTimerBean timers = new MultiTimerBean();
+		timers.getTimers().add(timer("A", "PT5M", "PT0S", false));
+		timers.getTimers().add(timer("B", "PT3M", "PT2M", false, "A:COMPLETE"));
+		timers.getTimers().add(timer("C", "PT1M", "PT0S", false, "B:WARNING"));
+		long startTime = 1_600_000_000_000L;
+		List<Simulation.Transition> trace = new Simulation(timers, startTime).run(60 * MINUTE);
+		assertEquals(Arrays.asList("0 B WAITING", "0 C WAITING", "0 A RUNNING", "5 A COMPLETE", "5 B RUNNING",
+				"7 B WARNING", "7 C RUNNING", "8 C COMPLETE", "8 B COMPLETE"), format(trace, startTime));
+		assertEquals(WAITING, trace.get(4).getOldState());
+		assertEquals(RUNNING, trace.get(5).getOldState());
+		assertEquals(WARNING, trace.get(8).getOldState());
+		timers.getTimers().forEach(t -> assertEquals(STOPPED, t.getState(), t.getName() + " not stopped after the run"));
+	}
+
+	@Test
+	void testTenThousandTimersForADay() {
+		MultiTimerBean timers = new MultiTimerBean();
+		List<TimerBean> list = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++)
+			list.add(timer("T" + i, "PT" + (5 + i % 56) + 'M', "PT" + (1 + i % 4) + 'M', true));
+		timers.setTimers(list);
+		long began = System.nanoTime();
+		long count = new Simulation(timers, 0).run(24 * 60 * MINUTE, t -> {
+		});
+		long elapsed = (System.nanoTime() - began) / 1_000_000;
+		// Each complete cycle of a timer produces three transitions: WARNING, COMPLETE and RUNNING.
+		long expected = 0;
+		for (int i = 0; i < 10_000; i++) {
+			int interval = 5 + i % 56;
+			int warnAfter = 1 + i % 4;
+			expected += 1 + 3 * (24 * 60 / interval) + (24 * 60 % interval >= warnAfter ? 1 : 0);
+		}
+		assertEquals(expected, count);
+		assertTrue(elapsed < 30_000, "simulating a day of 10,000 timers took " + elapsed + " ms");
+	}
+}
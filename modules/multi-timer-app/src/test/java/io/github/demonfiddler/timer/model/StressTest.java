@@ -0,0 +1,258 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.demonfiddler.timer.model.LoadGenerator.Distribution;
+import io.github.demonfiddler.timer.util.Clock;
+import io.github.demonfiddler.timer.util.Headless;
+import io.github.demonfiddler.timer.util.SystemClock;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import javafx.application.Platform;
+
+/**
+ * Runs generated workloads at scale and checks them against throughput,
+ * latency and heap ceilings. The workload size can be raised with the
+ * <code>stress.count</code> system property; the ceilings are per timer, so
+ * they hold at any size.
+ */
+class StressTest {
+	private static final int COUNT = Integer.getInteger("stress.count", 10_000);
+	/** The maximum retained heap per loaded timer, in bytes. */
+	private static final long MAX_BYTES_PER_TIMER = 4 * 1024;
+	/** The minimum number of timers loaded per second. */
+	private static final long MIN_LOADS_PER_SECOND = 5_000;
+	/** The minimum number of simulated transitions per second. */
+	private static final long MIN_TRANSITIONS_PER_SECOND = 100_000;
+	/** The maximum 99th percentile lateness of a deadline, in milliseconds. */
+	private static final long MAX_P99_LATENESS = 250;
+	/**
+	 * The most by which the time per timer to stop all timers may grow when the
+	 * timer count quadruples, which a quadratic stop would exceed.
+	 */
+	private static final double MAX_STOP_GROWTH = 2.5;
+
+	/**
+	 * The system clock, recording the tasks that it schedules, so that a test can
+	 * check that its own timers left none behind whatever other tests share the
+	 * executor.
+	 */
+	private static class RecordingClock implements Clock {
+		final List<ScheduledFuture<?>> futures = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public long currentTimeMillis() {
+			return SystemClock.INSTANCE.currentTimeMillis();
+		}
+
+		@Override
+		public long getTickMillis() {
+			return SystemClock.INSTANCE.getTickMillis();
+		}
+
+		@Override
+		public boolean isUiThread() {
+			return SystemClock.INSTANCE.isUiThread();
+		}
+
+		@Override
+		public void runLater(Runnable task) {
+			SystemClock.INSTANCE.runLater(task);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+			ScheduledFuture<?> future = SystemClock.INSTANCE.schedule(task, delay, unit);
+			futures.add(future);
+			return future;
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+			ScheduledFuture<?> future = SystemClock.INSTANCE.scheduleAtFixedRate(task, initialDelay, period, unit);
+			futures.add(future);
+			return future;
+		}
+	}
+
+	@BeforeAll
+	static void startToolkit() {
+		Headless.start();
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static LoadGenerator generator(int count) {
+		LoadGenerator generator = new LoadGenerator();
+		generator.setCount(count);
+		generator.setGroupSize(100);
+		return generator;
+	}
+
+	@Test
+	void testLoadThroughputAndHeap(@TempDir File dir) throws Exception {
+		File file = new File(dir, "stress.timers");
+		generator(COUNT).write(file);
+
+		long heapBefore = usedHeap();
+		long began = System.nanoTime();
+		MultiTimerBean bean;
+		try (InputStream in = new FileInputStream(file)) {
+			bean = TimerUtils.getJsonb().fromJson(in, MultiTimerBean.class);
+		}
+		bean.validate();
+		long elapsed = System.nanoTime() - began;
+		long bytesPerTimer = (usedHeap() - heapBefore) / COUNT;
+
+		assertEquals(COUNT, bean.getTimerCount());
+		long loadsPerSecond = COUNT * TimeUnit.SECONDS.toNanos(1) / elapsed;
+		assertTrue(loadsPerSecond >= MIN_LOADS_PER_SECOND, "loaded " + loadsPerSecond + " timers/s");
+		assertTrue(bytesPerTimer <= MAX_BYTES_PER_TIMER, "retained " + bytesPerTimer + " bytes/timer");
+	}
+
+	@Test
+	void testSimulatedThroughput() {
+		MultiTimerBean bean = generator(COUNT).generate();
+		long began = System.nanoTime();
+		long transitions = new Simulation(bean, 0).run(TimeUnit.HOURS.toMillis(24), t -> {
+		});
+		long elapsed = System.nanoTime() - began;
+
+		assertTrue(transitions > COUNT, "only " + transitions + " transitions");
+		long perSecond = transitions * TimeUnit.SECONDS.toNanos(1) / elapsed;
+		assertTrue(perSecond >= MIN_TRANSITIONS_PER_SECOND, "simulated " + perSecond + " transitions/s");
+	}
+
+	@Test
+	void testDeadlineLatency() throws Exception {
+		// Real time, so keep the intervals short and the timer count moderate.
+		LoadGenerator generator = generator(Math.min(COUNT, 2000));
+		generator.setMinInterval(1);
+		generator.setMaxInterval(3);
+		generator.setRepeatRatio(0);
+		MultiTimerBean bean = generator.generate();
+		List<TimerBean> timers = bean.getAllTimers();
+		long[] lateness = new long[timers.size()];
+		long[] startTime = new long[1];
+		CountDownLatch complete = new CountDownLatch(timers.size());
+		for (int i = 0; i < timers.size(); i++) {
+			TimerBean timer = timers.get(i);
+			int index = i;
+			timer.stateProperty().addListener((o, oldState, newState) -> {
+				if (newState == TimerState.COMPLETE) {
+					long due = startTime[0] + timer.getIntInterval() * 1000L;
+					lateness[index] = System.currentTimeMillis() - due;
+					complete.countDown();
+				}
+			});
+		}
+
+		Platform.runLater(() -> {
+			startTime[0] = TimerUtils.getClock().currentTimeMillis();
+			bean.run(true);
+		});
+		try {
+			assertTrue(complete.await(15, TimeUnit.SECONDS), complete.getCount() + " timers did not complete");
+		} finally {
+			Platform.runLater(() -> bean.run(false));
+		}
+
+		Arrays.sort(lateness);
+		long p99 = lateness[lateness.length * 99 / 100];
+		assertTrue(lateness[0] >= -1, "deadline reached " + -lateness[0] + " ms early");
+		assertTrue(p99 <= MAX_P99_LATENESS, "99th percentile lateness " + p99 + " ms");
+	}
+
+	/**
+	 * Starts each of a document's timers on its own, so each has its own
+	 * scheduled tasks, then returns the best time taken to stop them all.
+	 * 
+	 * @param count The number of timers.
+	 * @return the best time to stop all the timers, in nanoseconds.
+	 */
+	private static long stopAllNanos(int count) throws Exception {
+		MultiTimerBean bean = generator(count).generate();
+		RecordingClock clock = new RecordingClock();
+		TimerUtils.setClock(clock);
+		try {
+			long best = Long.MAX_VALUE;
+			for (int i = 0; i < 3; i++) {
+				best = Math.min(best, Headless.call(() -> {
+					bean.getAllTimers().forEach(TimerBean::start);
+					long began = System.nanoTime();
+					bean.run(false);
+					return System.nanoTime() - began;
+				}));
+			}
+			assertEquals(TimerState.STOPPED, bean.getState());
+			assertTrue(clock.futures.stream().allMatch(ScheduledFuture::isDone), "stopped timers left tasks scheduled");
+			return best;
+		} finally {
+			TimerUtils.setClock(SystemClock.INSTANCE);
+		}
+	}
+
+	@Test
+	void testStopAllScalesLinearly() throws Exception {
+		// Warm up, so the first measurement does not include compilation.
+		stopAllNanos(COUNT);
+		long small = stopAllNanos(COUNT);
+		long large = stopAllNanos(4 * COUNT);
+		double growth = (double) large / (4 * Math.max(small, TimeUnit.MILLISECONDS.toNanos(1)));
+		assertTrue(growth <= MAX_STOP_GROWTH, "stopping " + 4 * COUNT + " timers took " + large / 1_000_000
+				+ " ms against " + small / 1_000_000 + " ms for " + COUNT + ", " + growth + "x per timer");
+	}
+
+	@Test
+	void testExponentialIntervals() {
+		// Many very short intervals concentrate the deadlines.
+		LoadGenerator generator = generator(COUNT);
+		generator.setDistribution(Distribution.EXPONENTIAL);
+		generator.setMinInterval(1);
+		generator.setMaxInterval(600);
+		generator.setRepeatRatio(1);
+		long began = System.nanoTime();
+		long transitions = new Simulation(generator.generate(), 0).run(TimeUnit.HOURS.toMillis(1), t -> {
+		});
+		long perSecond = transitions * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - began);
+		assertTrue(perSecond >= MIN_TRANSITIONS_PER_SECOND, "simulated " + perSecond + " transitions/s");
+	}
+}
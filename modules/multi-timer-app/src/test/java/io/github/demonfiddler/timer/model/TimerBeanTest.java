@@ -0,0 +1,469 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.demonfiddler.timer.util.Clock;
+import io.github.demonfiddler.timer.util.SystemClock;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import io.github.demonfiddler.timer.util.VirtualClock;
+
+class TimerBeanTest {
+	/**
+	 * A virtual clock whose UI thread can be stalled.
+	 */
+	static class StallableClock implements Clock {
+		final VirtualClock delegate;
+		final List<Runnable> uiTasks = new ArrayList<>();
+		boolean stalled;
+
+		StallableClock(long tickMillis) {
+			delegate = new VirtualClock(0, tickMillis);
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return delegate.currentTimeMillis();
+		}
+
+		@Override
+		public long getTickMillis() {
+			return delegate.getTickMillis();
+		}
+
+		@Override
+		public void runLater(Runnable task) {
+			if (stalled)
+				uiTasks.add(task);
+			else
+				delegate.runLater(task);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+			return delegate.schedule(task, delay, unit);
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+			return delegate.scheduleAtFixedRate(task, initialDelay, period, unit);
+		}
+	}
+
+	/**
+	 * A virtual clock that counts the tasks scheduled on it.
+	 */
+	static class CountingClock extends StallableClock {
+		int scheduled;
+		int scheduledAtFixedRate;
+
+		CountingClock(long tickMillis) {
+			super(tickMillis);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+			scheduled++;
+			return super.schedule(task, delay, unit);
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+			scheduledAtFixedRate++;
+			return super.scheduleAtFixedRate(task, initialDelay, period, unit);
+		}
+	}
+
+	/**
+	 * A real-time clock whose deadlines and ticks are too far off to fall due
+	 * during a test, so that only the state machine is exercised.
+	 */
+	static class QuietClock implements Clock {
+		@Override
+		public long currentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+
+		@Override
+		public long getTickMillis() {
+			return TimeUnit.HOURS.toMillis(1);
+		}
+
+		@Override
+		public void runLater(Runnable task) {
+			task.run();
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+			return TimerUtils.EXECUTOR.schedule(task, delay, unit);
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+			return TimerUtils.EXECUTOR.scheduleAtFixedRate(task, initialDelay, period, unit);
+		}
+	}
+
+	@AfterEach
+	void restoreClock() {
+		TimerUtils.setClock(SystemClock.INSTANCE);
+	}
+
+	@Test
+	void testProgressCoalescedWhileStalled() {
+		StallableClock clock = new StallableClock(1000);
+		TimerUtils.setClock(clock);
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT1M40S");
+		timer.setIsoWarnAfter("PT1M20S");
+		timer.start();
+		clock.delegate.advance(10_000);
+		assertEquals(0.1, timer.getProgress(), 1e-9);
+
+		// Forty ticks while the UI thread is stalled leave a single pending update.
+		clock.stalled = true;
+		clock.delegate.advance(40_000);
+		assertEquals(1, clock.uiTasks.size(), "progress updates not coalesced");
+		assertEquals(1, TimerUtils.UPDATE_QUEUE.getPendingCount());
+		assertEquals(0.1, timer.getProgress(), 1e-9);
+
+		// On resuming, only the latest value is applied.
+		clock.stalled = false;
+		clock.uiTasks.forEach(Runnable::run);
+		clock.uiTasks.clear();
+		assertEquals(0.5, timer.getProgress(), 1e-9);
+		assertEquals(50_000, timer.getRemainingMillis());
+		assertEquals(0, TimerUtils.UPDATE_QUEUE.getPendingCount());
+
+		// Stopping restores the full interval.
+		timer.stop();
+		assertEquals(0, timer.getProgress(), 1e-9);
+		assertEquals(100_000, timer.getRemainingMillis());
+	}
+
+	@Test
+	void testSuspendedUpdates() {
+		StallableClock clock = new StallableClock(100);
+		TimerUtils.setClock(clock);
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT1M40S");
+		timer.setIsoWarnAfter("PT1M");
+		List<Long> updates = new ArrayList<>();
+		timer.remainingMillisProperty().addListener((o, ov, nv) -> updates.add(nv.longValue()));
+		timer.start();
+		clock.delegate.advance(10_000);
+		updates.clear();
+
+		// While suspended, the ticker queues one resync and publishes nothing, but the
+		// warning deadline is still reached.
+		TimerUtils.UPDATE_QUEUE.setSuspended(true);
+		try {
+			clock.delegate.advance(60_000);
+			assertEquals(TimerState.WARNING, timer.getState());
+			updates.clear();
+			clock.delegate.advance(20_000);
+			assertEquals(0, updates.size(), "progress published while suspended");
+			assertEquals(1, TimerUtils.UPDATE_QUEUE.getPendingCount());
+		} finally {
+			TimerUtils.UPDATE_QUEUE.setSuspended(false);
+		}
+
+		// Resuming resynchronises with the clock in a single update.
+		clock.delegate.advance(0);
+		assertEquals(Arrays.asList(10_000L), updates);
+		assertEquals(0.9, timer.getProgress(), 1e-9);
+		assertEquals(0, TimerUtils.UPDATE_QUEUE.getPendingCount());
+	}
+
+	@Test
+	void testPixelAwareProgress() {
+		StallableClock clock = new StallableClock(100);
+		TimerUtils.setClock(clock);
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT1M40S");
+		List<Long> updates = new ArrayList<>();
+		timer.remainingMillisProperty().addListener((o, ov, nv) -> updates.add(nv.longValue()));
+		// One pixel is 0.1% of the interval, or 100 ms, so every tick is published.
+		timer.setProgressResolution(0.001);
+		timer.start();
+		updates.clear();
+		clock.delegate.advance(10_000);
+		assertEquals(100, updates.size());
+
+		// One pixel is 4% of the interval, or 4 s, but whole seconds are still published.
+		// That makes ten updates for the seconds plus three at the pixels at 12, 16 and
+		// 20 s, rather than a hundred.
+		timer.setProgressResolution(0.04);
+		updates.clear();
+		clock.delegate.advance(10_000);
+		assertEquals(13, updates.size());
+		assertEquals(80_000, timer.getRemainingMillis());
+		timer.stop();
+	}
+
+	@Test
+	void testPixelAwareProgressShortTimer() {
+		StallableClock clock = new StallableClock(100);
+		TimerUtils.setClock(clock);
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT2S");
+		// One pixel is 10% of the interval, or 200 ms.
+		timer.setProgressResolution(0.1);
+		List<Double> updates = new ArrayList<>();
+		timer.start();
+		timer.progressProperty().addListener((o, ov, nv) -> updates.add(nv.doubleValue()));
+		// Of nineteen ticks, only the first, one per pixel thereafter and one when the
+		// remaining time drops below a second are published.
+		clock.delegate.advance(1_900);
+		assertEquals(11, updates.size(), "updates published for sub-pixel progress: " + updates);
+		timer.stop();
+	}
+
+	@Test
+	void testTransitionFlushesProgress() {
+		StallableClock clock = new StallableClock(1000);
+		TimerUtils.setClock(clock);
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT1M40S");
+		timer.setIsoWarnAfter("PT1M20S");
+		timer.setRepeat(true);
+		timer.start();
+		clock.delegate.advance(79_500);
+		assertEquals(0.79, timer.getProgress(), 1e-9);
+		clock.delegate.advance(500);
+		assertEquals(TimerState.WARNING, timer.getState());
+		assertEquals(0.8, timer.getProgress(), 1e-9, "warning did not set the exact progress");
+
+		// A stale update still pending when the run completes must not overwrite the
+		// next run's progress.
+		clock.delegate.advance(19_999);
+		clock.stalled = true;
+		clock.delegate.advance(1);
+		clock.stalled = false;
+		assertEquals(TimerState.WARNING, timer.getState(), "deadline applied while the UI thread was stalled");
+		clock.uiTasks.forEach(Runnable::run);
+		assertEquals(TimerState.RUNNING, timer.getState());
+		assertEquals(0.0, timer.getProgress(), 1e-9);
+		assertEquals(100_000, timer.getRemainingMillis());
+		timer.stop();
+	}
+
+	@Test
+	void testConcurrentStartStop() throws Exception {
+		final int threads = 8;
+		final int iterations = 20_000;
+		final int count = 16;
+		TimerUtils.setClock(new QuietClock());
+		TimerGroupBean group = new TimerGroupBean("Group");
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TimerBean timer = new TimerBean();
+			timer.setIsoInterval("PT1H");
+			timers.add(timer);
+		}
+		group.getTimers().addAll(timers);
+		int queued = TimerUtils.EXECUTOR.getQueue().size();
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch go = new CountDownLatch(1);
+			List<Future<?>> results = new ArrayList<>(threads);
+			for (int t = 0; t < threads; t++) {
+				Random random = new Random(t);
+				results.add(pool.submit(() -> {
+					go.await();
+					for (int i = 0; i < iterations; i++) {
+						TimerBean timer = timers.get(random.nextInt(count));
+						switch (random.nextInt(3)) {
+							case 0:
+								timer.start();
+								break;
+							case 1:
+								timer.stop();
+								break;
+							default:
+								timer.standby();
+								break;
+						}
+					}
+					return null;
+				}));
+			}
+			long start = System.nanoTime();
+			go.countDown();
+			for (Future<?> result : results)
+				result.get(1, TimeUnit.MINUTES);
+			long elapsed = System.nanoTime() - start;
+			System.out.printf("TimerBeanTest: %,d operations/s across %d threads%n",
+					threads * (long) iterations * TimeUnit.SECONDS.toNanos(1) / elapsed, threads);
+		} finally {
+			pool.shutdown();
+		}
+
+		// Each transition was reported exactly once, so the group's counts agree with the timers.
+		for (TimerState state : TimerState.values())
+			assertEquals(timers.stream().filter(t -> t.getState() == state).count(), group.getCount(state),
+					"count of " + state + " timers");
+		timers.forEach(TimerBean::stop);
+		assertEquals(count, group.getCount(TimerState.STOPPED));
+		// No run was left with a deadline or ticker scheduled.
+		assertEquals(queued, TimerUtils.EXECUTOR.getQueue().size(), "tasks left scheduled");
+	}
+
+	@Test
+	void testStateMirroredOnUiThread() {
+		StallableClock clock = new StallableClock(0) {
+			@Override
+			public boolean isUiThread() {
+				return !stalled;
+			}
+		};
+		TimerUtils.setClock(clock);
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT10S");
+		List<TimerState> mirrored = new ArrayList<>();
+		timer.stateProperty().addListener((o, ov, nv) -> mirrored.add(nv));
+
+		// Away from the UI thread the state changes at once, but the property only
+		// catches up when the UI thread runs.
+		clock.stalled = true;
+		timer.start();
+		assertEquals(TimerState.RUNNING, timer.getState());
+		assertEquals(TimerState.STOPPED, timer.stateProperty().get());
+		timer.stop();
+		timer.start();
+		clock.stalled = false;
+		clock.uiTasks.forEach(Runnable::run);
+		clock.uiTasks.clear();
+		assertEquals(TimerState.RUNNING, timer.stateProperty().get());
+		assertEquals(Arrays.asList(TimerState.RUNNING), mirrored);
+
+		// On the UI thread each transition is mirrored at once.
+		clock.delegate.advance(10_000);
+		timer.stop();
+		assertEquals(Arrays.asList(TimerState.RUNNING, TimerState.COMPLETE, TimerState.STOPPED), mirrored);
+	}
+
+	@Test
+	void testTransitions() {
+		assertTrue(TimerState.STOPPED.canTransitionTo(TimerState.RUNNING));
+		assertTrue(TimerState.COMPLETE.canTransitionTo(TimerState.RUNNING));
+		assertTrue(TimerState.WARNING.canTransitionTo(TimerState.STOPPED));
+		assertFalse(TimerState.STOPPED.canTransitionTo(TimerState.STOPPED));
+		assertFalse(TimerState.STOPPED.canTransitionTo(TimerState.WARNING));
+		assertFalse(TimerState.WAITING.canTransitionTo(TimerState.COMPLETE));
+		assertFalse(TimerState.RUNNING.canTransitionTo(TimerState.WAITING));
+		assertFalse(TimerState.WARNING.canTransitionTo(TimerState.RUNNING));
+
+		// Requests that would make an invalid transition have no effect.
+		TimerUtils.setClock(new VirtualClock(0));
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT10S");
+		timer.start();
+		timer.standby();
+		timer.start();
+		assertEquals(TimerState.RUNNING, timer.getState());
+		timer.stop();
+		timer.stop();
+		assertEquals(TimerState.STOPPED, timer.getState());
+	}
+
+	@Test
+	void testPauseResume() {
+		CountingClock clock = new CountingClock(1000);
+		TimerUtils.setClock(clock);
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT1M40S");
+		timer.setIsoWarnAfter("PT1M20S");
+		timer.setRepeat(true);
+		List<String> transitions = new ArrayList<>();
+		timer.addTransitionListener((t, newState, when) -> transitions.add(newState + "@" + when));
+		timer.start();
+		clock.delegate.advance(30_000);
+
+		// A paused timer's remaining time stands still, and it schedules nothing.
+		timer.pause();
+		assertEquals(TimerState.PAUSED, timer.getState());
+		assertEquals(70_000, timer.getRemainingMillis());
+		assertEquals(Long.MAX_VALUE, clock.delegate.getNextTime(), "paused timer left tasks scheduled");
+		clock.delegate.advance(60_000);
+		assertEquals(TimerState.PAUSED, timer.getState());
+		assertEquals(70_000, timer.getRemainingMillis());
+		assertEquals(0.3, timer.getProgress(), 1e-9);
+
+		// Resuming re-arms the deadline and the ticker.
+		timer.resume();
+		assertEquals(TimerState.RUNNING, timer.getState());
+		assertEquals(70_000, timer.getRemainingMillis());
+		assertEquals(2, clock.scheduledAtFixedRate, "ticker not rescheduled");
+		clock.delegate.advance(70_000);
+		assertEquals(Arrays.asList("WARNING@140000", "COMPLETE@160000"), transitions);
+		assertEquals(TimerState.RUNNING, timer.getState());
+
+		// A timer paused while warning resumes warning.
+		clock.delegate.advance(90_000);
+		timer.pause();
+		timer.resume();
+		assertEquals(TimerState.WARNING, timer.getState());
+		assertEquals(3, clock.scheduledAtFixedRate);
+		timer.stop();
+		assertEquals(TimerState.STOPPED, timer.getState());
+		assertEquals(Long.MAX_VALUE, clock.delegate.getNextTime());
+	}
+
+	@Test
+	void testPauseSavedAndLoaded() {
+		TimerUtils.setClock(new VirtualClock(0, 1000));
+		TimerBean timer = new TimerBean();
+		timer.setIsoInterval("PT1M");
+		timer.start();
+		assertFalse(TimerUtils.getJsonb().toJson(timer).contains("paused"));
+		((VirtualClock) TimerUtils.getClock()).advance(12_345);
+		timer.pause();
+		String json = TimerUtils.getJsonb().toJson(timer);
+		assertTrue(json.contains("\"paused\":\"PT47.655S\""), json);
+		timer.stop();
+
+		TimerBean loaded = TimerUtils.getJsonb().fromJson(json, TimerBean.class);
+		assertEquals(TimerState.PAUSED, loaded.getState());
+		assertEquals(47_655, loaded.getRemainingMillis());
+		loaded.resume();
+		assertEquals(TimerState.RUNNING, loaded.getState());
+		((VirtualClock) TimerUtils.getClock()).advance(47_655);
+		assertEquals(TimerState.COMPLETE, loaded.getState());
+	}
+}
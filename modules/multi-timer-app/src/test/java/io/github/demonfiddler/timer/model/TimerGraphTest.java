@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TimerGraphTest {
+	/**
+	 * A timer that records when it was started instead of running.
+	 */
+	static class RecordingTimerBean extends TimerBean {
+		long startTime = Long.MIN_VALUE;
+
+		RecordingTimerBean(String name, String... startAfter) {
+			setName(name);
+			for (String predecessor : startAfter) {
+				String[] parts = predecessor.split(":");
+				getStartAfter().add(new DependencyBean(parts[0], TimerState.valueOf(parts[1])));
+			}
+		}
+
+		@Override
+		public void start(long startTime) {
+			this.startTime = startTime;
+		}
+	}
+
+	@Test
+	void testChain() {
+		RecordingTimerBean a = new RecordingTimerBean("A");
+		RecordingTimerBean b = new RecordingTimerBean("B", "A:COMPLETE");
+		RecordingTimerBean c = new RecordingTimerBean("C", "A:WARNING", "B:WARNING");
+		TimerGraph graph = TimerGraph.build(Arrays.asList(a, b, c));
+		assertFalse(graph.hasPredecessors(a));
+		assertTrue(graph.hasPredecessors(b));
+		assertTrue(graph.hasPredecessors(c));
+
+		graph.transition(a, TimerState.WARNING, 1000);
+		assertEquals(Long.MIN_VALUE, c.startTime, "C started before B warned");
+		graph.transition(a, TimerState.COMPLETE, 2000);
+		assertEquals(2000, b.startTime, "B not started at A's deadline");
+		graph.transition(b, TimerState.WARNING, 2500);
+		assertEquals(2500, c.startTime, "C not started at the latest deadline");
+
+		// Dependencies are reset once satisfied, so a repeating predecessor starts its
+		// successor again.
+		graph.transition(a, TimerState.COMPLETE, 3000);
+		assertEquals(3000, b.startTime, "B not restarted by A's next cycle");
+	}
+
+	@Test
+	void testCycle() {
+		List<TimerBean> timers = Arrays.asList(new RecordingTimerBean("A", "C:COMPLETE"),
+				new RecordingTimerBean("B", "A:COMPLETE"), new RecordingTimerBean("C", "B:WARNING"),
+				new RecordingTimerBean("D", "C:COMPLETE"));
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> TimerGraph.build(timers));
+		assertTrue(e.getMessage().endsWith("A -> B -> C -> A") || e.getMessage().endsWith("B -> C -> A -> B")
+				|| e.getMessage().endsWith("C -> A -> B -> C"), e.getMessage());
+	}
+
+	@Test
+	void testSelfDependency() {
+		List<TimerBean> timers = Arrays.asList(new RecordingTimerBean("A", "A:WARNING"));
+		assertThrows(IllegalArgumentException.class, () -> TimerGraph.build(timers));
+	}
+
+	@Test
+	void testUnknownAndAmbiguous() {
+		assertThrows(IllegalArgumentException.class,
+				() -> TimerGraph.build(Arrays.asList(new RecordingTimerBean("A", "X:COMPLETE"))));
+		assertThrows(IllegalArgumentException.class, () -> TimerGraph.build(Arrays.asList(
+				new RecordingTimerBean("A"), new RecordingTimerBean("A"), new RecordingTimerBean("B", "A:COMPLETE"))));
+	}
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyNamingStrategy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.demonfiddler.timer.model.TimerBeanTest.CountingClock;
+import io.github.demonfiddler.timer.model.TimerBeanTest.QuietClock;
+import io.github.demonfiddler.timer.model.TimerBeanTest.StallableClock;
+import io.github.demonfiddler.timer.util.SystemClock;
+import io.github.demonfiddler.timer.util.TimerUtils;
+import io.github.demonfiddler.timer.util.VirtualClock;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+class TimerGroupBeanTest {
+	private static TimerBean timer(String name) {
+		TimerBean timer = new TimerBean();
+		timer.setName(name);
+		timer.setIntInterval(60);
+		return timer;
+	}
+
+	@AfterEach
+	void restoreClock() {
+		TimerUtils.setClock(SystemClock.INSTANCE);
+	}
+
+	@Test
+	void testBulkAddRemove() {
+		final int count = 10_000;
+		// The maximum time to remove half of the timers, which a quadratic removal would exceed.
+		final long maxRemoveMillis = 1000;
+		// The test thread stands in for the UI thread, so the properties change at once.
+		TimerUtils.setClock(new VirtualClock(0));
+		TimerGroupBean outer = new TimerGroupBean("Outer");
+		TimerGroupBean inner = new TimerGroupBean("Inner");
+		outer.getGroups().add(inner);
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TimerBean timer = timer("Timer " + i);
+			if (i % 4 == 0)
+				timer.standby();
+			timers.add(timer);
+		}
+		int[] changes = new int[1];
+		((ObservableList<TimerBean>) inner.getTimers())
+				.addListener((ListChangeListener<TimerBean>) c -> changes[0]++);
+		int[] stateChanges = new int[1];
+		outer.stateProperty().addListener((o, ov, nv) -> stateChanges[0]++);
+
+		inner.setTimers(timers);
+		assertEquals(1, changes[0], "bulk set fired more than one list change");
+		assertEquals(1, stateChanges[0], "aggregate state not updated in one step");
+		assertEquals(count, outer.getTimerCount());
+		assertEquals(count / 4, outer.getCount(TimerState.WAITING));
+		assertEquals(TimerState.WAITING, outer.getState());
+
+		// Remove every other timer, which leaves no waiting timers.
+		List<TimerBean> removed = new ArrayList<>(count / 2);
+		for (int i = 0; i < count; i += 2)
+			removed.add(timers.get(i));
+		long start = System.nanoTime();
+		inner.removeTimers(removed);
+		long elapsed = (System.nanoTime() - start) / 1_000_000;
+		assertTrue(elapsed <= maxRemoveMillis,
+				"removing " + removed.size() + " timers took " + elapsed + " ms, budget " + maxRemoveMillis + " ms");
+		assertEquals(2, changes[0], "bulk remove fired more than one list change");
+		assertEquals(2, stateChanges[0]);
+		assertEquals(count / 2, outer.getTimerCount());
+		assertEquals(0, outer.getCount(TimerState.WAITING));
+		assertEquals(TimerState.STOPPED, outer.getState());
+		assertNull(removed.get(0).getGroup());
+		assertSame(inner, timers.get(1).getGroup());
+
+		inner.removeTimers(inner.getTimers());
+		assertEquals(0, outer.getTimerCount());
+	}
+
+	@Test
+	void testAggregateState() {
+		TimerGroupBean outer = new TimerGroupBean("Outer");
+		TimerGroupBean inner = new TimerGroupBean("Inner");
+		TimerBean a = timer("A");
+		TimerBean b = timer("B");
+		TimerBean c = timer("C");
+		outer.getTimers().add(a);
+		inner.getTimers().addAll(List.of(b, c));
+		outer.getGroups().add(inner);
+		assertEquals(3, outer.getTimerCount());
+		assertEquals(TimerState.STOPPED, outer.getState());
+		assertSame(inner, b.getGroup());
+		assertSame(outer, inner.getParent());
+
+		c.standby();
+		assertEquals(TimerState.WAITING, inner.getState());
+		assertEquals(TimerState.WAITING, outer.getState());
+		try {
+			b.start();
+			assertEquals(TimerState.RUNNING, outer.getState());
+			assertEquals(1, outer.getCount(TimerState.RUNNING));
+			assertEquals(1, outer.getCount(TimerState.WAITING));
+			assertEquals(1, outer.getCount(TimerState.STOPPED));
+
+			inner.stop();
+			assertEquals(TimerState.STOPPED, outer.getState());
+			assertEquals(3, outer.getCount(TimerState.STOPPED));
+
+			outer.start();
+			assertEquals(3, outer.getCount(TimerState.RUNNING));
+		} finally {
+			outer.stop();
+		}
+
+		// Removing a group subtracts its members from the ancestors' aggregates.
+		outer.getGroups().remove(inner);
+		assertEquals(1, outer.getTimerCount());
+		assertEquals(1, outer.getCount(TimerState.STOPPED));
+		assertNull(inner.getParent());
+		assertEquals(2, inner.getTimerCount());
+
+		// A member of another group is rejected before the list changes.
+		TimerBean e = timer("E");
+		assertThrows(IllegalArgumentException.class, () -> outer.getTimers().addAll(List.of(e, b)));
+		assertThrows(IllegalArgumentException.class, () -> outer.getTimers().set(0, c));
+		TimerGroupBean other = new TimerGroupBean("Other");
+		other.getGroups().add(inner);
+		assertThrows(IllegalArgumentException.class, () -> outer.getGroups().add(inner));
+		assertSame(other, inner.getParent());
+		assertEquals(List.of(a), outer.getTimers());
+		assertEquals(1, outer.getTimerCount());
+		assertSame(inner, b.getGroup());
+		assertNull(e.getGroup());
+	}
+
+	@Test
+	void testMembershipRacesWithTransitions() throws Exception {
+		final int count = 100;
+		final int rounds = 500;
+		TimerUtils.setClock(new QuietClock() {
+			@Override
+			public boolean isUiThread() {
+				return false;
+			}
+
+			@Override
+			public void runLater(Runnable task) {
+			}
+		});
+		TimerGroupBean group = new TimerGroupBean("Group");
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			timers.add(timer("Timer " + i));
+		// One thread keeps starting and stopping the timers while they join and leave the group.
+		AtomicBoolean done = new AtomicBoolean();
+		Thread toggler = new Thread(() -> {
+			while (!done.get()) {
+				for (TimerBean timer : timers) {
+					if (timer.getState().isRunning())
+						timer.stop();
+					else
+						timer.start();
+				}
+			}
+		});
+		toggler.start();
+		try {
+			for (int i = 0; i < rounds; i++) {
+				group.setTimers(timers);
+				group.removeTimers(timers);
+			}
+			group.setTimers(timers);
+		} finally {
+			done.set(true);
+			toggler.join();
+		}
+		int running = (int) timers.stream().filter(t -> t.getState().isRunning()).count();
+		assertEquals(count, group.getTimerCount());
+		assertEquals(running, group.getCount(TimerState.RUNNING));
+		assertEquals(count - running, group.getCount(TimerState.STOPPED));
+		group.stop();
+		assertEquals(count, group.getCount(TimerState.STOPPED));
+	}
+
+	@Test
+	void testPropertiesPublishedOnUiThread() {
+		StallableClock clock = new StallableClock(1000) {
+			@Override
+			public boolean isUiThread() {
+				return false;
+			}
+		};
+		clock.stalled = true;
+		TimerUtils.setClock(clock);
+		TimerGroupBean outer = new TimerGroupBean("Outer");
+		TimerGroupBean inner = new TimerGroupBean("Inner");
+		outer.getGroups().add(inner);
+		inner.setTimers(List.of(timer("A"), timer("B"), timer("C")));
+		clock.uiTasks.forEach(Runnable::run);
+		clock.uiTasks.clear();
+
+		// Off the UI thread the aggregates change at once, but the properties only later on the UI thread.
+		inner.start();
+		assertEquals(TimerState.RUNNING, outer.getState());
+		assertEquals(3, outer.getCount(TimerState.RUNNING));
+		assertEquals(TimerState.STOPPED, outer.stateProperty().get());
+		assertEquals(TimerState.STOPPED, inner.stateProperty().get());
+		assertEquals(2, clock.uiTasks.size(), "property updates not coalesced to one per group");
+		clock.uiTasks.forEach(Runnable::run);
+		assertEquals(TimerState.RUNNING, outer.stateProperty().get());
+		assertEquals(TimerState.RUNNING, inner.stateProperty().get());
+		inner.stop();
+	}
+
+	@Test
+	void testJsonRoundTrip() {
+		JsonbConfig jsonbConfig = new JsonbConfig();
+		jsonbConfig.setProperty(JsonbConfig.PROPERTY_NAMING_STRATEGY, PropertyNamingStrategy.LOWER_CASE_WITH_DASHES);
+		Jsonb jsonb = JsonbBuilder.newBuilder("org.apache.johnzon.jsonb.JohnzonProvider").withConfig(jsonbConfig).build();
+
+		MultiTimerBean src = new MultiTimerBean();
+		src.getTimers().add(timer("A"));
+		TimerGroupBean outer = new TimerGroupBean("Outer");
+		outer.setCollapsed(true);
+		outer.getTimers().add(timer("B"));
+		TimerGroupBean inner = new TimerGroupBean("Inner");
+		inner.getTimers().add(timer("C"));
+		outer.getGroups().add(inner);
+		src.getGroups().add(outer);
+
+		MultiTimerBean dst = jsonb.fromJson(jsonb.toJson(src), MultiTimerBean.class);
+		assertEquals(3, dst.getTimerCount());
+		assertEquals(1, dst.getTimers().size());
+		TimerGroupBean dstOuter = dst.getGroups().get(0);
+		assertEquals("Outer", dstOuter.getName());
+		assertTrue(dstOuter.getCollapsed());
+		assertEquals("Inner", dstOuter.getGroups().get(0).getName());
+		assertEquals("C", dstOuter.getGroups().get(0).getTimers().get(0).getName());
+		assertEquals(List.of("A", "B", "C"),
+				dst.getAllTimers().stream().map(TimerBean::getName).collect(Collectors.toList()));
+	}
+
+	@Test
+	void testSynchronisedStart() {
+		final int count = 100;
+		final int repeats = 5;
+		CountingClock clock = new CountingClock(1000);
+		TimerUtils.setClock(clock);
+		clock.delegate.advance(1234);
+		TimerGroupBean group = new TimerGroupBean("Lock-step");
+		List<TimerBean> timers = new ArrayList<>(count);
+		List<List<String>> transitions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TimerBean timer = timer("Timer " + i);
+			timer.setIsoWarnAfter("PT30S");
+			timer.setRepeat(true);
+			List<String> log = new ArrayList<>();
+			timer.addTransitionListener((t, newState, when) -> log.add(newState + "@" + when));
+			transitions.add(log);
+			timers.add(timer);
+		}
+		group.setTimers(timers);
+
+		// The whole group is armed with one deadline task and one ticker.
+		group.start();
+		assertEquals(count, group.getCount(TimerState.RUNNING));
+		assertEquals(1, clock.scheduled, "deadlines not armed in one batch");
+		assertEquals(1, clock.scheduledAtFixedRate, "tickers not shared");
+
+		// Each repeat reaches both deadlines of every timer with one task apiece, exactly on time.
+		clock.delegate.advance(repeats * 60_000L);
+		assertEquals(1 + 2 * repeats, clock.scheduled, "lock-step timers drifted apart");
+		assertEquals(1, clock.scheduledAtFixedRate);
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < repeats; i++) {
+			expected.add(TimerState.WARNING + "@" + (1234 + i * 60_000L + 30_000));
+			expected.add(TimerState.COMPLETE + "@" + (1234 + (i + 1) * 60_000L));
+		}
+		for (List<String> log : transitions)
+			assertEquals(expected, log);
+		assertEquals(count, group.getCount(TimerState.RUNNING));
+
+		// Stopping the last timer of the batch cancels its shared tasks.
+		group.stop();
+		assertEquals(Long.MAX_VALUE, clock.delegate.getNextTime());
+	}
+
+	@Test
+	void testBulkPauseResume() {
+		final int count = 10_000;
+		CountingClock clock = new CountingClock(1000);
+		TimerUtils.setClock(clock);
+		TimerGroupBean group = new TimerGroupBean("Paused");
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TimerBean timer = timer("Timer " + i);
+			timer.setIsoWarnAfter("PT30S");
+			timers.add(timer);
+		}
+		group.setTimers(timers);
+		group.start();
+		clock.delegate.advance(40_000);
+		assertEquals(count, group.getCount(TimerState.WARNING));
+		int scheduled = clock.scheduled;
+
+		group.pause();
+		assertEquals(count, group.getCount(TimerState.PAUSED));
+		assertEquals(TimerState.PAUSED, group.getState());
+		// Nothing remains scheduled, not even the shared ticker, and the remaining time stands still.
+		assertEquals(Long.MAX_VALUE, clock.delegate.getNextTime(), "paused timers left tasks scheduled");
+		clock.delegate.advance(600_000);
+		assertEquals(count, group.getCount(TimerState.PAUSED));
+		for (TimerBean timer : timers)
+			assertEquals(20_000, timer.getRemainingMillis());
+
+		group.resume();
+		assertEquals(count, group.getCount(TimerState.WARNING));
+		assertEquals(scheduled + 1, clock.scheduled, "resumed deadlines not re-armed in one task");
+		assertEquals(2, clock.scheduledAtFixedRate, "resumed timers not ticked by one shared ticker");
+		clock.delegate.advance(10_000);
+		for (TimerBean timer : timers)
+			assertEquals(10_000, timer.getRemainingMillis());
+		clock.delegate.advance(10_000);
+		assertEquals(TimerState.COMPLETE, group.getState());
+		assertEquals(Long.MAX_VALUE, clock.delegate.getNextTime());
+	}
+
+	@Test
+	void testBulkPausePartOfBatch() {
+		final int count = 100;
+		CountingClock clock = new CountingClock(1000);
+		TimerUtils.setClock(clock);
+		TimerGroupBean group = new TimerGroupBean("Group");
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TimerBean timer = timer("Timer " + i);
+			timer.setIsoWarnAfter("PT30S");
+			timers.add(timer);
+		}
+		group.setTimers(timers);
+		group.start();
+		clock.delegate.advance(10_000);
+
+		// Pausing half of a batch leaves the shared deadlines in place for the other half.
+		List<TimerBean> paused = timers.subList(0, count / 2);
+		TimerBean.pause(paused);
+		assertEquals(count / 2, group.getCount(TimerState.PAUSED));
+		assertEquals(count / 2, group.getCount(TimerState.RUNNING));
+		clock.delegate.advance(50_000);
+		assertEquals(count / 2, group.getCount(TimerState.COMPLETE));
+		assertEquals(count / 2, group.getCount(TimerState.PAUSED));
+		for (TimerBean timer : paused)
+			assertEquals(50_000, timer.getRemainingMillis());
+		assertEquals(Long.MAX_VALUE, clock.delegate.getNextTime());
+	}
+
+	@Test
+	void testBulkStopPartOfBatch() {
+		final int count = 100;
+		CountingClock clock = new CountingClock(1000);
+		TimerUtils.setClock(clock);
+		TimerGroupBean group = new TimerGroupBean("Group");
+		List<TimerBean> timers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			timers.add(timer("Timer " + i));
+		group.setTimers(timers);
+		group.start();
+		clock.delegate.advance(10_000);
+
+		// Stopping half of a batch leaves the shared deadlines in place for the other half.
+		List<TimerBean> stopped = timers.subList(0, count / 2);
+		TimerBean.stop(stopped);
+		assertEquals(count / 2, group.getCount(TimerState.STOPPED));
+		assertEquals(count / 2, group.getCount(TimerState.RUNNING));
+		clock.delegate.advance(50_000);
+		assertEquals(count / 2, group.getCount(TimerState.COMPLETE));
+		assertEquals(count / 2, group.getCount(TimerState.STOPPED));
+		assertEquals(0.5, group.getProgress(), 1e-9);
+		for (TimerBean timer : stopped) {
+			assertEquals(0, timer.getProgress());
+			assertEquals(60_000, timer.getRemainingMillis());
+		}
+		assertEquals(Long.MAX_VALUE, clock.delegate.getNextTime());
+	}
+}
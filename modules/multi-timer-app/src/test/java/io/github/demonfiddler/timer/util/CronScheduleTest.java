@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+class CronScheduleTest {
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+	private static final TimeZone LONDON = TimeZone.getTimeZone("Europe/London");
+
+	private static long millis(String instant) {
+		return Instant.parse(instant).toEpochMilli();
+	}
+
+	private void checkNext(String expression, TimeZone zone, String after, String expected) {
+		CronSchedule schedule = CronSchedule.parse(expression, zone);
+		assertEquals(Instant.parse(expected), Instant.ofEpochMilli(schedule.next(millis(after))),
+				expression + " after " + after);
+	}
+
+	@Test
+	void testEveryFifteenMinutes() {
+		checkNext("*/15 * * * *", UTC, "2020-06-01T10:00:00Z", "2020-06-01T10:15:00Z");
+		checkNext("*/15 * * * *", UTC, "2020-06-01T10:14:59.999Z", "2020-06-01T10:15:00Z");
+		checkNext("*/15 * * * *", UTC, "2020-06-01T23:50:00Z", "2020-06-02T00:00:00Z");
+	}
+
+	@Test
+	void testWeekdays() {
+		// 2020-06-05 is a Friday.
+		checkNext("0 9 * * MON-FRI", UTC, "2020-06-04T09:00:00Z", "2020-06-05T09:00:00Z");
+		checkNext("0 9 * * 1-5", UTC, "2020-06-05T09:00:00Z", "2020-06-08T09:00:00Z");
+		checkNext("0 9 * * 0", UTC, "2020-06-05T09:00:00Z", "2020-06-07T09:00:00Z");
+		checkNext("0 9 * * 7", UTC, "2020-06-05T09:00:00Z", "2020-06-07T09:00:00Z");
+	}
+
+	@Test
+	void testDayOfMonthOrDayOfWeek() {
+		// Restricting both fields matches either: the 13th or any Friday.
+		checkNext("0 0 13 * FRI", UTC, "2020-06-06T00:00:00Z", "2020-06-12T00:00:00Z");
+		checkNext("0 0 13 * FRI", UTC, "2020-06-12T00:00:00Z", "2020-06-13T00:00:00Z");
+	}
+
+	@Test
+	void testLeapDay() {
+		checkNext("30 12 29 FEB *", UTC, "2021-01-01T00:00:00Z", "2024-02-29T12:30:00Z");
+	}
+
+	@Test
+	void testSparseAcrossMonths() {
+		// Months without a 31st are skipped.
+		checkNext("0 0 31 * *", UTC, "2020-04-15T00:00:00Z", "2020-05-31T00:00:00Z");
+		// The last minute of the month rolls over into the next one, and the year.
+		checkNext("0 0 1 * *", UTC, "2020-12-31T23:59:30Z", "2021-01-01T00:00:00Z");
+		// A matching day whose fire times have passed is skipped.
+		checkNext("0 6 * * MON", UTC, "2020-06-01T07:00:00Z", "2020-06-08T06:00:00Z");
+		checkNext("0 0 13 * FRI", UTC, "2020-06-26T00:00:00Z", "2020-07-03T00:00:00Z");
+		// 2100 is not a leap year.
+		checkNext("0 0 29 2 *", UTC, "2096-03-01T00:00:00Z", "2104-02-29T00:00:00Z");
+		// Either the 1st or a Monday, but only in January.
+		checkNext("0 0 1 1 MON", UTC, "2020-06-01T00:00:00Z", "2021-01-01T00:00:00Z");
+		checkNext("0 0 1 1 MON", UTC, "2021-01-01T00:00:00Z", "2021-01-04T00:00:00Z");
+	}
+
+	@Test
+	void testMacros() {
+		checkNext("@hourly", UTC, "2020-06-01T10:00:00Z", "2020-06-01T11:00:00Z");
+		checkNext("@daily", UTC, "2020-06-01T10:00:00Z", "2020-06-02T00:00:00Z");
+		checkNext("@monthly", UTC, "2020-06-01T10:00:00Z", "2020-07-01T00:00:00Z");
+	}
+
+	@Test
+	void testTimeZone() {
+		// British Summer Time is UTC+1.
+		checkNext("0 9 * * *", LONDON, "2020-06-01T00:00:00Z", "2020-06-01T08:00:00Z");
+		checkNext("0 9 * * *", LONDON, "2020-12-01T00:00:00Z", "2020-12-01T09:00:00Z");
+		// The clocks went forward on 2020-03-29.
+		checkNext("0 9 * * *", LONDON, "2020-03-28T12:00:00Z", "2020-03-29T08:00:00Z");
+	}
+
+	@Test
+	void testMinutesPastTheHour() {
+		CronSchedule schedule = CronSchedule.minutesPastTheHour(20);
+		long now = System.currentTimeMillis();
+		long next = schedule.next(now);
+		assertTrue(next > now && next - now <= 60 * 60 * 1000, "next start not within the hour");
+	}
+
+	@Test
+	void testInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("* * * *"));
+		assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("60 * * * *"));
+		assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("5-1 * * * *"));
+		assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("* * * XYZ *"));
+		assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("0 0 30 2 *"));
+		assertFalse(CronSchedule.isValid("*/0 * * * *"));
+		assertTrue(CronSchedule.isValid("0,30 8-18/2 * JAN-MAR,DEC SAT,SUN"));
+	}
+}
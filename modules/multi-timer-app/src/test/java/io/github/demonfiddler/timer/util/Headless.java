@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+
+/**
+ * Starts the headless Monocle JavaFX toolkit for tests that need the UI
+ * thread, so that they run without a display.
+ */
+public final class Headless {
+	/**
+	 * Starts the toolkit, if not already started.
+	 */
+	public static synchronized void start() {
+		System.setProperty("glass.platform", "Monocle");
+		System.setProperty("monocle.platform", "Headless");
+		System.setProperty("prism.order", "sw");
+		try {
+			Platform.startup(() -> {
+			});
+		} catch (IllegalStateException e) {
+			// Already started.
+		}
+	}
+
+	/**
+	 * Calls a task on the UI thread and waits for its result.
+	 * 
+	 * @param <T>  The result type.
+	 * @param task The task to call.
+	 * @return the task result.
+	 * @throws Exception if the task failed or did not complete within a minute.
+	 */
+	public static <T> T call(Callable<T> task) throws Exception {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Platform.runLater(() -> {
+			try {
+				result.complete(task.call());
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		return result.get(1, TimeUnit.MINUTES);
+	}
+
+	/** Private ctor prevents instantiation. */
+	private Headless() {
+	}
+}
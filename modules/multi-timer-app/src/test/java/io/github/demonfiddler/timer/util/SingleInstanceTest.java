@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.demonfiddler.timer.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SingleInstanceTest {
+	/** The maximum time for a later launch to hand over its files. */
+	private static final long MAX_SEND_MILLIS = 500;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void testHandOff() throws Exception {
+		try (SingleInstance instance = SingleInstance.acquire(dir)) {
+			assertNotNull(instance);
+			assertNull(SingleInstance.acquire(dir), "a second instance acquired the lock");
+			BlockingQueue<List<File>> received = new LinkedBlockingQueue<>();
+			instance.setHandler(received::add);
+
+			List<File> files = List.of(new File("a.timers"), new File("b c.timers"));
+			long start = System.nanoTime();
+			assertTrue(SingleInstance.send(dir, files));
+			long millis = (System.nanoTime() - start) / 1_000_000;
+			System.out.println("Hand-off time: " + millis + " ms");
+			assertTrue(millis <= MAX_SEND_MILLIS, "hand-off took " + millis + " ms");
+			assertEquals(List.of(files.get(0).getAbsoluteFile(), files.get(1).getAbsoluteFile()),
+					received.poll(1, TimeUnit.SECONDS));
+
+			// A launch without files just brings the instance to the front.
+			assertTrue(SingleInstance.send(dir, List.of()));
+			assertEquals(List.of(), received.poll(1, TimeUnit.SECONDS));
+		}
+		// Closing releases the lock for the next instance.
+		try (SingleInstance instance = SingleInstance.acquire(dir)) {
+			assertNotNull(instance);
+		}
+	}
+
+	@Test
+	void testPending() throws Exception {
+		try (SingleInstance instance = SingleInstance.acquire(dir)) {
+			File file = new File("early.timers");
+			assertTrue(SingleInstance.send(dir, List.of(file)));
+			BlockingQueue<List<File>> received = new LinkedBlockingQueue<>();
+			instance.setHandler(received::add);
+			assertEquals(List.of(file.getAbsoluteFile()), received.poll(1, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	void testWrongToken() throws Exception {
+		try (SingleInstance instance = SingleInstance.acquire(dir)) {
+			BlockingQueue<List<File>> received = new LinkedBlockingQueue<>();
+			instance.setHandler(received::add);
+			String[] portAndToken = Files.readString(dir.resolve("instance.port"), UTF_8).trim().split(" ");
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(portAndToken[0]))) {
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), UTF_8);
+				out.write("not-the-token\n" + new File("evil.timers").getAbsolutePath() + '\n');
+				out.flush();
+				socket.shutdownOutput();
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+				assertNull(in.readLine());
+			}
+			assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class UpdateQueueTest {
+	/**
+	 * A clock whose UI thread is stalled: tasks posted to it are held until the
+	 * test runs them.
+	 */
+	static class StalledClock implements Clock {
+		final List<Runnable> uiTasks = new ArrayList<>();
+
+		@Override
+		public long currentTimeMillis() {
+			return 0;
+		}
+
+		@Override
+		public void runLater(Runnable task) {
+			uiTasks.add(task);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+			throw new UnsupportedOperationException();
+		}
+
+		void resume() {
+			List<Runnable> tasks = new ArrayList<>(uiTasks);
+			uiTasks.clear();
+			tasks.forEach(Runnable::run);
+		}
+	}
+
+	@AfterEach
+	void restoreClock() {
+		TimerUtils.setClock(SystemClock.INSTANCE);
+	}
+
+	@Test
+	void testSingleDrainWhileStalled() {
+		StalledClock clock = new StalledClock();
+		TimerUtils.setClock(clock);
+		UpdateQueue queue = new UpdateQueue();
+		List<String> log = new ArrayList<>();
+		queue.post(() -> log.add("A"));
+		queue.post(() -> log.add("B"));
+		queue.post(() -> log.add("C"));
+		assertEquals(1, clock.uiTasks.size(), "more than one drain posted to the UI thread");
+		assertEquals(3, queue.getPendingCount());
+
+		clock.resume();
+		assertEquals(Arrays.asList("A", "B", "C"), log);
+		assertEquals(0, queue.getPendingCount());
+
+		queue.post(() -> log.add("D"));
+		assertEquals(1, clock.uiTasks.size(), "no drain posted after the previous drain");
+	}
+
+	@Test
+	void testPostDuringDrain() {
+		StalledClock clock = new StalledClock();
+		TimerUtils.setClock(clock);
+		UpdateQueue queue = new UpdateQueue();
+		List<String> log = new ArrayList<>();
+		queue.post(() -> {
+			log.add("A");
+			queue.post(() -> log.add("B"));
+		});
+		clock.resume();
+		assertEquals(Arrays.asList("A"), log, "update posted during a drain was applied by that drain");
+		assertEquals(1, queue.getPendingCount());
+		clock.resume();
+		assertEquals(Arrays.asList("A", "B"), log);
+	}
+
+	@Test
+	void testSuspend() {
+		StalledClock clock = new StalledClock();
+		TimerUtils.setClock(clock);
+		UpdateQueue queue = new UpdateQueue();
+		List<String> log = new ArrayList<>();
+		queue.setSuspended(true);
+		queue.post(() -> log.add("A"));
+		queue.post(() -> log.add("B"));
+		assertEquals(0, clock.uiTasks.size(), "drain posted while suspended");
+		assertEquals(2, queue.getPendingCount());
+
+		queue.setSuspended(false);
+		assertEquals(1, clock.uiTasks.size(), "no single drain posted on resuming");
+		clock.resume();
+		assertEquals(Arrays.asList("A", "B"), log);
+
+		// Resuming with nothing pending posts nothing.
+		queue.setSuspended(true);
+		queue.setSuspended(false);
+		assertEquals(0, clock.uiTasks.size());
+	}
+}
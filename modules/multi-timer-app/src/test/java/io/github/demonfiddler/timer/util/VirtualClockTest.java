@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2020 Adrian Price. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.demonfiddler.timer.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class VirtualClockTest {
+	@Test
+	void testOrdering() {
+		VirtualClock clock = new VirtualClock(1000);
+		List<String> log = new ArrayList<>();
+		clock.schedule(() -> log.add("C@" + clock.currentTimeMillis()), 30, TimeUnit.MILLISECONDS);
+		clock.schedule(() -> log.add("A@" + clock.currentTimeMillis()), 10, TimeUnit.MILLISECONDS);
+		clock.schedule(() -> log.add("B@" + clock.currentTimeMillis()), 10, TimeUnit.MILLISECONDS);
+		assertEquals(1010, clock.getNextTime());
+		assertEquals(2, clock.advance(20));
+		assertEquals(1020, clock.currentTimeMillis());
+		assertEquals(Arrays.asList("A@1010", "B@1010"), log, "tasks not run in deadline then submission order");
+		clock.advance(100);
+		assertEquals(Arrays.asList("A@1010", "B@1010", "C@1030"), log);
+		assertEquals(1120, clock.currentTimeMillis());
+	}
+
+	@Test
+	void testPeriodicAndCancel() {
+		VirtualClock clock = new VirtualClock(0);
+		List<Long> ticks = new ArrayList<>();
+		ScheduledFuture<?> future =
+				clock.scheduleAtFixedRate(() -> ticks.add(clock.currentTimeMillis()), 5, 10, TimeUnit.MILLISECONDS);
+		clock.advance(40);
+		assertEquals(Arrays.asList(5L, 15L, 25L, 35L), ticks);
+		assertTrue(future.cancel(false));
+		assertTrue(future.isCancelled());
+		clock.advance(100);
+		assertEquals(4, ticks.size(), "cancelled task still running");
+	}
+
+	@Test
+	void testRunLater() {
+		VirtualClock clock = new VirtualClock(0);
+		List<String> log = new ArrayList<>();
+		clock.schedule(() -> {
+			clock.runLater(() -> log.add("later@" + clock.currentTimeMillis()));
+			log.add("task");
+		}, 10, TimeUnit.MILLISECONDS);
+		clock.schedule(() -> log.add("next@" + clock.currentTimeMillis()), 10, TimeUnit.MILLISECONDS);
+		clock.advance(10);
+		assertEquals(Arrays.asList("task", "later@10", "next@10"), log,
+				"runLater task not run before the next scheduled task");
+	}
+}